@@ -280,13 +280,40 @@ const MaterialDirectoryPage: React.FC<MaterialDirectoryPageProps> = ({
     const file = event.target.files?.[0];
     if (!file) return;
     setImporting(true);
+    const progressToast = toast.loading(`Importing ${file.name}…`);
     try {
-      await dispatch(importMaterials(file)).unwrap();
-      toast.success("Materials imported");
+      const result = await dispatch(
+        importMaterials({
+          file,
+          onProgress: (job) => {
+            const progress =
+              job.status === "QUEUED"
+                ? "queued"
+                : `${Math.floor(job.percentComplete)}% (${job.processedRows}/${job.totalRows} rows)`;
+            toast.loading(`Importing ${job.fileName}: ${progress}`, { id: progressToast });
+          },
+        })
+      ).unwrap();
+      toast.dismiss(progressToast);
+      const summary = `${result.created} created, ${result.updated} updated`;
+      if (result.failed > 0) {
+        const shown = result.errors
+          .slice(0, 3)
+          .map((error) => `Row ${error.row}: ${error.message}`)
+          .join("\n");
+        const more = result.failed - Math.min(result.errors.length, 3);
+        toast(
+          `${summary}, ${result.failed} failed\n${shown}${more > 0 ? `\n…and ${more} more` : ""}`,
+          { icon: "⚠️", duration: 8000 }
+        );
+      } else {
+        toast.success(`Materials imported: ${summary}`);
+      }
       await refreshMaterials();
       onRequestReload?.();
     } catch (err) {
-      toast.error("Unable to import materials");
+      toast.dismiss(progressToast);
+      toast.error(typeof err === "string" ? err : "Unable to import materials");
     } finally {
       setImporting(false);
       event.target.value = "";
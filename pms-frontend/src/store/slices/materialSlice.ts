@@ -1,7 +1,11 @@
 import { createAsyncThunk, createSlice } from "@reduxjs/toolkit";
 import axios from "axios";
 import { Get, Post, Put, Delete } from "../../utils/apiService";
-import type { MaterialDto, PaginatedResponse } from "../../types/backend";
+import type {
+  ImportJobDto,
+  MaterialDto,
+  PaginatedResponse,
+} from "../../types/backend";
 
 // Query string helper
 const toQueryString = (params: Record<string, any> = {}): string => {
@@ -209,22 +213,56 @@ export const exportMaterials = createAsyncThunk<
   }
 });
 
+const IMPORT_POLL_INTERVAL_MS = 1500;
+
+const wait = (ms: number) => new Promise((resolve) => setTimeout(resolve, ms));
+
+export interface ImportMaterialsArgs {
+  file: File;
+  /** Called with every progress update while the job runs. */
+  onProgress?: (job: ImportJobDto) => void;
+}
+
 /**
  * Import materials from Excel file
- * Backend returns List<MaterialDto> directly
+ * Backend queues a background job (/materials/import-jobs) and answers at
+ * once; the job is polled until it completes, which resolves with its
+ * created/updated/failed counts and the first row errors, or fails.
  */
 export const importMaterials = createAsyncThunk<
-  any,
-  File,
+  ImportJobDto,
+  ImportMaterialsArgs,
   { rejectValue: string }
->("materials/import", async (file, { rejectWithValue }) => {
+>("materials/import", async ({ file, onProgress }, { rejectWithValue }) => {
   try {
     const form = new FormData();
     form.append("file", file);
-    return await Post("/materials/import", form);
+    let job = await Post<ImportJobDto, FormData>("/materials/import-jobs", form);
+    onProgress?.(job);
+    while (job.status === "QUEUED" || job.status === "RUNNING") {
+      await wait(IMPORT_POLL_INTERVAL_MS);
+      job = await Get<ImportJobDto>(`/materials/import-jobs/${job.id}`, undefined, {}, false);
+      onProgress?.(job);
+    }
+    if (job.status === "FAILED") {
+      return rejectWithValue(job.errorMessage || "Unable to import materials");
+    }
+    if (job.created + job.updated === 0 && job.failed > 0) {
+      const first = job.errors?.[0];
+      let message = `No materials imported: ${job.failed} row(s) failed`;
+      if (first) {
+        message += ` (row ${first.row}: ${first.message})`;
+      }
+      return rejectWithValue(message);
+    }
+    return job;
   } catch (err: unknown) {
-    const message =
-      err instanceof Error ? err.message : "Unable to import materials";
+    let message = "Unable to import materials";
+    if (axios.isAxiosError(err) && err.response?.data) {
+      message = err.response.data.message || err.response.data.error || message;
+    } else if (err instanceof Error) {
+      message = err.message;
+    }
     return rejectWithValue(message);
   }
 });
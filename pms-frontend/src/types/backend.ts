@@ -40,6 +40,120 @@ export interface AnalyticsDto {
   totalUsers: number;
   totalReceivedQty: number;
   totalUtilizedQty: number;
+  pendingInwards?: number;
+  pendingOutwards?: number;
+  categories?: {
+    category: string | null;
+    materials: number;
+    receivedQty: number;
+    utilizedQty: number;
+    balanceQty: number;
+  }[];
+  topMovers?: {
+    materialId: string;
+    code: string;
+    name: string;
+    unit?: string | null;
+    issuedQty: number;
+    outwardCount: number;
+  }[];
+  topMoverDays?: number;
+  generatedAt?: string;
+}
+
+export interface MovementSeriesPointDto {
+  period: string; // yyyy-MM-dd, first day of the period
+  orderedQty: number;
+  receivedQty: number;
+  issuedQty: number;
+  transferredInQty: number;
+  transferredOutQty: number;
+}
+
+export interface StockOutForecastDto {
+  materialId: string;
+  code?: string | null;
+  name?: string | null;
+  unit?: string | null;
+  allocatedQty: number;
+  issuedQty: number;
+  balanceQty: number;
+  remainingAllocationQty: number;
+  dailyRate: number;
+  daysOfCover?: number | null;
+  stockOutDate?: string | null; // yyyy-MM-dd
+  shortfallQty: number;
+  lastIssueDate?: string | null;
+  atRisk: boolean;
+}
+
+export interface StockAlertDto {
+  id: string;
+  projectId: string;
+  projectCode?: string | null;
+  materialId: string;
+  materialCode?: string | null;
+  materialName?: string | null;
+  type: "LOW_STOCK" | "OVER_ALLOCATION";
+  status: "OPEN" | "RESOLVED";
+  balanceQty: number;
+  allocatedQty: number;
+  issuedQty: number;
+  thresholdQty: number;
+  message?: string | null;
+  triggeredAt?: string | null;
+  resolvedAt?: string | null;
+}
+
+export interface StockAlertRuleDto {
+  id: string;
+  projectId?: string | null;
+  materialId?: string | null;
+  category?: string | null;
+  lowStockQty?: number | null;
+  overAllocationPct?: number | null;
+  enabled: boolean;
+  updatedAt?: string | null;
+}
+
+export interface StockAgeingBucketDto {
+  label: string;
+  minDays: number;
+  maxDays?: number | null;
+  qty: number;
+  value: number;
+}
+
+export interface MaterialValuationDto {
+  materialId: string;
+  code?: string | null;
+  name?: string | null;
+  unit?: string | null;
+  qty: number;
+  value: number;
+  averageUnitCost: number;
+  oldestReceivedDate: string; // yyyy-MM-dd
+  oldestAgeDays: number;
+  bucketQty: number[]; // same order as StockValuationDto.buckets
+}
+
+export interface StockValuationDto {
+  projectId: string;
+  projectCode?: string | null;
+  asOf: string;
+  totalQty: number;
+  totalValue: number;
+  buckets: StockAgeingBucketDto[];
+  materials: MaterialValuationDto[];
+}
+
+export interface MovementSeriesDto {
+  granularity: "day" | "week" | "month";
+  from: string;
+  to: string;
+  projectId?: string | null;
+  materialId?: string | null;
+  points: MovementSeriesPointDto[];
 }
 
 export interface ProjectDto {
@@ -71,6 +185,42 @@ export interface MaterialDto {
   balanceQty?: number;
 }
 
+export interface ImportRowErrorDto {
+  row: number;
+  message: string;
+}
+
+export interface MaterialImportResultDto {
+  processedRows: number;
+  created: number;
+  updated: number;
+  failed: number;
+  errors: ImportRowErrorDto[];
+  errorsTruncated: boolean;
+}
+
+export type ImportJobStatus = "QUEUED" | "RUNNING" | "COMPLETED" | "FAILED";
+
+export interface ImportJobDto {
+  id: string;
+  status: ImportJobStatus;
+  fileName: string;
+  totalRows: number;
+  processedRows: number;
+  created: number;
+  updated: number;
+  failed: number;
+  lastCommittedRow: number;
+  percentComplete: number;
+  etaSeconds?: number | null;
+  attempts: number;
+  errors: ImportRowErrorDto[];
+  errorMessage?: string | null;
+  createdAt: string;
+  startedAt?: string | null;
+  finishedAt?: string | null;
+}
+
 export interface OutwardLineRequest {
   materialId: string | number;
   issueQty: number;
@@ -91,6 +241,7 @@ export interface InwardLineRequest {
   materialId: string | number;
   orderedQty: number;
   receivedQty: number;
+  unitPrice?: number | null;
 }
 
 export interface InwardRequest {
@@ -115,6 +266,7 @@ export interface PaginatedResponse<T> {
   hasNext: boolean;
   hasPrevious: boolean;
   filters: Record<string, string[]>;
+  facets?: Record<string, { value: string; count: number }[]>;
 }
 
 export interface ProjectActivityEntryDto {
@@ -1,6 +1,7 @@
 package com.vebops.store.config;
 
 import com.vebops.store.security.AzureAdAuthenticationFilter;
+import com.vebops.store.security.CurrentUserArgumentResolver;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -11,6 +12,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -21,17 +23,30 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
-public class WebConfig {
+public class WebConfig implements WebMvcConfigurer {
 
     @Value("${app.cors.allowed-origins:*}")
     private String allowedOrigins;
 
     private final AzureAdAuthenticationFilter azureAdAuthenticationFilter;
+    // Looked up lazily: the resolver depends on AuthService, which needs the
+    // PasswordEncoder defined here.
+    private final ObjectProvider<CurrentUserArgumentResolver> currentUserArgumentResolver;
 
-    public WebConfig(AzureAdAuthenticationFilter azureAdAuthenticationFilter) {
+    public WebConfig(
+            AzureAdAuthenticationFilter azureAdAuthenticationFilter,
+            ObjectProvider<CurrentUserArgumentResolver> currentUserArgumentResolver) {
         this.azureAdAuthenticationFilter = azureAdAuthenticationFilter;
+        this.currentUserArgumentResolver = currentUserArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver.getObject());
     }
 
     @Bean
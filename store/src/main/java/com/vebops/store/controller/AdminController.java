@@ -3,6 +3,8 @@ package com.vebops.store.controller;
 import com.vebops.store.dto.AnalyticsDto;
 import com.vebops.store.dto.CreateProjectRequest;
 import com.vebops.store.dto.CreateUserRequest;
+import com.vebops.store.dto.MaterialReconciliationReportDto;
+import com.vebops.store.dto.MovementRollupRebuildDto;
 import com.vebops.store.dto.PaginatedResponse;
 import com.vebops.store.dto.ProjectActivityDto;
 import com.vebops.store.dto.ProjectDetailsDto;
@@ -11,17 +13,25 @@ import com.vebops.store.dto.ProjectTeamAssignmentRequest;
 import com.vebops.store.dto.UpdateProjectRequest;
 import com.vebops.store.dto.UpdateUserRequest;
 import com.vebops.store.dto.UserDto;
+import com.vebops.store.exception.NotFoundException;
 import com.vebops.store.exception.UnauthorizedException;
 import com.vebops.store.model.Permission;
 import com.vebops.store.model.Role;
 import com.vebops.store.model.UserAccount;
+import com.vebops.store.service.AccessScopeService;
 import com.vebops.store.service.AdminService;
+import com.vebops.store.service.MaterialMovementRollup;
+import com.vebops.store.service.MaterialReconciliationService;
 import com.vebops.store.repository.UserRepository;
+import com.vebops.store.security.AuthenticatedUserCache;
+import com.vebops.store.security.VerifiedTokenCache;
 import com.vebops.store.util.AuthUtils;
 import org.springframework.beans.factory.annotation.Value;
 import com.vebops.store.service.AuthService;
+import java.time.LocalDate;
 import java.util.List;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -39,13 +49,32 @@ public class AdminController {
     private final AuthService authService;
     private final AdminService adminService;
     private final UserRepository userRepository;
+    private final MaterialReconciliationService materialReconciliationService;
+    private final MaterialMovementRollup movementRollup;
+    private final AccessScopeService accessScopeService;
+    private final AuthenticatedUserCache userCache;
+    private final VerifiedTokenCache verifiedTokenCache;
     @Value("${azure.ad.admin-email:}")
     private String configuredAdminEmail;
 
-    public AdminController(AuthService authService, AdminService adminService, UserRepository userRepository) {
+    public AdminController(
+        AuthService authService,
+        AdminService adminService,
+        UserRepository userRepository,
+        MaterialReconciliationService materialReconciliationService,
+        MaterialMovementRollup movementRollup,
+        AccessScopeService accessScopeService,
+        AuthenticatedUserCache userCache,
+        VerifiedTokenCache verifiedTokenCache
+    ) {
         this.authService = authService;
         this.adminService = adminService;
         this.userRepository = userRepository;
+        this.materialReconciliationService = materialReconciliationService;
+        this.movementRollup = movementRollup;
+        this.accessScopeService = accessScopeService;
+        this.userCache = userCache;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     /**
@@ -73,6 +102,8 @@ public class AdminController {
             });
         target.setRole(Role.ADMIN);
         userRepository.save(target);
+        accessScopeService.invalidateUser(target.getId());
+        userCache.evict(target.getId());
         return authService.toUserDto(target);
     }
 
@@ -192,4 +223,43 @@ public class AdminController {
         AuthUtils.requireAdminOrPermission(Permission.ADMIN_ACCESS);
         return adminService.projectActivityOverview();
     }
+
+    /**
+     * Recomputes material counters from inward/outward lines. With
+     * {@code correct=true} drifted counters are rewritten as well.
+     */
+    @PostMapping("/materials/reconcile")
+    public MaterialReconciliationReportDto reconcileMaterials(
+        @RequestParam(name = "correct", defaultValue = "false") boolean correct
+    ) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return materialReconciliationService.reconcile(correct);
+    }
+
+    @GetMapping("/materials/reconcile/last")
+    public MaterialReconciliationReportDto lastMaterialReconciliation() {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return materialReconciliationService
+            .lastReport()
+            .orElseThrow(() -> new NotFoundException("No material reconciliation has run yet"));
+    }
+
+    /**
+     * Rebuilds the daily movement rollup from the inward, outward and
+     * transfer lines. Without dates the whole history is rebuilt.
+     */
+    @PostMapping("/movements/rebuild")
+    public MovementRollupRebuildDto rebuildMovementRollup(
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return movementRollup.rebuild(from, to);
+    }
+
+    @GetMapping("/auth/token-cache")
+    public VerifiedTokenCache.TokenCacheStats tokenCacheStats() {
+        AuthUtils.requireAdminOrPermission(Permission.ADMIN_ACCESS);
+        return verifiedTokenCache.stats();
+    }
 }
@@ -0,0 +1,82 @@
+package com.vebops.store.controller;
+
+import com.vebops.store.dto.PaginatedResponse;
+import com.vebops.store.dto.StockAlertDto;
+import com.vebops.store.dto.StockAlertRuleDto;
+import com.vebops.store.dto.StockAlertRuleRequest;
+import com.vebops.store.model.Permission;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.service.AuthService;
+import com.vebops.store.service.StockAlertEngine;
+import com.vebops.store.service.StockAlertRuleService;
+import com.vebops.store.util.AuthUtils;
+import java.util.List;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+
+    private final AuthService authService;
+    private final StockAlertEngine stockAlertEngine;
+    private final StockAlertRuleService stockAlertRuleService;
+
+    public AlertController(
+        AuthService authService,
+        StockAlertEngine stockAlertEngine,
+        StockAlertRuleService stockAlertRuleService
+    ) {
+        this.authService = authService;
+        this.stockAlertEngine = stockAlertEngine;
+        this.stockAlertRuleService = stockAlertRuleService;
+    }
+
+    /**
+     * Stock alerts of the projects the caller can see, most recently updated
+     * first. {@code status} is OPEN or RESOLVED, {@code type} LOW_STOCK or
+     * OVER_ALLOCATION.
+     */
+    @GetMapping
+    public PaginatedResponse<StockAlertDto> listAlerts(
+        @RequestParam(name = "status", required = false) String status,
+        @RequestParam(name = "type", required = false) String type,
+        @RequestParam(name = "projectId", required = false) String projectId,
+        @RequestParam(name = "page", defaultValue = "1") int page,
+        @RequestParam(name = "size", defaultValue = "20") int size
+    ) {
+        UserAccount user = authService.getUserById(AuthUtils.requireUserId());
+        return stockAlertEngine.listAlerts(user, status, type, projectId, page, size);
+    }
+
+    @GetMapping("/rules")
+    public List<StockAlertRuleDto> listRules() {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return stockAlertRuleService.listRules();
+    }
+
+    @PostMapping("/rules")
+    public StockAlertRuleDto createRule(@RequestBody StockAlertRuleRequest request) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return stockAlertRuleService.createRule(request);
+    }
+
+    @PutMapping("/rules/{id}")
+    public StockAlertRuleDto updateRule(@PathVariable Long id, @RequestBody StockAlertRuleRequest request) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return stockAlertRuleService.updateRule(id, request);
+    }
+
+    @DeleteMapping("/rules/{id}")
+    public void deleteRule(@PathVariable Long id) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        stockAlertRuleService.deleteRule(id);
+    }
+}
@@ -1,9 +1,13 @@
 package com.vebops.store.controller;
 
+import com.vebops.store.dto.AllocationMatrixRowDto;
 import com.vebops.store.dto.AllocationOverviewDto;
 import com.vebops.store.dto.BomAllocationRequest;
+import com.vebops.store.dto.BomBatchRequest;
+import com.vebops.store.dto.BomBatchResultDto;
 import com.vebops.store.dto.BomLineDto;
 import com.vebops.store.dto.PaginatedResponse;
+import com.vebops.store.dto.StockOutForecastDto;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.ForbiddenException;
 import com.vebops.store.model.AccessType;
@@ -11,10 +15,17 @@ import com.vebops.store.model.Permission;
 import com.vebops.store.model.Project;
 import com.vebops.store.model.Role;
 import com.vebops.store.model.UserAccount;
+import com.vebops.store.service.AllocationMatrixService;
 import com.vebops.store.service.AuthService;
+import com.vebops.store.service.BomBatchService;
 import com.vebops.store.service.BomService;
+import com.vebops.store.service.ConsumptionForecastService;
 import com.vebops.store.util.AuthUtils;
+import com.vebops.store.util.ExcelExport;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
+import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -25,17 +36,32 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 @RestController
 @RequestMapping("/api/bom")
 public class BomController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AuthService authService;
     private final BomService bomService;
+    private final BomBatchService bomBatchService;
+    private final AllocationMatrixService allocationMatrixService;
+    private final ConsumptionForecastService consumptionForecastService;
 
-    public BomController(AuthService authService, BomService bomService) {
+    public BomController(
+        AuthService authService,
+        BomService bomService,
+        BomBatchService bomBatchService,
+        AllocationMatrixService allocationMatrixService,
+        ConsumptionForecastService consumptionForecastService
+    ) {
         this.authService = authService;
         this.bomService = bomService;
+        this.bomBatchService = bomBatchService;
+        this.allocationMatrixService = allocationMatrixService;
+        this.consumptionForecastService = consumptionForecastService;
     }
 
     /**
@@ -47,6 +73,7 @@ public class BomController {
      * @param projectId the project identifier (required)
      * @param page optional 1‑based page number (defaults to 1)
      * @param size optional page size (defaults to 10)
+     * @param sort optional sort such as {@code balanceQty,desc}
      * @return a paginated response containing BOM lines for the project
      */
     @GetMapping("/projects/{projectId}")
@@ -55,11 +82,43 @@ public class BomController {
         @RequestParam(name = "page", defaultValue = "1") int page,
         @RequestParam(name = "size", defaultValue = "10") int size,
         @RequestParam(name = "search", required = false) String search,
-        @RequestParam(name = "inStockOnly", defaultValue = "false") boolean inStockOnly
+        @RequestParam(name = "inStockOnly", defaultValue = "false") boolean inStockOnly,
+        @RequestParam(name = "sort", required = false) String sort
+    ) {
+        UserAccount user = requireUser();
+        requireProjectAccess(user, projectId);
+        return bomService.listLines(projectId, page, size, search, inStockOnly, sort);
+    }
+
+    @GetMapping(value = "/projects/{projectId}/export", produces = ExcelExport.CONTENT_TYPE)
+    public void exportLines(@PathVariable String projectId, HttpServletResponse response) throws IOException {
+        UserAccount user = requireUser();
+        requireProjectAccess(user, projectId);
+        ExcelExport.prepareResponse(response, "bom-" + projectId + ".xlsx");
+        bomService.exportLines(projectId, response.getOutputStream());
+    }
+
+    /**
+     * Materials of the project ranked by projected stock-out, soonest first.
+     * By default only those running out within {@code horizonDays} while
+     * allocation remains; {@code all=true} lists every consumed material.
+     */
+    @GetMapping("/projects/{projectId}/at-risk")
+    public List<StockOutForecastDto> atRisk(
+        @PathVariable String projectId,
+        @RequestParam(name = "horizonDays", defaultValue = "30") int horizonDays,
+        @RequestParam(name = "limit", defaultValue = "50") int limit,
+        @RequestParam(name = "all", defaultValue = "false") boolean all
     ) {
         UserAccount user = requireUser();
         requireProjectAccess(user, projectId);
-        return bomService.listLines(projectId, page, size, search, inStockOnly);
+        Long id;
+        try {
+            id = Long.parseLong(projectId.trim());
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Project id is invalid");
+        }
+        return consumptionForecastService.forecast(id, Math.max(0, horizonDays), Math.min(limit, 500), all);
     }
 
     @GetMapping("/allocations")
@@ -70,6 +129,32 @@ public class BomController {
         return bomService.listAllocations(search);
     }
 
+    /**
+     * Project × material allocation matrix, paged by material. Search matches
+     * material or project code and name.
+     */
+    @GetMapping("/allocations/matrix")
+    public PaginatedResponse<AllocationMatrixRowDto> allocationMatrix(
+        @RequestParam(name = "search", required = false) String search,
+        @RequestParam(name = "page", defaultValue = "1") int page,
+        @RequestParam(name = "size", defaultValue = "20") int size
+    ) {
+        AuthUtils.requireAdminOrPermission(Permission.ALLOCATED_MATERIALS_VIEW, Permission.MATERIAL_ALLOCATION);
+        return allocationMatrixService.matrix(search, page, size);
+    }
+
+    /** The full matrix as newline-delimited JSON, one material per line. */
+    @GetMapping(value = "/allocations/matrix/stream", produces = NDJSON)
+    public void streamAllocationMatrix(
+        @RequestParam(name = "search", required = false) String search,
+        HttpServletResponse response
+    ) throws IOException {
+        AuthUtils.requireAdminOrPermission(Permission.ALLOCATED_MATERIALS_VIEW, Permission.MATERIAL_ALLOCATION);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        allocationMatrixService.streamMatrix(search, response.getOutputStream());
+    }
+
     @PostMapping("/projects/{projectId}/materials")
     public BomLineDto createLine(
         @PathVariable String projectId,
@@ -87,6 +172,33 @@ public class BomController {
         return bomService.assignQuantity(resolvedProjectId, resolvedMaterialId, quantity);
     }
 
+    /**
+     * Creates, updates and (with {@code replace}) removes many allocations in
+     * one transaction. Nothing is written if any line is invalid.
+     */
+    @PostMapping("/projects/{projectId}/materials/batch")
+    public BomBatchResultDto applyBatch(
+        @PathVariable String projectId,
+        @RequestBody BomBatchRequest request
+    ) {
+        UserAccount user = requireUser();
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_ALLOCATION);
+        requireProjectAccess(user, projectId);
+        return bomBatchService.applyBatch(projectId, request);
+    }
+
+    @PostMapping(value = "/projects/{projectId}/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public BomBatchResultDto importLines(
+        @PathVariable String projectId,
+        @RequestParam("file") MultipartFile file,
+        @RequestParam(name = "replace", defaultValue = "false") boolean replace
+    ) {
+        UserAccount user = requireUser();
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_ALLOCATION);
+        requireProjectAccess(user, projectId);
+        return bomBatchService.importFile(projectId, file, replace);
+    }
+
     @PutMapping("/projects/{projectId}/materials/{materialId}")
     public BomLineDto assignQuantity(
         @PathVariable String projectId,
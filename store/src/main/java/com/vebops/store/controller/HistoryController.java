@@ -7,7 +7,6 @@ import com.vebops.store.dto.TransferRecordDto;
 import com.vebops.store.dto.InwardLineDto;
 import com.vebops.store.dto.OutwardLineDto;
 import com.vebops.store.dto.TransferLineDto;
-import com.vebops.store.model.AccessType;
 import com.vebops.store.model.InwardLine;
 import com.vebops.store.model.InwardRecord;
 import com.vebops.store.model.Material;
@@ -19,17 +18,19 @@ import com.vebops.store.model.TransferRecord;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.repository.InwardRecordRepository;
 import com.vebops.store.repository.OutwardRecordRepository;
-import com.vebops.store.repository.ProjectRepository;
 import com.vebops.store.repository.TransferRecordRepository;
-import com.vebops.store.service.AuthService;
-import com.vebops.store.util.AuthUtils;
+import com.vebops.store.security.CurrentUser;
+import com.vebops.store.service.AccessScopeService;
+import com.vebops.store.service.ExcelExportService;
+import com.vebops.store.util.ExcelExport;
+import com.vebops.store.util.ProjectScope;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -54,65 +55,31 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/history")
 public class HistoryController {
 
-    private final AuthService authService;
-    private final ProjectRepository projectRepository;
     private final InwardRecordRepository inwardRecordRepository;
     private final OutwardRecordRepository outwardRecordRepository;
     private final TransferRecordRepository transferRecordRepository;
-    private final com.vebops.store.repository.ProjectTeamMemberRepository projectTeamMemberRepository;
+    private final AccessScopeService accessScopeService;
+    private final ExcelExportService excelExportService;
 
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
 
     public HistoryController(
-            AuthService authService,
-            ProjectRepository projectRepository,
             InwardRecordRepository inwardRecordRepository,
             OutwardRecordRepository outwardRecordRepository,
             TransferRecordRepository transferRecordRepository,
-            com.vebops.store.repository.ProjectTeamMemberRepository projectTeamMemberRepository) {
-        this.authService = authService;
-        this.projectRepository = projectRepository;
+            AccessScopeService accessScopeService,
+            ExcelExportService excelExportService) {
         this.inwardRecordRepository = inwardRecordRepository;
         this.outwardRecordRepository = outwardRecordRepository;
         this.transferRecordRepository = transferRecordRepository;
-        this.projectTeamMemberRepository = projectTeamMemberRepository;
+        this.accessScopeService = accessScopeService;
+        this.excelExportService = excelExportService;
     }
 
     // ... methods ...
 
-    private Set<Long> resolveAllowedProjectIds(UserAccount user) {
-        // Users with ALL access can see all projects
-        if (user.getAccessType() == AccessType.ALL || user.getRole() == com.vebops.store.model.Role.ADMIN) {
-            return projectRepository
-                    .findAll()
-                    .stream()
-                    .map(Project::getId)
-                    .collect(Collectors.toSet());
-        }
-
-        // 1. Explicit assignments
-        Set<Long> allowed = user.getProjects()
-                .stream()
-                .map(Project::getId)
-                .collect(Collectors.toSet());
-
-        // 2. Team assignments
-        projectTeamMemberRepository.findByUser_Id(user.getId())
-                .stream()
-                .map(ptm -> ptm.getProject().getId())
-                .forEach(allowed::add);
-
-        // 3. Project Manager match (Name or Email) - Iterate all to check string match
-        // This is necessary because project manager reference is loose (string).
-        projectRepository.findAll().stream()
-                .filter(p -> {
-                    String pm = p.getProjectManager();
-                    return pm != null && (pm.equalsIgnoreCase(user.getName()) || pm.equalsIgnoreCase(user.getEmail()));
-                })
-                .map(Project::getId)
-                .forEach(allowed::add);
-
-        return allowed;
+    private ProjectScope resolveAllowedProjectIds(UserAccount user) {
+        return accessScopeService.resolveScope(user);
     }
 
     /**
@@ -132,6 +99,7 @@ public class HistoryController {
      */
     @GetMapping("/inwards")
     public PaginatedResponse<InwardHistoryDto> getInwards(
+            @CurrentUser UserAccount user,
             @RequestParam(name = "page", defaultValue = "1") int page,
             @RequestParam(name = "size", defaultValue = "10") int size,
             @RequestParam(name = "projectId", required = false) Long projectId,
@@ -140,9 +108,7 @@ public class HistoryController {
             @RequestParam(name = "invoiceNo", required = false) String invoiceNo,
             @RequestParam(name = "startDate", required = false) String startDate,
             @RequestParam(name = "endDate", required = false) String endDate) {
-        Long userId = AuthUtils.requireUserId();
-        UserAccount user = authService.getUserById(userId);
-        Set<Long> allowedProjectIds = resolveAllowedProjectIds(user);
+        ProjectScope allowedProjectIds = resolveAllowedProjectIds(user);
         int safePage = sanitizePage(page);
         int safeSize = sanitizeSize(size);
 
@@ -151,7 +117,7 @@ public class HistoryController {
             if (!allowedProjectIds.contains(projectId)) {
                 return emptyResponse(safePage, safeSize);
             }
-            allowedProjectIds = Collections.singleton(projectId);
+            allowedProjectIds = ProjectScope.of(projectId);
         }
 
         if (allowedProjectIds.isEmpty()) {
@@ -161,7 +127,7 @@ public class HistoryController {
         // Parse filter dates
         final LocalDate startLocalDate = parseDateOrNull(startDate);
         final LocalDate endLocalDate = parseDateOrNull(endDate);
-        final Set<Long> scopedProjectIds = allowedProjectIds;
+        final ProjectScope scopedProjectIds = allowedProjectIds;
 
         List<InwardHistoryDto> dtos = inwardRecordRepository
                 .findAllByOrderByEntryDateDesc()
@@ -192,6 +158,7 @@ public class HistoryController {
      */
     @GetMapping("/outwards")
     public PaginatedResponse<OutwardRegisterDto> getOutwards(
+            @CurrentUser UserAccount user,
             @RequestParam(name = "page", defaultValue = "1") int page,
             @RequestParam(name = "size", defaultValue = "10") int size,
             @RequestParam(name = "projectId", required = false) Long projectId,
@@ -200,9 +167,7 @@ public class HistoryController {
             @RequestParam(name = "jobNo", required = false) String jobNo,
             @RequestParam(name = "startDate", required = false) String startDate,
             @RequestParam(name = "endDate", required = false) String endDate) {
-        Long userId = AuthUtils.requireUserId();
-        UserAccount user = authService.getUserById(userId);
-        Set<Long> allowedProjectIds = resolveAllowedProjectIds(user);
+        ProjectScope allowedProjectIds = resolveAllowedProjectIds(user);
         int safePage = sanitizePage(page);
         int safeSize = sanitizeSize(size);
 
@@ -212,7 +177,7 @@ public class HistoryController {
                 // User doesn't have access to this project
                 return emptyResponse(safePage, safeSize);
             }
-            allowedProjectIds = Collections.singleton(projectId);
+            allowedProjectIds = ProjectScope.of(projectId);
         }
 
         if (allowedProjectIds.isEmpty()) {
@@ -221,7 +186,7 @@ public class HistoryController {
         // Parse filter dates
         final LocalDate startLocalDate = parseDateOrNull(startDate);
         final LocalDate endLocalDate = parseDateOrNull(endDate);
-        final Set<Long> scopedProjectIds = allowedProjectIds;
+        final ProjectScope scopedProjectIds = allowedProjectIds;
 
         List<OutwardRegisterDto> dtos = outwardRecordRepository
                 .findAllByOrderByEntryDateDesc()
@@ -252,6 +217,7 @@ public class HistoryController {
      */
     @GetMapping("/transfers")
     public PaginatedResponse<TransferRecordDto> getTransfers(
+            @CurrentUser UserAccount user,
             @RequestParam(name = "page", defaultValue = "1") int page,
             @RequestParam(name = "size", defaultValue = "10") int size,
             @RequestParam(name = "projectId", required = false) Long projectId,
@@ -260,9 +226,7 @@ public class HistoryController {
             @RequestParam(name = "toProject", required = false) String toProject,
             @RequestParam(name = "startDate", required = false) String startDate,
             @RequestParam(name = "endDate", required = false) String endDate) {
-        Long userId = AuthUtils.requireUserId();
-        UserAccount user = authService.getUserById(userId);
-        Set<Long> allowedProjectIds = resolveAllowedProjectIds(user);
+        ProjectScope allowedProjectIds = resolveAllowedProjectIds(user);
         int safePage = sanitizePage(page);
         int safeSize = sanitizeSize(size);
 
@@ -272,7 +236,7 @@ public class HistoryController {
                 // User doesn't have access to this project
                 return emptyResponse(safePage, safeSize);
             }
-            allowedProjectIds = Collections.singleton(projectId);
+            allowedProjectIds = ProjectScope.of(projectId);
         }
 
         if (allowedProjectIds.isEmpty()) {
@@ -281,7 +245,7 @@ public class HistoryController {
         // Parse filter dates
         final LocalDate startLocalDate = parseDateOrNull(startDate);
         final LocalDate endLocalDate = parseDateOrNull(endDate);
-        final Set<Long> scopedProjectIds = allowedProjectIds;
+        final ProjectScope scopedProjectIds = allowedProjectIds;
 
         List<TransferRecordDto> dtos = transferRecordRepository
                 .findAllByOrderByTransferDateDesc()
@@ -300,8 +264,66 @@ public class HistoryController {
         return toPaginatedResponse(buildPageFromList(dtos, safePage, safeSize));
     }
 
+    /**
+     * Streams the inward register (one row per line) as an Excel sheet,
+     * limited to the caller's projects and optionally one project and an
+     * entry date range.
+     */
+    @GetMapping(value = "/inwards/export", produces = ExcelExport.CONTENT_TYPE)
+    public void exportInwards(
+            @CurrentUser UserAccount user,
+            @RequestParam(name = "projectId", required = false) Long projectId,
+            @RequestParam(name = "startDate", required = false) String startDate,
+            @RequestParam(name = "endDate", required = false) String endDate,
+            HttpServletResponse response) throws IOException {
+        ProjectScope scope = exportScope(user, projectId);
+        ExcelExport.prepareResponse(response, "inwards.xlsx");
+        excelExportService.exportInwards(
+                scope, parseDateOrNull(startDate), parseDateOrNull(endDate), response.getOutputStream());
+    }
+
+    /**
+     * Streams the outward register (one row per line) as an Excel sheet.
+     */
+    @GetMapping(value = "/outwards/export", produces = ExcelExport.CONTENT_TYPE)
+    public void exportOutwards(
+            @CurrentUser UserAccount user,
+            @RequestParam(name = "projectId", required = false) Long projectId,
+            @RequestParam(name = "startDate", required = false) String startDate,
+            @RequestParam(name = "endDate", required = false) String endDate,
+            HttpServletResponse response) throws IOException {
+        ProjectScope scope = exportScope(user, projectId);
+        ExcelExport.prepareResponse(response, "outwards.xlsx");
+        excelExportService.exportOutwards(
+                scope, parseDateOrNull(startDate), parseDateOrNull(endDate), response.getOutputStream());
+    }
+
+    /**
+     * Streams the transfer register (one row per line) as an Excel sheet.
+     */
+    @GetMapping(value = "/transfers/export", produces = ExcelExport.CONTENT_TYPE)
+    public void exportTransfers(
+            @CurrentUser UserAccount user,
+            @RequestParam(name = "projectId", required = false) Long projectId,
+            @RequestParam(name = "startDate", required = false) String startDate,
+            @RequestParam(name = "endDate", required = false) String endDate,
+            HttpServletResponse response) throws IOException {
+        ProjectScope scope = exportScope(user, projectId);
+        ExcelExport.prepareResponse(response, "transfers.xlsx");
+        excelExportService.exportTransfers(
+                scope, parseDateOrNull(startDate), parseDateOrNull(endDate), response.getOutputStream());
+    }
+
     // ---- Helpers ----
 
+    private ProjectScope exportScope(UserAccount user, Long projectId) {
+        ProjectScope scope = resolveAllowedProjectIds(user);
+        if (projectId == null) {
+            return scope;
+        }
+        return scope.contains(projectId) ? ProjectScope.of(projectId) : ProjectScope.NONE;
+    }
+
     private <T> PaginatedResponse<T> emptyResponse(int page, int size) {
         return toPaginatedResponse(buildPageFromList(Collections.emptyList(), page, size));
     }
@@ -355,6 +377,7 @@ public class HistoryController {
             dto.setUnit(mat != null ? mat.getUnit() : null);
             dto.setOrderedQty(line.getOrderedQty());
             dto.setReceivedQty(line.getReceivedQty());
+            dto.setUnitPrice(line.getUnitPrice());
             lines.add(dto);
         }
         Project project = record.getProject();
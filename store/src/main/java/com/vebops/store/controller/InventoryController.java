@@ -2,11 +2,15 @@ package com.vebops.store.controller;
 
 import com.vebops.store.dto.InventoryCodesResponse;
 import com.vebops.store.dto.InwardRequest;
+import com.vebops.store.dto.MovementSeriesDto;
 import com.vebops.store.dto.OutwardRequest;
+import com.vebops.store.dto.StockValuationDto;
 import com.vebops.store.dto.TransferRequest;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.service.AuthService;
 import com.vebops.store.service.InventoryService;
+import com.vebops.store.service.MovementSeriesService;
+import com.vebops.store.service.StockValuationService;
 import com.vebops.store.util.AuthUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +19,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -25,10 +30,19 @@ public class InventoryController {
 
     private final InventoryService inventoryService;
     private final AuthService authService;
+    private final MovementSeriesService movementSeriesService;
+    private final StockValuationService stockValuationService;
 
-    public InventoryController(InventoryService inventoryService, AuthService authService) {
+    public InventoryController(
+        InventoryService inventoryService,
+        AuthService authService,
+        MovementSeriesService movementSeriesService,
+        StockValuationService stockValuationService
+    ) {
         this.inventoryService = inventoryService;
         this.authService = authService;
+        this.movementSeriesService = movementSeriesService;
+        this.stockValuationService = stockValuationService;
     }
 
     @GetMapping("/inventory/codes")
@@ -37,6 +51,33 @@ public class InventoryController {
         return inventoryService.generateCodes();
     }
 
+    /**
+     * Ordered, received, issued and transferred quantities per day, week or
+     * month, optionally for one project and/or material. Without a project
+     * the totals cover every project the user can access.
+     */
+    @GetMapping("/inventory/movements/series")
+    public MovementSeriesDto movementSeries(
+        @RequestParam(name = "granularity", defaultValue = "day") String granularity,
+        @RequestParam(name = "from", required = false) String from,
+        @RequestParam(name = "to", required = false) String to,
+        @RequestParam(name = "projectId", required = false) String projectId,
+        @RequestParam(name = "materialId", required = false) String materialId
+    ) {
+        UserAccount user = authService.getUserById(AuthUtils.requireUserId());
+        return movementSeriesService.series(user, granularity, from, to, projectId, materialId);
+    }
+
+    /**
+     * Stock on hand in a project valued at FIFO cost, with totals per ageing
+     * bucket (days since receipt) and per material.
+     */
+    @GetMapping("/inventory/valuation")
+    public StockValuationDto valuation(@RequestParam(name = "projectId") String projectId) {
+        UserAccount user = authService.getUserById(AuthUtils.requireUserId());
+        return stockValuationService.valuation(user, projectId);
+    }
+
     @PostMapping("/inwards")
     public ResponseEntity<Void> createInward(
         @RequestBody InwardRequest request
@@ -1,6 +1,7 @@
 package com.vebops.store.controller;
 
 import com.vebops.store.dto.InwardLineDto;
+import com.vebops.store.dto.InwardLineQuantityUpdate;
 import com.vebops.store.dto.InwardRecordDto;
 import com.vebops.store.model.InwardLine;
 import com.vebops.store.model.InwardRecord;
@@ -8,8 +9,10 @@ import com.vebops.store.model.Material;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.repository.InwardRecordRepository;
 import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.service.AnalyticsSnapshotService;
 import com.vebops.store.service.AuthService;
 import com.vebops.store.service.AppDataService;
+import com.vebops.store.service.InventoryService;
 import com.vebops.store.util.AuthUtils;
 import java.util.List;
 import java.util.Map;
@@ -38,16 +41,22 @@ public class InwardController {
     private final InwardRecordRepository inwardRecordRepository;
     private final MaterialRepository materialRepository;
     private final AppDataService appDataService;
+    private final AnalyticsSnapshotService analyticsSnapshotService;
+    private final InventoryService inventoryService;
 
     public InwardController(
             AuthService authService,
             InwardRecordRepository inwardRecordRepository,
             MaterialRepository materialRepository,
-            AppDataService appDataService) {
+            AppDataService appDataService,
+            AnalyticsSnapshotService analyticsSnapshotService,
+            InventoryService inventoryService) {
         this.authService = authService;
         this.inwardRecordRepository = inwardRecordRepository;
         this.materialRepository = materialRepository;
         this.appDataService = appDataService;
+        this.analyticsSnapshotService = analyticsSnapshotService;
+        this.inventoryService = inventoryService;
     }
 
     /**
@@ -119,26 +128,12 @@ public class InwardController {
                     .body(Map.of("error", "Cannot update validated record"));
         }
 
-        // Update lines
-        if (request.getLines() != null) {
-            for (UpdateLineRequest lineUpdate : request.getLines()) {
-                InwardLine line = record.getLines().stream()
-                        .filter(l -> l.getId().equals(lineUpdate.getId()))
-                        .findFirst()
-                        .orElse(null);
-
-                if (line != null) {
-                    if (lineUpdate.getOrderedQty() != null) {
-                        line.setOrderedQty(lineUpdate.getOrderedQty());
-                    }
-                    if (lineUpdate.getReceivedQty() != null) {
-                        line.setReceivedQty(lineUpdate.getReceivedQty());
-                    }
-                }
-            }
-        }
-
-        InwardRecord saved = inwardRecordRepository.save(record);
+        List<InwardLineQuantityUpdate> updates = request.getLines() == null
+                ? List.of()
+                : request.getLines().stream()
+                        .map(line -> new InwardLineQuantityUpdate(line.getId(), line.getOrderedQty(), line.getReceivedQty()))
+                        .toList();
+        InwardRecord saved = inventoryService.updateInwardLineQuantities(id, updates);
         InwardRecordDto dto = convertToDto(saved, saved.getLines());
         return ResponseEntity.ok(dto);
     }
@@ -177,6 +172,7 @@ public class InwardController {
 
         record.setValidated(true);
         InwardRecord saved = inwardRecordRepository.save(record);
+        analyticsSnapshotService.invalidate();
         InwardRecordDto dto = convertToDto(saved, saved.getLines());
         return ResponseEntity.ok(dto);
     }
@@ -209,6 +205,7 @@ public class InwardController {
                     }
                     lineDto.setOrderedQty(line.getOrderedQty());
                     lineDto.setReceivedQty(line.getReceivedQty());
+                    lineDto.setUnitPrice(line.getUnitPrice());
                     return lineDto;
                 })
                 .collect(Collectors.toList());
@@ -1,14 +1,26 @@
 package com.vebops.store.controller;
 
+import com.vebops.store.dto.ImportJobDto;
 import com.vebops.store.dto.MaterialDto;
+import com.vebops.store.dto.MaterialImportResultDto;
 import com.vebops.store.dto.MaterialRequest;
+import com.vebops.store.dto.MaterialSuggestionDto;
 import com.vebops.store.dto.PaginatedResponse;
 import com.vebops.store.model.Permission;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.security.CurrentUser;
 import com.vebops.store.service.AuthService;
+import com.vebops.store.service.ExcelExportService;
+import com.vebops.store.service.ImportJobService;
+import com.vebops.store.service.MaterialImportService;
 import com.vebops.store.service.MaterialService;
 import com.vebops.store.util.AuthUtils;
+import com.vebops.store.util.ExcelExport;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,23 +31,30 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-
+import java.io.IOException;
 import java.util.List;
 
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-
-
 @RestController
 @RequestMapping("/api/materials")
 public class MaterialController {
 
     private final MaterialService materialService;
+    private final MaterialImportService materialImportService;
+    private final ExcelExportService excelExportService;
+    private final ImportJobService importJobService;
     private final AuthService authService;
 
-    public MaterialController(MaterialService materialService, AuthService authService) {
+    public MaterialController(
+        MaterialService materialService,
+        MaterialImportService materialImportService,
+        ExcelExportService excelExportService,
+        ImportJobService importJobService,
+        AuthService authService
+    ) {
         this.materialService = materialService;
+        this.materialImportService = materialImportService;
+        this.excelExportService = excelExportService;
+        this.importJobService = importJobService;
         this.authService = authService;
     }
 
@@ -68,6 +87,19 @@ public class MaterialController {
         return list(page, size, search, categories, units, lineTypes, projectId, allocation);
     }
 
+    /**
+     * Ranked suggestions for the material picker, served from the in-memory
+     * search index.
+     */
+    @GetMapping("/autocomplete")
+    public List<MaterialSuggestionDto> autocomplete(
+        @RequestParam(name = "q", required = false) String query,
+        @RequestParam(name = "limit", defaultValue = "10") int limit
+    ) {
+        AuthUtils.requireUserId(); // Ensures user is authenticated
+        return materialService.suggest(query, limit);
+    }
+
     @PostMapping
     public MaterialDto create(@Valid @RequestBody MaterialRequest request) {
         AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
@@ -90,25 +122,47 @@ public class MaterialController {
     }
 
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public List<MaterialDto> importMaterials(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<MaterialImportResultDto> importMaterials(@RequestParam("file") MultipartFile file) {
         AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
-        return materialService.importMaterials(file);
+        MaterialImportResultDto result = materialImportService.importMaterials(file);
+        // Every row failed: still send the row errors, but not as a success.
+        HttpStatus status = result.created() + result.updated() == 0 ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK;
+        return ResponseEntity.status(status).body(result);
     }
 
-    @GetMapping(value = "/export", produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-    public ResponseEntity<byte[]> exportMaterials() {
-        AuthUtils.requireUserId(); // Ensures user is authenticated
+    /**
+     * Queues a background import and returns the job immediately; poll
+     * {@code /import-jobs/{id}} for progress.
+     */
+    @PostMapping(value = "/import-jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobDto> startImportJob(@RequestParam("file") MultipartFile file) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        Long userId = AuthUtils.requireUserId();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.submit(file, userId));
+    }
 
-        byte[] bytes = materialService.exportMaterials();
+    @GetMapping("/import-jobs")
+    public List<ImportJobDto> listImportJobs(@CurrentUser UserAccount user) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return importJobService.recentJobs(user);
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(
-            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-        );
-        headers.setContentDispositionFormData("attachment", "materials.xlsx");
-        headers.setContentLength(bytes.length);
+    @GetMapping("/import-jobs/{id}")
+    public ImportJobDto getImportJob(@PathVariable Long id, @CurrentUser UserAccount user) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return importJobService.status(id, user);
+    }
 
-        return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+    @PostMapping("/import-jobs/{id}/resume")
+    public ResponseEntity<ImportJobDto> resumeImportJob(@PathVariable Long id, @CurrentUser UserAccount user) {
+        AuthUtils.requireAdminOrPermission(Permission.MATERIAL_MANAGEMENT);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.resume(id, user));
     }
 
+    @GetMapping(value = "/export", produces = ExcelExport.CONTENT_TYPE)
+    public void exportMaterials(HttpServletResponse response) throws IOException {
+        AuthUtils.requireUserId(); // Ensures user is authenticated
+        ExcelExport.prepareResponse(response, "materials.xlsx");
+        excelExportService.exportMaterials(response.getOutputStream());
+    }
 }
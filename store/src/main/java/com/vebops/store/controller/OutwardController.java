@@ -1,6 +1,7 @@
 package com.vebops.store.controller;
 
 import com.vebops.store.dto.OutwardLineDto;
+import com.vebops.store.dto.OutwardLineQuantityUpdate;
 import com.vebops.store.dto.OutwardRegisterDto;
 import com.vebops.store.model.Material;
 import com.vebops.store.model.OutwardLine;
@@ -9,8 +10,10 @@ import com.vebops.store.model.Project;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.repository.MaterialRepository;
 import com.vebops.store.repository.OutwardRecordRepository;
+import com.vebops.store.service.AnalyticsSnapshotService;
 import com.vebops.store.service.AuthService;
 import com.vebops.store.service.AppDataService;
+import com.vebops.store.service.InventoryService;
 import com.vebops.store.util.AuthUtils;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -43,16 +46,22 @@ public class OutwardController {
     private final OutwardRecordRepository outwardRecordRepository;
     private final MaterialRepository materialRepository;
     private final AppDataService appDataService;
+    private final AnalyticsSnapshotService analyticsSnapshotService;
+    private final InventoryService inventoryService;
 
     public OutwardController(
             AuthService authService,
             OutwardRecordRepository outwardRecordRepository,
             MaterialRepository materialRepository,
-            AppDataService appDataService) {
+            AppDataService appDataService,
+            AnalyticsSnapshotService analyticsSnapshotService,
+            InventoryService inventoryService) {
         this.authService = authService;
         this.outwardRecordRepository = outwardRecordRepository;
         this.materialRepository = materialRepository;
         this.appDataService = appDataService;
+        this.analyticsSnapshotService = analyticsSnapshotService;
+        this.inventoryService = inventoryService;
     }
 
     /**
@@ -151,21 +160,12 @@ public class OutwardController {
                     .body(Map.of("error", "Cannot update validated record"));
         }
 
-        // Update lines
-        if (request.getLines() != null) {
-            for (UpdateLineRequest lineUpdate : request.getLines()) {
-                OutwardLine line = record.getLines().stream()
-                        .filter(l -> l.getId().equals(lineUpdate.getId()))
-                        .findFirst()
-                        .orElse(null);
-
-                if (line != null && lineUpdate.getIssueQty() != null) {
-                    line.setIssueQty(lineUpdate.getIssueQty());
-                }
-            }
-        }
-
-        OutwardRecord saved = outwardRecordRepository.save(record);
+        List<OutwardLineQuantityUpdate> updates = request.getLines() == null
+                ? List.of()
+                : request.getLines().stream()
+                        .map(line -> new OutwardLineQuantityUpdate(line.getId(), line.getIssueQty()))
+                        .toList();
+        OutwardRecord saved = inventoryService.updateOutwardLineQuantities(id, updates);
         OutwardRegisterDto dto = convertToDto(saved, saved.getLines());
         return ResponseEntity.ok(dto);
     }
@@ -204,6 +204,7 @@ public class OutwardController {
 
         record.setValidated(true);
         OutwardRecord saved = outwardRecordRepository.save(record);
+        analyticsSnapshotService.invalidate();
         OutwardRegisterDto dto = convertToDto(saved, saved.getLines());
         return ResponseEntity.ok(dto);
     }
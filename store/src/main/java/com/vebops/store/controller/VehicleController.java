@@ -4,12 +4,19 @@ import com.vebops.store.dto.*;
 import com.vebops.store.model.EntryStatus;
 import com.vebops.store.model.FuelType;
 import com.vebops.store.model.UserAccount;
+import com.vebops.store.security.CurrentUser;
+import com.vebops.store.service.AccessScopeService;
 import com.vebops.store.service.AppDataService;
 import com.vebops.store.service.AuthService;
+import com.vebops.store.service.ExcelExportService;
 import com.vebops.store.service.FuelManagementService;
 import com.vebops.store.service.VehicleService;
 import com.vebops.store.util.AuthUtils;
+import com.vebops.store.util.ExcelExport;
+import com.vebops.store.util.ProjectScope;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import org.springframework.http.HttpStatus;
@@ -24,16 +31,22 @@ public class VehicleController {
     private final FuelManagementService fuelManagementService;
     private final AuthService authService;
     private final AppDataService appDataService;
+    private final AccessScopeService accessScopeService;
+    private final ExcelExportService excelExportService;
 
     public VehicleController(
             VehicleService vehicleService,
             FuelManagementService fuelManagementService,
             AuthService authService,
-            AppDataService appDataService) {
+            AppDataService appDataService,
+            AccessScopeService accessScopeService,
+            ExcelExportService excelExportService) {
         this.vehicleService = vehicleService;
         this.fuelManagementService = fuelManagementService;
         this.authService = authService;
         this.appDataService = appDataService;
+        this.accessScopeService = accessScopeService;
+        this.excelExportService = excelExportService;
     }
 
     // Vehicle endpoints
@@ -103,6 +116,25 @@ public class VehicleController {
         return ResponseEntity.ok(fuelManagementService.getAllFuelEntries());
     }
 
+    /**
+     * Streams fuel entries from the caller's projects as an Excel sheet,
+     * optionally narrowed to one project and a date range.
+     */
+    @GetMapping(value = "/fuel-entries/export", produces = ExcelExport.CONTENT_TYPE)
+    public void exportFuelEntries(
+            @CurrentUser UserAccount user,
+            @RequestParam(required = false) Long projectId,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            HttpServletResponse response) throws IOException {
+        ProjectScope scope = accessScopeService.resolveScope(user);
+        if (projectId != null) {
+            scope = scope.contains(projectId) ? ProjectScope.of(projectId) : ProjectScope.NONE;
+        }
+        ExcelExport.prepareResponse(response, "fuel-entries.xlsx");
+        excelExportService.exportFuelEntries(scope, startDate, endDate, response.getOutputStream());
+    }
+
     @GetMapping("/fuel-entries/project/{projectId}")
     public ResponseEntity<List<FuelEntryDto>> getFuelEntriesByProject(
             @PathVariable Long projectId,
@@ -0,0 +1,12 @@
+package com.vebops.store.dto;
+
+/** One project's figures for a material in the allocation matrix. */
+public record AllocationMatrixCellDto(
+    String projectId,
+    String projectCode,
+    String projectName,
+    double allocatedQty,
+    double receivedQty,
+    double issuedQty,
+    double balanceQty
+) {}
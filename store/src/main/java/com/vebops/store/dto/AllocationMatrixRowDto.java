@@ -0,0 +1,20 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/**
+ * A material's allocations across projects, with totals over the listed
+ * projects. Balances never go below zero per project.
+ */
+public record AllocationMatrixRowDto(
+    String materialId,
+    String materialCode,
+    String materialName,
+    String category,
+    String unit,
+    List<AllocationMatrixCellDto> projects,
+    double allocatedQty,
+    double receivedQty,
+    double issuedQty,
+    double balanceQty
+) {}
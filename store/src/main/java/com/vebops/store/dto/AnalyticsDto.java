@@ -1,9 +1,23 @@
 package com.vebops.store.dto;
 
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Admin dashboard figures. {@code topMovers} covers the last
+ * {@code topMoverDays} days; {@code generatedAt} is when the snapshot was
+ * computed.
+ */
 public record AnalyticsDto(
     long totalProjects,
     long totalMaterials,
     long totalUsers,
     double totalReceivedQty,
-    double totalUtilizedQty
+    double totalUtilizedQty,
+    long pendingInwards,
+    long pendingOutwards,
+    List<CategoryTotalsDto> categories,
+    List<TopMoverDto> topMovers,
+    int topMoverDays,
+    Instant generatedAt
 ) {}
@@ -0,0 +1,4 @@
+package com.vebops.store.dto;
+
+/** One allocation in a batch; the material is given by id or by code. */
+public record BomBatchLine(String materialId, String materialCode, double quantity) {}
@@ -0,0 +1,10 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/**
+ * Allocations to apply to a project's BOM in one go. With {@code replace}
+ * set, lines for materials not listed are removed, so the batch becomes the
+ * whole BOM.
+ */
+public record BomBatchRequest(List<BomBatchLine> lines, boolean replace) {}
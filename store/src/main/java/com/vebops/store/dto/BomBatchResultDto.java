@@ -0,0 +1,19 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a BOM batch. A batch is all-or-nothing: when any line is invalid
+ * nothing is written, {@code applied} is false and {@code errors} lists the
+ * problems (capped, see {@code errorsTruncated}). Rows are 1-based positions
+ * in the request, or sheet rows for uploads.
+ */
+public record BomBatchResultDto(
+    int created,
+    int updated,
+    int deleted,
+    int unchanged,
+    boolean applied,
+    List<ImportRowErrorDto> errors,
+    boolean errorsTruncated
+) {}
@@ -0,0 +1,9 @@
+package com.vebops.store.dto;
+
+public record CategoryTotalsDto(
+    String category,
+    long materials,
+    double receivedQty,
+    double utilizedQty,
+    double balanceQty
+) {}
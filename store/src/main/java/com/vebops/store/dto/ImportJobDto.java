@@ -0,0 +1,27 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/**
+ * Progress of a background import. {@code etaSeconds} is only present while
+ * the job is running and has committed at least one batch in this attempt.
+ */
+public record ImportJobDto(
+    String id,
+    String status,
+    String fileName,
+    int totalRows,
+    int processedRows,
+    int created,
+    int updated,
+    int failed,
+    int lastCommittedRow,
+    double percentComplete,
+    Long etaSeconds,
+    int attempts,
+    List<ImportRowErrorDto> errors,
+    String errorMessage,
+    String createdAt,
+    String startedAt,
+    String finishedAt
+) {}
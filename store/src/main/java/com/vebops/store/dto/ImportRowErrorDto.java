@@ -0,0 +1,7 @@
+package com.vebops.store.dto;
+
+/**
+ * A spreadsheet row that could not be imported. {@code row} is the 1-based
+ * row number as shown in Excel.
+ */
+public record ImportRowErrorDto(int row, String message) {}
@@ -11,6 +11,7 @@ public class InwardLineDto {
     private String unit;
     private double orderedQty;
     private double receivedQty;
+    private Double unitPrice;
 
     public Long getId() {
         return id;
@@ -67,4 +68,12 @@ public class InwardLineDto {
     public void setReceivedQty(double receivedQty) {
         this.receivedQty = receivedQty;
     }
+
+    public Double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(Double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
 }
@@ -0,0 +1,3 @@
+package com.vebops.store.dto;
+
+public record InwardLineQuantityUpdate(Long lineId, Double orderedQty, Double receivedQty) {}
@@ -1,3 +1,3 @@
 package com.vebops.store.dto;
 
-public record InwardLineRequest(String materialId, double orderedQty, double receivedQty) {}
+public record InwardLineRequest(String materialId, double orderedQty, double receivedQty, Double unitPrice) {}
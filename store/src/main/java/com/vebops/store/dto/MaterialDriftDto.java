@@ -0,0 +1,19 @@
+package com.vebops.store.dto;
+
+/**
+ * Difference between the counters stored on a material and the values derived
+ * from its inward and outward lines.
+ */
+public record MaterialDriftDto(
+    String materialId,
+    String code,
+    String name,
+    double storedOrderedQty,
+    double actualOrderedQty,
+    double storedReceivedQty,
+    double actualReceivedQty,
+    double storedUtilizedQty,
+    double actualUtilizedQty,
+    double storedBalanceQty,
+    double actualBalanceQty
+) {}
@@ -0,0 +1,16 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/**
+ * Summary of a material spreadsheet import. {@code errors} is capped; when
+ * more rows failed than are listed, {@code errorsTruncated} is set.
+ */
+public record MaterialImportResultDto(
+    int processedRows,
+    int created,
+    int updated,
+    int failed,
+    List<ImportRowErrorDto> errors,
+    boolean errorsTruncated
+) {}
@@ -0,0 +1,17 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a material aggregate reconciliation run.
+ */
+public record MaterialReconciliationReportDto(
+    String startedAt,
+    String finishedAt,
+    int materialsScanned,
+    int chunks,
+    int driftedMaterials,
+    int correctedMaterials,
+    boolean correctionApplied,
+    List<MaterialDriftDto> drifts
+) {}
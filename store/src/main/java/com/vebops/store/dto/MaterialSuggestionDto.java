@@ -0,0 +1,4 @@
+package com.vebops.store.dto;
+
+/** A material picker suggestion, best match first. */
+public record MaterialSuggestionDto(String id, String code, String name, String partNo, String category, String unit) {}
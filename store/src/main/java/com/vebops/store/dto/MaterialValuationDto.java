@@ -0,0 +1,20 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/**
+ * FIFO valuation of one material's stock in a project. {@code bucketQty}
+ * follows the order of {@link StockValuationDto#buckets()}.
+ */
+public record MaterialValuationDto(
+    String materialId,
+    String code,
+    String name,
+    String unit,
+    double qty,
+    double value,
+    double averageUnitCost,
+    String oldestReceivedDate,
+    long oldestAgeDays,
+    List<Double> bucketQty
+) {}
@@ -0,0 +1,13 @@
+package com.vebops.store.dto;
+
+/**
+ * Outcome of a daily movement rollup backfill.
+ */
+public record MovementRollupRebuildDto(
+    String startedAt,
+    String finishedAt,
+    String from,
+    String to,
+    int chunks,
+    long rowsWritten
+) {}
@@ -0,0 +1,13 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/** Daily, weekly or monthly movement totals over a date range, gaps included as zeros. */
+public record MovementSeriesDto(
+    String granularity,
+    String from,
+    String to,
+    String projectId,
+    String materialId,
+    List<MovementSeriesPointDto> points
+) {}
@@ -0,0 +1,15 @@
+package com.vebops.store.dto;
+
+/**
+ * Movement totals for one period of a time series. {@code period} is the
+ * first day of the period (ISO date); received and issued include the
+ * receipts and issues that transfers create.
+ */
+public record MovementSeriesPointDto(
+    String period,
+    double orderedQty,
+    double receivedQty,
+    double issuedQty,
+    double transferredInQty,
+    double transferredOutQty
+) {}
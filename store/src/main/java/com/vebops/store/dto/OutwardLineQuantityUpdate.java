@@ -0,0 +1,3 @@
+package com.vebops.store.dto;
+
+public record OutwardLineQuantityUpdate(Long lineId, Double issueQty) {}
@@ -11,5 +11,19 @@ public record PaginatedResponse<T>(
     int number,
     boolean hasNext,
     boolean hasPrevious,
-    Map<String, List<String>> filters
-) {}
+    Map<String, List<String>> filters,
+    Map<String, List<FacetCountDto>> facets
+) {
+    public PaginatedResponse(
+        List<T> content,
+        long totalElements,
+        int totalPages,
+        int size,
+        int number,
+        boolean hasNext,
+        boolean hasPrevious,
+        Map<String, List<String>> filters
+    ) {
+        this(content, totalElements, totalPages, size, number, hasNext, hasPrevious, filters, Map.of());
+    }
+}
@@ -0,0 +1,4 @@
+package com.vebops.store.dto;
+
+/** Stock whose receipt age in days lies in {@code [minDays, maxDays]}; {@code maxDays} is null for the open-ended bucket. */
+public record StockAgeingBucketDto(String label, int minDays, Integer maxDays, double qty, double value) {}
@@ -0,0 +1,19 @@
+package com.vebops.store.dto;
+
+public record StockAlertDto(
+    String id,
+    String projectId,
+    String projectCode,
+    String materialId,
+    String materialCode,
+    String materialName,
+    String type,
+    String status,
+    double balanceQty,
+    double allocatedQty,
+    double issuedQty,
+    double thresholdQty,
+    String message,
+    String triggeredAt,
+    String resolvedAt
+) {}
@@ -0,0 +1,12 @@
+package com.vebops.store.dto;
+
+public record StockAlertRuleDto(
+    String id,
+    String projectId,
+    String materialId,
+    String category,
+    Double lowStockQty,
+    Double overAllocationPct,
+    boolean enabled,
+    String updatedAt
+) {}
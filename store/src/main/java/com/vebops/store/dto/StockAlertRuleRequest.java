@@ -0,0 +1,10 @@
+package com.vebops.store.dto;
+
+public record StockAlertRuleRequest(
+    String projectId,
+    String materialId,
+    String category,
+    Double lowStockQty,
+    Double overAllocationPct,
+    Boolean enabled
+) {}
@@ -0,0 +1,25 @@
+package com.vebops.store.dto;
+
+/**
+ * Burn rate and projected stock-out of one material in a project. The rate
+ * is a time-decayed daily average of non-transfer issues; {@code daysOfCover}
+ * and {@code stockOutDate} are {@code null} when nothing is being consumed.
+ * {@code shortfallQty} is how much of the remaining allocation the current
+ * balance cannot cover.
+ */
+public record StockOutForecastDto(
+    String materialId,
+    String code,
+    String name,
+    String unit,
+    double allocatedQty,
+    double issuedQty,
+    double balanceQty,
+    double remainingAllocationQty,
+    double dailyRate,
+    Double daysOfCover,
+    String stockOutDate,
+    double shortfallQty,
+    String lastIssueDate,
+    boolean atRisk
+) {}
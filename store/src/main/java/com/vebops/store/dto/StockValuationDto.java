@@ -0,0 +1,14 @@
+package com.vebops.store.dto;
+
+import java.util.List;
+
+/** Stock on hand in a project valued at FIFO cost, with ageing by receipt date. */
+public record StockValuationDto(
+    String projectId,
+    String projectCode,
+    String asOf,
+    double totalQty,
+    double totalValue,
+    List<StockAgeingBucketDto> buckets,
+    List<MaterialValuationDto> materials
+) {}
@@ -0,0 +1,11 @@
+package com.vebops.store.dto;
+
+/** A material ranked by quantity issued over the analytics window. */
+public record TopMoverDto(
+    String materialId,
+    String code,
+    String name,
+    String unit,
+    double issuedQty,
+    long outwardCount
+) {}
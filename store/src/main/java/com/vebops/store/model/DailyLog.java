@@ -5,7 +5,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "daily_logs")
+@Table(
+    name = "daily_logs",
+    indexes = @Index(name = "idx_daily_logs_vehicle_status_date", columnList = "vehicle_id, status, date")
+)
 public class DailyLog {
 
     @Id
@@ -5,7 +5,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "fuel_entries")
+@Table(
+    name = "fuel_entries",
+    indexes = @Index(name = "idx_fuel_entries_vehicle_status_date", columnList = "vehicle_id, status, date")
+)
 public class FuelEntry {
 
     @Id
@@ -0,0 +1,8 @@
+package com.vebops.store.model;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
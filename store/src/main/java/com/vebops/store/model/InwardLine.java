@@ -27,6 +27,7 @@ public class InwardLine {
 
     private double orderedQty;
     private double receivedQty;
+    private Double unitPrice;
 
     public Long getId() {
         return id;
@@ -63,4 +64,12 @@ public class InwardLine {
     public void setReceivedQty(double receivedQty) {
         this.receivedQty = receivedQty;
     }
+
+    public Double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(Double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
 }
@@ -0,0 +1,104 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Running consumption of one material in one project. {@code decayedQty} is
+ * the exponentially time-decayed sum of issued quantities as of
+ * {@code lastIssueDate}; it is updated in place with a native upsert on every
+ * issue, so the rate never has to be recomputed from the outward history.
+ */
+@Entity
+@IdClass(MaterialConsumptionStat.Key.class)
+@Table(name = "material_consumption_stats")
+public class MaterialConsumptionStat {
+
+    @Id
+    private Long projectId;
+
+    @Id
+    private Long materialId;
+
+    @Column(nullable = false)
+    private double decayedQty;
+
+    @Column(nullable = false)
+    private LocalDate firstIssueDate;
+
+    @Column(nullable = false)
+    private LocalDate lastIssueDate;
+
+    @Column(nullable = false)
+    private double totalIssuedQty;
+
+    @Column(nullable = false)
+    private long issueCount;
+
+    protected MaterialConsumptionStat() {}
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public Long getMaterialId() {
+        return materialId;
+    }
+
+    public double getDecayedQty() {
+        return decayedQty;
+    }
+
+    public LocalDate getFirstIssueDate() {
+        return firstIssueDate;
+    }
+
+    public LocalDate getLastIssueDate() {
+        return lastIssueDate;
+    }
+
+    public double getTotalIssuedQty() {
+        return totalIssuedQty;
+    }
+
+    public long getIssueCount() {
+        return issueCount;
+    }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long projectId;
+        private Long materialId;
+
+        public Key() {}
+
+        public Key(Long projectId, Long materialId) {
+            this.projectId = projectId;
+            this.materialId = materialId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(projectId, key.projectId) && Objects.equals(materialId, key.materialId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, materialId);
+        }
+    }
+}
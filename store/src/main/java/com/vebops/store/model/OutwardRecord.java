@@ -39,6 +39,10 @@ public class OutwardRecord {
     @Column(nullable = false)
     private boolean validated = false;
 
+    /** Set on the outward side of a transfer, whose issues move stock rather than consume it. */
+    @Column(nullable = false)
+    private boolean transferOut = false;
+
     @OneToMany(mappedBy = "record", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OutwardLine> lines = new ArrayList<>();
 
@@ -112,6 +116,14 @@ public class OutwardRecord {
         this.validated = validated;
     }
 
+    public boolean isTransferOut() {
+        return transferOut;
+    }
+
+    public void setTransferOut(boolean transferOut) {
+        this.transferOut = transferOut;
+    }
+
     public List<OutwardLine> getLines() {
         return lines;
     }
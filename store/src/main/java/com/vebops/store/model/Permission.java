@@ -1,16 +1,71 @@
 package com.vebops.store.model;
 
+import java.util.Collection;
+import java.util.EnumSet;
+
 /**
  * Fine-grained permissions that can be attached to non-admin users.
  * Admin users implicitly have all permissions.
+ *
+ * Each permission owns a fixed bit in {@code users.permission_mask}. Bits are
+ * persisted, so never renumber an existing constant; new permissions take the
+ * next free bit.
  */
 public enum Permission {
-    ADMIN_ACCESS,
-    USER_MANAGEMENT,
-    PROJECT_MANAGEMENT,
-    MATERIAL_MANAGEMENT,
-    MATERIAL_ALLOCATION,
-    ALLOCATED_MATERIALS_VIEW,
-    INVENTORY_OPERATIONS,
-    VEHICLE_MANAGEMENT
+    ADMIN_ACCESS(0),
+    USER_MANAGEMENT(1),
+    PROJECT_MANAGEMENT(2),
+    MATERIAL_MANAGEMENT(3),
+    MATERIAL_ALLOCATION(4),
+    ALLOCATED_MATERIALS_VIEW(5),
+    INVENTORY_OPERATIONS(6),
+    VEHICLE_MANAGEMENT(7);
+
+    private static final long ALL_MASK = maskOf(EnumSet.allOf(Permission.class));
+
+    private final long mask;
+
+    Permission(int bit) {
+        this.mask = 1L << bit;
+    }
+
+    public long mask() {
+        return mask;
+    }
+
+    public static long maskOf(Collection<Permission> permissions) {
+        long result = 0L;
+        if (permissions != null) {
+            for (Permission permission : permissions) {
+                if (permission != null) {
+                    result |= permission.mask;
+                }
+            }
+        }
+        return result;
+    }
+
+    public static long maskOf(Permission... permissions) {
+        long result = 0L;
+        for (Permission permission : permissions) {
+            if (permission != null) {
+                result |= permission.mask;
+            }
+        }
+        return result;
+    }
+
+    public static EnumSet<Permission> fromMask(long mask) {
+        EnumSet<Permission> result = EnumSet.noneOf(Permission.class);
+        for (Permission permission : values()) {
+            if ((mask & permission.mask) != 0) {
+                result.add(permission);
+            }
+        }
+        return result;
+    }
+
+    public static long allMask() {
+        return ALL_MASK;
+    }
 }
@@ -0,0 +1,183 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A triggered stock alert for one material in one project. At most one alert
+ * per project, material and type is open at a time; it is refreshed while
+ * the condition holds and resolved once it clears.
+ */
+@Entity
+@Table(
+    name = "stock_alerts",
+    indexes = {
+        @Index(name = "idx_stock_alerts_pair", columnList = "projectId, materialId, status"),
+        @Index(name = "idx_stock_alerts_status", columnList = "status, notifiedAt"),
+    }
+)
+public class StockAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long projectId;
+
+    @Column(nullable = false)
+    private Long materialId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 24)
+    private StockAlertType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private StockAlertStatus status = StockAlertStatus.OPEN;
+
+    private Long ruleId;
+
+    private double balanceQty;
+
+    private double allocatedQty;
+
+    private double issuedQty;
+
+    private double thresholdQty;
+
+    @Column(length = 500)
+    private String message;
+
+    private Instant triggeredAt;
+
+    private Instant updatedAt;
+
+    private Instant resolvedAt;
+
+    private Instant notifiedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Long getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(Long materialId) {
+        this.materialId = materialId;
+    }
+
+    public StockAlertType getType() {
+        return type;
+    }
+
+    public void setType(StockAlertType type) {
+        this.type = type;
+    }
+
+    public StockAlertStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(StockAlertStatus status) {
+        this.status = status;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(Long ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public double getBalanceQty() {
+        return balanceQty;
+    }
+
+    public void setBalanceQty(double balanceQty) {
+        this.balanceQty = balanceQty;
+    }
+
+    public double getAllocatedQty() {
+        return allocatedQty;
+    }
+
+    public void setAllocatedQty(double allocatedQty) {
+        this.allocatedQty = allocatedQty;
+    }
+
+    public double getIssuedQty() {
+        return issuedQty;
+    }
+
+    public void setIssuedQty(double issuedQty) {
+        this.issuedQty = issuedQty;
+    }
+
+    public double getThresholdQty() {
+        return thresholdQty;
+    }
+
+    public void setThresholdQty(double thresholdQty) {
+        this.thresholdQty = thresholdQty;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Instant getTriggeredAt() {
+        return triggeredAt;
+    }
+
+    public void setTriggeredAt(Instant triggeredAt) {
+        this.triggeredAt = triggeredAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getResolvedAt() {
+        return resolvedAt;
+    }
+
+    public void setResolvedAt(Instant resolvedAt) {
+        this.resolvedAt = resolvedAt;
+    }
+
+    public Instant getNotifiedAt() {
+        return notifiedAt;
+    }
+
+    public void setNotifiedAt(Instant notifiedAt) {
+        this.notifiedAt = notifiedAt;
+    }
+}
@@ -0,0 +1,117 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Alert thresholds for a scope. A rule may name a project, a material or a
+ * material category (material and category are exclusive); unset scope
+ * fields match everything. For each threshold the most specific enabled rule
+ * that sets it applies.
+ */
+@Entity
+@Table(name = "stock_alert_rules")
+public class StockAlertRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long projectId;
+
+    private Long materialId;
+
+    @Column(length = 128)
+    private String category;
+
+    /** Alert when the project balance is at or below this while allocation remains to be issued. */
+    private Double lowStockQty;
+
+    /** Alert when ordered, received or issued exceeds the allocation by more than this percentage. */
+    private Double overAllocationPct;
+
+    @Column(nullable = false)
+    private boolean enabled = true;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public Long getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(Long materialId) {
+        this.materialId = materialId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Double getLowStockQty() {
+        return lowStockQty;
+    }
+
+    public void setLowStockQty(Double lowStockQty) {
+        this.lowStockQty = lowStockQty;
+    }
+
+    public Double getOverAllocationPct() {
+        return overAllocationPct;
+    }
+
+    public void setOverAllocationPct(Double overAllocationPct) {
+        this.overAllocationPct = overAllocationPct;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
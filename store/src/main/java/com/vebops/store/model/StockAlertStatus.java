@@ -0,0 +1,6 @@
+package com.vebops.store.model;
+
+public enum StockAlertStatus {
+    OPEN,
+    RESOLVED
+}
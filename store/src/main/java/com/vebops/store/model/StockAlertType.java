@@ -0,0 +1,6 @@
+package com.vebops.store.model;
+
+public enum StockAlertType {
+    LOW_STOCK,
+    OVER_ALLOCATION
+}
@@ -0,0 +1,102 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Remaining quantity of one FIFO cost layer: the stock of a material in a
+ * project received on one day at one unit cost. Receipts on the same day at
+ * the same cost share a row and emptied layers are deleted, so a project
+ * material only has as many rows as it has distinct unconsumed receipts.
+ * Rows are maintained with native SQL by the valuation service.
+ */
+@Entity
+@IdClass(StockLayer.Key.class)
+@Table(name = "stock_layers")
+public class StockLayer {
+
+    @Id
+    private Long projectId;
+
+    @Id
+    private Long materialId;
+
+    @Id
+    private LocalDate receivedDate;
+
+    @Id
+    @Column(precision = 19, scale = 4)
+    private BigDecimal unitCost;
+
+    @Column(nullable = false)
+    private double remainingQty;
+
+    protected StockLayer() {}
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public Long getMaterialId() {
+        return materialId;
+    }
+
+    public LocalDate getReceivedDate() {
+        return receivedDate;
+    }
+
+    public BigDecimal getUnitCost() {
+        return unitCost;
+    }
+
+    public double getRemainingQty() {
+        return remainingQty;
+    }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long projectId;
+        private Long materialId;
+        private LocalDate receivedDate;
+        private BigDecimal unitCost;
+
+        public Key() {}
+
+        public Key(Long projectId, Long materialId, LocalDate receivedDate, BigDecimal unitCost) {
+            this.projectId = projectId;
+            this.materialId = materialId;
+            this.receivedDate = receivedDate;
+            this.unitCost = unitCost;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return (
+                Objects.equals(projectId, key.projectId) &&
+                Objects.equals(materialId, key.materialId) &&
+                Objects.equals(receivedDate, key.receivedDate) &&
+                Objects.equals(unitCost, key.unitCost)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, materialId, receivedDate, unitCost);
+        }
+    }
+}
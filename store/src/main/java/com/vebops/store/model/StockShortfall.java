@@ -0,0 +1,75 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Quantity of a project material that was issued while its FIFO layers were
+ * empty. Returned issues pay this down before they go back into a layer, so
+ * quantity that never came out of a layer is not added to one. Maintained
+ * with native SQL by the valuation service.
+ */
+@Entity
+@IdClass(StockShortfall.Key.class)
+@Table(name = "stock_shortfalls")
+public class StockShortfall {
+
+    @Id
+    private Long projectId;
+
+    @Id
+    private Long materialId;
+
+    @Column(nullable = false)
+    private double qty;
+
+    protected StockShortfall() {}
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public Long getMaterialId() {
+        return materialId;
+    }
+
+    public double getQty() {
+        return qty;
+    }
+
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long projectId;
+        private Long materialId;
+
+        public Key() {}
+
+        public Key(Long projectId, Long materialId) {
+            this.projectId = projectId;
+            this.materialId = materialId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(projectId, key.projectId) && Objects.equals(materialId, key.materialId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, materialId);
+        }
+    }
+}
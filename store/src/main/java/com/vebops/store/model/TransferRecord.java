@@ -9,6 +9,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -37,6 +38,11 @@ public class TransferRecord {
     private String remarks;
     private LocalDate transferDate;
 
+    /** The outward registered on the source project for this transfer. */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "outward_record_id")
+    private OutwardRecord outwardRecord;
+
     @OneToMany(mappedBy = "record", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<TransferLine> lines = new ArrayList<>();
 
@@ -100,6 +106,14 @@ public class TransferRecord {
         this.transferDate = transferDate;
     }
 
+    public OutwardRecord getOutwardRecord() {
+        return outwardRecord;
+    }
+
+    public void setOutwardRecord(OutwardRecord outwardRecord) {
+        this.outwardRecord = outwardRecord;
+    }
+
     public List<TransferLine> getLines() {
         return lines;
     }
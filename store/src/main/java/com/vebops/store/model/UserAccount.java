@@ -1,8 +1,6 @@
 package com.vebops.store.model;
 
-import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -14,6 +12,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -40,11 +39,9 @@ public class UserAccount {
     @Enumerated(EnumType.STRING)
     private AccessType accessType = AccessType.PROJECTS;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Enumerated(EnumType.STRING)
-    @CollectionTable(name = "user_permissions", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "permission")
-    private Set<Permission> permissions = new HashSet<>();
+    /** Granted permissions packed as {@link Permission#mask()} bits. */
+    @Column(name = "permission_mask", nullable = false)
+    private long permissionMask;
 
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
@@ -105,11 +102,27 @@ public class UserAccount {
         this.projects = projects;
     }
 
+    /**
+     * Read-only EnumSet view of the permission mask. Use
+     * {@link #setPermissions(Set)} to change permissions.
+     */
     public Set<Permission> getPermissions() {
-        return permissions;
+        return Collections.unmodifiableSet(Permission.fromMask(permissionMask));
     }
 
     public void setPermissions(Set<Permission> permissions) {
-        this.permissions = permissions;
+        this.permissionMask = Permission.maskOf(permissions);
+    }
+
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+
+    public void setPermissionMask(long permissionMask) {
+        this.permissionMask = permissionMask;
+    }
+
+    public boolean hasPermission(Permission permission) {
+        return permission != null && (permissionMask & permission.mask()) != 0;
     }
 }
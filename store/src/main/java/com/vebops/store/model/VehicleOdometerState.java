@@ -0,0 +1,130 @@
+package com.vebops.store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Odometer bookkeeping for one vehicle: the closing km of its latest closed
+ * daily log and fuel entry (by date) and one of its open daily logs and fuel
+ * entries, if any. Fuel and daily-log writes lock this row and update it in
+ * the same transaction, so their checks read one row instead of the
+ * vehicle's whole history.
+ */
+@Entity
+@Table(name = "vehicle_odometer_states")
+public class VehicleOdometerState {
+
+    @Id
+    private Long vehicleId;
+
+    @Column
+    private Double lastLogClosingKm;
+
+    @Column
+    private LocalDate lastLogClosingDate;
+
+    @Column
+    private Double lastFuelClosingKm;
+
+    @Column
+    private LocalDate lastFuelClosingDate;
+
+    @Column
+    private Long openLogId;
+
+    @Column
+    private Long openFuelEntryId;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    protected VehicleOdometerState() {}
+
+    public VehicleOdometerState(Long vehicleId) {
+        this.vehicleId = vehicleId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /** Records a closed daily log if it is at least as recent as the last one. */
+    public void logClosed(LocalDate date, Double closingKm) {
+        if (closingKm != null && (lastLogClosingDate == null || !date.isBefore(lastLogClosingDate))) {
+            lastLogClosingKm = closingKm;
+            lastLogClosingDate = date;
+        }
+    }
+
+    /** Records a closed fuel entry if it is at least as recent as the last one. */
+    public void fuelEntryClosed(LocalDate date, Double closingKm) {
+        if (closingKm != null && (lastFuelClosingDate == null || !date.isBefore(lastFuelClosingDate))) {
+            lastFuelClosingKm = closingKm;
+            lastFuelClosingDate = date;
+        }
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public Double getLastLogClosingKm() {
+        return lastLogClosingKm;
+    }
+
+    public void setLastLogClosingKm(Double lastLogClosingKm) {
+        this.lastLogClosingKm = lastLogClosingKm;
+    }
+
+    public LocalDate getLastLogClosingDate() {
+        return lastLogClosingDate;
+    }
+
+    public void setLastLogClosingDate(LocalDate lastLogClosingDate) {
+        this.lastLogClosingDate = lastLogClosingDate;
+    }
+
+    public Double getLastFuelClosingKm() {
+        return lastFuelClosingKm;
+    }
+
+    public void setLastFuelClosingKm(Double lastFuelClosingKm) {
+        this.lastFuelClosingKm = lastFuelClosingKm;
+    }
+
+    public LocalDate getLastFuelClosingDate() {
+        return lastFuelClosingDate;
+    }
+
+    public void setLastFuelClosingDate(LocalDate lastFuelClosingDate) {
+        this.lastFuelClosingDate = lastFuelClosingDate;
+    }
+
+    public Long getOpenLogId() {
+        return openLogId;
+    }
+
+    public void setOpenLogId(Long openLogId) {
+        this.openLogId = openLogId;
+    }
+
+    public Long getOpenFuelEntryId() {
+        return openFuelEntryId;
+    }
+
+    public void setOpenFuelEntryId(Long openFuelEntryId) {
+        this.openFuelEntryId = openFuelEntryId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
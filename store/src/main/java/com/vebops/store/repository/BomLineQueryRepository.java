@@ -0,0 +1,56 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.dto.AllocationMatrixRowDto;
+import com.vebops.store.dto.BomLineDto;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * BOM listings that need inward and outward totals next to each allocation.
+ * Implemented with native SQL so the totals, filters and ordering are
+ * computed by the database.
+ */
+public interface BomLineQueryRepository {
+    Set<String> SORTABLE_PROPERTIES = Set.of(
+        "code",
+        "name",
+        "category",
+        "allocatedQty",
+        "requiredQty",
+        "orderedQty",
+        "receivedQty",
+        "utilizedQty",
+        "balanceQty"
+    );
+
+    /**
+     * One page of a project's BOM lines with ordered, received, issued and
+     * balance quantities. {@code search} matches material code, name or
+     * category; {@code inStockOnly} keeps lines with a positive balance. The
+     * pageable's sort may use any of {@link #SORTABLE_PROPERTIES}; lines are
+     * otherwise returned in allocation order.
+     */
+    Page<BomLineDto> findLinesWithTotals(Long projectId, String search, boolean inStockOnly, Pageable pageable);
+
+    /**
+     * One page of allocated materials, ordered by code. {@code search} matches
+     * the material's or the project's code or name on any allocation line.
+     */
+    Page<Long> findAllocatedMaterialIds(String search, Pageable pageable);
+
+    /**
+     * Allocation matrix rows for the given materials, in material code order,
+     * limited to the allocation lines matching {@code search}.
+     */
+    List<AllocationMatrixRowDto> findAllocationMatrix(Collection<Long> materialIds, String search);
+
+    /**
+     * Every allocation matrix row, read from a streaming result set. Must be
+     * consumed inside a transaction and closed afterwards.
+     */
+    Stream<AllocationMatrixRowDto> streamAllocationMatrix(String search);
+}
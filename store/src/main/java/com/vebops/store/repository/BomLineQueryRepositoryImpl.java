@@ -0,0 +1,343 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.dto.AllocationMatrixCellDto;
+import com.vebops.store.dto.AllocationMatrixRowDto;
+import com.vebops.store.dto.BomLineDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+class BomLineQueryRepositoryImpl implements BomLineQueryRepository {
+
+    /**
+     * Inward totals count SUPPLY inwards only and the balance never goes below
+     * zero, matching the per-line sums in InwardLineRepository and
+     * OutwardLineRepository.
+     */
+    private static final String FROM =
+        """
+        from bom_lines b
+        join materials m on m.id = b.material_id
+        left join (
+            select il.material_id, sum(il.ordered_qty) as ordered_qty, sum(il.received_qty) as received_qty
+            from inward_lines il
+            join inward_records ir on ir.id = il.record_id
+            where ir.project_id = :projectId and ir.type = 'SUPPLY'
+            group by il.material_id
+        ) inw on inw.material_id = b.material_id
+        left join (
+            select ol.material_id, sum(ol.issue_qty) as issued_qty
+            from outward_lines ol
+            join outward_records orr on orr.id = ol.record_id
+            where orr.project_id = :projectId
+            group by ol.material_id
+        ) outw on outw.material_id = b.material_id
+        where b.project_id = :projectId
+        """;
+
+    private static final String BALANCE = "greatest(coalesce(inw.received_qty, 0) - coalesce(outw.issued_qty, 0), 0)";
+
+    private static final Map<String, String> SORTABLE = Map.of(
+        "code", "m.code",
+        "name", "m.name",
+        "category", "m.category",
+        "allocatedQty", "b.quantity",
+        "requiredQty", "b.quantity",
+        "orderedQty", "coalesce(inw.ordered_qty, 0)",
+        "receivedQty", "coalesce(inw.received_qty, 0)",
+        "utilizedQty", "coalesce(outw.issued_qty, 0)",
+        "balanceQty", BALANCE
+    );
+
+    private static final String LINE_SEARCH =
+        " and (lower(m.code) like :term or lower(m.name) like :term or lower(p.code) like :term or lower(p.name) like :term)";
+
+    /**
+     * Allocation matrix cells: one row per project and material with the
+     * summed allocation and that project's received (SUPPLY inwards) and
+     * issued totals for the material. Placeholders take the optional material
+     * id restriction (twice) and the line search.
+     */
+    private static final String MATRIX =
+        """
+        select m.id, m.code, m.name, m.category, m.unit, p.id, p.code, p.name, sum(b.quantity),
+               coalesce(max(inw.received_qty), 0), coalesce(max(outw.issued_qty), 0)
+        from bom_lines b
+        join materials m on m.id = b.material_id
+        join projects p on p.id = b.project_id
+        left join (
+            select ir.project_id, il.material_id, sum(il.received_qty) as received_qty
+            from inward_lines il
+            join inward_records ir on ir.id = il.record_id
+            where ir.type = 'SUPPLY'%s
+            group by ir.project_id, il.material_id
+        ) inw on inw.project_id = b.project_id and inw.material_id = b.material_id
+        left join (
+            select orr.project_id, ol.material_id, sum(ol.issue_qty) as issued_qty
+            from outward_lines ol
+            join outward_records orr on orr.id = ol.record_id
+            where orr.project_id is not null%s
+            group by orr.project_id, ol.material_id
+        ) outw on outw.project_id = b.project_id and outw.material_id = b.material_id
+        where 1 = 1%s%s
+        group by m.id, m.code, m.name, m.category, m.unit, p.id, p.code, p.name
+        order by m.code, m.id, p.code, p.id
+        """;
+
+    /** Rows per round trip when streaming; MySQL streams row by row with MIN_VALUE. */
+    private static final int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<BomLineDto> findLinesWithTotals(Long projectId, String search, boolean inStockOnly, Pageable pageable) {
+        StringBuilder where = new StringBuilder();
+        String term = searchTerm(search);
+        if (term != null) {
+            where.append(" and (lower(m.code) like :term or lower(m.name) like :term or lower(m.category) like :term)");
+        }
+        if (inStockOnly) {
+            where.append(" and ").append(BALANCE).append(" > 0");
+        }
+
+        Query select = entityManager.createNativeQuery(
+            "select b.id, m.id, m.code, m.name, m.part_no, m.line_type, m.unit, m.category, b.quantity, " +
+            "coalesce(inw.ordered_qty, 0), coalesce(inw.received_qty, 0), coalesce(outw.issued_qty, 0), " +
+            BALANCE + " " + FROM + where + orderBy(pageable.getSort())
+        );
+        bind(select, projectId, term);
+        if (pageable.isPaged()) {
+            select.setFirstResult((int) pageable.getOffset());
+            select.setMaxResults(pageable.getPageSize());
+        }
+        List<BomLineDto> content = new ArrayList<>();
+        for (Object row : select.getResultList()) {
+            content.add(toDto(projectId, (Object[]) row));
+        }
+
+        long total;
+        if (pageable.isPaged() && (pageable.getOffset() > 0 || content.size() == pageable.getPageSize())) {
+            Query count = entityManager.createNativeQuery("select count(*) " + FROM + where);
+            bind(count, projectId, term);
+            total = ((Number) count.getSingleResult()).longValue();
+        } else {
+            total = pageable.isPaged() ? pageable.getOffset() + content.size() : content.size();
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public Page<Long> findAllocatedMaterialIds(String search, Pageable pageable) {
+        String term = searchTerm(search);
+        String from =
+            " from bom_lines b join materials m on m.id = b.material_id join projects p on p.id = b.project_id where 1 = 1" +
+            (term != null ? LINE_SEARCH : "");
+        Query select = entityManager.createNativeQuery("select m.id" + from + " group by m.id, m.code order by m.code, m.id");
+        Query count = entityManager.createNativeQuery("select count(distinct m.id)" + from);
+        if (term != null) {
+            select.setParameter("term", term);
+            count.setParameter("term", term);
+        }
+        if (pageable.isPaged()) {
+            select.setFirstResult((int) pageable.getOffset());
+            select.setMaxResults(pageable.getPageSize());
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Object id : select.getResultList()) {
+            ids.add(((Number) id).longValue());
+        }
+        return new PageImpl<>(ids, pageable, ((Number) count.getSingleResult()).longValue());
+    }
+
+    @Override
+    public List<AllocationMatrixRowDto> findAllocationMatrix(Collection<Long> materialIds, String search) {
+        if (materialIds.isEmpty()) {
+            return List.of();
+        }
+        String term = searchTerm(search);
+        Query query = entityManager.createNativeQuery(
+            MATRIX.formatted(
+                " and il.material_id in (:materialIds)",
+                " and ol.material_id in (:materialIds)",
+                " and b.material_id in (:materialIds)",
+                term != null ? LINE_SEARCH : ""
+            )
+        );
+        query.setParameter("materialIds", materialIds);
+        if (term != null) {
+            query.setParameter("term", term);
+        }
+        List<AllocationMatrixRowDto> rows = new ArrayList<>();
+        MatrixRowAssembler assembler = new MatrixRowAssembler();
+        for (Object row : query.getResultList()) {
+            assembler.accept((Object[]) row).ifPresent(rows::add);
+        }
+        assembler.finish().ifPresent(rows::add);
+        return rows;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<AllocationMatrixRowDto> streamAllocationMatrix(String search) {
+        String term = searchTerm(search);
+        Query query = entityManager
+            .createNativeQuery(MATRIX.formatted("", "", "", term != null ? LINE_SEARCH : ""))
+            .setHint(AvailableHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+            .setHint(AvailableHints.HINT_READ_ONLY, true);
+        if (term != null) {
+            query.setParameter("term", term);
+        }
+        Stream<Object[]> cells = query.getResultStream();
+        Iterator<Object[]> iterator = cells.iterator();
+        MatrixRowAssembler assembler = new MatrixRowAssembler();
+        Spliterator<AllocationMatrixRowDto> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super AllocationMatrixRowDto> action) {
+                while (iterator.hasNext()) {
+                    Optional<AllocationMatrixRowDto> completed = assembler.accept(iterator.next());
+                    if (completed.isPresent()) {
+                        action.accept(completed.get());
+                        return true;
+                    }
+                }
+                Optional<AllocationMatrixRowDto> last = assembler.finish();
+                last.ifPresent(action);
+                return last.isPresent();
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(cells::close);
+    }
+
+    private static String searchTerm(String search) {
+        return StringUtils.hasText(search) ? "%" + search.trim().toLowerCase(Locale.ROOT) + "%" : null;
+    }
+
+    private static String orderBy(Sort sort) {
+        StringBuilder order = new StringBuilder(" order by ");
+        for (Sort.Order item : sort) {
+            String expression = SORTABLE.get(item.getProperty());
+            if (expression == null) {
+                throw new IllegalArgumentException("Cannot sort BOM lines by " + item.getProperty());
+            }
+            order.append(expression).append(item.isAscending() ? " asc, " : " desc, ");
+        }
+        return order.append("b.id asc").toString();
+    }
+
+    private static void bind(Query query, Long projectId, String term) {
+        query.setParameter("projectId", projectId);
+        if (term != null) {
+            query.setParameter("term", term);
+        }
+    }
+
+    private static BomLineDto toDto(Long projectId, Object[] row) {
+        double allocation = number(row[8]);
+        return new BomLineDto(
+            String.valueOf(row[0]),
+            String.valueOf(projectId),
+            String.valueOf(row[1]),
+            (String) row[2],
+            (String) row[3],
+            (String) row[4],
+            (String) row[5],
+            (String) row[6],
+            (String) row[7],
+            allocation,
+            allocation,
+            number(row[9]),
+            number(row[10]),
+            number(row[11]),
+            number(row[12])
+        );
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0d;
+    }
+
+    /**
+     * Folds consecutive cell rows of the same material into one matrix row.
+     * {@link #accept} returns the previous material's row once a new material
+     * starts; {@link #finish} returns the last one.
+     */
+    private static final class MatrixRowAssembler {
+
+        private Object[] material;
+        private List<AllocationMatrixCellDto> cells = new ArrayList<>();
+
+        Optional<AllocationMatrixRowDto> accept(Object[] row) {
+            Optional<AllocationMatrixRowDto> completed = Optional.empty();
+            if (material != null && !material[0].equals(row[0])) {
+                completed = finish();
+            }
+            if (material == null) {
+                material = row;
+            }
+            double received = number(row[9]);
+            double issued = number(row[10]);
+            cells.add(
+                new AllocationMatrixCellDto(
+                    String.valueOf(row[5]),
+                    (String) row[6],
+                    (String) row[7],
+                    number(row[8]),
+                    received,
+                    issued,
+                    Math.max(0d, received - issued)
+                )
+            );
+            return completed;
+        }
+
+        Optional<AllocationMatrixRowDto> finish() {
+            if (material == null) {
+                return Optional.empty();
+            }
+            double allocated = 0;
+            double received = 0;
+            double issued = 0;
+            double balance = 0;
+            for (AllocationMatrixCellDto cell : cells) {
+                allocated += cell.allocatedQty();
+                received += cell.receivedQty();
+                issued += cell.issuedQty();
+                balance += cell.balanceQty();
+            }
+            AllocationMatrixRowDto row = new AllocationMatrixRowDto(
+                String.valueOf(material[0]),
+                (String) material[1],
+                (String) material[2],
+                (String) material[3],
+                (String) material[4],
+                List.copyOf(cells),
+                allocated,
+                received,
+                issued,
+                balance
+            );
+            material = null;
+            cells = new ArrayList<>();
+            return Optional.of(row);
+        }
+    }
+}
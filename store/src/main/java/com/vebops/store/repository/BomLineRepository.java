@@ -10,7 +10,7 @@ import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
-public interface BomLineRepository extends JpaRepository<BomLine, Long> {
+public interface BomLineRepository extends JpaRepository<BomLine, Long>, BomLineQueryRepository {
     @EntityGraph(attributePaths = {"material", "project"})
     List<BomLine> findByProjectId(Long projectId);
 
@@ -33,6 +33,9 @@ public interface BomLineRepository extends JpaRepository<BomLine, Long> {
 
     void deleteByProjectIdAndMaterialId(Long projectId, Long materialId);
 
+    @Query("select b.material.id, b.quantity from BomLine b where b.project.id = :projectId and b.material.id is not null")
+    List<Object[]> findAllocationsByProjectId(Long projectId);
+
     @Query("select distinct b.project.id from BomLine b where b.project.id is not null")
     Set<Long> projectIdsWithAllocations();
 
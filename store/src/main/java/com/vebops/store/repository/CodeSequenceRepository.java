@@ -0,0 +1,14 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.CodeSequence;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CodeSequenceRepository extends JpaRepository<CodeSequence, String> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from CodeSequence s where s.name = :name")
+    Optional<CodeSequence> findForUpdate(String name);
+}
@@ -0,0 +1,142 @@
+package com.vebops.store.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Native SQL over {@code material_consumption_stats}. The decayed issue total
+ * is advanced in the database so concurrent outwards for the same material
+ * cannot overwrite each other's updates.
+ */
+@Repository
+public class ConsumptionStatQueries {
+
+    // Assignments run left to right in MySQL, so decayed_qty must be computed
+    // before last_issue_date is moved.
+    private static final String UPSERT =
+        """
+        insert into material_consumption_stats
+            (project_id, material_id, decayed_qty, first_issue_date, last_issue_date, total_issued_qty, issue_count)
+        values (?, ?, ?, ?, ?, ?, ?)
+        on duplicate key update
+            decayed_qty = greatest(0, if(
+                values(last_issue_date) >= last_issue_date,
+                decayed_qty * pow(0.5, datediff(values(last_issue_date), last_issue_date) / ?) + values(decayed_qty),
+                decayed_qty + values(decayed_qty) * pow(0.5, datediff(last_issue_date, values(last_issue_date)) / ?)
+            )),
+            first_issue_date = least(first_issue_date, values(first_issue_date)),
+            last_issue_date = greatest(last_issue_date, values(last_issue_date)),
+            total_issued_qty = greatest(0, total_issued_qty + values(total_issued_qty)),
+            issue_count = issue_count + values(issue_count)
+        """;
+
+    private static final String REDUCE =
+        """
+        update material_consumption_stats
+        set decayed_qty = greatest(0, decayed_qty + ? * pow(0.5, greatest(0, datediff(last_issue_date, ?)) / ?)),
+            total_issued_qty = greatest(0, total_issued_qty + ?)
+        where project_id = ? and material_id = ?
+        """;
+
+    private static final String SEED =
+        """
+        insert into material_consumption_stats
+            (project_id, material_id, decayed_qty, first_issue_date, last_issue_date, total_issued_qty, issue_count)
+        select d.project_id, d.material_id,
+               sum(d.qty * pow(0.5, datediff(g.last_date, d.movement_date) / ?)),
+               g.first_date, g.last_date, sum(d.qty), count(*)
+        from (
+            select project_id, material_id, movement_date, issued_qty - transferred_out_qty as qty
+            from material_daily_movements
+            where issued_qty - transferred_out_qty > 0
+        ) d
+        join (
+            select project_id, material_id, min(movement_date) as first_date, max(movement_date) as last_date
+            from material_daily_movements
+            where issued_qty - transferred_out_qty > 0
+            group by project_id, material_id
+        ) g on g.project_id = d.project_id and g.material_id = d.material_id
+        group by d.project_id, d.material_id, g.first_date, g.last_date
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ConsumptionStatQueries(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds issued quantities, decayed to the row's latest issue date. Rows are
+     * {@code [projectId, materialId, qty, issueDate, issueCount]}.
+     */
+    public void addIssues(List<Object[]> rows, double halfLifeDays) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = rows
+            .stream()
+            .map(row -> {
+                Date date = Date.valueOf((LocalDate) row[3]);
+                return new Object[] { row[0], row[1], row[2], date, date, row[2], row[4], halfLifeDays, halfLifeDays };
+            })
+            .toList();
+        jdbcTemplate.batchUpdate(UPSERT, args);
+    }
+
+    /**
+     * Takes back issued quantities of an edited outward. Rows are
+     * {@code [projectId, materialId, qty, issueDate]} with positive quantities.
+     */
+    public void removeIssues(List<Object[]> rows, double halfLifeDays) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = rows
+            .stream()
+            .map(row -> {
+                double qty = ((Number) row[2]).doubleValue();
+                return new Object[] { -qty, Date.valueOf((LocalDate) row[3]), halfLifeDays, -qty, row[0], row[1] };
+            })
+            .toList();
+        jdbcTemplate.batchUpdate(REDUCE, args);
+    }
+
+    /**
+     * Fills the table from the daily movement rollup, counting issues that
+     * were not transfers. Returns the number of rows written.
+     */
+    public int seedFromRollup(double halfLifeDays) {
+        return jdbcTemplate.update(SEED, halfLifeDays);
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("select 1 from material_consumption_stats limit 1").isEmpty();
+    }
+
+    /**
+     * The project's stats:
+     * {@code [materialId, decayedQty, firstIssueDate, lastIssueDate, totalIssuedQty, issueCount]}.
+     */
+    public List<Object[]> findByProject(Long projectId) {
+        return jdbcTemplate.query(
+            """
+            select material_id, decayed_qty, first_issue_date, last_issue_date, total_issued_qty, issue_count
+            from material_consumption_stats
+            where project_id = ?
+            """,
+            (rs, rowNum) ->
+                new Object[] {
+                    rs.getLong(1),
+                    rs.getDouble(2),
+                    rs.getDate(3).toLocalDate(),
+                    rs.getDate(4).toLocalDate(),
+                    rs.getDouble(5),
+                    rs.getLong(6),
+                },
+            projectId
+        );
+    }
+}
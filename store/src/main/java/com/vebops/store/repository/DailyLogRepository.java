@@ -15,4 +15,7 @@ public interface DailyLogRepository extends JpaRepository<DailyLog, Long> {
     List<DailyLog> findByVehicleId(Long vehicleId);
     List<DailyLog> findByProjectIdAndDate(Long projectId, LocalDate date);
     Optional<DailyLog> findByVehicleIdAndDateAndStatus(Long vehicleId, LocalDate date, EntryStatus status);
+    Optional<DailyLog> findFirstByVehicleIdAndStatusOrderByIdAsc(Long vehicleId, EntryStatus status);
+    Optional<DailyLog> findFirstByVehicleIdAndStatusAndClosingKmIsNotNullOrderByDateDescIdDesc(
+            Long vehicleId, EntryStatus status);
 }
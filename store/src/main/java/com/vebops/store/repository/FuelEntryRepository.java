@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FuelEntryRepository extends JpaRepository<FuelEntry, Long>, JpaSpecificationExecutor<FuelEntry> {
@@ -15,4 +16,7 @@ public interface FuelEntryRepository extends JpaRepository<FuelEntry, Long>, Jpa
     List<FuelEntry> findByVehicleId(Long vehicleId);
     List<FuelEntry> findByProjectIdAndStatus(Long projectId, EntryStatus status);
     List<FuelEntry> findByProjectIdAndDateBetween(Long projectId, LocalDate startDate, LocalDate endDate);
+    Optional<FuelEntry> findFirstByVehicleIdAndStatusOrderByIdAsc(Long vehicleId, EntryStatus status);
+    Optional<FuelEntry> findFirstByVehicleIdAndStatusAndClosingKmIsNotNullOrderByDateDescIdDesc(
+            Long vehicleId, EntryStatus status);
 }
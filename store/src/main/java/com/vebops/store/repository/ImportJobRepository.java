@@ -0,0 +1,38 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.ImportJob;
+import com.vebops.store.model.ImportJobStatus;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    List<ImportJob> findByStatusIn(Collection<ImportJobStatus> statuses);
+
+    List<ImportJob> findTop20ByCreatedByOrderByIdDesc(Long createdBy);
+
+    /** Moves a failed job back to the queue; returns 0 if it was no longer failed. */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(
+        "update ImportJob j set j.status = com.vebops.store.model.ImportJobStatus.QUEUED, " +
+        "j.errorMessage = null, j.finishedAt = null, j.updatedAt = :now " +
+        "where j.id = :id and j.status = com.vebops.store.model.ImportJobStatus.FAILED"
+    )
+    int requeueFailed(@Param("id") Long id, @Param("now") Instant now);
+
+    /** Claims a queued job for a worker; returns 0 if another worker got it first. */
+    @Modifying
+    @Transactional
+    @Query(
+        "update ImportJob j set j.status = com.vebops.store.model.ImportJobStatus.RUNNING, " +
+        "j.attempts = j.attempts + 1, j.startedAt = coalesce(j.startedAt, :now), j.updatedAt = :now " +
+        "where j.id = :id and j.status = com.vebops.store.model.ImportJobStatus.QUEUED"
+    )
+    int claimQueued(@Param("id") Long id, @Param("now") Instant now);
+}
@@ -1,6 +1,8 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.InwardLine;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -23,4 +25,27 @@ public interface InwardLineRepository extends JpaRepository<InwardLine, Long> {
         Double sumOrderedQtyByProjectAndMaterial(
                         @Param("projectId") Long projectId,
                         @Param("materialId") Long materialId);
+
+        /**
+         * Ordered and received totals per material across all SUPPLY inwards,
+         * restricted to the given material ids. Each row is
+         * {@code [materialId, orderedQty, receivedQty]}.
+         */
+        @Query("select line.material.id, coalesce(sum(line.orderedQty), 0), coalesce(sum(line.receivedQty), 0) " +
+                        "from InwardLine line " +
+                        "where line.material.id in :materialIds " +
+                        "and line.record.type = 'SUPPLY' " +
+                        "group by line.material.id")
+        List<Object[]> sumQuantitiesByMaterialIds(@Param("materialIds") Collection<Long> materialIds);
+
+        /**
+         * Ordered and received totals per material for one project's SUPPLY
+         * inwards. Each row is {@code [materialId, orderedQty, receivedQty]}.
+         */
+        @Query("select line.material.id, coalesce(sum(line.orderedQty), 0), coalesce(sum(line.receivedQty), 0) " +
+                        "from InwardLine line " +
+                        "where line.record.project.id = :projectId " +
+                        "and line.record.type = 'SUPPLY' " +
+                        "group by line.material.id")
+        List<Object[]> sumQuantitiesByProjectGroupedByMaterial(@Param("projectId") Long projectId);
 }
@@ -63,4 +63,6 @@ public interface InwardRecordRepository extends JpaRepository<InwardRecord, Long
     java.util.Optional<InwardRecord> findWithLinesById(Long id);
 
     long countByEntryDate(LocalDate entryDate);
+
+    long countByValidatedFalse();
 }
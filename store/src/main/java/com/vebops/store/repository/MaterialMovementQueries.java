@@ -0,0 +1,196 @@
+package com.vebops.store.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Native SQL over {@code material_daily_movements}: additive upserts from the
+ * write path, range rebuilds from the line tables and daily totals for the
+ * time-series endpoints.
+ */
+@Repository
+public class MaterialMovementQueries {
+
+    private static final String UPSERT =
+        """
+        insert into material_daily_movements
+            (project_id, material_id, movement_date, ordered_qty, received_qty, issued_qty,
+             transferred_in_qty, transferred_out_qty)
+        values (?, ?, ?, ?, ?, ?, ?, ?)
+        on duplicate key update
+            ordered_qty = ordered_qty + values(ordered_qty),
+            received_qty = received_qty + values(received_qty),
+            issued_qty = issued_qty + values(issued_qty),
+            transferred_in_qty = transferred_in_qty + values(transferred_in_qty),
+            transferred_out_qty = transferred_out_qty + values(transferred_out_qty)
+        """;
+
+    private static final String REBUILD =
+        """
+        insert into material_daily_movements
+            (project_id, material_id, movement_date, ordered_qty, received_qty, issued_qty,
+             transferred_in_qty, transferred_out_qty)
+        select m.project_id, m.material_id, m.movement_date,
+               sum(m.ordered_qty), sum(m.received_qty), sum(m.issued_qty),
+               sum(m.transferred_in_qty), sum(m.transferred_out_qty)
+        from (
+            select r.project_id, l.material_id, r.entry_date as movement_date,
+                   l.ordered_qty, l.received_qty, 0 as issued_qty, 0 as transferred_in_qty, 0 as transferred_out_qty
+            from inward_lines l
+            join inward_records r on r.id = l.record_id
+            where r.entry_date between ? and ?
+            union all
+            select r.project_id, l.material_id, coalesce(r.`date`, r.entry_date), 0, 0, l.issue_qty, 0, 0
+            from outward_lines l
+            join outward_records r on r.id = l.record_id
+            where coalesce(r.`date`, r.entry_date) between ? and ?
+            union all
+            select t.to_project_id, l.material_id, t.transfer_date, 0, 0, 0, l.transfer_qty, 0
+            from transfer_lines l
+            join transfer_records t on t.id = l.record_id
+            where t.transfer_date between ? and ?
+            union all
+            select t.from_project_id, l.material_id, t.transfer_date, 0, 0, 0, 0, l.transfer_qty
+            from transfer_lines l
+            join transfer_records t on t.id = l.record_id
+            where t.transfer_date between ? and ?
+        ) m
+        where m.project_id is not null and m.material_id is not null
+        group by m.project_id, m.material_id, m.movement_date
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MaterialMovementQueries(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds each row's quantities to the stored day, creating it if needed.
+     * Rows are {@code [projectId, materialId, date, ordered, received, issued,
+     * transferredIn, transferredOut]}.
+     */
+    public void upsert(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+        }
+    }
+
+    /**
+     * Replaces the rollup rows dated within {@code [from, to]} with totals
+     * recomputed from the line tables. Returns the number of rows written.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        Date start = Date.valueOf(from);
+        Date end = Date.valueOf(to);
+        jdbcTemplate.update("delete from material_daily_movements where movement_date between ? and ?", start, end);
+        return jdbcTemplate.update(REBUILD, start, end, start, end, start, end, start, end);
+    }
+
+    /** Earliest and latest movement dates in the line tables, or {@code null} when there are none. */
+    public LocalDate[] movementDateBounds() {
+        return jdbcTemplate.queryForObject(
+            """
+            select min(d), max(d) from (
+                select min(entry_date) as d from inward_records
+                union all select max(entry_date) from inward_records
+                union all select min(coalesce(`date`, entry_date)) from outward_records
+                union all select max(coalesce(`date`, entry_date)) from outward_records
+                union all select min(transfer_date) from transfer_records
+                union all select max(transfer_date) from transfer_records
+            ) b
+            """,
+            (rs, rowNum) -> {
+                Date min = rs.getDate(1);
+                Date max = rs.getDate(2);
+                return min == null || max == null ? null : new LocalDate[] { min.toLocalDate(), max.toLocalDate() };
+            }
+        );
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("select 1 from material_daily_movements limit 1").isEmpty();
+    }
+
+    /** All-time {@code [materialId, receivedQty, issuedQty]} of one project. */
+    public List<Object[]> projectTotals(Long projectId) {
+        return jdbcTemplate.query(
+            """
+            select material_id, sum(received_qty), sum(issued_qty)
+            from material_daily_movements
+            where project_id = ?
+            group by material_id
+            """,
+            (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getDouble(2), rs.getDouble(3) },
+            projectId
+        );
+    }
+
+    /**
+     * All-time {@code [materialId, orderedQty, receivedQty, issuedQty]} of the
+     * given materials in one project.
+     */
+    public List<Object[]> materialTotals(Long projectId, Collection<Long> materialIds) {
+        if (materialIds.isEmpty()) {
+            return List.of();
+        }
+        String ids = materialIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return jdbcTemplate.query(
+            """
+            select material_id, sum(ordered_qty), sum(received_qty), sum(issued_qty)
+            from material_daily_movements
+            where project_id = ? and material_id in (%s)
+            group by material_id
+            """.formatted(ids),
+            (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getDouble(2), rs.getDouble(3), rs.getDouble(4) },
+            projectId
+        );
+    }
+
+    /**
+     * Totals per day within {@code [from, to]}:
+     * {@code [date, ordered, received, issued, transferredIn, transferredOut]}.
+     * {@code projectIds} of {@code null} means every project.
+     */
+    public List<Object[]> dailyTotals(LocalDate from, LocalDate to, Collection<Long> projectIds, Long materialId) {
+        StringBuilder sql = new StringBuilder(
+            """
+            select movement_date, sum(ordered_qty), sum(received_qty), sum(issued_qty),
+                   sum(transferred_in_qty), sum(transferred_out_qty)
+            from material_daily_movements
+            where movement_date between ? and ?
+            """
+        );
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (projectIds != null) {
+            // Ids are numbers, so inlining them is safe and avoids a bind per project.
+            sql.append(" and project_id in (")
+                .append(projectIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .append(")");
+        }
+        if (materialId != null) {
+            sql.append(" and material_id = ?");
+            args.add(materialId);
+        }
+        sql.append(" group by movement_date order by movement_date");
+        return jdbcTemplate.query(
+            sql.toString(),
+            (rs, rowNum) ->
+                new Object[] {
+                    rs.getDate(1).toLocalDate(),
+                    rs.getDouble(2),
+                    rs.getDouble(3),
+                    rs.getDouble(4),
+                    rs.getDouble(5),
+                    rs.getDouble(6),
+                },
+            args.toArray()
+        );
+    }
+}
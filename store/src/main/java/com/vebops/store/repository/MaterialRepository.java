@@ -1,11 +1,15 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.Material;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface MaterialRepository extends JpaRepository<Material, Long>, JpaSpecificationExecutor<Material> {
     Optional<Material> findByCodeIgnoreCase(String code);
@@ -18,4 +22,59 @@ public interface MaterialRepository extends JpaRepository<Material, Long>, JpaSp
 
     @Query("select distinct m.lineType from Material m where m.lineType is not null and m.lineType <> ''")
     List<String> distinctLineTypes();
+
+    @Query("select m.id from Material m order by m.id")
+    List<Long> findAllIds();
+
+    @Query("select m.id, m.code from Material m")
+    List<Object[]> findIdsAndCodes();
+
+    /** Rows of {@code [id, code, name, partNo, category, unit]} for the search index. */
+    @Query("select m.id, m.code, m.name, m.partNo, m.category, m.unit from Material m")
+    List<Object[]> findSearchFields();
+
+    @Query("select coalesce(sum(m.receivedQty), 0), coalesce(sum(m.utilizedQty), 0) from Material m")
+    List<Object[]> sumReceivedAndUtilized();
+
+    @Query(
+        "select m.category, count(m), coalesce(sum(m.receivedQty), 0), coalesce(sum(m.utilizedQty), 0), " +
+        "coalesce(sum(m.balanceQty), 0) from Material m group by m.category order by m.category"
+    )
+    List<Object[]> totalsByCategory();
+
+    @Query("select m.id, m.code from Material m where m.code in :codes")
+    List<Object[]> findIdsByCodes(Collection<String> codes);
+
+    @Query("select m.id from Material m where m.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select m.code from Material m where m.code like 'MAT-%'")
+    List<String> findPrefixedCodes();
+
+    @Query("select m.id, m.category, m.unit, m.lineType from Material m")
+    List<Object[]> findFacetFields();
+
+    /**
+     * Shifts the stored counters of a single material by the given deltas in one
+     * statement. Applying deltas rather than absolute values keeps concurrent
+     * inventory postings that land between the read and the write intact. The
+     * balance assignment comes first because MySQL evaluates single-table
+     * assignments left to right.
+     */
+    @Modifying
+    @Query(
+        "update Material m set " +
+        "m.balanceQty = case when m.receivedQty + :receivedDelta - m.utilizedQty - :utilizedDelta > 0 " +
+        "then m.receivedQty + :receivedDelta - m.utilizedQty - :utilizedDelta else 0 end, " +
+        "m.orderedQty = m.orderedQty + :orderedDelta, " +
+        "m.receivedQty = m.receivedQty + :receivedDelta, " +
+        "m.utilizedQty = m.utilizedQty + :utilizedDelta " +
+        "where m.id = :id"
+    )
+    int applyAggregateDeltas(
+        @Param("id") Long id,
+        @Param("orderedDelta") double orderedDelta,
+        @Param("receivedDelta") double receivedDelta,
+        @Param("utilizedDelta") double utilizedDelta
+    );
 }
@@ -1,6 +1,10 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.OutwardLine;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,4 +14,33 @@ public interface OutwardLineRepository extends JpaRepository<OutwardLine, Long>
         "select coalesce(sum(line.issueQty), 0) from OutwardLine line where line.record.project.id = :projectId and line.material.id = :materialId"
     )
     Double sumIssuedQtyByProjectAndMaterial(@Param("projectId") Long projectId, @Param("materialId") Long materialId);
+
+    /**
+     * Issued totals per material across all outwards, restricted to the given
+     * material ids. Each row is {@code [materialId, issueQty]}.
+     */
+    @Query(
+        "select line.material.id, coalesce(sum(line.issueQty), 0) from OutwardLine line where line.material.id in :materialIds group by line.material.id"
+    )
+    List<Object[]> sumIssuedQtyByMaterialIds(@Param("materialIds") Collection<Long> materialIds);
+
+    /**
+     * Issued totals per material for one project. Each row is
+     * {@code [materialId, issueQty]}.
+     */
+    @Query(
+        "select line.material.id, coalesce(sum(line.issueQty), 0) from OutwardLine line where line.record.project.id = :projectId group by line.material.id"
+    )
+    List<Object[]> sumIssuedQtyByProjectGroupedByMaterial(@Param("projectId") Long projectId);
+
+    /**
+     * Materials ordered by quantity issued on outwards entered since the given
+     * date: id, code, name, unit, issued quantity and number of outwards.
+     */
+    @Query(
+        "select m.id, m.code, m.name, m.unit, sum(line.issueQty), count(distinct line.record.id) " +
+        "from OutwardLine line join line.material m where line.record.entryDate >= :since " +
+        "group by m.id, m.code, m.name, m.unit order by sum(line.issueQty) desc"
+    )
+    List<Object[]> topIssuedSince(@Param("since") LocalDate since, Pageable pageable);
 }
@@ -73,6 +73,8 @@ public interface OutwardRecordRepository extends JpaRepository<OutwardRecord, Lo
      */
     long countByEntryDate(LocalDate entryDate);
 
+    long countByValidatedFalse();
+
     @EntityGraph(attributePaths = { "project", "lines", "lines.material" })
     List<OutwardRecord> findByProjectIdOrderByEntryDateDesc(Long projectId);
 }
@@ -0,0 +1,129 @@
+package com.vebops.store.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Native queries behind the admin project activity overview. Counts are
+ * grouped per project and the latest entries are picked with
+ * {@code ROW_NUMBER() OVER (PARTITION BY project)}, with line counts from
+ * correlated subqueries, so no record or line entities are loaded.
+ */
+@Repository
+public class ProjectActivityQueries {
+
+    private static final String TRANSFER_SIDES =
+        """
+        select t.id, t.from_project_id as project_id, 'FROM' as side, t.code, t.transfer_date,
+               t.from_project_id, t.to_project_id
+        from transfer_records t
+        union all
+        select t.id, t.to_project_id, 'TO', t.code, t.transfer_date, t.from_project_id, t.to_project_id
+        from transfer_records t
+        """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /** {@code [projectId, count]} of inward records per project. */
+    public List<Object[]> countInwardsByProject() {
+        return rows("select project_id, count(*) from inward_records where project_id is not null group by project_id");
+    }
+
+    /** {@code [projectId, count]} of outward records per project. */
+    public List<Object[]> countOutwardsByProject() {
+        return rows("select project_id, count(*) from outward_records where project_id is not null group by project_id");
+    }
+
+    /**
+     * {@code [projectId, count]} of transfers per project, counting a transfer
+     * for both the source and the destination project.
+     */
+    public List<Object[]> countTransfersByProject() {
+        return rows(
+            "select s.project_id, count(*) from (" + TRANSFER_SIDES + ") s where s.project_id is not null group by s.project_id"
+        );
+    }
+
+    /**
+     * The latest {@code limit} inwards per project by entry date:
+     * {@code [projectId, id, code, entryDate, supplierName, validated, lineCount]}.
+     */
+    public List<Object[]> latestInwards(int limit) {
+        return rows(
+            """
+            select x.project_id, x.id, x.code, x.entry_date, x.supplier_name, x.validated,
+                   (select count(*) from inward_lines l where l.record_id = x.id)
+            from (
+                select r.id, r.project_id, r.code, r.entry_date, r.supplier_name, r.validated,
+                       row_number() over (partition by r.project_id order by r.entry_date desc, r.id desc) as rn
+                from inward_records r
+                where r.project_id is not null
+            ) x
+            where x.rn <= :limit
+            order by x.project_id, x.rn
+            """,
+            limit
+        );
+    }
+
+    /**
+     * The latest {@code limit} outwards per project by entry date:
+     * {@code [projectId, id, code, date, issueTo, validated, lineCount]}.
+     */
+    public List<Object[]> latestOutwards(int limit) {
+        return rows(
+            """
+            select x.project_id, x.id, x.code, x.issue_date, x.issue_to, x.validated,
+                   (select count(*) from outward_lines l where l.record_id = x.id)
+            from (
+                select r.id, r.project_id, r.code, r.`date` as issue_date, r.issue_to, r.validated,
+                       row_number() over (partition by r.project_id order by r.entry_date desc, r.id desc) as rn
+                from outward_records r
+                where r.project_id is not null
+            ) x
+            where x.rn <= :limit
+            order by x.project_id, x.rn
+            """,
+            limit
+        );
+    }
+
+    /**
+     * The latest {@code limit} transfers per project, either direction, by
+     * transfer date:
+     * {@code [projectId, id, side, code, transferDate, fromName, toName, lineCount]}
+     * where side is {@code FROM} when the project is the source.
+     */
+    public List<Object[]> latestTransfers(int limit) {
+        return rows(
+            """
+            select x.project_id, x.id, x.side, x.code, x.transfer_date, pf.name, pt.name,
+                   (select count(*) from transfer_lines l where l.record_id = x.id)
+            from (
+                select s.*,
+                       row_number() over (partition by s.project_id order by s.transfer_date desc, s.id desc) as rn
+                from (%s) s
+                where s.project_id is not null
+            ) x
+            left join projects pf on pf.id = x.from_project_id
+            left join projects pt on pt.id = x.to_project_id
+            where x.rn <= :limit
+            order by x.project_id, x.rn
+            """.formatted(TRANSFER_SIDES),
+            limit
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> rows(String sql) {
+        return entityManager.createNativeQuery(sql).getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> rows(String sql, int limit) {
+        return entityManager.createNativeQuery(sql).setParameter("limit", limit).getResultList();
+    }
+}
@@ -1,10 +1,12 @@
 package com.vebops.store.repository;
 
 import com.vebops.store.model.Project;
+import jakarta.persistence.LockModeType;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
 public interface ProjectRepository extends JpaRepository<Project, Long>, JpaSpecificationExecutor<Project> {
@@ -14,4 +16,14 @@ public interface ProjectRepository extends JpaRepository<Project, Long>, JpaSpec
     List<String> distinctCodePrefixes();
 
     List<Project> findByProjectManager(String projectManager);
+
+    @Query("select p.id, p.projectManager from Project p")
+    List<Object[]> findIdsWithProjectManager();
+
+    @Query("select p.id from Project p order by p.id")
+    List<Long> findAllIds();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Project p where p.id = :id")
+    Optional<Project> findForUpdate(Long id);
 }
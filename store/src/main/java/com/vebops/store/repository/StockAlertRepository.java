@@ -0,0 +1,20 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.StockAlert;
+import com.vebops.store.model.StockAlertStatus;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+public interface StockAlertRepository extends JpaRepository<StockAlert, Long>, JpaSpecificationExecutor<StockAlert> {
+    List<StockAlert> findByProjectIdAndMaterialIdInAndStatus(
+        Long projectId,
+        Collection<Long> materialIds,
+        StockAlertStatus status
+    );
+
+    List<StockAlert> findByProjectIdAndStatus(Long projectId, StockAlertStatus status);
+
+    List<StockAlert> findTop500ByStatusAndNotifiedAtIsNullOrderByIdAsc(StockAlertStatus status);
+}
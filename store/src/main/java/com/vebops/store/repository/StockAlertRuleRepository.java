@@ -0,0 +1,6 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.StockAlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StockAlertRuleRepository extends JpaRepository<StockAlertRule, Long> {}
@@ -0,0 +1,215 @@
+package com.vebops.store.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Native SQL over {@code stock_layers} and {@code stock_shortfalls}. Layers
+ * are keyed by project, material, receipt date and unit cost; quantities are
+ * added with upserts and taken with locked reads followed by keyed updates
+ * and deletes.
+ */
+@Repository
+public class StockLayerQueries {
+
+    private static final String ADD =
+        """
+        insert into stock_layers (project_id, material_id, received_date, unit_cost, remaining_qty)
+        values (?, ?, ?, ?, ?)
+        on duplicate key update remaining_qty = remaining_qty + values(remaining_qty)
+        """;
+
+    private static final String KEY = "project_id = ? and material_id = ? and received_date = ? and unit_cost = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockLayerQueries(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds quantity to layers, creating them if needed. Rows are
+     * {@code [projectId, materialId, date, unitCost, qty]}.
+     */
+    public void add(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD, rows);
+        }
+    }
+
+    /**
+     * The project material's layers, oldest first, locked until the current
+     * transaction ends: {@code [receivedDate, unitCost, remainingQty]}.
+     */
+    public List<Object[]> lockLayers(Long projectId, Long materialId) {
+        return jdbcTemplate.query(
+            """
+            select received_date, unit_cost, remaining_qty
+            from stock_layers
+            where project_id = ? and material_id = ?
+            order by received_date, unit_cost
+            for update
+            """,
+            (rs, rowNum) -> new Object[] { rs.getDate(1).toLocalDate(), rs.getBigDecimal(2), rs.getDouble(3) },
+            projectId,
+            materialId
+        );
+    }
+
+    /** Sets the remaining quantity of a layer. */
+    public void setRemaining(Long projectId, Long materialId, LocalDate date, BigDecimal unitCost, double qty) {
+        jdbcTemplate.update(
+            "update stock_layers set remaining_qty = ? where " + KEY,
+            qty,
+            projectId,
+            materialId,
+            Date.valueOf(date),
+            unitCost
+        );
+    }
+
+    public void delete(Long projectId, Long materialId, LocalDate date, BigDecimal unitCost) {
+        jdbcTemplate.update(
+            "delete from stock_layers where " + KEY,
+            projectId,
+            materialId,
+            Date.valueOf(date),
+            unitCost
+        );
+    }
+
+    /** Records quantity issued while the project material had no layers left. */
+    public void addShortfall(Long projectId, Long materialId, double qty) {
+        jdbcTemplate.update(
+            """
+            insert into stock_shortfalls (project_id, material_id, qty)
+            values (?, ?, ?)
+            on duplicate key update qty = qty + values(qty)
+            """,
+            projectId,
+            materialId,
+            qty
+        );
+    }
+
+    /**
+     * Pays down up to {@code qty} of the project material's shortfall and
+     * returns how much was paid.
+     */
+    public double reduceShortfall(Long projectId, Long materialId, double qty) {
+        List<Double> current = jdbcTemplate.queryForList(
+            "select qty from stock_shortfalls where project_id = ? and material_id = ? for update",
+            Double.class,
+            projectId,
+            materialId
+        );
+        if (current.isEmpty()) {
+            return 0d;
+        }
+        double paid = Math.min(qty, current.get(0));
+        if (current.get(0) - paid <= 1e-9) {
+            jdbcTemplate.update("delete from stock_shortfalls where project_id = ? and material_id = ?", projectId, materialId);
+        } else {
+            jdbcTemplate.update(
+                "update stock_shortfalls set qty = ? where project_id = ? and material_id = ?",
+                current.get(0) - paid,
+                projectId,
+                materialId
+            );
+        }
+        return paid;
+    }
+
+    /** Unit price of the project's latest priced receipt of the material, or {@code null}. */
+    public Double latestUnitPrice(Long projectId, Long materialId) {
+        List<Double> prices = jdbcTemplate.queryForList(
+            """
+            select l.unit_price
+            from inward_lines l
+            join inward_records r on r.id = l.record_id
+            where r.project_id = ? and l.material_id = ? and l.unit_price is not null
+            order by r.entry_date desc, l.id desc
+            limit 1
+            """,
+            Double.class,
+            projectId,
+            materialId
+        );
+        return prices.isEmpty() ? null : prices.get(0);
+    }
+
+    /**
+     * The project's layers summed per material and receipt date:
+     * {@code [materialId, receivedDate, qty, value]}.
+     */
+    public List<Object[]> projectLayers(Long projectId) {
+        return jdbcTemplate.query(
+            """
+            select material_id, received_date, sum(remaining_qty), sum(remaining_qty * unit_cost)
+            from stock_layers
+            where project_id = ? and remaining_qty > 0
+            group by material_id, received_date
+            """,
+            (rs, rowNum) ->
+                new Object[] { rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getDouble(3), rs.getDouble(4) },
+            projectId
+        );
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("select 1 from stock_layers limit 1").isEmpty();
+    }
+
+    /** Project materials with stock on hand per the movement rollup: {@code [projectId, materialId, balance]}. */
+    public void forEachBalance(RowCallbackHandler handler) {
+        jdbcTemplate.query(
+            """
+            select project_id, material_id, sum(received_qty) - sum(issued_qty)
+            from material_daily_movements
+            group by project_id, material_id
+            having sum(received_qty) - sum(issued_qty) > 0
+            order by project_id, material_id
+            """,
+            handler
+        );
+    }
+
+    /**
+     * Receipts per project, material, day and unit price, newest first within
+     * each project material: {@code [projectId, materialId, date, unitPrice, qty]}.
+     * The receiving side of a transfer carries no price, so it is priced at
+     * the source project's latest priced receipt of the material up to the
+     * transfer, as the transfer would have carried the source's cost.
+     */
+    public void forEachReceiptNewestFirst(RowCallbackHandler handler) {
+        jdbcTemplate.query(
+            """
+            select x.project_id, x.material_id, x.entry_date, x.unit_price, sum(x.received_qty)
+            from (
+                select r.project_id, l.material_id, r.entry_date, l.received_qty,
+                       coalesce(l.unit_price, (
+                           select sl.unit_price
+                           from inward_lines sl
+                           join inward_records sr on sr.id = sl.record_id
+                           where sr.project_id = o.project_id and sl.material_id = l.material_id
+                             and sl.unit_price is not null and sr.entry_date <= r.entry_date
+                           order by sr.entry_date desc, sl.id desc
+                           limit 1
+                       ), 0) as unit_price
+                from inward_lines l
+                join inward_records r on r.id = l.record_id
+                left join outward_records o on o.id = r.outward_record_id
+                where r.project_id is not null and l.material_id is not null and l.received_qty > 0
+            ) x
+            group by x.project_id, x.material_id, x.entry_date, x.unit_price
+            order by x.project_id, x.material_id, x.entry_date desc
+            """,
+            handler
+        );
+    }
+}
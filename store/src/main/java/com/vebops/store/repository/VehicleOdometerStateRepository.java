@@ -0,0 +1,14 @@
+package com.vebops.store.repository;
+
+import com.vebops.store.model.VehicleOdometerState;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+public interface VehicleOdometerStateRepository extends JpaRepository<VehicleOdometerState, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from VehicleOdometerState s where s.vehicleId = :vehicleId")
+    Optional<VehicleOdometerState> findForUpdate(Long vehicleId);
+}
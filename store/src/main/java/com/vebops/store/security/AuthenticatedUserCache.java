@@ -0,0 +1,140 @@
+package com.vebops.store.security;
+
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.util.TransactionCallbacks;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of authenticated {@link UserAccount}s keyed by id and
+ * email.
+ *
+ * Cached accounts are detached entities with projects and permissions already
+ * initialised and are shared between requests, so callers must treat them as
+ * read-only and reload through a repository before modifying them. Entries are
+ * evicted after commit whenever an admin changes a user; the TTL bounds the
+ * staleness of anything else.
+ */
+@Component
+public class AuthenticatedUserCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public AuthenticatedUserCache(
+        @Value("${app.auth.user-cache-ttl-seconds:60}") long ttlSeconds,
+        @Value("${app.auth.user-cache-max-entries:1000}") int maxEntries
+    ) {
+        this.ttlMillis = Math.max(0, ttlSeconds) * 1000;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    public UserAccount getOrLoadByEmail(String email, Supplier<UserAccount> loader) {
+        String key = normalize(email);
+        if (key != null) {
+            Long userId = idsByEmail.get(key);
+            UserAccount cached = userId != null ? lookup(userId) : null;
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long observed = generation.get();
+        UserAccount loaded = loader.get();
+        put(loaded, observed);
+        return loaded;
+    }
+
+    public Optional<UserAccount> getOrLoadById(Long userId, Supplier<Optional<UserAccount>> loader) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        UserAccount cached = lookup(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long observed = generation.get();
+        Optional<UserAccount> loaded = loader.get();
+        loaded.ifPresent(user -> put(user, observed));
+        return loaded;
+    }
+
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        remove(userId);
+        TransactionCallbacks.afterCommit(() -> remove(userId));
+    }
+
+    public void evictAll() {
+        clear();
+        TransactionCallbacks.afterCommit(this::clear);
+    }
+
+    private UserAccount lookup(Long userId) {
+        Entry entry = byId.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            byId.remove(userId, entry);
+            return null;
+        }
+        return entry.user();
+    }
+
+    private void put(UserAccount user, long observedGeneration) {
+        if (user == null || user.getId() == null || ttlMillis == 0) {
+            return;
+        }
+        if (byId.size() >= maxEntries) {
+            long now = System.currentTimeMillis();
+            byId.values().removeIf(entry -> entry.expiresAt() < now);
+            if (byId.size() >= maxEntries) {
+                clear();
+            }
+        }
+        // An eviction raced with this load; the loaded copy may predate the change.
+        if (generation.get() != observedGeneration) {
+            return;
+        }
+        byId.put(user.getId(), new Entry(user, System.currentTimeMillis() + ttlMillis));
+        String key = normalize(user.getEmail());
+        if (key != null) {
+            idsByEmail.put(key, user.getId());
+        }
+    }
+
+    private void remove(Long userId) {
+        generation.incrementAndGet();
+        Entry removed = byId.remove(userId);
+        if (removed != null) {
+            String key = normalize(removed.user().getEmail());
+            if (key != null) {
+                idsByEmail.remove(key, userId);
+            }
+        }
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        byId.clear();
+        idsByEmail.clear();
+    }
+
+    private static String normalize(String email) {
+        return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(UserAccount user, long expiresAt) {}
+}
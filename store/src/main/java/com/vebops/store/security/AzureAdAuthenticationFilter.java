@@ -18,17 +18,26 @@ import java.io.IOException;
 @Component
 public class AzureAdAuthenticationFilter extends OncePerRequestFilter {
 
+    /** Request attribute holding the authenticated {@link UserAccount}. */
+    public static final String CURRENT_USER_ATTRIBUTE = "currentUser";
+
     private final AzureAdJwtValidator jwtValidator;
     private final UserRepository userRepository;
     private final AzureAdUserService userService;
+    private final AuthenticatedUserCache userCache;
+    private final TokenRevocationService revocationService;
 
     public AzureAdAuthenticationFilter(
             AzureAdJwtValidator jwtValidator,
             UserRepository userRepository,
-            AzureAdUserService userService) {
+            AzureAdUserService userService,
+            AuthenticatedUserCache userCache,
+            TokenRevocationService revocationService) {
         this.jwtValidator = jwtValidator;
         this.userRepository = userRepository;
         this.userService = userService;
+        this.userCache = userCache;
+        this.revocationService = revocationService;
     }
 
     @Override
@@ -41,19 +50,23 @@ public class AzureAdAuthenticationFilter extends OncePerRequestFilter {
         
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            
-            AzureAdJwtValidator.AzureAdTokenClaims claims = jwtValidator.validateToken(token);
+
+            // Logged-out tokens are treated as anonymous; the Bloom filter makes
+            // this a memory-only check for almost every request.
+            AzureAdJwtValidator.AzureAdTokenClaims claims =
+                    revocationService.isRevoked(token) ? null : jwtValidator.validateToken(token);
             
             if (claims != null) {
-                // Token is valid, check if user exists in database
-                UserAccount user = userService.getOrCreateUser(claims);
+                // Token is valid, check if user exists in database (cached briefly per email)
+                UserAccount user = userCache.getOrLoadByEmail(claims.email(), () -> userService.getOrCreateUser(claims));
                 
                 if (user != null) {
                     // User exists in database - store info in request attributes
+                    request.setAttribute(CURRENT_USER_ATTRIBUTE, user);
                     request.setAttribute("userId", user.getId());
                     request.setAttribute("userEmail", user.getEmail());
                     request.setAttribute("userRole", user.getRole().name());
-                    request.setAttribute("userPermissions", user.getPermissions());
+                    request.setAttribute("userPermissionMask", user.getPermissionMask());
                 } else {
                     // Valid Microsoft token but user not in database
                     // Mark as unauthenticated for session endpoint to handle
@@ -1,15 +1,10 @@
 package com.vebops.store.security;
 
 import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.SignedJWT;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.net.URL;
 import java.util.Date;
 import java.util.List;
 
@@ -26,17 +21,42 @@ public class AzureAdJwtValidator {
     @Value("${azure.ad.client-id}")
     private String clientId;
 
-    private JWKSet jwkSet;
-    private long jwkSetLastUpdated = 0;
-    private static final long JWK_REFRESH_INTERVAL = 3600000; // 1 hour
+    @Value("${azure.ad.issuer:}")
+    private String issuerOverride;
+
+    private final VerifiedTokenCache tokenCache;
+    private final AzureAdKeyManager keyManager;
+
+    public AzureAdJwtValidator(VerifiedTokenCache tokenCache, AzureAdKeyManager keyManager) {
+        this.tokenCache = tokenCache;
+        this.keyManager = keyManager;
+    }
 
     /**
      * Validates a JWT token from Microsoft Azure AD.
+     * Tokens that already passed validation are served from
+     * {@link VerifiedTokenCache} until they expire.
      *
      * @param token The JWT token string
      * @return AzureAdTokenClaims containing user information if valid, null otherwise
      */
     public AzureAdTokenClaims validateToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String tokenHash = VerifiedTokenCache.hash(token);
+        AzureAdTokenClaims cached = tokenCache.get(tokenHash);
+        if (cached != null) {
+            return cached;
+        }
+        AzureAdTokenClaims claims = verify(token);
+        if (claims != null) {
+            tokenCache.put(tokenHash, claims);
+        }
+        return claims;
+    }
+
+    private AzureAdTokenClaims verify(String token) {
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
             
@@ -51,7 +71,9 @@ public class AzureAdJwtValidator {
             Date expiration = signedJWT.getJWTClaimsSet().getExpirationTime();
 
             // Check issuer
-            String expectedIssuer = "https://login.microsoftonline.com/" + tenantId + "/v2.0";
+            String expectedIssuer = issuerOverride != null && !issuerOverride.isBlank()
+                    ? issuerOverride
+                    : "https://login.microsoftonline.com/" + tenantId + "/v2.0";
             if (!expectedIssuer.equals(issuer)) {
                 return null;
             }
@@ -89,31 +111,13 @@ public class AzureAdJwtValidator {
     }
 
     /**
-     * Verifies the JWT signature using Microsoft's public keys.
+     * Verifies the JWT signature using Microsoft's public keys, as kept
+     * current by {@link AzureAdKeyManager}.
      */
     private boolean verifySignature(SignedJWT signedJWT) {
         try {
-            // Refresh JWK set if needed
-            if (jwkSet == null || System.currentTimeMillis() - jwkSetLastUpdated > JWK_REFRESH_INTERVAL) {
-                String jwksUrl = "https://login.microsoftonline.com/" + tenantId + "/discovery/v2.0/keys";
-                jwkSet = JWKSet.load(new URL(jwksUrl));
-                jwkSetLastUpdated = System.currentTimeMillis();
-            }
-
-            // Get the key ID from the token header
-            String keyId = signedJWT.getHeader().getKeyID();
-            
-            // Find the matching key
-            JWK jwk = jwkSet.getKeyByKeyId(keyId);
-            if (jwk == null) {
-                return false;
-            }
-
-            // Verify signature
-            RSAKey rsaKey = (RSAKey) jwk;
-            JWSVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
-            return signedJWT.verify(verifier);
-
+            JWSVerifier verifier = keyManager.verifierFor(signedJWT.getHeader().getKeyID());
+            return verifier != null && signedJWT.verify(verifier);
         } catch (Exception e) {
             System.err.println("Signature verification failed: " + e.getMessage());
             return false;
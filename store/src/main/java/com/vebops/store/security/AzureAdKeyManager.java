@@ -0,0 +1,187 @@
+package com.vebops.store.security;
+
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import jakarta.annotation.PostConstruct;
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Keeps Azure AD signing keys ready for token validation.
+ *
+ * Keys are fetched on a background schedule and turned into verifiers per
+ * key id up front, so request threads only do a map lookup. The public key
+ * set is persisted to a local file after every successful fetch and loaded
+ * from there at startup, which keeps validation working while the JWKS
+ * endpoint is unreachable. Pointing {@code azure.ad.jwks-uri} at a
+ * {@code file:} URI lets validation run against a local stand-in key set.
+ */
+@Component
+public class AzureAdKeyManager {
+
+    private static final Logger log = LoggerFactory.getLogger(AzureAdKeyManager.class);
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 5000;
+    private static final int SIZE_LIMIT_BYTES = 512 * 1024;
+
+    private final String jwksUri;
+    private final Path keyFile;
+    private final long minOnDemandRefreshMillis;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Map<String, JWSVerifier> verifiers = Map.of();
+    private volatile long lastRefreshAttempt;
+    private volatile long lastRefreshSuccess;
+
+    public AzureAdKeyManager(
+        @Value("${azure.ad.tenant-id}") String tenantId,
+        @Value("${azure.ad.jwks-uri:}") String jwksUri,
+        @Value("${azure.ad.jwks-file:}") String keyFile,
+        @Value("${azure.ad.jwks-min-refresh-interval-ms:60000}") long minOnDemandRefreshMillis
+    ) {
+        this.jwksUri = StringUtils.hasText(jwksUri)
+            ? jwksUri.trim()
+            : "https://login.microsoftonline.com/" + tenantId + "/discovery/v2.0/keys";
+        this.keyFile = StringUtils.hasText(keyFile) ? Path.of(keyFile.trim()) : null;
+        this.minOnDemandRefreshMillis = Math.max(0, minOnDemandRefreshMillis);
+    }
+
+    /**
+     * Seeds the verifiers from the persisted key file so validation works
+     * before the first remote fetch completes.
+     */
+    @PostConstruct
+    void loadPersistedKeys() {
+        if (keyFile == null || !Files.isReadable(keyFile)) {
+            return;
+        }
+        try {
+            install(JWKSet.load(keyFile.toFile()));
+            log.info("Loaded {} Azure AD signing keys from {}", verifiers.size(), keyFile);
+        } catch (Exception ex) {
+            log.warn("Could not read persisted Azure AD keys from {}: {}", keyFile, ex.getMessage());
+        }
+    }
+
+    @Scheduled(
+        initialDelay = 0,
+        fixedDelayString = "${azure.ad.jwks-refresh-ms:3600000}"
+    )
+    public void scheduledRefresh() {
+        refreshLock.lock();
+        try {
+            refresh();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the verifier for the given key id. An unknown id triggers at most
+     * one on-demand refresh per {@code azure.ad.jwks-min-refresh-interval-ms}
+     * (Azure rotates keys without notice); concurrent callers do not wait for
+     * it and simply fail validation.
+     */
+    public JWSVerifier verifierFor(String keyId) {
+        if (keyId == null) {
+            return null;
+        }
+        JWSVerifier verifier = verifiers.get(keyId);
+        if (verifier != null) {
+            return verifier;
+        }
+        if (System.currentTimeMillis() - lastRefreshAttempt < minOnDemandRefreshMillis || !refreshLock.tryLock()) {
+            return null;
+        }
+        try {
+            if (!verifiers.containsKey(keyId)) {
+                refresh();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+        return verifiers.get(keyId);
+    }
+
+    public long lastRefreshSuccess() {
+        return lastRefreshSuccess;
+    }
+
+    private void refresh() {
+        lastRefreshAttempt = System.currentTimeMillis();
+        try {
+            JWKSet keys = fetch();
+            int installed = install(keys);
+            if (installed == 0) {
+                log.warn("Azure AD key set from {} contained no usable RSA signing keys", jwksUri);
+                return;
+            }
+            lastRefreshSuccess = System.currentTimeMillis();
+            persist(keys);
+        } catch (Exception ex) {
+            log.warn("Azure AD key refresh from {} failed, keeping {} cached keys: {}", jwksUri, verifiers.size(), ex.getMessage());
+            if (verifiers.isEmpty()) {
+                loadPersistedKeys();
+            }
+        }
+    }
+
+    private JWKSet fetch() throws Exception {
+        URI uri = URI.create(jwksUri);
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            return JWKSet.load(new File(uri));
+        }
+        return JWKSet.load(uri.toURL(), CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS, SIZE_LIMIT_BYTES);
+    }
+
+    private int install(JWKSet keys) throws Exception {
+        Map<String, JWSVerifier> next = new HashMap<>();
+        for (JWK jwk : keys.getKeys()) {
+            if (!(jwk instanceof RSAKey rsaKey) || jwk.getKeyID() == null) {
+                continue;
+            }
+            if (jwk.getKeyUse() != null && !KeyUse.SIGNATURE.equals(jwk.getKeyUse())) {
+                continue;
+            }
+            next.put(jwk.getKeyID(), new RSASSAVerifier(rsaKey.toRSAPublicKey()));
+        }
+        if (!next.isEmpty()) {
+            verifiers = Map.copyOf(next);
+        }
+        return next.size();
+    }
+
+    private void persist(JWKSet keys) {
+        if (keyFile == null) {
+            return;
+        }
+        try {
+            Path parent = keyFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = Files.createTempFile(parent, "jwks", ".tmp");
+            Files.writeString(temp, keys.toPublicJWKSet().toString(), StandardCharsets.UTF_8);
+            Files.move(temp, keyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception ex) {
+            log.warn("Could not persist Azure AD keys to {}: {}", keyFile, ex.getMessage());
+        }
+    }
+}
@@ -48,8 +48,7 @@ public class AzureAdUserService {
                         return userRepository.save(existingUser);
                     }
                     if (existingUser.getRole() == Role.ADMIN
-                            && (existingUser.getPermissions() == null
-                                    || existingUser.getPermissions().size() != Permission.values().length)) {
+                            && existingUser.getPermissionMask() != Permission.allMask()) {
                         existingUser.setPermissions(EnumSet.allOf(Permission.class));
                         return userRepository.save(existingUser);
                     }
@@ -0,0 +1,19 @@
+package com.vebops.store.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller parameter of type {@link com.vebops.store.model.UserAccount}
+ * that should receive the authenticated user resolved by
+ * {@link AzureAdAuthenticationFilter}. Requests without an authenticated user
+ * are rejected with 401.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
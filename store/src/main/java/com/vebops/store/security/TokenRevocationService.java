@@ -0,0 +1,123 @@
+package com.vebops.store.security;
+
+import com.vebops.store.model.RevokedToken;
+import com.vebops.store.repository.RevokedTokenRepository;
+import com.vebops.store.util.BloomFilter;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks bearer tokens revoked by logout.
+ *
+ * Revocations are stored by token hash in {@code revoked_tokens}. Every
+ * revoked hash is also added to an in-memory Bloom filter, so the common
+ * "not revoked" answer needs no database access; only filter hits fall
+ * through to an exact lookup. The filter is rebuilt from the table on
+ * startup and on a schedule, which also drops expired revocations and picks
+ * up revocations made by other instances.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    // Serialises filter swaps with additions so a revocation is never lost
+    // between the rebuild snapshot and the swap.
+    private final ReentrantLock filterLock = new ReentrantLock();
+
+    private volatile BloomFilter filter = BloomFilter.create(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository, VerifiedTokenCache verifiedTokenCache) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    public boolean isRevoked(String token) {
+        if (token == null || token.isBlank()) {
+            return false;
+        }
+        String tokenHash = VerifiedTokenCache.hash(token);
+        if (!filter.mightContain(decode(tokenHash))) {
+            return false;
+        }
+        return revokedTokenRepository.existsByTokenHash(tokenHash);
+    }
+
+    /**
+     * Revokes the token until its natural expiry. Tokens that are already
+     * expired need no record.
+     */
+    public void revoke(String token, Instant expiresAt) {
+        if (token == null || token.isBlank() || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        String tokenHash = VerifiedTokenCache.hash(token);
+        if (!revokedTokenRepository.existsByTokenHash(tokenHash)) {
+            RevokedToken revoked = new RevokedToken();
+            revoked.setTokenHash(tokenHash);
+            revoked.setExpiresAt(expiresAt);
+            revoked.setRevokedAt(Instant.now());
+            try {
+                revokedTokenRepository.save(revoked);
+            } catch (DataIntegrityViolationException ex) {
+                // Revoked concurrently (double logout); the row already exists.
+            }
+        }
+        filterLock.lock();
+        try {
+            filter.add(decode(tokenHash));
+        } finally {
+            filterLock.unlock();
+        }
+        verifiedTokenCache.invalidate(tokenHash);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Purges expired revocations and rebuilds the filter from the remaining
+     * rows, sized for the current population.
+     */
+    @Scheduled(
+        initialDelayString = "${app.auth.revocation.rebuild-ms:300000}",
+        fixedDelayString = "${app.auth.revocation.rebuild-ms:300000}"
+    )
+    public void rebuild() {
+        filterLock.lock();
+        try {
+            Instant now = Instant.now();
+            int purged = revokedTokenRepository.deleteExpired(now);
+            List<String> active = revokedTokenRepository.findActiveTokenHashes(now);
+            BloomFilter next = BloomFilter.create(Math.max(MIN_CAPACITY, active.size() * 2), FALSE_POSITIVE_RATE);
+            active.forEach(hash -> next.add(decode(hash)));
+            filter = next;
+            if (purged > 0 || !active.isEmpty()) {
+                log.info("Token revocation filter rebuilt with {} active entries ({} expired purged)", active.size(), purged);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Token revocation filter rebuild failed; keeping the current filter", ex);
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    private static byte[] decode(String tokenHash) {
+        return Base64.getUrlDecoder().decode(tokenHash);
+    }
+}
@@ -0,0 +1,110 @@
+package com.vebops.store.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of successfully validated Azure AD tokens.
+ *
+ * Entries are keyed by the SHA-256 of the raw token, so the token itself is
+ * never retained, and live until the token's own {@code exp}. A hit skips
+ * JWT parsing and RSA verification entirely. Only valid tokens are cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Map<String, AzureAdJwtValidator.AzureAdTokenClaims> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${azure.ad.token-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    public AzureAdJwtValidator.AzureAdTokenClaims get(String tokenHash) {
+        AzureAdJwtValidator.AzureAdTokenClaims claims = entries.get(tokenHash);
+        if (claims != null && claims.expirationTime() > System.currentTimeMillis()) {
+            hits.increment();
+            return claims;
+        }
+        if (claims != null) {
+            entries.remove(tokenHash, claims);
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String tokenHash, AzureAdJwtValidator.AzureAdTokenClaims claims) {
+        if (claims == null || claims.expirationTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom();
+        }
+        entries.put(tokenHash, claims);
+    }
+
+    public void invalidate(String tokenHash) {
+        entries.remove(tokenHash);
+    }
+
+    public TokenCacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        return new TokenCacheStats(
+            entries.size(),
+            maxEntries,
+            hitCount,
+            missCount,
+            lookups == 0 ? 0d : (double) hitCount / lookups,
+            evictions.sum()
+        );
+    }
+
+    /**
+     * URL-safe Base64 SHA-256 of the raw token, used as the cache key.
+     */
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(claims -> claims.expirationTime() <= now);
+        // Still full of live tokens: drop roughly a tenth in iteration order.
+        int toDrop = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (toDrop-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    public record TokenCacheStats(
+        int size,
+        int maxEntries,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions
+    ) {}
+}
@@ -0,0 +1,196 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.AccessType;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.Role;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.ProjectTeamMemberRepository;
+import com.vebops.store.util.ProjectScope;
+import com.vebops.store.util.TransactionCallbacks;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolves which projects a user may see and caches the answer per user.
+ *
+ * A user's scope is the union of explicit project assignments, project team
+ * memberships and projects whose (free-text) project manager matches the
+ * user's name or email. The project manager strings are kept in a normalised
+ * index so resolving a scope never scans the projects table. Both the index
+ * and the per-user scopes are invalidated when projects, teams or users
+ * change; invalidation is deferred until the surrounding transaction commits
+ * so a concurrent request cannot re-cache the pre-commit state.
+ */
+@Service
+public class AccessScopeService {
+
+    private final ProjectRepository projectRepository;
+    private final ProjectTeamMemberRepository projectTeamMemberRepository;
+
+    private final Map<Long, CachedScope> scopes = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile ProjectIndex index;
+
+    public AccessScopeService(
+        ProjectRepository projectRepository,
+        ProjectTeamMemberRepository projectTeamMemberRepository
+    ) {
+        this.projectRepository = projectRepository;
+        this.projectTeamMemberRepository = projectTeamMemberRepository;
+    }
+
+    /**
+     * Returns the projects the user can access as a compact immutable scope.
+     * Admins and users with {@link AccessType#ALL} get {@link ProjectScope#ALL}
+     * without touching the project index.
+     */
+    public ProjectScope resolveScope(UserAccount user) {
+        if (user == null) {
+            return ProjectScope.NONE;
+        }
+        if (hasGlobalAccess(user)) {
+            return ProjectScope.ALL;
+        }
+        long observed = generation.get();
+        ProjectIndex current = index();
+        if (user.getId() == null) {
+            return computeScope(user, current);
+        }
+        CachedScope cached = scopes.get(user.getId());
+        String fingerprint = fingerprint(user);
+        if (cached != null && cached.fingerprint().equals(fingerprint)) {
+            return cached.scope();
+        }
+        ProjectScope scope = computeScope(user, current);
+        // Invalidation bumps the generation before removing, so a load that
+        // raced with it either sees the bump here or is removed afterwards.
+        scopes.compute(user.getId(), (id, existing) ->
+            generation.get() == observed ? new CachedScope(fingerprint, scope) : existing
+        );
+        return scope;
+    }
+
+    public boolean hasAccess(UserAccount user, Long projectId) {
+        if (user == null || projectId == null) {
+            return false;
+        }
+        if (hasGlobalAccess(user)) {
+            return true;
+        }
+        return resolveScope(user).contains(projectId);
+    }
+
+    /**
+     * Whether the user is named as the project's manager, either by display
+     * name or by email.
+     */
+    public boolean isProjectManager(UserAccount user, Project project) {
+        if (user == null || project == null) {
+            return false;
+        }
+        String manager = normalize(project.getProjectManager());
+        return manager != null && (manager.equals(normalize(user.getName())) || manager.equals(normalize(user.getEmail())));
+    }
+
+    /**
+     * Drops every cached scope and the project manager index. Used when a
+     * project or a project team changes, since either can affect many users.
+     */
+    public void invalidateAll() {
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            index = null;
+            scopes.clear();
+        });
+    }
+
+    /**
+     * Drops the cached scope of a single user after their role, access type
+     * or project assignments changed.
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            generation.incrementAndGet();
+            scopes.remove(userId);
+        });
+    }
+
+    private ProjectScope computeScope(UserAccount user, ProjectIndex current) {
+        Set<Long> projectIds = new HashSet<>();
+        user.getProjects().stream().map(Project::getId).filter(Objects::nonNull).forEach(projectIds::add);
+        projectTeamMemberRepository
+            .findByUser_Id(user.getId())
+            .forEach(member -> projectIds.add(member.getProject().getId()));
+        addManagedProjects(current, normalize(user.getName()), projectIds);
+        addManagedProjects(current, normalize(user.getEmail()), projectIds);
+        projectIds.removeIf(projectId -> !current.allProjects().contains(projectId));
+        return ProjectScope.of(projectIds);
+    }
+
+    private void addManagedProjects(ProjectIndex current, String key, Set<Long> target) {
+        if (key != null) {
+            target.addAll(current.managerIndex().getOrDefault(key, Set.of()));
+        }
+    }
+
+    private ProjectIndex index() {
+        ProjectIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = index;
+            if (current == null) {
+                long observed = generation.get();
+                current = buildIndex();
+                if (generation.get() == observed) {
+                    index = current;
+                }
+            }
+            return current;
+        }
+    }
+
+    private ProjectIndex buildIndex() {
+        Set<Long> allProjectIds = new HashSet<>();
+        Map<String, Set<Long>> managerIndex = new HashMap<>();
+        for (Object[] row : projectRepository.findIdsWithProjectManager()) {
+            Long projectId = (Long) row[0];
+            allProjectIds.add(projectId);
+            String manager = normalize((String) row[1]);
+            if (manager != null) {
+                managerIndex.computeIfAbsent(manager, key -> new HashSet<>()).add(projectId);
+            }
+        }
+        managerIndex.replaceAll((key, ids) -> Set.copyOf(ids));
+        return new ProjectIndex(ProjectScope.of(allProjectIds), Map.copyOf(managerIndex));
+    }
+
+    private static boolean hasGlobalAccess(UserAccount user) {
+        return user.getRole() == Role.ADMIN || user.getAccessType() == AccessType.ALL;
+    }
+
+    private static String fingerprint(UserAccount user) {
+        return user.getRole() + "|" + user.getAccessType() + "|" + normalize(user.getName()) + "|" + normalize(user.getEmail());
+    }
+
+    private static String normalize(String value) {
+        return StringUtils.hasText(value) ? value.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private record ProjectIndex(ProjectScope allProjects, Map<String, Set<Long>> managerIndex) {}
+
+    private record CachedScope(String fingerprint, ProjectScope scope) {}
+}
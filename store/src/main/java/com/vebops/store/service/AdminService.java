@@ -23,16 +23,15 @@ import com.vebops.store.model.Permission;
 import com.vebops.store.model.Role;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.repository.BomLineRepository;
-import com.vebops.store.repository.InwardRecordRepository;
-import com.vebops.store.repository.MaterialRepository;
-import com.vebops.store.repository.OutwardRecordRepository;
+import com.vebops.store.repository.ProjectActivityQueries;
 import com.vebops.store.repository.ProjectRepository;
 import com.vebops.store.repository.ProjectTeamMemberRepository;
-import com.vebops.store.repository.TransferRecordRepository;
 import com.vebops.store.repository.UserRepository;
+import com.vebops.store.security.AuthenticatedUserCache;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.EnumSet;
@@ -57,13 +56,13 @@ public class AdminService {
 
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
-    private final MaterialRepository materialRepository;
     private final BomLineRepository bomLineRepository;
-    private final InwardRecordRepository inwardRecordRepository;
-    private final OutwardRecordRepository outwardRecordRepository;
-    private final TransferRecordRepository transferRecordRepository;
     private final ProjectTeamMemberRepository projectTeamMemberRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AccessScopeService accessScopeService;
+    private final AuthenticatedUserCache userCache;
+    private final AnalyticsSnapshotService analyticsSnapshotService;
+    private final ProjectActivityQueries projectActivityQueries;
 
     private static final int MAX_RECENT_ITEMS = 5;
     private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
@@ -71,22 +70,22 @@ public class AdminService {
     public AdminService(
             ProjectRepository projectRepository,
             UserRepository userRepository,
-            MaterialRepository materialRepository,
             BomLineRepository bomLineRepository,
-            InwardRecordRepository inwardRecordRepository,
-            OutwardRecordRepository outwardRecordRepository,
-            TransferRecordRepository transferRecordRepository,
             ProjectTeamMemberRepository projectTeamMemberRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            AccessScopeService accessScopeService,
+            AuthenticatedUserCache userCache,
+            AnalyticsSnapshotService analyticsSnapshotService,
+            ProjectActivityQueries projectActivityQueries) {
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
-        this.materialRepository = materialRepository;
         this.bomLineRepository = bomLineRepository;
-        this.inwardRecordRepository = inwardRecordRepository;
-        this.outwardRecordRepository = outwardRecordRepository;
-        this.transferRecordRepository = transferRecordRepository;
         this.projectTeamMemberRepository = projectTeamMemberRepository;
         this.passwordEncoder = passwordEncoder;
+        this.accessScopeService = accessScopeService;
+        this.userCache = userCache;
+        this.analyticsSnapshotService = analyticsSnapshotService;
+        this.projectActivityQueries = projectActivityQueries;
     }
 
     public PaginatedResponse<ProjectDto> searchProjects(
@@ -176,7 +175,10 @@ public class AdminService {
         if (StringUtils.hasText(request.projectManager())) {
             project.setProjectManager(request.projectManager().trim());
         }
-        return toProjectDto(projectRepository.save(project));
+        Project saved = projectRepository.save(project);
+        accessScopeService.invalidateAll();
+        analyticsSnapshotService.invalidate();
+        return toProjectDto(saved);
     }
 
     private String generateProjectCode() {
@@ -212,7 +214,9 @@ public class AdminService {
             String trimmedManager = request.projectManager().trim();
             project.setProjectManager(StringUtils.hasText(trimmedManager) ? trimmedManager : null);
         }
-        return toProjectDto(projectRepository.save(project));
+        Project saved = projectRepository.save(project);
+        accessScopeService.invalidateAll();
+        return toProjectDto(saved);
     }
 
     public ProjectDetailsDto getProjectDetails(Long id) {
@@ -260,6 +264,8 @@ public class AdminService {
         if (!usersNeedingProjectAccess.isEmpty()) {
             userRepository.saveAll(usersNeedingProjectAccess);
         }
+        accessScopeService.invalidateAll();
+        userCache.evictAll();
 
         List<ProjectTeamMemberDto> team = saved.stream().map(this::toTeamDto).toList();
         return new ProjectDetailsDto(
@@ -275,6 +281,9 @@ public class AdminService {
             throw new NotFoundException("Project not found");
         }
         projectRepository.deleteById(id);
+        accessScopeService.invalidateAll();
+        userCache.evictAll();
+        analyticsSnapshotService.invalidate();
     }
 
     public PaginatedResponse<UserDto> searchUsers(
@@ -388,7 +397,11 @@ public class AdminService {
         user.setPasswordHash("$2a$10$AZURE_AD_USER_NO_PASSWORD_NEEDED");
 
         assignProjects(user, request.projectIds());
-        return authService.toUserDto(userRepository.save(user));
+        UserAccount saved = userRepository.save(user);
+        accessScopeService.invalidateUser(saved.getId());
+        userCache.evict(saved.getId());
+        analyticsSnapshotService.invalidate();
+        return authService.toUserDto(saved);
     }
 
     public UserDto updateUser(Long id, UpdateUserRequest request, AuthService authService) {
@@ -403,22 +416,28 @@ public class AdminService {
         if (request.projectIds() != null) {
             assignProjects(user, request.projectIds());
         }
-        return authService.toUserDto(userRepository.save(user));
+        UserAccount saved = userRepository.save(user);
+        accessScopeService.invalidateUser(saved.getId());
+        userCache.evict(saved.getId());
+        return authService.toUserDto(saved);
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        accessScopeService.invalidateUser(id);
+        userCache.evict(id);
+        analyticsSnapshotService.invalidate();
     }
 
     public AnalyticsDto analytics() {
-        long totalProjects = projectRepository.count();
-        long totalMaterials = materialRepository.count();
-        long totalUsers = userRepository.count();
-        double received = materialRepository.findAll().stream().mapToDouble(m -> m.getReceivedQty()).sum();
-        double utilized = materialRepository.findAll().stream().mapToDouble(m -> m.getUtilizedQty()).sum();
-        return new AnalyticsDto(totalProjects, totalMaterials, totalUsers, received, utilized);
+        return analyticsSnapshotService.current();
     }
 
+    /**
+     * Per-project activity counts and the latest few inwards, outwards and
+     * transfers. Built from grouped counts and per-project top-N queries, so
+     * the cost follows the number of projects rather than transactions.
+     */
     public List<ProjectActivityDto> projectActivityOverview() {
         List<Project> projects = projectRepository.findAll(Sort.by("code").ascending());
         Map<Long, ProjectActivityAccumulator> byId = new LinkedHashMap<>();
@@ -426,87 +445,103 @@ public class AdminService {
             byId.put(project.getId(), new ProjectActivityAccumulator(project));
         }
 
-        inwardRecordRepository.findAllByOrderByEntryDateDesc().forEach(record -> {
-            Project project = record.getProject();
-            if (project == null) {
-                return;
+        projectActivityQueries.countInwardsByProject().forEach(row -> {
+            ProjectActivityAccumulator acc = byId.get(toLong(row[0]));
+            if (acc != null) {
+                acc.inwardCount = toInt(row[1]);
             }
-            ProjectActivityAccumulator acc = byId.get(project.getId());
+        });
+        projectActivityQueries.countOutwardsByProject().forEach(row -> {
+            ProjectActivityAccumulator acc = byId.get(toLong(row[0]));
             if (acc != null) {
-                String date = record.getEntryDate() != null ? DATE_FMT.format(record.getEntryDate()) : null;
-                int lineCount = record.getLines() != null ? record.getLines().size() : 0;
-                String status = record.isValidated() ? "Validated" : "Pending";
-                acc.addInward(new ProjectActivityEntryDto(
-                        record.getId() != null ? String.valueOf(record.getId()) : null,
-                        record.getCode(),
-                        date,
-                        record.getSupplierName(),
-                        status,
-                        lineCount,
-                        "INWARD"));
+                acc.outwardCount = toInt(row[1]);
             }
         });
-
-        outwardRecordRepository.findAllByOrderByEntryDateDesc().forEach(record -> {
-            Project project = record.getProject();
-            if (project == null) {
-                return;
+        projectActivityQueries.countTransfersByProject().forEach(row -> {
+            ProjectActivityAccumulator acc = byId.get(toLong(row[0]));
+            if (acc != null) {
+                acc.transferCount = toInt(row[1]);
             }
-            ProjectActivityAccumulator acc = byId.get(project.getId());
+        });
+
+        projectActivityQueries.latestInwards(MAX_RECENT_ITEMS).forEach(row -> {
+            ProjectActivityAccumulator acc = byId.get(toLong(row[0]));
             if (acc != null) {
-                String date = record.getDate() != null ? DATE_FMT.format(record.getDate()) : null;
-                int lineCount = record.getLines() != null ? record.getLines().size() : 0;
-                String status = record.isValidated() ? "Validated" : "Pending";
-                acc.addOutward(new ProjectActivityEntryDto(
-                        record.getId() != null ? String.valueOf(record.getId()) : null,
-                        record.getCode(),
-                        date,
-                        record.getIssueTo(),
-                        status,
-                        lineCount,
-                        "OUTWARD"));
+                acc.recentInwards.add(new ProjectActivityEntryDto(
+                        String.valueOf(row[1]),
+                        (String) row[2],
+                        formatDate(row[3]),
+                        (String) row[4],
+                        toBoolean(row[5]) ? "Validated" : "Pending",
+                        toInt(row[6]),
+                        "INWARD"));
             }
         });
 
-        transferRecordRepository.findAllByOrderByTransferDateDesc().forEach(record -> {
-            Project from = record.getFromProject();
-            Project to = record.getToProject();
-            String date = record.getTransferDate() != null ? DATE_FMT.format(record.getTransferDate()) : null;
-            int lineCount = record.getLines() != null ? record.getLines().size() : 0;
-            String direction = (from != null ? from.getName() : "-") + " → " + (to != null ? to.getName() : "-");
-
-            if (from != null) {
-                ProjectActivityAccumulator acc = byId.get(from.getId());
-                if (acc != null) {
-                    acc.addTransfer(new ProjectActivityEntryDto(
-                            record.getId() != null ? String.valueOf(record.getId()) : null,
-                            record.getCode(),
-                            date,
-                            to != null ? to.getName() : "To project not set",
-                            "Dispatched",
-                            lineCount,
-                            direction));
-                }
+        projectActivityQueries.latestOutwards(MAX_RECENT_ITEMS).forEach(row -> {
+            ProjectActivityAccumulator acc = byId.get(toLong(row[0]));
+            if (acc != null) {
+                acc.recentOutwards.add(new ProjectActivityEntryDto(
+                        String.valueOf(row[1]),
+                        (String) row[2],
+                        formatDate(row[3]),
+                        (String) row[4],
+                        toBoolean(row[5]) ? "Validated" : "Pending",
+                        toInt(row[6]),
+                        "OUTWARD"));
             }
+        });
 
-            if (to != null) {
-                ProjectActivityAccumulator acc = byId.get(to.getId());
-                if (acc != null) {
-                    acc.addTransfer(new ProjectActivityEntryDto(
-                            record.getId() != null ? String.valueOf(record.getId()) : null,
-                            record.getCode(),
-                            date,
-                            from != null ? from.getName() : "From project not set",
-                            "Received",
-                            lineCount,
-                            direction));
-                }
+        projectActivityQueries.latestTransfers(MAX_RECENT_ITEMS).forEach(row -> {
+            ProjectActivityAccumulator acc = byId.get(toLong(row[0]));
+            if (acc == null) {
+                return;
             }
+            boolean dispatched = "FROM".equals(row[2]);
+            String fromName = (String) row[5];
+            String toName = (String) row[6];
+            String direction = (fromName != null ? fromName : "-") + " → " + (toName != null ? toName : "-");
+            String subject = dispatched
+                    ? (toName != null ? toName : "To project not set")
+                    : (fromName != null ? fromName : "From project not set");
+            acc.recentTransfers.add(new ProjectActivityEntryDto(
+                    String.valueOf(row[1]),
+                    (String) row[3],
+                    formatDate(row[4]),
+                    subject,
+                    dispatched ? "Dispatched" : "Received",
+                    toInt(row[7]),
+                    direction));
         });
 
         return byId.values().stream().map(ProjectActivityAccumulator::toDto).toList();
     }
 
+    private static String formatDate(Object value) {
+        if (value instanceof java.sql.Date sqlDate) {
+            return DATE_FMT.format(sqlDate.toLocalDate());
+        }
+        if (value instanceof LocalDate localDate) {
+            return DATE_FMT.format(localDate);
+        }
+        return null;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number number ? number.intValue() : 0;
+    }
+
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean flag) {
+            return flag;
+        }
+        return value instanceof Number number && number.intValue() != 0;
+    }
+
     private static class ProjectActivityAccumulator {
         private final Project project;
         private int inwardCount = 0;
@@ -520,21 +555,6 @@ public class AdminService {
             this.project = project;
         }
 
-        void addInward(ProjectActivityEntryDto dto) {
-            inwardCount++;
-            addIfRoom(recentInwards, dto);
-        }
-
-        void addOutward(ProjectActivityEntryDto dto) {
-            outwardCount++;
-            addIfRoom(recentOutwards, dto);
-        }
-
-        void addTransfer(ProjectActivityEntryDto dto) {
-            transferCount++;
-            addIfRoom(recentTransfers, dto);
-        }
-
         ProjectActivityDto toDto() {
             return new ProjectActivityDto(
                     project.getId(),
@@ -547,12 +567,6 @@ public class AdminService {
                     recentOutwards,
                     recentTransfers);
         }
-
-        private void addIfRoom(List<ProjectActivityEntryDto> items, ProjectActivityEntryDto dto) {
-            if (items.size() < MAX_RECENT_ITEMS) {
-                items.add(dto);
-            }
-        }
     }
 
     private void applyUserFields(UserAccount user, String name, Role role, AccessType accessType,
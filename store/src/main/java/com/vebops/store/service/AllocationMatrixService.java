@@ -0,0 +1,83 @@
+package com.vebops.store.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vebops.store.dto.AllocationMatrixRowDto;
+import com.vebops.store.dto.PaginatedResponse;
+import com.vebops.store.repository.BomLineRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Project × material allocation matrix. Each row is one material with its
+ * allocated, received, issued and balance figures per project, aggregated by
+ * the database; pages are cut by material so a material's projects are never
+ * split across pages.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AllocationMatrixService {
+
+    private static final int FLUSH_EVERY_ROWS = 200;
+
+    private final BomLineRepository bomLineRepository;
+    private final ObjectMapper objectMapper;
+
+    public AllocationMatrixService(BomLineRepository bomLineRepository, ObjectMapper objectMapper) {
+        this.bomLineRepository = bomLineRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public PaginatedResponse<AllocationMatrixRowDto> matrix(String search, int page, int size) {
+        int safePage = page < 1 ? 1 : page;
+        int safeSize = size < 1 ? 20 : Math.min(size, 200);
+        Page<Long> materialIds = bomLineRepository.findAllocatedMaterialIds(search, PageRequest.of(safePage - 1, safeSize));
+        List<AllocationMatrixRowDto> rows = bomLineRepository.findAllocationMatrix(materialIds.getContent(), search);
+        return new PaginatedResponse<>(
+            rows,
+            materialIds.getTotalElements(),
+            Math.max(1, materialIds.getTotalPages()),
+            materialIds.getSize(),
+            materialIds.getNumber(),
+            materialIds.hasNext(),
+            materialIds.hasPrevious(),
+            Map.of()
+        );
+    }
+
+    /**
+     * Writes the whole matrix as newline-delimited JSON, one material per
+     * line, straight from a streaming result set. Returns the number of rows.
+     * The output stream is not closed.
+     */
+    public int streamMatrix(String search, OutputStream out) throws IOException {
+        int written = 0;
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        try (Stream<AllocationMatrixRowDto> rows = bomLineRepository.streamAllocationMatrix(search)) {
+            Iterator<AllocationMatrixRowDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+        } finally {
+            generator.close();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,173 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.AnalyticsDto;
+import com.vebops.store.dto.CategoryTotalsDto;
+import com.vebops.store.dto.TopMoverDto;
+import com.vebops.store.repository.InwardRecordRepository;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.OutwardLineRepository;
+import com.vebops.store.repository.OutwardRecordRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.UserRepository;
+import com.vebops.store.util.TransactionCallbacks;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Admin dashboard analytics kept as a precomputed snapshot.
+ *
+ * The figures come from a handful of SUM/COUNT/GROUP BY queries rather than
+ * loading entities. The snapshot is recomputed on a schedule and, after a
+ * write has called {@link #invalidate()}, by the next dashboard request once
+ * {@code min-refresh-ms} has passed, so bursts of writes cost one refresh.
+ * Readers never wait for a refresh in progress; they get the previous
+ * snapshot.
+ */
+@Service
+public class AnalyticsSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsSnapshotService.class);
+    private static final int TOP_MOVER_DAYS = 30;
+    private static final int TOP_MOVER_COUNT = 10;
+
+    private final ProjectRepository projectRepository;
+    private final MaterialRepository materialRepository;
+    private final UserRepository userRepository;
+    private final InwardRecordRepository inwardRecordRepository;
+    private final OutwardRecordRepository outwardRecordRepository;
+    private final OutwardLineRepository outwardLineRepository;
+    private final long minRefreshMillis;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile AnalyticsDto snapshot;
+    private volatile boolean stale = true;
+
+    public AnalyticsSnapshotService(
+        ProjectRepository projectRepository,
+        MaterialRepository materialRepository,
+        UserRepository userRepository,
+        InwardRecordRepository inwardRecordRepository,
+        OutwardRecordRepository outwardRecordRepository,
+        OutwardLineRepository outwardLineRepository,
+        @Value("${app.analytics.min-refresh-ms:10000}") long minRefreshMillis
+    ) {
+        this.projectRepository = projectRepository;
+        this.materialRepository = materialRepository;
+        this.userRepository = userRepository;
+        this.inwardRecordRepository = inwardRecordRepository;
+        this.outwardRecordRepository = outwardRecordRepository;
+        this.outwardLineRepository = outwardLineRepository;
+        this.minRefreshMillis = Math.max(0, minRefreshMillis);
+    }
+
+    public AnalyticsDto current() {
+        AnalyticsDto current = snapshot;
+        if (current == null) {
+            refreshLock.lock();
+            try {
+                if (snapshot == null) {
+                    refreshNow();
+                }
+                return snapshot;
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        boolean due = current.generatedAt().toEpochMilli() + minRefreshMillis <= System.currentTimeMillis();
+        if (stale && due && refreshLock.tryLock()) {
+            try {
+                refreshNow();
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    /** Marks the snapshot out of date once the current transaction commits. */
+    public void invalidate() {
+        TransactionCallbacks.afterCommit(() -> stale = true);
+    }
+
+    @Scheduled(
+        initialDelayString = "${app.analytics.refresh-ms:300000}",
+        fixedDelayString = "${app.analytics.refresh-ms:300000}"
+    )
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            refreshNow();
+        } catch (RuntimeException ex) {
+            log.warn("Analytics snapshot refresh failed; keeping the previous snapshot", ex);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshNow() {
+        // Cleared first so writes committed during the queries mark it stale again.
+        stale = false;
+        try {
+            snapshot = compute();
+        } catch (RuntimeException ex) {
+            stale = true;
+            throw ex;
+        }
+    }
+
+    private AnalyticsDto compute() {
+        Object[] quantities = materialRepository.sumReceivedAndUtilized().get(0);
+        List<CategoryTotalsDto> categories = new ArrayList<>();
+        for (Object[] row : materialRepository.totalsByCategory()) {
+            categories.add(
+                new CategoryTotalsDto(
+                    (String) row[0],
+                    number(row[1]).longValue(),
+                    number(row[2]).doubleValue(),
+                    number(row[3]).doubleValue(),
+                    number(row[4]).doubleValue()
+                )
+            );
+        }
+        List<TopMoverDto> topMovers = new ArrayList<>();
+        LocalDate since = LocalDate.now().minusDays(TOP_MOVER_DAYS);
+        for (Object[] row : outwardLineRepository.topIssuedSince(since, PageRequest.of(0, TOP_MOVER_COUNT))) {
+            topMovers.add(
+                new TopMoverDto(
+                    String.valueOf(row[0]),
+                    (String) row[1],
+                    (String) row[2],
+                    (String) row[3],
+                    number(row[4]).doubleValue(),
+                    number(row[5]).longValue()
+                )
+            );
+        }
+        return new AnalyticsDto(
+            projectRepository.count(),
+            materialRepository.count(),
+            userRepository.count(),
+            number(quantities[0]).doubleValue(),
+            number(quantities[1]).doubleValue(),
+            inwardRecordRepository.countByValidatedFalse(),
+            outwardRecordRepository.countByValidatedFalse(),
+            categories,
+            topMovers,
+            TOP_MOVER_DAYS,
+            Instant.now()
+        );
+    }
+
+    private static Number number(Object value) {
+        return value instanceof Number number ? number : 0;
+    }
+}
@@ -20,7 +20,6 @@ import com.vebops.store.model.ProjectTeamMember;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.ForbiddenException;
 import com.vebops.store.exception.NotFoundException;
-import com.vebops.store.model.AccessType;
 import com.vebops.store.model.BomLine;
 import com.vebops.store.model.InwardLine;
 import com.vebops.store.model.InwardRecord;
@@ -41,6 +40,8 @@ import com.vebops.store.repository.ProjectTeamMemberRepository;
 
 import com.vebops.store.repository.TransferRecordRepository;
 import com.vebops.store.repository.UserRepository;
+import com.vebops.store.security.AuthenticatedUserCache;
+import com.vebops.store.util.ProjectScope;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -50,8 +51,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -70,6 +71,8 @@ public class AppDataService {
         private final AuthService authService;
         private final InventoryService inventoryService;
         private final ProjectTeamMemberRepository projectTeamMemberRepository;
+        private final AccessScopeService accessScopeService;
+        private final AuthenticatedUserCache userCache;
 
         private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
 
@@ -85,7 +88,9 @@ public class AppDataService {
                         ProjectTeamMemberRepository projectTeamMemberRepository,
                         UserRepository userRepository,
                         AuthService authService,
-                        InventoryService inventoryService) {
+                        InventoryService inventoryService,
+                        AccessScopeService accessScopeService,
+                        AuthenticatedUserCache userCache) {
                 this.projectRepository = projectRepository;
                 this.bomLineRepository = bomLineRepository;
                 this.inwardLineRepository = inwardLineRepository;
@@ -98,14 +103,19 @@ public class AppDataService {
                 this.userRepository = userRepository;
                 this.authService = authService;
                 this.inventoryService = inventoryService;
+                this.accessScopeService = accessScopeService;
+                this.userCache = userCache;
         }
 
         public AppBootstrapResponse bootstrap(UserAccount user) {
                 List<Project> allProjects = projectRepository.findAll();
                 List<ProjectDto> allProjectDtos = allProjects.stream().map(this::toProjectDto).toList();
 
-                List<Project> assigned = resolveAssignedProjects(user, allProjects);
-                List<ProjectDto> assignedDtos = assigned.stream().map(this::toProjectDto).toList();
+                ProjectScope allowedProjectIds = accessScopeService.resolveScope(user);
+                List<ProjectDto> assignedDtos = allProjects.stream()
+                                .filter(project -> allowedProjectIds.contains(project.getId()))
+                                .map(this::toProjectDto)
+                                .toList();
 
                 List<MaterialDto> materialDtos = materialRepository
                                 .findAll()
@@ -124,8 +134,6 @@ public class AppDataService {
                         bom.put(String.valueOf(project.getId()), lines);
                 }
 
-                Set<Long> allowedProjectIds = assigned.stream().map(Project::getId).collect(Collectors.toSet());
-
                 List<InwardHistoryDto> inward = inwardRecordRepository
                                 .findAllByOrderByEntryDateDesc()
                                 .stream()
@@ -171,9 +179,7 @@ public class AppDataService {
                 if (materialId == null) {
                         throw new BadRequestException("Material id is required");
                 }
-                List<Project> allProjects = projectRepository.findAll();
-                List<Project> assigned = resolveAssignedProjects(user, allProjects);
-                Set<Long> allowedProjectIds = assigned.stream().map(Project::getId).collect(Collectors.toSet());
+                ProjectScope allowedProjectIds = accessScopeService.resolveScope(user);
 
                 return inwardRecordRepository
                                 .findByLinesMaterialIdOrderByEntryDateDesc(materialId)
@@ -187,9 +193,7 @@ public class AppDataService {
                 if (materialId == null) {
                         throw new BadRequestException("Material id is required");
                 }
-                List<Project> allProjects = projectRepository.findAll();
-                List<Project> assigned = resolveAssignedProjects(user, allProjects);
-                Set<Long> allowedProjectIds = assigned.stream().map(Project::getId).collect(Collectors.toSet());
+                ProjectScope allowedProjectIds = accessScopeService.resolveScope(user);
 
                 List<InwardHistoryDto> inwards = inwardRecordRepository
                                 .findByLinesMaterialIdOrderByEntryDateDesc(materialId)
@@ -234,54 +238,8 @@ public class AppDataService {
                 return stream.toList();
         }
 
-        private List<Project> resolveAssignedProjects(UserAccount user, List<Project> allProjects) {
-                if (user.getRole() == Role.ADMIN || user.getAccessType() == AccessType.ALL) {
-                        return allProjects;
-                }
-                Set<Long> accessibleIds = user.getProjects().stream()
-                                .map(Project::getId)
-                                .collect(Collectors.toSet());
-
-                projectTeamMemberRepository.findByUser_Id(user.getId())
-                                .stream()
-                                .map(ptm -> ptm.getProject().getId())
-                                .forEach(accessibleIds::add);
-
-                return allProjects.stream()
-                                .filter(p -> {
-                                        if (accessibleIds.contains(p.getId())) {
-                                                return true;
-                                        }
-                                        String pm = p.getProjectManager();
-                                        return pm != null && (pm.equalsIgnoreCase(user.getName())
-                                                        || pm.equalsIgnoreCase(user.getEmail()));
-                                })
-                                .toList();
-        }
-
         public boolean hasProjectAccess(UserAccount user, Long projectId) {
-                if (user == null || projectId == null) {
-                        return false;
-                }
-                if (user.getRole() == Role.ADMIN || user.getAccessType() == AccessType.ALL) {
-                        return true;
-                }
-                boolean inProjects = user.getProjects().stream().anyMatch(project -> project.getId().equals(projectId));
-                if (inProjects) {
-                        return true;
-                }
-                if (projectTeamMemberRepository.existsByProject_IdAndUser_Id(projectId, user.getId())) {
-                        return true;
-                }
-                return projectRepository.findById(projectId)
-                                .map(p -> {
-                                        String pm = p.getProjectManager();
-                                        // Project Manager (as a string) might be Name or Email.
-                                        // We should check if the current user matches that PM string.
-                                        return pm != null && (pm.equalsIgnoreCase(user.getName())
-                                                        || pm.equalsIgnoreCase(user.getEmail()));
-                                })
-                                .orElse(false);
+                return accessScopeService.hasAccess(user, projectId);
         }
 
         private ProjectDto toProjectDto(Project project) {
@@ -390,6 +348,7 @@ public class AppDataService {
                 dto.setUnit(line.getMaterial() != null ? line.getMaterial().getUnit() : null);
                 dto.setOrderedQty(line.getOrderedQty());
                 dto.setReceivedQty(line.getReceivedQty());
+                dto.setUnitPrice(line.getUnitPrice());
                 return dto;
         }
 
@@ -458,9 +417,14 @@ public class AppDataService {
         }
 
         public List<ProjectDto> getUserProjects(UserAccount user) {
-                List<Project> allProjects = projectRepository.findAll();
-                List<Project> accessibleProjects = resolveAssignedProjects(user, allProjects);
-                return accessibleProjects.stream().map(this::toProjectDto).toList();
+                ProjectScope allowedProjectIds = accessScopeService.resolveScope(user);
+                return projectRepository
+                                .findAll(
+                                                (root, query, cb) -> allowedProjectIds.toPredicate(cb, root.get("id")),
+                                                Sort.by("id"))
+                                .stream()
+                                .map(this::toProjectDto)
+                                .toList();
         }
 
         public ProjectDetailsDto getProjectDetails(UserAccount user, Long projectId) {
@@ -493,9 +457,7 @@ public class AppDataService {
                         throw new ForbiddenException("You do not have access to this project");
                 }
 
-                boolean isPm = project.getProjectManager() != null &&
-                                (project.getProjectManager().equalsIgnoreCase(user.getName()) ||
-                                                project.getProjectManager().equalsIgnoreCase(user.getEmail()));
+                boolean isPm = accessScopeService.isProjectManager(user, project);
 
                 if (!isPm && user.getRole() != Role.ADMIN) {
                         throw new ForbiddenException("Only the Project Manager can update the team");
@@ -534,6 +496,8 @@ public class AppDataService {
                 if (!usersNeedingProjectAccess.isEmpty()) {
                         userRepository.saveAll(usersNeedingProjectAccess);
                 }
+                accessScopeService.invalidateAll();
+                userCache.evictAll();
 
                 List<ProjectTeamMemberDto> team = saved.stream().map(this::toTeamMemberDto).toList();
                 return new ProjectDetailsDto(
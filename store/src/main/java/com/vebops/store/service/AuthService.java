@@ -8,10 +8,14 @@ import com.vebops.store.exception.UnauthorizedException;
 import com.vebops.store.model.Role;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.repository.UserRepository;
+import com.vebops.store.security.AuthenticatedUserCache;
+import com.vebops.store.security.AzureAdAuthenticationFilter;
 import com.vebops.store.security.AzureAdJwtValidator;
 import com.vebops.store.security.AzureAdUserService;
+import com.vebops.store.security.TokenRevocationService;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Collections;
+import java.time.Instant;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -26,18 +30,24 @@ public class AuthService {
     private final TokenService tokenService;
     private final AzureAdJwtValidator azureAdJwtValidator;
     private final AzureAdUserService azureAdUserService;
+    private final AuthenticatedUserCache userCache;
+    private final TokenRevocationService tokenRevocationService;
 
     public AuthService(
             UserRepository userRepository, 
             PasswordEncoder passwordEncoder, 
             TokenService tokenService,
             AzureAdJwtValidator azureAdJwtValidator,
-            AzureAdUserService azureAdUserService) {
+            AzureAdUserService azureAdUserService,
+            AuthenticatedUserCache userCache,
+            TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenService = tokenService;
         this.azureAdJwtValidator = azureAdJwtValidator;
         this.azureAdUserService = azureAdUserService;
+        this.userCache = userCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     // Legacy email/password login is no longer used now that Microsoft
@@ -48,9 +58,15 @@ public class AuthService {
     }
 
     public void logout(String token) {
-        if (token != null) {
-            tokenService.revoke(token);
+        if (token == null) {
+            return;
         }
+        AzureAdJwtValidator.AzureAdTokenClaims claims = azureAdJwtValidator.validateToken(token);
+        if (claims != null) {
+            tokenRevocationService.revoke(token, Instant.ofEpochMilli(claims.expirationTime()));
+            return;
+        }
+        tokenService.revoke(token);
     }
 
     public UserAccount requireUser(String token) {
@@ -59,10 +75,14 @@ public class AuthService {
             return getUserFromRequest();
         }
         
+        if (tokenRevocationService.isRevoked(token)) {
+            throw new UnauthorizedException("Token has been revoked");
+        }
+
         // First try Azure AD token validation
         AzureAdJwtValidator.AzureAdTokenClaims claims = azureAdJwtValidator.validateToken(token);
         if (claims != null) {
-            UserAccount user = azureAdUserService.getOrCreateUser(claims);
+            UserAccount user = userCache.getOrLoadByEmail(claims.email(), () -> azureAdUserService.getOrCreateUser(claims));
             if (user != null) {
                 storeRequestUser(user);
                 return user;
@@ -80,8 +100,7 @@ public class AuthService {
         if (userId == null) {
             throw new UnauthorizedException("Invalid token");
         }
-        UserAccount resolvedUser = userRepository
-            .findById(userId)
+        UserAccount resolvedUser = loadUser(userId)
             .orElseThrow(() -> new UnauthorizedException("User not found for token"));
         storeRequestUser(resolvedUser);
         return resolvedUser;
@@ -108,9 +127,13 @@ public class AuthService {
                     );
                 }
                 
+                Object current = request.getAttribute(AzureAdAuthenticationFilter.CURRENT_USER_ATTRIBUTE);
+                if (current instanceof UserAccount user) {
+                    return user;
+                }
                 Long userId = (Long) request.getAttribute("userId");
                 if (userId != null) {
-                    return userRepository.findById(userId)
+                    return loadUser(userId)
                         .orElseThrow(() -> new UnauthorizedException("User not found"));
                 }
             }
@@ -136,19 +159,46 @@ public class AuthService {
         throw new UnauthorizedException("You do not have permission to perform this action");
     }
 
+    /**
+     * Returns the authenticated user of the current request, as resolved once
+     * by the authentication filter.
+     */
+    public UserAccount currentUser() {
+        return getUserFromRequest();
+    }
+
     /**
      * Gets a user by their ID.
      * Used by controllers that use AuthUtils to get the full user object.
+     * Returns the request's principal when it matches, so the common
+     * {@code getUserById(AuthUtils.requireUserId())} pattern costs no query.
      */
     public UserAccount getUserById(Long userId) {
         if (userId == null) {
             throw new UnauthorizedException("User ID is required");
         }
-        return userRepository
-            .findById(userId)
+        UserAccount current = requestUser();
+        if (current != null && userId.equals(current.getId())) {
+            return current;
+        }
+        return loadUser(userId)
             .orElseThrow(() -> new UnauthorizedException("User not found"));
     }
 
+    private Optional<UserAccount> loadUser(Long userId) {
+        return userCache.getOrLoadById(userId, () -> userRepository.findById(userId));
+    }
+
+    private UserAccount requestUser() {
+        ServletRequestAttributes attributes =
+            (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object current = attributes.getRequest().getAttribute(AzureAdAuthenticationFilter.CURRENT_USER_ATTRIBUTE);
+        return current instanceof UserAccount user ? user : null;
+    }
+
     public UserDto toUserDto(UserAccount user) {
         return new UserDto(
             String.valueOf(user.getId()),
@@ -178,10 +228,11 @@ public class AuthService {
                 (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
             if (attributes != null) {
                 HttpServletRequest request = attributes.getRequest();
+                request.setAttribute(AzureAdAuthenticationFilter.CURRENT_USER_ATTRIBUTE, user);
                 request.setAttribute("userId", user.getId());
                 request.setAttribute("userEmail", user.getEmail());
                 request.setAttribute("userRole", user.getRole().name());
-                request.setAttribute("userPermissions", Collections.unmodifiableSet(user.getPermissions()));
+                request.setAttribute("userPermissionMask", user.getPermissionMask());
             }
         } catch (Exception ignored) {
             // Best-effort cache; authorization flows will still fall back to database lookups
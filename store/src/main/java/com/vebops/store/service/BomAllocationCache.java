@@ -0,0 +1,98 @@
+package com.vebops.store.service;
+
+import com.vebops.store.repository.BomLineRepository;
+import com.vebops.store.util.TransactionCallbacks;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-project map of material id to allocated BOM quantity, used by inventory
+ * validation to check many lines without a query per line.
+ *
+ * A project's map is loaded with one query on first use and kept in a
+ * least-recently-used map bounded by project count. Writers call
+ * {@link #evict} inside their transaction: the project is dropped at once and
+ * again when the transaction finishes, and while the write is in flight loads
+ * of that project are served but not cached, so neither uncommitted nor
+ * pre-commit allocations are left behind.
+ */
+@Component
+public class BomAllocationCache {
+
+    private final BomLineRepository bomLineRepository;
+
+    // Guarded by this.
+    private final LinkedHashMap<Long, Map<Long, Double>> byProject;
+    private final Map<Long, Integer> pendingWrites = new HashMap<>();
+    private final Map<Long, Long> generations = new HashMap<>();
+
+    public BomAllocationCache(
+        BomLineRepository bomLineRepository,
+        @Value("${app.bom.allocation-cache.max-projects:200}") int maxProjects
+    ) {
+        this.bomLineRepository = bomLineRepository;
+        int capacity = Math.max(1, maxProjects);
+        this.byProject = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<Long, Double>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** The material's allocated quantity, or empty when it is not on the project's BOM. */
+    public OptionalDouble allocation(Long projectId, Long materialId) {
+        Double quantity = allocations(projectId).get(materialId);
+        return quantity != null ? OptionalDouble.of(quantity) : OptionalDouble.empty();
+    }
+
+    /** All allocations of the project, keyed by material id. Read-only. */
+    public Map<Long, Double> allocations(Long projectId) {
+        long generation;
+        synchronized (this) {
+            Map<Long, Double> cached = byProject.get(projectId);
+            if (cached != null) {
+                return cached;
+            }
+            generation = generations.getOrDefault(projectId, 0L);
+        }
+        Map<Long, Double> loaded = new HashMap<>();
+        for (Object[] row : bomLineRepository.findAllocationsByProjectId(projectId)) {
+            loaded.put((Long) row[0], ((Number) row[1]).doubleValue());
+        }
+        Map<Long, Double> result = Map.copyOf(loaded);
+        synchronized (this) {
+            // Skip caching if the project was written to while it was loading.
+            if (!pendingWrites.containsKey(projectId) && generations.getOrDefault(projectId, 0L) == generation) {
+                byProject.put(projectId, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the project's allocations now and once the current transaction
+     * completes. Call from any code path that changes the project's BOM lines.
+     */
+    public void evict(Long projectId) {
+        if (projectId == null) {
+            return;
+        }
+        synchronized (this) {
+            byProject.remove(projectId);
+            generations.merge(projectId, 1L, Long::sum);
+            pendingWrites.merge(projectId, 1, Integer::sum);
+        }
+        TransactionCallbacks.afterCompletion(() -> {
+            synchronized (this) {
+                byProject.remove(projectId);
+                generations.merge(projectId, 1L, Long::sum);
+                pendingWrites.computeIfPresent(projectId, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        });
+    }
+}
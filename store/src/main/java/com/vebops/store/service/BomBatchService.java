@@ -0,0 +1,335 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.BomBatchLine;
+import com.vebops.store.dto.BomBatchRequest;
+import com.vebops.store.dto.BomBatchResultDto;
+import com.vebops.store.dto.ImportRowErrorDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.exception.NotFoundException;
+import com.vebops.store.model.BomLine;
+import com.vebops.store.model.Project;
+import com.vebops.store.repository.BomLineRepository;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.util.ExcelSheetReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Applies many BOM allocations for one project at once.
+ *
+ * Materials are resolved with one query per kind of reference (codes, ids)
+ * and the batch is diffed against the project's existing lines, loaded once.
+ * New lines go in as a JDBC batch insert (the identity key rules out
+ * Hibernate insert batching), changed quantities are flushed as batched
+ * updates and removed lines are deleted in a single statement, all in one
+ * transaction.
+ */
+@Service
+public class BomBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BomBatchService.class);
+    private static final int MAX_REPORTED_ERRORS = 200;
+    private static final int MAX_COLUMNS = 12;
+    private static final String INSERT_LINE = "insert into bom_lines (project_id, material_id, quantity) values (?, ?, ?)";
+
+    private final BomLineRepository bomLineRepository;
+    private final MaterialRepository materialRepository;
+    private final ProjectRepository projectRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BomAllocationCache bomAllocationCache;
+    private final StockAlertEngine stockAlertEngine;
+
+    public BomBatchService(
+        BomLineRepository bomLineRepository,
+        MaterialRepository materialRepository,
+        ProjectRepository projectRepository,
+        JdbcTemplate jdbcTemplate,
+        BomAllocationCache bomAllocationCache,
+        StockAlertEngine stockAlertEngine
+    ) {
+        this.bomLineRepository = bomLineRepository;
+        this.materialRepository = materialRepository;
+        this.projectRepository = projectRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.bomAllocationCache = bomAllocationCache;
+        this.stockAlertEngine = stockAlertEngine;
+    }
+
+    @Transactional
+    public BomBatchResultDto applyBatch(String projectId, BomBatchRequest request) {
+        if (request == null || request.lines() == null) {
+            throw new BadRequestException("Batch lines are required");
+        }
+        List<BatchRow> rows = new ArrayList<>(request.lines().size());
+        for (int i = 0; i < request.lines().size(); i++) {
+            BomBatchLine line = request.lines().get(i);
+            if (line == null) {
+                rows.add(new BatchRow(i + 1, null, null, 0d, "Line is empty"));
+            } else {
+                rows.add(new BatchRow(i + 1, line.materialId(), line.materialCode(), line.quantity(), null));
+            }
+        }
+        return apply(requireProject(projectId), rows, request.replace());
+    }
+
+    /**
+     * Applies an uploaded sheet (.xlsx, .xls or .csv). The header row picks
+     * the material code column ("Code" or "Material Code") and the quantity
+     * column ("Quantity", "Qty" or "Allocated Qty"), so a BOM export can be
+     * edited and uploaded again; without recognised headers the first two
+     * columns are used.
+     */
+    @Transactional
+    public BomBatchResultDto importFile(String projectId, MultipartFile file, boolean replace) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("An Excel or CSV file is required");
+        }
+        Project project = requireProject(projectId);
+        Path upload = null;
+        try {
+            upload = Files.createTempFile("bom-import-", ".upload");
+            file.transferTo(upload);
+            List<BatchRow> rows = readRows(upload, isCsv(file));
+            if (rows.isEmpty()) {
+                throw new BadRequestException("No BOM lines were found in the file");
+            }
+            return apply(project, rows, replace);
+        } catch (IOException ex) {
+            throw new BadRequestException("Unable to read the uploaded file");
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        } finally {
+            deleteQuietly(upload);
+        }
+    }
+
+    private BomBatchResultDto apply(Project project, List<BatchRow> rows, boolean replace) {
+        List<ImportRowErrorDto> errors = new ArrayList<>();
+        int[] errorCount = {0};
+        Map<Long, Double> desired = resolve(rows, errors, errorCount);
+        if (errorCount[0] > 0) {
+            return new BomBatchResultDto(0, 0, 0, 0, false, errors, errorCount[0] > errors.size());
+        }
+
+        Map<Long, BomLine> existing = new HashMap<>();
+        for (BomLine line : bomLineRepository.findByProjectId(project.getId())) {
+            existing.put(line.getMaterial().getId(), line);
+        }
+        List<Object[]> inserts = new ArrayList<>();
+        List<BomLine> updates = new ArrayList<>();
+        int unchanged = 0;
+        for (Map.Entry<Long, Double> entry : desired.entrySet()) {
+            BomLine line = existing.get(entry.getKey());
+            if (line == null) {
+                inserts.add(new Object[] { project.getId(), entry.getKey(), entry.getValue() });
+            } else if (Double.compare(line.getQuantity(), entry.getValue()) != 0) {
+                line.setQuantity(entry.getValue());
+                updates.add(line);
+            } else {
+                unchanged++;
+            }
+        }
+        List<BomLine> deletes = new ArrayList<>();
+        if (replace) {
+            existing.forEach((materialId, line) -> {
+                if (!desired.containsKey(materialId)) {
+                    deletes.add(line);
+                }
+            });
+        }
+
+        bomAllocationCache.evict(project.getId());
+        if (!updates.isEmpty()) {
+            bomLineRepository.saveAll(updates);
+            bomLineRepository.flush();
+        }
+        if (!deletes.isEmpty()) {
+            bomLineRepository.deleteAllInBatch(deletes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LINE, inserts);
+        }
+        List<Long> changedMaterials = new ArrayList<>(inserts.size() + updates.size() + deletes.size());
+        inserts.forEach(row -> changedMaterials.add((Long) row[1]));
+        updates.forEach(line -> changedMaterials.add(line.getMaterial().getId()));
+        deletes.forEach(line -> changedMaterials.add(line.getMaterial().getId()));
+        stockAlertEngine.balancesChanged(project.getId(), changedMaterials);
+        log.info(
+            "BOM batch for project {}: {} created, {} updated, {} deleted, {} unchanged",
+            project.getId(),
+            inserts.size(),
+            updates.size(),
+            deletes.size(),
+            unchanged
+        );
+        return new BomBatchResultDto(inserts.size(), updates.size(), deletes.size(), unchanged, true, List.of(), false);
+    }
+
+    /**
+     * Maps each row to a material id and quantity. Codes and ids are each
+     * looked up with a single query; invalid rows are reported in
+     * {@code errors}.
+     */
+    private Map<Long, Double> resolve(List<BatchRow> rows, List<ImportRowErrorDto> errors, int[] errorCount) {
+        Set<String> codes = new HashSet<>();
+        Set<Long> ids = new HashSet<>();
+        for (BatchRow row : rows) {
+            if (row.error() != null) {
+                continue;
+            }
+            if (StringUtils.hasText(row.materialId())) {
+                Long id = parseId(row.materialId());
+                if (id != null) {
+                    ids.add(id);
+                }
+            } else if (StringUtils.hasText(row.materialCode())) {
+                codes.add(row.materialCode().trim());
+            }
+        }
+        Map<String, Long> idsByCode = new HashMap<>();
+        if (!codes.isEmpty()) {
+            for (Object[] match : materialRepository.findIdsByCodes(codes)) {
+                idsByCode.put(codeKey((String) match[1]), (Long) match[0]);
+            }
+        }
+        Set<Long> knownIds = ids.isEmpty() ? Set.of() : materialRepository.findExistingIds(ids);
+
+        Map<Long, Double> desired = new HashMap<>();
+        Map<Long, Integer> firstRow = new HashMap<>();
+        for (BatchRow row : rows) {
+            String error = row.error();
+            Long materialId = null;
+            if (error == null) {
+                if (StringUtils.hasText(row.materialId())) {
+                    materialId = parseId(row.materialId());
+                    if (materialId == null || !knownIds.contains(materialId)) {
+                        error = "Material " + row.materialId().trim() + " not found";
+                    }
+                } else if (StringUtils.hasText(row.materialCode())) {
+                    materialId = idsByCode.get(codeKey(row.materialCode()));
+                    if (materialId == null) {
+                        error = "Material code " + row.materialCode().trim() + " not found";
+                    }
+                } else {
+                    error = "Material id or code is required";
+                }
+            }
+            if (error == null && (Double.isNaN(row.quantity()) || Double.isInfinite(row.quantity()) || row.quantity() < 0)) {
+                error = "Quantity must be zero or greater";
+            }
+            if (error == null && firstRow.containsKey(materialId)) {
+                error = "Material is already listed on row " + firstRow.get(materialId);
+            }
+            if (error != null) {
+                errorCount[0]++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new ImportRowErrorDto(row.row(), error));
+                }
+                continue;
+            }
+            firstRow.put(materialId, row.row());
+            desired.put(materialId, row.quantity());
+        }
+        return desired;
+    }
+
+    private List<BatchRow> readRows(Path file, boolean csv) throws IOException {
+        List<BatchRow> rows = new ArrayList<>();
+        int[] columns = {0, 1};
+        ExcelSheetReader.RowHandler handler = (rowNum, cells) -> {
+            if (rowNum == 0) {
+                detectColumns(cells, columns);
+                return;
+            }
+            String code = cells.get(columns[0]).trim();
+            String quantityText = cells.get(columns[1]).trim().replace(",", "");
+            if (!StringUtils.hasText(quantityText)) {
+                rows.add(new BatchRow(rowNum + 1, null, code, 0d, "Quantity is required"));
+                return;
+            }
+            try {
+                rows.add(new BatchRow(rowNum + 1, null, code, Double.parseDouble(quantityText), null));
+            } catch (NumberFormatException ex) {
+                rows.add(new BatchRow(rowNum + 1, null, code, 0d, "Quantity '" + quantityText + "' is not a number"));
+            }
+        };
+        if (csv) {
+            ExcelSheetReader.readCsv(file, MAX_COLUMNS, handler);
+        } else {
+            ExcelSheetReader.read(file, MAX_COLUMNS, handler);
+        }
+        return rows;
+    }
+
+    private static void detectColumns(List<String> header, int[] columns) {
+        int code = -1;
+        int quantity = -1;
+        for (int col = 0; col < header.size(); col++) {
+            String name = header.get(col).trim().toLowerCase(Locale.ROOT);
+            if (code < 0 && (name.equals("code") || name.equals("material code"))) {
+                code = col;
+            } else if (quantity < 0 && (name.equals("quantity") || name.equals("qty") || name.equals("allocated qty"))) {
+                quantity = col;
+            }
+        }
+        if (code >= 0 && quantity >= 0) {
+            columns[0] = code;
+            columns[1] = quantity;
+        }
+    }
+
+    private static boolean isCsv(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        return (name != null && name.toLowerCase(Locale.ROOT).endsWith(".csv")) ||
+            "text/csv".equalsIgnoreCase(file.getContentType());
+    }
+
+    private Project requireProject(String id) {
+        Long projectId = parseId(id);
+        if (projectId == null) {
+            throw new BadRequestException("Project id is invalid");
+        }
+        return projectRepository.findById(projectId).orElseThrow(() -> new NotFoundException("Project not found"));
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException | NullPointerException ex) {
+            return null;
+        }
+    }
+
+    private static String codeKey(String code) {
+        return code.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete temporary BOM upload {}", file, ex);
+        }
+    }
+
+    private record BatchRow(int row, String materialId, String materialCode, double quantity, String error) {}
+}
@@ -7,15 +7,18 @@ import com.vebops.store.exception.NotFoundException;
 import com.vebops.store.model.BomLine;
 import com.vebops.store.model.Material;
 import com.vebops.store.model.Project;
+import com.vebops.store.repository.BomLineQueryRepository;
 import com.vebops.store.repository.BomLineRepository;
 import com.vebops.store.repository.InwardLineRepository;
 import com.vebops.store.repository.MaterialRepository;
 import com.vebops.store.repository.OutwardLineRepository;
 import com.vebops.store.repository.ProjectRepository;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import com.vebops.store.dto.PaginatedResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -29,18 +32,27 @@ public class BomService {
     private final MaterialRepository materialRepository;
     private final InwardLineRepository inwardLineRepository;
     private final OutwardLineRepository outwardLineRepository;
+    private final ExcelExportService excelExportService;
+    private final BomAllocationCache bomAllocationCache;
+    private final StockAlertEngine stockAlertEngine;
 
     public BomService(
             BomLineRepository bomLineRepository,
             ProjectRepository projectRepository,
             MaterialRepository materialRepository,
             InwardLineRepository inwardLineRepository,
-            OutwardLineRepository outwardLineRepository) {
+            OutwardLineRepository outwardLineRepository,
+            ExcelExportService excelExportService,
+            BomAllocationCache bomAllocationCache,
+            StockAlertEngine stockAlertEngine) {
         this.bomLineRepository = bomLineRepository;
         this.projectRepository = projectRepository;
         this.materialRepository = materialRepository;
         this.inwardLineRepository = inwardLineRepository;
         this.outwardLineRepository = outwardLineRepository;
+        this.excelExportService = excelExportService;
+        this.bomAllocationCache = bomAllocationCache;
+        this.stockAlertEngine = stockAlertEngine;
     }
 
     public BomLineDto assignQuantity(String projectId, String materialId, double quantity) {
@@ -80,6 +92,22 @@ public class BomService {
             int size,
             String search,
             boolean inStockOnly) {
+        return listLines(projectId, page, size, search, inStockOnly, null);
+    }
+
+    /**
+     * Paginated BOM lines with their inward and outward totals. Filtering,
+     * sorting and paging all happen in a single SQL query. {@code sort} takes
+     * the form {@code field} or {@code field,desc}, where field is one of the
+     * BOM line DTO's material or quantity fields.
+     */
+    public PaginatedResponse<BomLineDto> listLines(
+            String projectId,
+            int page,
+            int size,
+            String search,
+            boolean inStockOnly,
+            String sort) {
         Project project = requireProject(projectId);
         int safePage = page < 1 ? 1 : page;
         int safeSize;
@@ -88,25 +116,11 @@ public class BomService {
         } else {
             safeSize = Math.min(size, 100);
         }
-        List<BomLineDto> allItems = bomLineRepository.findByProjectId(project.getId())
-                .stream()
-                .map(this::toDto)
-                .toList();
-        Stream<BomLineDto> stream = allItems.stream();
-        if (StringUtils.hasText(search)) {
-            String term = search.trim().toLowerCase();
-            stream = stream.filter(item -> (item.code() != null && item.code().toLowerCase().contains(term)) ||
-                    (item.name() != null && item.name().toLowerCase().contains(term)) ||
-                    (item.category() != null && item.category().toLowerCase().contains(term)));
-        }
-        if (inStockOnly) {
-            stream = stream.filter(item -> item.balanceQty() > 0);
-        }
-        List<BomLineDto> filtered = stream.toList();
-        Page<BomLineDto> linesPage = new PageImpl<>(
-                paginate(filtered, safePage, safeSize),
-                PageRequest.of(safePage - 1, safeSize),
-                filtered.size());
+        Page<BomLineDto> linesPage = bomLineRepository.findLinesWithTotals(
+                project.getId(),
+                search,
+                inStockOnly,
+                PageRequest.of(safePage - 1, safeSize, parseSort(sort)));
         return new PaginatedResponse<>(
                 linesPage.getContent(),
                 linesPage.getTotalElements(),
@@ -118,10 +132,26 @@ public class BomService {
                 java.util.Collections.emptyMap());
     }
 
-    private <T> List<T> paginate(List<T> items, int page, int size) {
-        int fromIndex = Math.max(0, (page - 1) * size);
-        int toIndex = Math.min(fromIndex + size, items.size());
-        return fromIndex < toIndex ? items.subList(fromIndex, toIndex) : List.of();
+    /**
+     * Streams the project's BOM lines as an Excel sheet. Unknown projects are
+     * rejected before anything is written.
+     */
+    public int exportLines(String projectId, OutputStream out) throws IOException {
+        Project project = requireProject(projectId);
+        return excelExportService.exportBomLines(project.getId(), out);
+    }
+
+    private Sort parseSort(String sort) {
+        if (!StringUtils.hasText(sort)) {
+            return Sort.unsorted();
+        }
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        if (!BomLineQueryRepository.SORTABLE_PROPERTIES.contains(property)) {
+            throw new BadRequestException("Cannot sort BOM lines by " + property);
+        }
+        boolean descending = parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim());
+        return descending ? Sort.by(property).descending() : Sort.by(property).ascending();
     }
 
     public BomLine upsertLine(Project project, Material material, double quantity) {
@@ -137,13 +167,18 @@ public class BomService {
                     return created;
                 });
         line.setQuantity(quantity);
-        return bomLineRepository.save(line);
+        BomLine saved = bomLineRepository.save(line);
+        bomAllocationCache.evict(project.getId());
+        stockAlertEngine.balancesChanged(project.getId(), List.of(material.getId()));
+        return saved;
     }
 
     public void deleteLine(String projectId, String materialId) {
         Project project = requireProject(projectId);
         Material material = requireMaterial(materialId);
         bomLineRepository.deleteByProjectIdAndMaterialId(project.getId(), material.getId());
+        bomAllocationCache.evict(project.getId());
+        stockAlertEngine.balancesChanged(project.getId(), List.of(material.getId()));
     }
 
     public List<AllocationOverviewDto> listAllocations(String search) {
@@ -186,10 +221,7 @@ public class BomService {
     }
 
     public double currentAllocation(Long projectId, Long materialId) {
-        return bomLineRepository
-                .findByProjectIdAndMaterialId(projectId, materialId)
-                .map(BomLine::getQuantity)
-                .orElse(0d);
+        return bomAllocationCache.allocation(projectId, materialId).orElse(0d);
     }
 
     public double currentAllocation(Project project, Material material) {
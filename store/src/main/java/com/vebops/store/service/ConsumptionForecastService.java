@@ -0,0 +1,244 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.StockOutForecastDto;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.OutwardLine;
+import com.vebops.store.model.OutwardRecord;
+import com.vebops.store.repository.ConsumptionStatQueries;
+import com.vebops.store.repository.MaterialMovementQueries;
+import com.vebops.store.repository.MaterialRepository;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Consumption burn rates and stock-out forecasts per project and material.
+ *
+ * Each outward adds its quantities to an exponentially time-decayed total
+ * (half-life {@code app.consumption.half-life-days}), so the rate is updated
+ * in O(lines) per issue instead of being recomputed from history. The daily
+ * rate is that total, decayed to today, divided by the decayed length of the
+ * observed window (at least {@code min-window-days}). Forecasts combine it
+ * with the project balance from the movement rollup and the remaining BOM
+ * allocation. Transfers out of a project are not counted as consumption.
+ * Issue updates join the caller's transaction, so the stats commit or roll
+ * back with the outward that caused them.
+ */
+@Service
+public class ConsumptionForecastService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumptionForecastService.class);
+    private static final double EPSILON = 1e-9;
+    private static final double MAX_FORECAST_DAYS = 36500;
+
+    private final ConsumptionStatQueries statQueries;
+    private final MaterialMovementQueries movementQueries;
+    private final MaterialRepository materialRepository;
+    private final BomAllocationCache bomAllocationCache;
+    private final TransactionTemplate writeTransaction;
+    private final double halfLifeDays;
+    private final int minWindowDays;
+
+    public ConsumptionForecastService(
+        ConsumptionStatQueries statQueries,
+        MaterialMovementQueries movementQueries,
+        MaterialRepository materialRepository,
+        BomAllocationCache bomAllocationCache,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.consumption.half-life-days:14}") double halfLifeDays,
+        @Value("${app.consumption.min-window-days:7}") int minWindowDays
+    ) {
+        this.statQueries = statQueries;
+        this.movementQueries = movementQueries;
+        this.materialRepository = materialRepository;
+        this.bomAllocationCache = bomAllocationCache;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.halfLifeDays = Math.max(1d, halfLifeDays);
+        this.minWindowDays = Math.max(1, minWindowDays);
+    }
+
+    /** Seeds the stats from the movement rollup once that has been backfilled. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void seedIfEmpty() {
+        try {
+            if (statQueries.isEmpty()) {
+                Integer rows = writeTransaction.execute(status -> statQueries.seedFromRollup(halfLifeDays));
+                log.info("Seeded consumption stats for {} project materials", rows);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Seeding consumption stats failed", ex);
+        }
+    }
+
+    /** Adds a newly registered outward's issues, in the caller's transaction. */
+    public void recordIssues(OutwardRecord record) {
+        if (record.getProject() == null || record.isTransferOut()) {
+            return;
+        }
+        Map<Long, Double> byMaterial = new LinkedHashMap<>();
+        for (OutwardLine line : record.getLines()) {
+            if (line.getMaterial() != null && line.getIssueQty() > 0d) {
+                byMaterial.merge(line.getMaterial().getId(), line.getIssueQty(), Double::sum);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(byMaterial.size());
+        LocalDate date = issueDate(record);
+        Long projectId = record.getProject().getId();
+        byMaterial.forEach((materialId, qty) -> rows.add(new Object[] { projectId, materialId, qty, date, 1 }));
+        statQueries.addIssues(rows, halfLifeDays);
+    }
+
+    /**
+     * Applies changed issue quantities of an edited outward, keyed by material
+     * id, in the caller's transaction. Edits to a transfer's outward are not
+     * consumption and are ignored.
+     */
+    public void recordIssueChanges(OutwardRecord record, Map<Long, Double> issuedDeltas) {
+        if (record.getProject() == null || record.isTransferOut() || issuedDeltas.isEmpty()) {
+            return;
+        }
+        Long projectId = record.getProject().getId();
+        LocalDate date = issueDate(record);
+        List<Object[]> added = new ArrayList<>();
+        List<Object[]> removed = new ArrayList<>();
+        issuedDeltas.forEach((materialId, delta) -> {
+            if (delta > 0d) {
+                added.add(new Object[] { projectId, materialId, delta, date, 0 });
+            } else if (delta < 0d) {
+                removed.add(new Object[] { projectId, materialId, -delta, date });
+            }
+        });
+        statQueries.addIssues(added, halfLifeDays);
+        statQueries.removeIssues(removed, halfLifeDays);
+    }
+
+    /**
+     * Forecasts for the project's consumed materials, soonest stock-out
+     * first. With {@code includeAll=false} only materials whose balance runs
+     * out within {@code horizonDays} while allocation remains are returned.
+     */
+    public List<StockOutForecastDto> forecast(Long projectId, int horizonDays, int limit, boolean includeAll) {
+        List<Object[]> stats = statQueries.findByProject(projectId);
+        if (stats.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, double[]> totals = new HashMap<>();
+        for (Object[] row : movementQueries.projectTotals(projectId)) {
+            totals.put((Long) row[0], new double[] { (double) row[1], (double) row[2] });
+        }
+        Map<Long, Double> allocations = bomAllocationCache.allocations(projectId);
+        LocalDate today = LocalDate.now();
+        double lambda = Math.log(2) / halfLifeDays;
+
+        List<Forecast> forecasts = new ArrayList<>();
+        for (Object[] row : stats) {
+            Long materialId = (Long) row[0];
+            double decayed = (double) row[1];
+            LocalDate firstIssue = (LocalDate) row[2];
+            LocalDate lastIssue = (LocalDate) row[3];
+            long sinceLast = Math.max(0, ChronoUnit.DAYS.between(lastIssue, today));
+            long window = Math.max(minWindowDays, ChronoUnit.DAYS.between(firstIssue, today) + 1);
+            double current = decayed * Math.exp(-lambda * sinceLast);
+            double rate = current * (1 - Math.exp(-lambda)) / (1 - Math.exp(-lambda * window));
+
+            double[] projectTotals = totals.getOrDefault(materialId, new double[2]);
+            double issued = projectTotals[1];
+            double balance = Math.max(0d, projectTotals[0] - issued);
+            double allocated = allocations.getOrDefault(materialId, 0d);
+            double remaining = Math.max(0d, allocated - issued);
+            double shortfall = Math.max(0d, remaining - balance);
+            Double daysOfCover = rate > EPSILON ? balance / rate : null;
+            boolean atRisk = daysOfCover != null && shortfall > EPSILON && daysOfCover <= horizonDays;
+            if (includeAll || atRisk) {
+                forecasts.add(
+                    new Forecast(
+                        materialId,
+                        allocated,
+                        issued,
+                        balance,
+                        remaining,
+                        rate,
+                        daysOfCover,
+                        shortfall,
+                        lastIssue,
+                        atRisk
+                    )
+                );
+            }
+        }
+        forecasts.sort(
+            Comparator
+                .comparing((Forecast f) -> f.daysOfCover() == null ? Double.MAX_VALUE : f.daysOfCover())
+                .thenComparing(Forecast::shortfall, Comparator.reverseOrder())
+        );
+        List<Forecast> page = forecasts.subList(0, Math.min(forecasts.size(), Math.max(1, limit)));
+
+        Map<Long, Material> materials = new HashMap<>();
+        materialRepository
+            .findAllById(page.stream().map(Forecast::materialId).toList())
+            .forEach(material -> materials.put(material.getId(), material));
+        List<StockOutForecastDto> result = new ArrayList<>(page.size());
+        for (Forecast f : page) {
+            Material material = materials.get(f.materialId());
+            result.add(
+                new StockOutForecastDto(
+                    String.valueOf(f.materialId()),
+                    material != null ? material.getCode() : null,
+                    material != null ? material.getName() : null,
+                    material != null ? material.getUnit() : null,
+                    f.allocated(),
+                    f.issued(),
+                    f.balance(),
+                    f.remaining(),
+                    f.rate(),
+                    f.daysOfCover(),
+                    stockOutDate(today, f.daysOfCover()),
+                    f.shortfall(),
+                    f.lastIssue().toString(),
+                    f.atRisk()
+                )
+            );
+        }
+        return result;
+    }
+
+    private static String stockOutDate(LocalDate today, Double daysOfCover) {
+        if (daysOfCover == null || daysOfCover > MAX_FORECAST_DAYS) {
+            return null;
+        }
+        return today.plusDays((long) Math.floor(daysOfCover)).toString();
+    }
+
+    private static LocalDate issueDate(OutwardRecord record) {
+        return record.getDate() != null ? record.getDate() : record.getEntryDate();
+    }
+
+    private record Forecast(
+        Long materialId,
+        double allocated,
+        double issued,
+        double balance,
+        double remaining,
+        double rate,
+        Double daysOfCover,
+        double shortfall,
+        LocalDate lastIssue,
+        boolean atRisk
+    ) {}
+}
@@ -1,18 +1,31 @@
 package com.vebops.store.service;
 
 import com.vebops.store.model.AccessType;
+import com.vebops.store.model.Permission;
 import com.vebops.store.model.Role;
 import com.vebops.store.model.UserAccount;
 import com.vebops.store.repository.UserRepository;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DataSeeder implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+    private static final String LEGACY_PERMISSIONS_TABLE = "user_permissions";
+
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
     @Value("${app.bootstrap.admin-email:admin@example.com}")
     private String adminEmail;
 
@@ -21,13 +34,17 @@ public class DataSeeder implements CommandLineRunner {
     @Value("${azure.ad.admin-email}")
     private String azureAdminEmail;
 
-    public DataSeeder(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public DataSeeder(UserRepository userRepository, PasswordEncoder passwordEncoder, JdbcTemplate jdbcTemplate) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
     public void run(String... args) {
+        migrateLegacyPermissions();
+        linkLegacyTransfers();
+        linkLegacyTransferInwards();
         // Ensure Azure AD admin user exists for Microsoft authentication
         ensureAzureAdAdminExists();
     }
@@ -60,4 +77,127 @@ public class DataSeeder implements CommandLineRunner {
                 }
             );
     }
+
+    /**
+     * One-off link of transfers registered before a transfer kept its
+     * outward. Each is matched to an unlinked outward of the same source
+     * project and day, issued to "Transfer to" the destination's code and
+     * carrying exactly the transfer's lines, and that outward is flagged as
+     * a transfer. Skipped as soon as any transfer is linked, so outwards
+     * entered by hand later are never matched.
+     */
+    private void linkLegacyTransfers() {
+        Integer linked = jdbcTemplate.queryForObject(
+            "select count(*) from transfer_records where outward_record_id is not null",
+            Integer.class
+        );
+        if (linked == null || linked > 0) {
+            return;
+        }
+        List<long[]> candidates = jdbcTemplate.query(
+            "select t.id, o.id from transfer_records t " +
+            "join projects p on p.id = t.to_project_id " +
+            "join outward_records o on o.project_id = t.from_project_id and o.entry_date = t.transfer_date " +
+            "and o.issue_to = concat('Transfer to ', p.code) " +
+            "where (select count(*) from outward_lines ol where ol.record_id = o.id) = " +
+            "(select count(*) from transfer_lines tl where tl.record_id = t.id) " +
+            "and not exists (select 1 from transfer_lines tl where tl.record_id = t.id and not exists (" +
+            "select 1 from outward_lines ol where ol.record_id = o.id " +
+            "and ol.material_id = tl.material_id and ol.issue_qty = tl.transfer_qty)) " +
+            "order by t.id, o.id",
+            (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2) }
+        );
+        // Oldest unused outward per transfer, so twin transfers on one day each get their own.
+        Map<Long, Long> outwardByTransfer = new LinkedHashMap<>();
+        Set<Long> taken = new HashSet<>();
+        for (long[] candidate : candidates) {
+            if (!outwardByTransfer.containsKey(candidate[0]) && taken.add(candidate[1])) {
+                outwardByTransfer.put(candidate[0], candidate[1]);
+            }
+        }
+        if (outwardByTransfer.isEmpty()) {
+            return;
+        }
+        // Flag before linking: if linking fails the next start matches the same outwards again.
+        jdbcTemplate.batchUpdate(
+            "update outward_records set transfer_out = true where id = ?",
+            outwardByTransfer.values().stream().map(id -> new Object[] { id }).toList()
+        );
+        jdbcTemplate.batchUpdate(
+            "update transfer_records set outward_record_id = ? where id = ?",
+            outwardByTransfer.entrySet().stream().map(e -> new Object[] { e.getValue(), e.getKey() }).toList()
+        );
+        log.info("Linked {} transfers to their outwards", outwardByTransfer.size());
+    }
+
+    /**
+     * One-off link of the receiving inwards of transfers registered before
+     * a transfer's inward kept its outward: same destination project and
+     * day, remarked "Transfer from" the source's code and receiving every
+     * transfer line. Skipped as soon as any inward is linked.
+     */
+    private void linkLegacyTransferInwards() {
+        Integer linked = jdbcTemplate.queryForObject(
+            "select count(*) from inward_records where outward_record_id is not null",
+            Integer.class
+        );
+        if (linked == null || linked > 0) {
+            return;
+        }
+        List<long[]> candidates = jdbcTemplate.query(
+            "select t.outward_record_id, i.id from transfer_records t " +
+            "join projects p on p.id = t.from_project_id " +
+            "join inward_records i on i.project_id = t.to_project_id and i.entry_date = t.transfer_date " +
+            "and i.remarks = concat('Transfer from ', p.code) " +
+            "where t.outward_record_id is not null " +
+            "and not exists (select 1 from transfer_lines tl where tl.record_id = t.id and not exists (" +
+            "select 1 from inward_lines il where il.record_id = i.id " +
+            "and il.material_id = tl.material_id and il.received_qty = tl.transfer_qty)) " +
+            "order by t.id, i.id",
+            (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2) }
+        );
+        Map<Long, Long> inwardByOutward = new LinkedHashMap<>();
+        Set<Long> taken = new HashSet<>();
+        for (long[] candidate : candidates) {
+            if (!inwardByOutward.containsKey(candidate[0]) && taken.add(candidate[1])) {
+                inwardByOutward.put(candidate[0], candidate[1]);
+            }
+        }
+        if (inwardByOutward.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "update inward_records set outward_record_id = ? where id = ?",
+            inwardByOutward.entrySet().stream().map(e -> new Object[] { e.getKey(), e.getValue() }).toList()
+        );
+        log.info("Linked {} inwards to the transfers that created them", inwardByOutward.size());
+    }
+
+    /**
+     * One-off move of the old {@code user_permissions} rows into
+     * {@code users.permission_mask}, which Hibernate adds to the schema. The
+     * legacy table is renamed afterwards so the backfill never runs twice and
+     * cannot resurrect permissions revoked later.
+     */
+    private void migrateLegacyPermissions() {
+        Integer legacyTables = jdbcTemplate.queryForObject(
+            "select count(*) from information_schema.tables where table_schema = database() and table_name = ?",
+            Integer.class,
+            LEGACY_PERMISSIONS_TABLE
+        );
+        if (legacyTables == null || legacyTables == 0) {
+            return;
+        }
+        StringBuilder bits = new StringBuilder("case p.permission");
+        for (Permission permission : Permission.values()) {
+            bits.append(" when '").append(permission.name()).append("' then ").append(permission.mask());
+        }
+        bits.append(" else 0 end");
+        int updated = jdbcTemplate.update(
+            "update users u set u.permission_mask = u.permission_mask | coalesce(" +
+            "(select bit_or(" + bits + ") from " + LEGACY_PERMISSIONS_TABLE + " p where p.user_id = u.id), 0)"
+        );
+        jdbcTemplate.execute("rename table " + LEGACY_PERMISSIONS_TABLE + " to " + LEGACY_PERMISSIONS_TABLE + "_legacy");
+        log.info("Migrated permissions of {} users to permission_mask", updated);
+    }
 }
@@ -0,0 +1,328 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.BomLine;
+import com.vebops.store.model.FuelEntry;
+import com.vebops.store.model.InwardLine;
+import com.vebops.store.model.InwardRecord;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.OutwardLine;
+import com.vebops.store.model.OutwardRecord;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.Supplier;
+import com.vebops.store.model.TransferLine;
+import com.vebops.store.model.TransferRecord;
+import com.vebops.store.repository.InwardLineRepository;
+import com.vebops.store.repository.OutwardLineRepository;
+import com.vebops.store.util.ExcelExport;
+import com.vebops.store.util.ProjectScope;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Excel exports of materials, BOM lines, history registers and fuel entries.
+ *
+ * Rows are read through a streaming query and handed to {@link ExcelExport}
+ * as they arrive, so neither the result set nor the workbook is ever fully in
+ * memory. Every association a sheet needs is fetch-joined into the single
+ * query because the MySQL driver cannot run other statements on the
+ * connection while a streaming result is open; the persistence context is
+ * cleared periodically for the same memory reason.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExcelExportService {
+
+    /** MySQL Connector/J only streams rows when the fetch size is Integer.MIN_VALUE. */
+    private static final int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+    private static final int CLEAR_EVERY_ROWS = 500;
+
+    private final EntityManager entityManager;
+    private final InwardLineRepository inwardLineRepository;
+    private final OutwardLineRepository outwardLineRepository;
+
+    public ExcelExportService(
+        EntityManager entityManager,
+        InwardLineRepository inwardLineRepository,
+        OutwardLineRepository outwardLineRepository
+    ) {
+        this.entityManager = entityManager;
+        this.inwardLineRepository = inwardLineRepository;
+        this.outwardLineRepository = outwardLineRepository;
+    }
+
+    /**
+     * The first six columns match the material import layout, so an export
+     * can be edited and uploaded again.
+     */
+    public int exportMaterials(OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Material> query = cb.createQuery(Material.class);
+        Root<Material> material = query.from(Material.class);
+        query.select(material).orderBy(cb.asc(material.get("code")));
+
+        ExcelExport<Material> sheet = ExcelExport.<Material>sheet("Materials")
+            .column("Name", 40, Material::getName)
+            .column("Part No", 18, Material::getPartNo)
+            .column("Line Type", 16, Material::getLineType)
+            .column("Unit", 10, Material::getUnit)
+            .column("Category", 18, Material::getCategory)
+            .column("Code", 16, Material::getCode)
+            .column("Required Qty", 14, Material::getRequiredQty)
+            .column("Ordered Qty", 14, Material::getOrderedQty)
+            .column("Received Qty", 14, Material::getReceivedQty)
+            .column("Utilized Qty", 14, Material::getUtilizedQty)
+            .column("Balance Qty", 14, Material::getBalanceQty);
+        return write(sheet, query, out);
+    }
+
+    /**
+     * BOM lines of one project with the project's ordered, received and issued
+     * totals per material. The totals are aggregated up front with two grouped
+     * queries rather than three lookups per line.
+     */
+    public int exportBomLines(Long projectId, OutputStream out) throws IOException {
+        Map<Long, double[]> inward = new HashMap<>();
+        for (Object[] row : inwardLineRepository.sumQuantitiesByProjectGroupedByMaterial(projectId)) {
+            inward.put((Long) row[0], new double[] { toDouble(row[1]), toDouble(row[2]) });
+        }
+        Map<Long, Double> issued = new HashMap<>();
+        for (Object[] row : outwardLineRepository.sumIssuedQtyByProjectGroupedByMaterial(projectId)) {
+            issued.put((Long) row[0], toDouble(row[1]));
+        }
+        Function<BomLine, double[]> received = line -> inward.getOrDefault(line.getMaterial().getId(), new double[2]);
+        Function<BomLine, Double> utilized = line -> issued.getOrDefault(line.getMaterial().getId(), 0d);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BomLine> query = cb.createQuery(BomLine.class);
+        Root<BomLine> line = query.from(BomLine.class);
+        Join<BomLine, Material> material = fetch(line, "material", JoinType.INNER);
+        query
+            .select(line)
+            .where(cb.equal(line.get("project").get("id"), projectId))
+            .orderBy(cb.asc(material.get("code")));
+
+        ExcelExport<BomLine> sheet = ExcelExport.<BomLine>sheet("BOM")
+            .column("Code", 16, l -> l.getMaterial().getCode())
+            .column("Name", 40, l -> l.getMaterial().getName())
+            .column("Part No", 18, l -> l.getMaterial().getPartNo())
+            .column("Line Type", 16, l -> l.getMaterial().getLineType())
+            .column("Unit", 10, l -> l.getMaterial().getUnit())
+            .column("Category", 18, l -> l.getMaterial().getCategory())
+            .column("Allocated Qty", 14, BomLine::getQuantity)
+            .column("Ordered Qty", 14, l -> received.apply(l)[0])
+            .column("Received Qty", 14, l -> received.apply(l)[1])
+            .column("Utilized Qty", 14, utilized)
+            .column("Balance Qty", 14, l -> Math.max(0d, received.apply(l)[1] - utilized.apply(l)));
+        return write(sheet, query, out);
+    }
+
+    /** Inward register, one row per line, newest entries first. */
+    public int exportInwards(ProjectScope scope, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<InwardLine> query = cb.createQuery(InwardLine.class);
+        Root<InwardLine> line = query.from(InwardLine.class);
+        Join<InwardLine, InwardRecord> record = fetch(line, "record", JoinType.INNER);
+        Join<InwardRecord, Project> project = fetch(record, "project", JoinType.INNER);
+        fetch(line, "material", JoinType.LEFT);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(scope.toPredicate(cb, project.get("id")));
+        addDateRange(cb, predicates, record.<LocalDate>get("entryDate"), from, to);
+        query
+            .select(line)
+            .where(predicates.toArray(Predicate[]::new))
+            .orderBy(cb.desc(record.get("entryDate")), cb.desc(record.get("id")), cb.asc(line.get("id")));
+
+        ExcelExport<InwardLine> sheet = ExcelExport.<InwardLine>sheet("Inwards")
+            .column("Entry Date", 12, l -> l.getRecord().getEntryDate())
+            .column("Inward Code", 16, l -> l.getRecord().getCode())
+            .column("Project", 28, l -> l.getRecord().getProject().getName())
+            .column("Type", 10, l -> l.getRecord().getType())
+            .column("Supplier", 28, l -> l.getRecord().getSupplierName())
+            .column("Invoice No", 16, l -> l.getRecord().getInvoiceNo())
+            .column("Invoice Date", 12, l -> l.getRecord().getInvoiceDate())
+            .column("Delivery Date", 12, l -> l.getRecord().getDeliveryDate())
+            .column("Vehicle No", 14, l -> l.getRecord().getVehicleNo())
+            .column("Validated", 10, l -> l.getRecord().isValidated())
+            .column("Material Code", 16, l -> materialValue(l.getMaterial(), Material::getCode))
+            .column("Material Name", 40, l -> materialValue(l.getMaterial(), Material::getName))
+            .column("Unit", 10, l -> materialValue(l.getMaterial(), Material::getUnit))
+            .column("Ordered Qty", 14, InwardLine::getOrderedQty)
+            .column("Received Qty", 14, InwardLine::getReceivedQty);
+        return write(sheet, query, out);
+    }
+
+    /** Outward register, one row per line, newest entries first. */
+    public int exportOutwards(ProjectScope scope, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OutwardLine> query = cb.createQuery(OutwardLine.class);
+        Root<OutwardLine> line = query.from(OutwardLine.class);
+        Join<OutwardLine, OutwardRecord> record = fetch(line, "record", JoinType.INNER);
+        Join<OutwardRecord, Project> project = fetch(record, "project", JoinType.INNER);
+        fetch(line, "material", JoinType.LEFT);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(scope.toPredicate(cb, project.get("id")));
+        addDateRange(cb, predicates, record.<LocalDate>get("date"), from, to);
+        query
+            .select(line)
+            .where(predicates.toArray(Predicate[]::new))
+            .orderBy(cb.desc(record.get("entryDate")), cb.desc(record.get("id")), cb.asc(line.get("id")));
+
+        ExcelExport<OutwardLine> sheet = ExcelExport.<OutwardLine>sheet("Outwards")
+            .column("Date", 12, l -> l.getRecord().getDate())
+            .column("Outward Code", 16, l -> l.getRecord().getCode())
+            .column("Project", 28, l -> l.getRecord().getProject().getName())
+            .column("Issue To", 28, l -> l.getRecord().getIssueTo())
+            .column("Vehicle No", 14, l -> l.getRecord().getVehicleNo())
+            .column("Validated", 10, l -> l.getRecord().isValidated())
+            .column("Material Code", 16, l -> materialValue(l.getMaterial(), Material::getCode))
+            .column("Material Name", 40, l -> materialValue(l.getMaterial(), Material::getName))
+            .column("Unit", 10, l -> materialValue(l.getMaterial(), Material::getUnit))
+            .column("Issued Qty", 14, OutwardLine::getIssueQty);
+        return write(sheet, query, out);
+    }
+
+    /**
+     * Transfer register, one row per line. A transfer is included when either
+     * its source or its destination project is in scope.
+     */
+    public int exportTransfers(ProjectScope scope, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransferLine> query = cb.createQuery(TransferLine.class);
+        Root<TransferLine> line = query.from(TransferLine.class);
+        Join<TransferLine, TransferRecord> record = fetch(line, "record", JoinType.INNER);
+        Join<TransferRecord, Project> fromProject = fetch(record, "fromProject", JoinType.LEFT);
+        Join<TransferRecord, Project> toProject = fetch(record, "toProject", JoinType.LEFT);
+        fetch(line, "material", JoinType.LEFT);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.or(scope.toPredicate(cb, fromProject.get("id")), scope.toPredicate(cb, toProject.get("id"))));
+        addDateRange(cb, predicates, record.<LocalDate>get("transferDate"), from, to);
+        query
+            .select(line)
+            .where(predicates.toArray(Predicate[]::new))
+            .orderBy(cb.desc(record.get("transferDate")), cb.desc(record.get("id")), cb.asc(line.get("id")));
+
+        ExcelExport<TransferLine> sheet = ExcelExport.<TransferLine>sheet("Transfers")
+            .column("Transfer Date", 12, l -> l.getRecord().getTransferDate())
+            .column("Transfer Code", 16, l -> l.getRecord().getCode())
+            .column("From Project", 28, l -> projectName(l.getRecord().getFromProject()))
+            .column("From Site", 18, l -> l.getRecord().getFromSite())
+            .column("To Project", 28, l -> projectName(l.getRecord().getToProject()))
+            .column("To Site", 18, l -> l.getRecord().getToSite())
+            .column("Material Code", 16, l -> materialValue(l.getMaterial(), Material::getCode))
+            .column("Material Name", 40, l -> materialValue(l.getMaterial(), Material::getName))
+            .column("Unit", 10, l -> materialValue(l.getMaterial(), Material::getUnit))
+            .column("Transfer Qty", 14, TransferLine::getTransferQty)
+            .column("Remarks", 30, l -> l.getRecord().getRemarks());
+        return write(sheet, query, out);
+    }
+
+    /** Fuel entries in scope, newest first. */
+    public int exportFuelEntries(ProjectScope scope, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FuelEntry> query = cb.createQuery(FuelEntry.class);
+        Root<FuelEntry> entry = query.from(FuelEntry.class);
+        Join<FuelEntry, Project> project = fetch(entry, "project", JoinType.INNER);
+        fetch(entry, "vehicle", JoinType.INNER);
+        fetch(entry, "supplier", JoinType.LEFT);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(scope.toPredicate(cb, project.get("id")));
+        addDateRange(cb, predicates, entry.<LocalDate>get("date"), from, to);
+        query
+            .select(entry)
+            .where(predicates.toArray(Predicate[]::new))
+            .orderBy(cb.desc(entry.get("date")), cb.desc(entry.get("id")));
+
+        ExcelExport<FuelEntry> sheet = ExcelExport.<FuelEntry>sheet("Fuel Entries")
+            .column("Date", 12, FuelEntry::getDate)
+            .column("Project", 16, e -> e.getProject().getCode())
+            .column("Vehicle", 24, e -> e.getVehicle().getVehicleName())
+            .column("Vehicle No", 14, e -> e.getVehicle().getVehicleNumber())
+            .column("Fuel Type", 10, FuelEntry::getFuelType)
+            .column("Supplier", 28, e -> supplierName(e.getSupplier()))
+            .column("Litres", 10, FuelEntry::getLitres)
+            .column("Price / Litre", 12, FuelEntry::getPricePerLitre)
+            .column("Total Cost", 12, FuelEntry::getTotalCost)
+            .column("Opening Km", 12, FuelEntry::getOpeningKm)
+            .column("Closing Km", 12, FuelEntry::getClosingKm)
+            .column("Distance", 10, FuelEntry::getDistance)
+            .column("Mileage", 10, FuelEntry::getMileage)
+            .column("Status", 10, FuelEntry::getStatus);
+        return write(sheet, query, out);
+    }
+
+    private <T> int write(ExcelExport<T> sheet, CriteriaQuery<T> query, OutputStream out) throws IOException {
+        int[] written = { 0 };
+        try (
+            Stream<T> rows = entityManager
+                .createQuery(query)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream()
+        ) {
+            return sheet.write(rows, out, row -> {
+                if (++written[0] % CLEAR_EVERY_ROWS == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
+    /**
+     * Fetch-joins an association and returns it as a join so it can also be
+     * used in predicates and ordering. Hibernate's fetches implement Join.
+     */
+    @SuppressWarnings("unchecked")
+    private static <X, Y> Join<X, Y> fetch(From<?, X> from, String attribute, JoinType type) {
+        return (Join<X, Y>) from.fetch(attribute, type);
+    }
+
+    private static void addDateRange(
+        CriteriaBuilder cb,
+        List<Predicate> predicates,
+        Path<LocalDate> date,
+        LocalDate from,
+        LocalDate to
+    ) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(date, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThanOrEqualTo(date, to));
+        }
+    }
+
+    private static <R> R materialValue(Material material, Function<Material, R> getter) {
+        return material != null ? getter.apply(material) : null;
+    }
+
+    private static String projectName(Project project) {
+        return project != null ? project.getName() : null;
+    }
+
+    private static String supplierName(Supplier supplier) {
+        return supplier != null ? supplier.getSupplierName() : null;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0d;
+    }
+}
@@ -23,18 +23,21 @@ public class FuelManagementService {
     private final ProjectRepository projectRepository;
     private final SupplierRepository supplierRepository;
     private final DailyLogRepository dailyLogRepository;
+    private final VehicleOdometerService vehicleOdometerService;
 
     public FuelManagementService(
             FuelEntryRepository fuelEntryRepository,
             VehicleRepository vehicleRepository,
             ProjectRepository projectRepository,
             SupplierRepository supplierRepository,
-            DailyLogRepository dailyLogRepository) {
+            DailyLogRepository dailyLogRepository,
+            VehicleOdometerService vehicleOdometerService) {
         this.fuelEntryRepository = fuelEntryRepository;
         this.vehicleRepository = vehicleRepository;
         this.projectRepository = projectRepository;
         this.supplierRepository = supplierRepository;
         this.dailyLogRepository = dailyLogRepository;
+        this.vehicleOdometerService = vehicleOdometerService;
     }
 
     public List<FuelEntryDto> getAllFuelEntries() {
@@ -124,29 +127,16 @@ public class FuelManagementService {
         Supplier supplier = supplierRepository.findById(request.getSupplierId())
                 .orElseThrow(() -> new NotFoundException("Supplier not found with id: " + request.getSupplierId()));
 
-        // Check if there's an open daily log for this vehicle
-        List<DailyLog> vehicleDailyLogs = dailyLogRepository.findByVehicleId(request.getVehicleId());
-        boolean hasOpenDailyLog = vehicleDailyLogs.stream()
-                .anyMatch(log -> log.getStatus() == EntryStatus.OPEN);
+        VehicleOdometerState odometer = vehicleOdometerService.lock(vehicle.getId());
 
-        if (hasOpenDailyLog) {
+        // Check if there's an open daily log for this vehicle
+        if (odometer.getOpenLogId() != null) {
             throw new BadRequestException("Cannot create fuel entry. Please close the open daily log first.");
         }
 
-        // Get the last closed daily log's closing KM
-        Double lastDailyLogClosingKm = vehicleDailyLogs.stream()
-                .filter(log -> log.getStatus() == EntryStatus.CLOSED && log.getClosingKm() != null)
-                .max((a, b) -> a.getDate().compareTo(b.getDate()))
-                .map(DailyLog::getClosingKm)
-                .orElse(null);
-
-        // Get the last closed fuel entry's closing KM
-        List<FuelEntry> vehicleFuelEntries = fuelEntryRepository.findByVehicleId(request.getVehicleId());
-        Double lastFuelEntryClosingKm = vehicleFuelEntries.stream()
-                .filter(entry -> entry.getStatus() == EntryStatus.CLOSED && entry.getClosingKm() != null)
-                .max((a, b) -> a.getDate().compareTo(b.getDate()))
-                .map(FuelEntry::getClosingKm)
-                .orElse(null);
+        // Closing KM of the last closed daily log and fuel entry
+        Double lastDailyLogClosingKm = odometer.getLastLogClosingKm();
+        Double lastFuelEntryClosingKm = odometer.getLastFuelClosingKm();
 
         // Determine the maximum closing KM from both sources
         Double maxClosingKm = null;
@@ -188,6 +178,7 @@ public class FuelManagementService {
         entry.setStatus(EntryStatus.OPEN);
 
         FuelEntry saved = fuelEntryRepository.save(entry);
+        vehicleOdometerService.fuelEntryOpened(odometer, saved);
         return FuelEntryDto.fromEntity(saved);
     }
 
@@ -205,17 +196,14 @@ public class FuelManagementService {
         }
 
         // Check if closing km is valid compared to last closed daily log
-        List<DailyLog> vehicleDailyLogs = dailyLogRepository.findByVehicleId(entry.getVehicle().getId());
-        DailyLog lastClosedLog = vehicleDailyLogs.stream()
-                .filter(log -> log.getStatus() == EntryStatus.CLOSED && log.getClosingKm() != null)
-                .max((a, b) -> a.getDate().compareTo(b.getDate()))
-                .orElse(null);
+        VehicleOdometerState odometer = vehicleOdometerService.lock(entry.getVehicle().getId());
+        Double lastLogClosingKm = odometer.getLastLogClosingKm();
 
-        if (lastClosedLog != null && request.getClosingKm() < lastClosedLog.getClosingKm()) {
+        if (lastLogClosingKm != null && request.getClosingKm() < lastLogClosingKm) {
             throw new BadRequestException(
                     String.format(
                             "Fuel closing KM (%.1f) must be greater than or equal to last daily log closing KM (%.1f)",
-                            request.getClosingKm(), lastClosedLog.getClosingKm()));
+                            request.getClosingKm(), lastLogClosingKm));
         }
 
         entry.setClosingKm(request.getClosingKm());
@@ -225,6 +213,7 @@ public class FuelManagementService {
         entry.setStatus(EntryStatus.CLOSED);
 
         FuelEntry saved = fuelEntryRepository.save(entry);
+        vehicleOdometerService.fuelEntryClosed(odometer, saved);
         return FuelEntryDto.fromEntity(saved);
     }
 
@@ -232,7 +221,10 @@ public class FuelManagementService {
     public void deleteFuelEntry(Long id) {
         FuelEntry entry = fuelEntryRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Fuel entry not found with id: " + id));
+        VehicleOdometerState odometer = vehicleOdometerService.lock(entry.getVehicle().getId());
         fuelEntryRepository.delete(entry);
+        fuelEntryRepository.flush();
+        vehicleOdometerService.fuelEntryDeleted(odometer, entry);
     }
 
     // Supplier methods
@@ -300,6 +292,8 @@ public class FuelManagementService {
         Vehicle vehicle = vehicleRepository.findById(request.getVehicleId())
                 .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + request.getVehicleId()));
 
+        VehicleOdometerState odometer = vehicleOdometerService.lock(vehicle.getId());
+
         // Check if there's already an open log for this vehicle today
         dailyLogRepository.findByVehicleIdAndDateAndStatus(
                 request.getVehicleId(), request.getDate(), EntryStatus.OPEN).ifPresent(log -> {
@@ -315,6 +309,7 @@ public class FuelManagementService {
         log.setStatus(EntryStatus.OPEN);
 
         DailyLog saved = dailyLogRepository.save(log);
+        vehicleOdometerService.logOpened(odometer, saved);
         return DailyLogDto.fromEntity(saved);
     }
 
@@ -331,12 +326,14 @@ public class FuelManagementService {
             throw new BadRequestException("Closing km cannot be less than opening km");
         }
 
+        VehicleOdometerState odometer = vehicleOdometerService.lock(log.getVehicle().getId());
         log.setClosingKm(request.getClosingKm());
         log.setClosingKmPhoto(request.getClosingKmPhoto());
         log.setDistance(request.getClosingKm() - log.getOpeningKm());
         log.setStatus(EntryStatus.CLOSED);
 
         DailyLog saved = dailyLogRepository.save(log);
+        vehicleOdometerService.logClosed(odometer, saved);
         return DailyLogDto.fromEntity(saved);
     }
 
@@ -356,20 +353,15 @@ public class FuelManagementService {
         // daily log first."
         // We should probably enforce the same rules or relax them if Refill is special.
         // Let's enforce it to be safe.
-        List<DailyLog> vehicleDailyLogs = dailyLogRepository.findByVehicleId(request.getVehicleId());
-        boolean hasOpenDailyLog = vehicleDailyLogs.stream()
-                .anyMatch(log -> log.getStatus() == EntryStatus.OPEN);
-
-        if (hasOpenDailyLog) {
+        VehicleOdometerState odometer = vehicleOdometerService.lock(vehicle.getId());
+        if (odometer.getOpenLogId() != null) {
             throw new BadRequestException("Cannot refill. Please close the open daily log first.");
         }
 
         // 1. Handle Existing Open Fuel Entry
-        List<FuelEntry> vehicleFuelEntries = fuelEntryRepository.findByVehicleId(request.getVehicleId());
-        FuelEntry openEntry = vehicleFuelEntries.stream()
-                .filter(e -> e.getStatus() == EntryStatus.OPEN)
-                .findFirst()
-                .orElse(null);
+        FuelEntry openEntry = odometer.getOpenFuelEntryId() != null
+                ? fuelEntryRepository.findById(odometer.getOpenFuelEntryId()).orElse(null)
+                : null;
 
         if (openEntry != null) {
             // Close the existing entry
@@ -387,19 +379,11 @@ public class FuelManagementService {
             }
             openEntry.setStatus(EntryStatus.CLOSED);
             fuelEntryRepository.save(openEntry);
+            vehicleOdometerService.fuelEntryClosed(odometer, openEntry);
         } else {
             // Validate continuity with last closed logs if no open entry
-            Double lastDailyLogClosingKm = vehicleDailyLogs.stream()
-                    .filter(log -> log.getStatus() == EntryStatus.CLOSED && log.getClosingKm() != null)
-                    .max((a, b) -> a.getDate().compareTo(b.getDate()))
-                    .map(DailyLog::getClosingKm)
-                    .orElse(null);
-
-            Double lastFuelEntryClosingKm = vehicleFuelEntries.stream()
-                    .filter(entry -> entry.getStatus() == EntryStatus.CLOSED && entry.getClosingKm() != null)
-                    .max((a, b) -> a.getDate().compareTo(b.getDate()))
-                    .map(FuelEntry::getClosingKm)
-                    .orElse(null);
+            Double lastDailyLogClosingKm = odometer.getLastLogClosingKm();
+            Double lastFuelEntryClosingKm = odometer.getLastFuelClosingKm();
 
             Double maxClosingKm = null;
             if (lastDailyLogClosingKm != null && lastFuelEntryClosingKm != null) {
@@ -430,6 +414,8 @@ public class FuelManagementService {
         newEntry.setOpeningKmPhoto(request.getOpeningKmPhoto());
         newEntry.setStatus(EntryStatus.OPEN);
 
-        return FuelEntryDto.fromEntity(fuelEntryRepository.save(newEntry));
+        FuelEntry saved = fuelEntryRepository.save(newEntry);
+        vehicleOdometerService.fuelEntryOpened(odometer, saved);
+        return FuelEntryDto.fromEntity(saved);
     }
 }
@@ -0,0 +1,332 @@
+package com.vebops.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vebops.store.dto.ImportJobDto;
+import com.vebops.store.dto.ImportRowErrorDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.exception.NotFoundException;
+import com.vebops.store.model.ImportJob;
+import com.vebops.store.model.ImportJobStatus;
+import com.vebops.store.model.Role;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.ImportJobRepository;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Runs material spreadsheet imports in the background.
+ *
+ * An upload is stored on disk, counted and queued; the caller gets the job
+ * back immediately and polls for progress. Jobs run on a small bounded pool
+ * so a burst of uploads cannot starve the request threads or the connection
+ * pool. Progress is persisted in the same transaction as every batch, which
+ * lets a failed or interrupted job resume from the last committed row
+ * instead of starting over or replaying rows.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+    private static final int MAX_STORED_ERRORS = 200;
+    private static final TypeReference<List<ImportRowErrorDto>> ERROR_LIST = new TypeReference<>() {};
+
+    private final ImportJobRepository importJobRepository;
+    private final MaterialImportService materialImportService;
+    private final ObjectMapper objectMapper;
+    private final Path storageDir;
+    private final ThreadPoolExecutor executor;
+    private final Map<Long, RunClock> clocks = new ConcurrentHashMap<>();
+
+    public ImportJobService(
+        ImportJobRepository importJobRepository,
+        MaterialImportService materialImportService,
+        ObjectMapper objectMapper,
+        @Value("${app.import.storage-dir:data/imports}") String storageDir,
+        @Value("${app.import.workers:2}") int workers,
+        @Value("${app.import.queue-capacity:20}") int queueCapacity
+    ) {
+        this.importJobRepository = importJobRepository;
+        this.materialImportService = materialImportService;
+        this.objectMapper = objectMapper;
+        this.storageDir = Path.of(storageDir);
+        int poolSize = Math.max(1, workers);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "material-import-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public ImportJobDto submit(MultipartFile file, Long userId) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("An Excel file is required");
+        }
+        Path stored;
+        int totalRows;
+        try {
+            Files.createDirectories(storageDir);
+            stored = storageDir.resolve(UUID.randomUUID() + ".upload");
+            file.transferTo(stored.toAbsolutePath());
+        } catch (IOException ex) {
+            throw new BadRequestException("Unable to store the uploaded file");
+        }
+        try {
+            totalRows = materialImportService.countDataRows(stored);
+        } catch (IOException | RuntimeException ex) {
+            deleteQuietly(stored);
+            if (ex instanceof BadRequestException badRequest) {
+                throw badRequest;
+            }
+            throw new BadRequestException("Unable to read the uploaded file");
+        }
+        if (totalRows == 0) {
+            deleteQuietly(stored);
+            throw new BadRequestException("No valid materials were found in the file");
+        }
+
+        ImportJob job = new ImportJob();
+        job.setFileName(file.getOriginalFilename());
+        job.setStoredPath(stored.toString());
+        job.setCreatedBy(userId);
+        job.setTotalRows(totalRows);
+        job = importJobRepository.save(job);
+        enqueue(job);
+        return toDto(job);
+    }
+
+    public ImportJobDto status(Long jobId, UserAccount user) {
+        return toDto(requireVisibleJob(jobId, user));
+    }
+
+    public List<ImportJobDto> recentJobs(UserAccount user) {
+        return importJobRepository.findTop20ByCreatedByOrderByIdDesc(user.getId()).stream().map(this::toDto).toList();
+    }
+
+    /**
+     * Queues a failed job again. Rows up to its last committed row are
+     * skipped; counters and recorded errors carry over.
+     */
+    public ImportJobDto resume(Long jobId, UserAccount user) {
+        ImportJob job = requireVisibleJob(jobId, user);
+        if (job.getStatus() != ImportJobStatus.FAILED) {
+            throw new BadRequestException("Only failed import jobs can be resumed");
+        }
+        if (!Files.isReadable(Path.of(job.getStoredPath()))) {
+            throw new BadRequestException("The uploaded file for this job is no longer available");
+        }
+        // Conditional, so two concurrent resumes cannot both queue the job.
+        if (importJobRepository.requeueFailed(jobId, Instant.now()) == 0) {
+            throw new BadRequestException("Only failed import jobs can be resumed");
+        }
+        job = importJobRepository.findById(jobId).orElseThrow(() -> new NotFoundException("Import job not found"));
+        enqueue(job);
+        return toDto(job);
+    }
+
+    /**
+     * Jobs that were queued or running when the application stopped cannot
+     * still be running; mark them failed so they can be resumed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        List<ImportJob> interrupted = importJobRepository.findByStatusIn(List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING));
+        for (ImportJob job : interrupted) {
+            job.setStatus(ImportJobStatus.FAILED);
+            job.setErrorMessage("Interrupted by a server restart; resume to continue");
+            job.setFinishedAt(Instant.now());
+        }
+        if (!interrupted.isEmpty()) {
+            importJobRepository.saveAll(interrupted);
+            log.info("Marked {} interrupted import jobs as failed", interrupted.size());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void enqueue(ImportJob job) {
+        Long jobId = job.getId();
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException ex) {
+            job.setStatus(ImportJobStatus.FAILED);
+            job.setErrorMessage("The import queue was full; resume the job to retry");
+            importJobRepository.save(job);
+            throw new BadRequestException("Too many imports are queued; resume job " + jobId + " shortly");
+        }
+    }
+
+    private void run(Long jobId) {
+        // Only the worker whose claim flips QUEUED to RUNNING processes the file.
+        if (importJobRepository.claimQueued(jobId, Instant.now()) == 0) {
+            return;
+        }
+        ImportJob job = importJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        clocks.put(jobId, new RunClock(System.nanoTime(), job.getProcessedRows()));
+        Path file = Path.of(job.getStoredPath());
+        try {
+            materialImportService.importFile(file, job.getLastCommittedRow(), progress -> recordProgress(jobId, progress));
+            finish(jobId, ImportJobStatus.COMPLETED, null);
+            deleteQuietly(file);
+        } catch (Exception ex) {
+            String message = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            log.warn("Import job {} failed: {}", jobId, message);
+            finish(jobId, ImportJobStatus.FAILED, message != null ? truncate(message, 1000) : ex.getClass().getSimpleName());
+        } finally {
+            clocks.remove(jobId);
+        }
+    }
+
+    /** Runs in the batch's transaction: the job's resume point commits with the rows. */
+    private void recordProgress(Long jobId, MaterialImportService.BatchProgress progress) {
+        ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+        job.setLastCommittedRow(progress.lastRow());
+        job.setProcessedRows(job.getProcessedRows() + progress.processedRows());
+        job.setCreatedCount(job.getCreatedCount() + progress.created());
+        job.setUpdatedCount(job.getUpdatedCount() + progress.updated());
+        job.setFailedCount(job.getFailedCount() + progress.failed());
+        if (!progress.errors().isEmpty()) {
+            List<ImportRowErrorDto> errors = new ArrayList<>(readErrors(job));
+            for (ImportRowErrorDto error : progress.errors()) {
+                if (errors.size() >= MAX_STORED_ERRORS) {
+                    break;
+                }
+                errors.add(error);
+            }
+            job.setErrorsJson(writeErrors(errors));
+        }
+        importJobRepository.save(job);
+    }
+
+    private void finish(Long jobId, ImportJobStatus status, String errorMessage) {
+        importJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage);
+            job.setFinishedAt(Instant.now());
+            importJobRepository.save(job);
+        });
+    }
+
+    private ImportJob requireVisibleJob(Long jobId, UserAccount user) {
+        ImportJob job = importJobRepository.findById(jobId).orElseThrow(() -> new NotFoundException("Import job not found"));
+        if (user.getRole() != Role.ADMIN && !Objects.equals(job.getCreatedBy(), user.getId())) {
+            throw new NotFoundException("Import job not found");
+        }
+        return job;
+    }
+
+    private ImportJobDto toDto(ImportJob job) {
+        int total = job.getTotalRows();
+        double percent = total > 0 ? Math.min(100d, job.getProcessedRows() * 100d / total) : 0d;
+        if (job.getStatus() == ImportJobStatus.COMPLETED) {
+            percent = 100d;
+        }
+        List<ImportRowErrorDto> errors = readErrors(job);
+        return new ImportJobDto(
+            String.valueOf(job.getId()),
+            job.getStatus().name(),
+            job.getFileName(),
+            total,
+            job.getProcessedRows(),
+            job.getCreatedCount(),
+            job.getUpdatedCount(),
+            job.getFailedCount(),
+            job.getLastCommittedRow(),
+            Math.round(percent * 10d) / 10d,
+            etaSeconds(job),
+            job.getAttempts(),
+            errors,
+            job.getErrorMessage(),
+            job.getCreatedAt() != null ? job.getCreatedAt().toString() : null,
+            job.getStartedAt() != null ? job.getStartedAt().toString() : null,
+            job.getFinishedAt() != null ? job.getFinishedAt().toString() : null
+        );
+    }
+
+    /** Remaining rows divided by the row rate of the current attempt. */
+    private Long etaSeconds(ImportJob job) {
+        RunClock clock = clocks.get(job.getId());
+        if (job.getStatus() != ImportJobStatus.RUNNING || clock == null) {
+            return null;
+        }
+        int done = job.getProcessedRows() - clock.processedAtStart();
+        long elapsedNanos = System.nanoTime() - clock.startedNanos();
+        if (done <= 0 || elapsedNanos <= 0) {
+            return null;
+        }
+        int remaining = Math.max(0, job.getTotalRows() - job.getProcessedRows());
+        return (long) Math.ceil(remaining * (elapsedNanos / 1_000_000_000d) / done);
+    }
+
+    private List<ImportRowErrorDto> readErrors(ImportJob job) {
+        if (job.getErrorsJson() == null || job.getErrorsJson().isBlank()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(job.getErrorsJson(), ERROR_LIST);
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring unreadable error list of import job {}", job.getId());
+            return List.of();
+        }
+    }
+
+    private String writeErrors(List<ImportRowErrorDto> errors) {
+        try {
+            return objectMapper.writeValueAsString(errors);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialise import errors", ex);
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete import file {}", file, ex);
+        }
+    }
+
+    private record RunClock(long startedNanos, int processedAtStart) {}
+}
@@ -1,8 +1,10 @@
 package com.vebops.store.service;
 
 import com.vebops.store.dto.InventoryCodesResponse;
+import com.vebops.store.dto.InwardLineQuantityUpdate;
 import com.vebops.store.dto.InwardLineRequest;
 import com.vebops.store.dto.InwardRequest;
+import com.vebops.store.dto.OutwardLineQuantityUpdate;
 import com.vebops.store.dto.OutwardLineRequest;
 import com.vebops.store.dto.OutwardRequest;
 import com.vebops.store.dto.OutwardUpdateRequest;
@@ -10,8 +12,6 @@ import com.vebops.store.dto.TransferRequest;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.ForbiddenException;
 import com.vebops.store.exception.NotFoundException;
-import com.vebops.store.model.AccessType;
-import com.vebops.store.model.BomLine;
 import com.vebops.store.model.InwardLine;
 import com.vebops.store.model.InwardRecord;
 import com.vebops.store.model.InwardType;
@@ -22,7 +22,6 @@ import com.vebops.store.model.Project;
 import com.vebops.store.model.TransferLine;
 import com.vebops.store.model.TransferRecord;
 import com.vebops.store.model.UserAccount;
-import com.vebops.store.repository.BomLineRepository;
 import com.vebops.store.repository.InwardLineRepository;
 import com.vebops.store.repository.InwardRecordRepository;
 import com.vebops.store.repository.MaterialRepository;
@@ -57,11 +56,15 @@ public class InventoryService {
     private final InwardRecordRepository inwardRecordRepository;
     private final OutwardRecordRepository outwardRecordRepository;
     private final TransferRecordRepository transferRecordRepository;
-    private final BomLineRepository bomLineRepository;
+    private final BomAllocationCache bomAllocationCache;
     private final InwardLineRepository inwardLineRepository;
     private final OutwardLineRepository outwardLineRepository;
     private final SupplierRepository supplierRepository;
-    private final com.vebops.store.repository.ProjectTeamMemberRepository projectTeamMemberRepository;
+    private final AccessScopeService accessScopeService;
+    private final AnalyticsSnapshotService analyticsSnapshotService;
+    private final MaterialMovementRollup movementRollup;
+    private final ConsumptionForecastService consumptionForecastService;
+    private final StockValuationService stockValuationService;
 
     private static final DateTimeFormatter CODE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
 
@@ -71,21 +74,29 @@ public class InventoryService {
             InwardRecordRepository inwardRecordRepository,
             OutwardRecordRepository outwardRecordRepository,
             TransferRecordRepository transferRecordRepository,
-            BomLineRepository bomLineRepository,
+            BomAllocationCache bomAllocationCache,
             InwardLineRepository inwardLineRepository,
             OutwardLineRepository outwardLineRepository,
             SupplierRepository supplierRepository,
-            com.vebops.store.repository.ProjectTeamMemberRepository projectTeamMemberRepository) {
+            AccessScopeService accessScopeService,
+            AnalyticsSnapshotService analyticsSnapshotService,
+            MaterialMovementRollup movementRollup,
+            ConsumptionForecastService consumptionForecastService,
+            StockValuationService stockValuationService) {
         this.projectRepository = projectRepository;
         this.materialRepository = materialRepository;
         this.inwardRecordRepository = inwardRecordRepository;
         this.outwardRecordRepository = outwardRecordRepository;
         this.transferRecordRepository = transferRecordRepository;
-        this.bomLineRepository = bomLineRepository;
+        this.bomAllocationCache = bomAllocationCache;
         this.inwardLineRepository = inwardLineRepository;
         this.outwardLineRepository = outwardLineRepository;
         this.supplierRepository = supplierRepository;
-        this.projectTeamMemberRepository = projectTeamMemberRepository;
+        this.accessScopeService = accessScopeService;
+        this.analyticsSnapshotService = analyticsSnapshotService;
+        this.movementRollup = movementRollup;
+        this.consumptionForecastService = consumptionForecastService;
+        this.stockValuationService = stockValuationService;
     }
 
     public InventoryCodesResponse generateCodes() {
@@ -97,15 +108,21 @@ public class InventoryService {
 
     @Transactional
     public void registerInward(UserAccount user, InwardRequest request) {
-        doRegisterInward(user, request, true);
+        doRegisterInward(user, request, false);
     }
 
-    private void doRegisterInward(UserAccount user, InwardRequest request, boolean checkAccess) {
+    /**
+     * @param transfer whether this is the receiving side of a transfer: the
+     *                 destination project's access is not checked and its
+     *                 stock layers are moved by the transfer itself
+     */
+    private InwardRecord doRegisterInward(UserAccount user, InwardRequest request, boolean transfer) {
+        analyticsSnapshotService.invalidate();
         log.info("registerInward: Processing inward request for projectId={}, lines={}",
                 request.projectId(), request.lines() != null ? request.lines().size() : 0);
 
         Project project = requireProject(request.projectId());
-        if (checkAccess) {
+        if (!transfer) {
             assertProjectAccess(user, project);
         }
         if (request.lines() == null || request.lines().isEmpty()) {
@@ -155,6 +172,9 @@ public class InventoryService {
             // Sanitize quantities (no negative qty)
             double orderedQty = Math.max(0d, lineReq.orderedQty());
             double receivedQty = Math.max(0d, lineReq.receivedQty());
+            if (lineReq.unitPrice() != null && (lineReq.unitPrice() < 0d || lineReq.unitPrice().isNaN())) {
+                throw new BadRequestException("Unit price must be zero or greater");
+            }
 
             // Ignore completely empty lines
             if (orderedQty <= 0d && receivedQty <= 0d) {
@@ -214,6 +234,7 @@ public class InventoryService {
             line.setMaterial(material);
             line.setOrderedQty(orderedQty);
             line.setReceivedQty(receivedQty);
+            line.setUnitPrice(lineReq.unitPrice());
             lines.add(line);
 
             // Update material aggregates - SUPPLY type only
@@ -233,12 +254,27 @@ public class InventoryService {
 
         record.setLines(lines);
         inwardRecordRepository.save(record);
+        movementRollup.recordInward(record);
+        if (!transfer) {
+            stockValuationService.recordInward(record);
+        }
         log.info("registerInward: Successfully saved inward record with code={}, lines={}",
                 record.getCode(), lines.size());
+        return record;
     }
 
     @Transactional
     public void registerOutward(UserAccount user, OutwardRequest request) {
+        doRegisterOutward(user, request, true);
+    }
+
+    /**
+     * @param consumption whether the issue is consumption on site, as opposed
+     *                    to the outward side of a transfer, whose stock
+     *                    layers are moved by the transfer itself
+     */
+    private OutwardRecord doRegisterOutward(UserAccount user, OutwardRequest request, boolean consumption) {
+        analyticsSnapshotService.invalidate();
         if (request.lines() == null || request.lines().isEmpty()) {
             throw new BadRequestException("At least one outward line is required");
         }
@@ -254,6 +290,7 @@ public class InventoryService {
         record.setEntryDate(entryDate);
         record.setCode(resolveOrGenerateCode(request.code(), () -> generateCodes().outwardCode()));
         record.setIssueTo(request.issueTo());
+        record.setTransferOut(!consumption);
 
         // Status management removed - outwards are always open
 
@@ -358,10 +395,17 @@ public class InventoryService {
 
         record.setLines(lines);
         outwardRecordRepository.save(record);
+        movementRollup.recordOutward(record);
+        if (consumption) {
+            consumptionForecastService.recordIssues(record);
+            stockValuationService.recordIssues(record);
+        }
+        return record;
     }
 
     @Transactional
     public void updateOutward(Long recordId, OutwardUpdateRequest request) {
+        analyticsSnapshotService.invalidate();
         OutwardRecord record = outwardRecordRepository
                 .findById(recordId)
                 .orElseThrow(() -> new NotFoundException("Outward record not found"));
@@ -478,6 +522,7 @@ public class InventoryService {
 
         // 4) Sync Material.utilizedQty and balance based on delta from THIS record
         Set<Long> affectedMaterialIds = new HashSet<>();
+        Map<Long, Double> issuedDeltas = new HashMap<>();
         affectedMaterialIds.addAll(currentRecordTotals.keySet());
         affectedMaterialIds.addAll(requestedTotals.keySet());
 
@@ -504,6 +549,7 @@ public class InventoryService {
             if (diff == 0d) {
                 continue;
             }
+            issuedDeltas.put(materialId, diff);
 
             // Optional extra safety: do not exceed global stock
             if (diff > 0d) {
@@ -539,10 +585,104 @@ public class InventoryService {
         }
 
         outwardRecordRepository.save(record);
+        movementRollup.recordIssueChanges(record, issuedDeltas);
+        consumptionForecastService.recordIssueChanges(record, issuedDeltas);
+        stockValuationService.recordIssueChanges(record, issuedDeltas);
+    }
+
+    /**
+     * Sets the quantities of existing lines of an unvalidated inward; a null
+     * quantity is left as it is. The line edits and the rollup and valuation
+     * updates commit together.
+     */
+    @Transactional
+    public InwardRecord updateInwardLineQuantities(Long recordId, List<InwardLineQuantityUpdate> updates) {
+        InwardRecord record = inwardRecordRepository
+                .findWithLinesById(recordId)
+                .orElseThrow(() -> new NotFoundException("Inward record not found"));
+        if (record.isValidated()) {
+            throw new BadRequestException("Cannot update validated record");
+        }
+
+        Map<Long, InwardLine> linesById = record
+                .getLines()
+                .stream()
+                .collect(Collectors.toMap(InwardLine::getId, line -> line));
+        Map<Long, double[]> quantityDeltas = new HashMap<>();
+        if (updates != null) {
+            for (InwardLineQuantityUpdate update : updates) {
+                InwardLine line = linesById.get(update.lineId());
+                if (line == null) {
+                    continue;
+                }
+                double previousOrdered = line.getOrderedQty();
+                double previousReceived = line.getReceivedQty();
+                if (update.orderedQty() != null) {
+                    line.setOrderedQty(update.orderedQty());
+                }
+                if (update.receivedQty() != null) {
+                    line.setReceivedQty(update.receivedQty());
+                }
+                if (line.getMaterial() != null) {
+                    double[] delta = quantityDeltas.computeIfAbsent(
+                            line.getMaterial().getId(), materialId -> new double[2]);
+                    delta[0] += line.getOrderedQty() - previousOrdered;
+                    delta[1] += line.getReceivedQty() - previousReceived;
+                }
+            }
+        }
+
+        InwardRecord saved = inwardRecordRepository.save(record);
+        movementRollup.recordInwardChanges(saved, quantityDeltas);
+        stockValuationService.recordInwardChanges(saved, quantityDeltas);
+        return saved;
+    }
+
+    /**
+     * Sets the issued quantities of existing lines of an unvalidated outward;
+     * a null quantity is left as it is. The line edits and the rollup,
+     * forecast and valuation updates commit together.
+     */
+    @Transactional
+    public OutwardRecord updateOutwardLineQuantities(Long recordId, List<OutwardLineQuantityUpdate> updates) {
+        OutwardRecord record = outwardRecordRepository
+                .findWithLinesById(recordId)
+                .orElseThrow(() -> new NotFoundException("Outward record not found"));
+        if (record.isValidated()) {
+            throw new BadRequestException("Cannot update validated record");
+        }
+
+        Map<Long, OutwardLine> linesById = record
+                .getLines()
+                .stream()
+                .collect(Collectors.toMap(OutwardLine::getId, line -> line));
+        Map<Long, Double> issuedDeltas = new HashMap<>();
+        if (updates != null) {
+            for (OutwardLineQuantityUpdate update : updates) {
+                OutwardLine line = linesById.get(update.lineId());
+                if (line == null || update.issueQty() == null) {
+                    continue;
+                }
+                if (line.getMaterial() != null) {
+                    issuedDeltas.merge(
+                            line.getMaterial().getId(),
+                            update.issueQty() - line.getIssueQty(),
+                            Double::sum);
+                }
+                line.setIssueQty(update.issueQty());
+            }
+        }
+
+        OutwardRecord saved = outwardRecordRepository.save(record);
+        movementRollup.recordIssueChanges(saved, issuedDeltas);
+        consumptionForecastService.recordIssueChanges(saved, issuedDeltas);
+        stockValuationService.recordIssueChanges(saved, issuedDeltas);
+        return saved;
     }
 
     @Transactional
     public void registerTransfer(UserAccount user, TransferRequest request) {
+        analyticsSnapshotService.invalidate();
         if (!StringUtils.hasText(request.toProjectId())) {
             throw new BadRequestException("Destination project is required");
         }
@@ -605,7 +745,7 @@ public class InventoryService {
                     // recording the quantity as an ordered amount (orderedQty) and
                     // deferring receipt.
                     outwardLines.add(new OutwardLineRequest(lineReq.materialId(), lineReq.transferQty()));
-                    inwardLines.add(new InwardLineRequest(lineReq.materialId(), 0d, lineReq.transferQty()));
+                    inwardLines.add(new InwardLineRequest(lineReq.materialId(), 0d, lineReq.transferQty(), null));
                 });
 
         if (lines.isEmpty()) {
@@ -615,11 +755,13 @@ public class InventoryService {
         // Persist the transfer record
         record.setLines(lines);
         transferRecordRepository.save(record);
+        movementRollup.recordTransfer(record);
+        stockValuationService.recordTransfer(record);
 
         // Auto-create outward (source) and inward (destination) movements based on the
         // transfer
         // Bypass closed check to allow transfers even when outward register is closed
-        registerOutward(
+        OutwardRecord outward = doRegisterOutward(
                 user,
                 new OutwardRequest(
                         null,
@@ -630,9 +772,12 @@ public class InventoryService {
                         null,
                         outwardLines,
                         true // bypass closed check for transfers
-                ));
+                ),
+                false // the transfer moves stock, it does not consume it
+        );
+        record.setOutwardRecord(outward);
 
-        doRegisterInward(
+        InwardRecord inward = doRegisterInward(
                 user,
                 new InwardRequest(
                         null,
@@ -645,8 +790,9 @@ public class InventoryService {
                         null,
                         fromProject.getName(),
                         inwardLines),
-                false // Skip access check for destination project
+                true // Skip access check for destination project
         );
+        inward.setOutwardRecord(outward);
     }
 
     private String resolveOrGenerateCode(String requested, Supplier<String> generator) {
@@ -670,28 +816,7 @@ public class InventoryService {
         if (user == null) {
             throw new ForbiddenException("Authentication required");
         }
-        if (user.getAccessType() == AccessType.ALL || user.getRole() == com.vebops.store.model.Role.ADMIN) {
-            return;
-        }
-
-        // 1. Check explicit project assignment
-        boolean inProjects = user.getProjects()
-                .stream()
-                .anyMatch(assigned -> assigned.getId().equals(project.getId()));
-        if (inProjects) {
-            return;
-        }
-
-        // 2. Check team membership
-        if (projectTeamMemberRepository.existsByProject_IdAndUser_Id(project.getId(), user.getId())) {
-            return;
-        }
-
-        // 3. Check Project Manager string match
-        String pm = project.getProjectManager();
-        boolean isPm = pm != null && (pm.equalsIgnoreCase(user.getName()) || pm.equalsIgnoreCase(user.getEmail()));
-
-        if (!isPm) {
+        if (!accessScopeService.hasAccess(user, project.getId())) {
             throw new ForbiddenException("You do not have access to this project");
         }
     }
@@ -709,11 +834,10 @@ public class InventoryService {
         if (project == null || material == null) {
             throw new BadRequestException("Project and material are required");
         }
-        BomLine line = bomLineRepository
-                .findByProjectIdAndMaterialId(project.getId(), material.getId())
+        return bomAllocationCache
+                .allocation(project.getId(), material.getId())
                 .orElseThrow(() -> new BadRequestException(
                         "Material " + material.getCode() + " is not allocated to this project"));
-        return line.getQuantity();
     }
 
     private double safeDouble(Double value) {
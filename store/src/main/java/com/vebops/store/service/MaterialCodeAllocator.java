@@ -0,0 +1,137 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.CodeSequence;
+import com.vebops.store.repository.CodeSequenceRepository;
+import com.vebops.store.repository.MaterialRepository;
+import java.util.Collection;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out sequential material codes ({@code MAT-000123}) without checking
+ * the materials table for collisions. Explicit codes in the same form, such
+ * as imported ones, must be passed to {@link #advancePast(Collection)}.
+ *
+ * Numbers are reserved from the {@code code_sequences} row in blocks, under a
+ * row lock and in a transaction of their own, so several application
+ * instances never hand out the same number and a rolled-back material insert
+ * does not release its block. Numbers left in a block at shutdown are
+ * skipped, so codes are increasing but not gap-free.
+ */
+@Component
+public class MaterialCodeAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialCodeAllocator.class);
+    static final String SEQUENCE_NAME = "material_code";
+    private static final String PREFIX = "MAT-";
+
+    private final CodeSequenceRepository codeSequenceRepository;
+    private final MaterialRepository materialRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final int blockSize;
+
+    // Guarded by this.
+    private long nextValue;
+    private long blockEnd;
+
+    public MaterialCodeAllocator(
+        CodeSequenceRepository codeSequenceRepository,
+        MaterialRepository materialRepository,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.material-code.block-size:100}") int blockSize
+    ) {
+        this.codeSequenceRepository = codeSequenceRepository;
+        this.materialRepository = materialRepository;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public synchronized String nextCode() {
+        if (nextValue >= blockEnd) {
+            reserveBlock();
+        }
+        return format(nextValue++);
+    }
+
+    /**
+     * Moves the sequence past explicit sequential codes, such as those written
+     * by an import, so later generated codes do not collide with them.
+     */
+    public synchronized void advancePast(Collection<String> codes) {
+        long highest = codes.stream().mapToLong(MaterialCodeAllocator::sequentialNumber).max().orElse(-1);
+        if (highest < nextValue) {
+            return;
+        }
+        reserveTransaction.executeWithoutResult(status ->
+            codeSequenceRepository
+                .findForUpdate(SEQUENCE_NAME)
+                .filter(sequence -> sequence.getNextValue() <= highest)
+                .ifPresent(sequence -> sequence.setNextValue(highest + 1))
+        );
+        if (highest < blockEnd) {
+            nextValue = highest + 1;
+        } else {
+            blockEnd = nextValue; // reserve a fresh block on the next call
+        }
+        log.debug("Advanced material codes past {}", format(highest));
+    }
+
+    static String format(long value) {
+        return String.format(Locale.ROOT, PREFIX + "%06d", value);
+    }
+
+    private void reserveBlock() {
+        long start;
+        try {
+            start = reserveTransaction.execute(status -> reserve());
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance seeded the sequence first; its row is there now.
+            start = reserveTransaction.execute(status -> reserve());
+        }
+        nextValue = start;
+        blockEnd = start + blockSize;
+        log.debug("Reserved material codes {} to {}", format(start), format(blockEnd - 1));
+    }
+
+    private long reserve() {
+        CodeSequence sequence = codeSequenceRepository
+            .findForUpdate(SEQUENCE_NAME)
+            .orElseGet(() -> codeSequenceRepository.saveAndFlush(new CodeSequence(SEQUENCE_NAME, firstFreeNumber())));
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        return start;
+    }
+
+    /**
+     * One past the highest existing sequential code. Older codes were random
+     * eight-character hex fragments, some of which are all digits; those are
+     * ignored so the sequence keeps its short form.
+     */
+    private long firstFreeNumber() {
+        long max = 0;
+        for (String code : materialRepository.findPrefixedCodes()) {
+            max = Math.max(max, sequentialNumber(code));
+        }
+        return max + 1;
+    }
+
+    /** The number of a {@code MAT-} code with six or seven digits, otherwise -1. */
+    static long sequentialNumber(String code) {
+        if (code == null || !code.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return -1;
+        }
+        String suffix = code.substring(PREFIX.length()).trim();
+        if (suffix.length() >= 6 && suffix.length() <= 7 && suffix.chars().allMatch(ch -> ch >= '0' && ch <= '9')) {
+            return Long.parseLong(suffix);
+        }
+        return -1;
+    }
+}
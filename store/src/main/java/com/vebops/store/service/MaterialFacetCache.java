@@ -0,0 +1,308 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.FacetCountDto;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.util.TransactionCallbacks;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Category, unit and line type of every material, with a running count per
+ * value, so the material list can show its filter options and facet counts
+ * without querying the database on each request.
+ *
+ * Totals are adjusted as materials are written ({@link #recordAfterCommit},
+ * {@link #removeAfterCommit}); counts for a filtered view are computed from
+ * the per-material values in one pass. A periodic rebuild corrects anything
+ * changed outside those paths.
+ */
+@Component
+public class MaterialFacetCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialFacetCache.class);
+
+    private final MaterialRepository materialRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock.
+    private Map<Long, Facets> byMaterial = new HashMap<>();
+    private Map<Field, TreeMap<String, Integer>> totals = emptyTotals();
+    private Map<Long, Facets> changesDuringRebuild;
+    private boolean ready;
+
+    public MaterialFacetCache(MaterialRepository materialRepository) {
+        this.materialRepository = materialRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reloads the values of every material. Writes recorded while the table is
+     * being read are replayed on top of the fresh snapshot.
+     */
+    @Scheduled(
+        initialDelayString = "${app.material-search.rebuild-ms:1800000}",
+        fixedDelayString = "${app.material-search.rebuild-ms:1800000}"
+    )
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, Facets> loaded = new HashMap<>();
+        try {
+            for (Object[] row : materialRepository.findFacetFields()) {
+                loaded.put((Long) row[0], new Facets((String) row[1], (String) row[2], (String) row[3]));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Material facet cache rebuild failed; keeping the current counts", ex);
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            byMaterial = new HashMap<>();
+            totals = emptyTotals();
+            loaded.forEach(this::put);
+            changesDuringRebuild.forEach((id, facets) -> {
+                remove(id);
+                if (facets != Facets.REMOVED) {
+                    put(id, facets);
+                }
+            });
+            changesDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Material facet cache rebuilt with {} materials", loaded.size());
+    }
+
+    /** Records the materials' current values once the transaction commits. */
+    public void recordAfterCommit(Collection<Material> materials) {
+        Map<Long, Facets> captured = new HashMap<>();
+        for (Material material : materials) {
+            if (material.getId() != null) {
+                captured.put(material.getId(), Facets.of(material));
+            }
+        }
+        if (!captured.isEmpty()) {
+            TransactionCallbacks.afterCommit(() -> apply(captured));
+        }
+    }
+
+    public void recordAfterCommit(Material material) {
+        recordAfterCommit(List.of(material));
+    }
+
+    public void removeAfterCommit(Long materialId) {
+        if (materialId != null) {
+            Map<Long, Facets> removal = new HashMap<>();
+            removal.put(materialId, Facets.REMOVED);
+            TransactionCallbacks.afterCommit(() -> apply(removal));
+        }
+    }
+
+    /**
+     * Distinct values of each facet in sorted order, keyed as in the
+     * {@code filters} map of a search response. Empty until the cache has
+     * loaded.
+     */
+    public Optional<Map<String, List<String>>> values() {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            Map<String, List<String>> result = new LinkedHashMap<>();
+            for (Field field : Field.values()) {
+                result.put(field.key, List.copyOf(totals.get(field).keySet()));
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facet counts for a filtered view. {@code scope} restricts the materials
+     * counted (search text, project allocation) and may be {@code null}. Each
+     * facet is counted under the selections of the other facets but not its
+     * own, so a user can see how many results picking another value would add.
+     * Empty until the cache has loaded.
+     */
+    public Optional<Map<String, List<FacetCountDto>>> counts(
+        LongPredicate scope,
+        Set<String> categories,
+        Set<String> units,
+        Set<String> lineTypes
+    ) {
+        Map<Field, Set<String>> selected = new EnumMap<>(Field.class);
+        selected.put(Field.CATEGORY, categories);
+        selected.put(Field.UNIT, units);
+        selected.put(Field.LINE_TYPE, lineTypes);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            if (scope == null && selected.values().stream().allMatch(Set::isEmpty)) {
+                return Optional.of(toDtos(totals));
+            }
+            Map<Field, TreeMap<String, Integer>> filtered = emptyTotals();
+            for (Map.Entry<Long, Facets> entry : byMaterial.entrySet()) {
+                if (scope != null && !scope.test(entry.getKey())) {
+                    continue;
+                }
+                Facets facets = entry.getValue();
+                for (Field field : Field.values()) {
+                    String value = facets.get(field);
+                    if (value != null && matchesOthers(facets, field, selected)) {
+                        filtered.get(field).merge(value, 1, Integer::sum);
+                    }
+                }
+            }
+            return Optional.of(toDtos(filtered));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matchesOthers(Facets facets, Field counted, Map<Field, Set<String>> selected) {
+        for (Field field : Field.values()) {
+            Set<String> values = selected.get(field);
+            if (field != counted && !values.isEmpty() && !values.contains(facets.get(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void apply(Map<Long, Facets> changes) {
+        lock.writeLock().lock();
+        try {
+            changes.forEach((id, facets) -> {
+                remove(id);
+                if (facets != Facets.REMOVED) {
+                    put(id, facets);
+                }
+                if (changesDuringRebuild != null) {
+                    changesDuringRebuild.put(id, facets);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Long id, Facets facets) {
+        byMaterial.put(id, facets);
+        for (Field field : Field.values()) {
+            String value = facets.get(field);
+            if (value != null) {
+                totals.get(field).merge(value, 1, Integer::sum);
+            }
+        }
+    }
+
+    private void remove(Long id) {
+        Facets previous = byMaterial.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            String value = previous.get(field);
+            if (value != null) {
+                totals.get(field).computeIfPresent(value, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    private static Map<Field, TreeMap<String, Integer>> emptyTotals() {
+        Map<Field, TreeMap<String, Integer>> result = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            result.put(field, new TreeMap<>());
+        }
+        return result;
+    }
+
+    private static Map<String, List<FacetCountDto>> toDtos(Map<Field, TreeMap<String, Integer>> counts) {
+        Map<String, List<FacetCountDto>> result = new LinkedHashMap<>();
+        for (Field field : Field.values()) {
+            List<FacetCountDto> values = new ArrayList<>();
+            counts.get(field).forEach((value, count) -> values.add(new FacetCountDto(value, count)));
+            result.put(field.key, values);
+        }
+        return result;
+    }
+
+    private enum Field {
+        CATEGORY("categories"),
+        UNIT("units"),
+        LINE_TYPE("lineTypes");
+
+        final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+    }
+
+    /** Trimmed facet values of one material; blank values are stored as null. */
+    private record Facets(String category, String unit, String lineType) {
+        static final Facets REMOVED = new Facets(null, null, null);
+
+        Facets {
+            category = clean(category);
+            unit = clean(unit);
+            lineType = clean(lineType);
+        }
+
+        static Facets of(Material material) {
+            return new Facets(material.getCategory(), material.getUnit(), material.getLineType());
+        }
+
+        String get(Field field) {
+            return switch (field) {
+                case CATEGORY -> category;
+                case UNIT -> unit;
+                case LINE_TYPE -> lineType;
+            };
+        }
+
+        private static String clean(String value) {
+            if (value == null) {
+                return null;
+            }
+            String trimmed = value.trim();
+            return trimmed.isEmpty() ? null : trimmed;
+        }
+    }
+}
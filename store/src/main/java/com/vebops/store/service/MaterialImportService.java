@@ -0,0 +1,465 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.ImportRowErrorDto;
+import com.vebops.store.dto.MaterialImportResultDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.util.ExcelSheetReader;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Streaming material catalogue import.
+ *
+ * Rows are read one at a time by {@link ExcelSheetReader} and upserted in
+ * batches, each in its own short transaction followed by a persistence
+ * context clear, so heap use stays flat regardless of file size. Existing
+ * codes are loaded once into an id map instead of being looked up per row.
+ * A batch that fails is retried row by row so one bad row is reported
+ * instead of sinking its neighbours.
+ *
+ * Expected columns: Name, Part No, Line Type, Unit, Category, Code.
+ */
+@Service
+public class MaterialImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialImportService.class);
+    private static final int COLUMN_COUNT = 6;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_REPORTED_ERRORS = 200;
+
+    private final MaterialRepository materialRepository;
+    private final MaterialSearchIndex materialSearchIndex;
+    private final MaterialFacetCache materialFacetCache;
+    private final MaterialCodeAllocator materialCodeAllocator;
+    private final AnalyticsSnapshotService analyticsSnapshotService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public MaterialImportService(
+        MaterialRepository materialRepository,
+        MaterialSearchIndex materialSearchIndex,
+        MaterialFacetCache materialFacetCache,
+        MaterialCodeAllocator materialCodeAllocator,
+        AnalyticsSnapshotService analyticsSnapshotService,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.import.batch-size:500}") int batchSize
+    ) {
+        this.materialRepository = materialRepository;
+        this.materialSearchIndex = materialSearchIndex;
+        this.materialFacetCache = materialFacetCache;
+        this.materialCodeAllocator = materialCodeAllocator;
+        this.analyticsSnapshotService = analyticsSnapshotService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public MaterialImportResultDto importMaterials(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("An Excel file is required");
+        }
+        Path upload = null;
+        try {
+            upload = Files.createTempFile("material-import-", ".upload");
+            file.transferTo(upload);
+            MaterialImportResultDto result = importFile(upload, 0, progress -> {});
+            if (result.created() + result.updated() == 0 && result.failed() == 0) {
+                throw new BadRequestException("No valid materials were found in the file");
+            }
+            return result;
+        } catch (IOException ex) {
+            throw new BadRequestException("Unable to read the uploaded file");
+        } finally {
+            deleteQuietly(upload);
+        }
+    }
+
+    /**
+     * Imports the rows after {@code startAfterRow} (zero-based; 0 is the
+     * header) and reports progress after every committed batch. Database
+     * outages abort the import instead of being recorded against each row, so
+     * a caller can resume from the last reported row.
+     */
+    public MaterialImportResultDto importFile(Path file, int startAfterRow, ProgressListener listener) throws IOException {
+        ImportRun run = new ImportRun(loadExistingCodes(), Math.max(0, startAfterRow), listener);
+        try {
+            ExcelSheetReader.read(file, COLUMN_COUNT, run::accept);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+        run.flush();
+        MaterialImportResultDto result = run.result();
+        log.info(
+            "Material import finished: {} rows, {} created, {} updated, {} failed",
+            result.processedRows(),
+            result.created(),
+            result.updated(),
+            result.failed()
+        );
+        return result;
+    }
+
+    /** Counts the non-empty data rows of a sheet without touching the database. */
+    public int countDataRows(Path file) throws IOException {
+        int[] rows = { 0 };
+        try {
+            ExcelSheetReader.read(file, COLUMN_COUNT, (rowNum, cells) -> {
+                if (rowNum > 0) {
+                    rows[0]++;
+                }
+            });
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+        return rows[0];
+    }
+
+    private Map<String, Long> loadExistingCodes() {
+        Map<String, Long> codes = new HashMap<>();
+        for (Object[] row : materialRepository.findIdsAndCodes()) {
+            if (row[1] != null) {
+                codes.put(codeKey((String) row[1]), (Long) row[0]);
+            }
+        }
+        return codes;
+    }
+
+    private BatchOutcome applyBatch(List<ParsedRow> rows, Map<String, Long> knownCodes) {
+        List<Long> existingIds = rows
+            .stream()
+            .map(row -> row.code() != null ? knownCodes.get(codeKey(row.code())) : null)
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+        Map<Long, Material> existing = new HashMap<>();
+        materialRepository.findAllById(existingIds).forEach(material -> existing.put(material.getId(), material));
+
+        Map<String, Material> touched = new LinkedHashMap<>();
+        List<String> explicitCodes = new ArrayList<>();
+        int created = 0;
+        int updated = 0;
+        for (ParsedRow row : rows) {
+            Material material;
+            if (!StringUtils.hasText(row.code())) {
+                material = new Material();
+                material.setCode(generateCode(knownCodes, touched));
+                created++;
+            } else if (touched.containsKey(codeKey(row.code()))) {
+                material = touched.get(codeKey(row.code()));
+                updated++;
+            } else if (knownCodes.containsKey(codeKey(row.code())) && existing.containsKey(knownCodes.get(codeKey(row.code())))) {
+                material = existing.get(knownCodes.get(codeKey(row.code())));
+                updated++;
+            } else {
+                material = new Material();
+                material.setCode(row.code());
+                explicitCodes.add(row.code());
+                created++;
+            }
+            material.setName(row.name());
+            material.setPartNo(row.partNo());
+            material.setLineType(row.lineType());
+            material.setUnit(row.unit());
+            material.setCategory(row.category());
+            material.syncBalance();
+            touched.put(codeKey(material.getCode()), material);
+        }
+        materialRepository.saveAll(touched.values());
+        entityManager.flush();
+        materialCodeAllocator.advancePast(explicitCodes);
+        materialSearchIndex.indexAfterCommit(touched.values());
+        materialFacetCache.recordAfterCommit(touched.values());
+        analyticsSnapshotService.invalidate();
+        Map<String, Long> newCodes = new HashMap<>();
+        touched.forEach((key, material) -> newCodes.put(key, material.getId()));
+        return new BatchOutcome(created, updated, newCodes);
+    }
+
+    private String generateCode(Map<String, Long> knownCodes, Map<String, Material> touched) {
+        // Skips numbers that a spreadsheet row has already used as an explicit code.
+        String code;
+        do {
+            code = materialCodeAllocator.nextCode();
+        } while (knownCodes.containsKey(codeKey(code)) || touched.containsKey(codeKey(code)));
+        return code;
+    }
+
+    private static String codeKey(String code) {
+        return code.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete temporary import file {}", file, ex);
+        }
+    }
+
+    /**
+     * Mutable state of one import: pending rows, known codes and tallies.
+     * Progress is handed to the listener inside the transaction that commits
+     * the rows it covers, so a resumed import never replays committed rows.
+     */
+    private final class ImportRun {
+
+        private final Map<String, Long> knownCodes;
+        private final int startAfterRow;
+        private final ProgressListener listener;
+        private final List<PendingRow> pending = new ArrayList<>();
+        private final List<ImportRowErrorDto> errors = new ArrayList<>();
+        private Tally tally;
+        private Tally reported;
+        private int reportedErrors;
+
+        ImportRun(Map<String, Long> knownCodes, int startAfterRow, ProgressListener listener) {
+            this.knownCodes = knownCodes;
+            this.startAfterRow = startAfterRow;
+            this.listener = listener;
+            this.tally = new Tally(startAfterRow, 0, 0, 0, 0);
+            this.reported = tally;
+        }
+
+        void accept(int rowNum, List<String> cells) {
+            if (rowNum == 0 || rowNum <= startAfterRow) {
+                return; // header, or already imported by an earlier attempt
+            }
+            String name = clean(cells.get(0));
+            if (name == null) {
+                pending.add(new PendingRow(rowNum, null, "Name is required"));
+            } else {
+                ParsedRow row = new ParsedRow(
+                    rowNum + 1,
+                    name,
+                    clean(cells.get(1)),
+                    clean(cells.get(2)),
+                    clean(cells.get(3)),
+                    clean(cells.get(4)),
+                    clean(cells.get(5))
+                );
+                String tooLong = row.firstOverlongField();
+                pending.add(
+                    new PendingRow(
+                        rowNum,
+                        tooLong == null ? row : null,
+                        tooLong == null ? null : tooLong + " must be at most " + MAX_TEXT_LENGTH + " characters"
+                    )
+                );
+            }
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!pending.isEmpty()) {
+                List<PendingRow> rows = List.copyOf(pending);
+                pending.clear();
+                try {
+                    commit(rows);
+                } catch (RuntimeException batchFailure) {
+                    entityManager.clear();
+                    if (isInfrastructureFailure(batchFailure)) {
+                        throw batchFailure;
+                    }
+                    for (PendingRow row : rows) {
+                        if (row.problem() != null) {
+                            skip(row.rowNum(), row.problem());
+                            continue;
+                        }
+                        try {
+                            commit(List.of(row));
+                        } catch (RuntimeException rowFailure) {
+                            entityManager.clear();
+                            if (isInfrastructureFailure(rowFailure)) {
+                                throw rowFailure;
+                            }
+                            skip(row.rowNum(), NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                        }
+                    }
+                } finally {
+                    entityManager.clear();
+                }
+            }
+            // Trailing rows that only failed; replaying them after a crash is harmless.
+            if (!tally.equals(reported)) {
+                listener.batchCommitted(progressSinceReport(tally, List.of()));
+                markReported(tally);
+            }
+        }
+
+        /**
+         * Commits the valid rows and reports progress up to the last of
+         * {@code rows} in one transaction; the tallies only move once it
+         * has committed.
+         */
+        private void commit(List<PendingRow> rows) {
+            List<ParsedRow> valid = rows.stream().map(PendingRow::row).filter(Objects::nonNull).toList();
+            List<ImportRowErrorDto> rejected = rows
+                .stream()
+                .filter(row -> row.problem() != null)
+                .map(row -> new ImportRowErrorDto(row.rowNum() + 1, row.problem()))
+                .toList();
+            List<ImportRowErrorDto> kept = rejected.subList(0, Math.min(rejected.size(), MAX_REPORTED_ERRORS - errors.size()));
+            Tally[] next = new Tally[1];
+            BatchOutcome outcome = transactionTemplate.execute(status -> {
+                BatchOutcome applied = valid.isEmpty() ? new BatchOutcome(0, 0, Map.of()) : applyBatch(valid, knownCodes);
+                next[0] = new Tally(
+                    rows.get(rows.size() - 1).rowNum(),
+                    tally.processed() + rows.size(),
+                    tally.created() + applied.created(),
+                    tally.updated() + applied.updated(),
+                    tally.failed() + rejected.size()
+                );
+                listener.batchCommitted(progressSinceReport(next[0], kept));
+                return applied;
+            });
+            tally = next[0];
+            errors.addAll(kept);
+            knownCodes.putAll(outcome.newCodes());
+            markReported(tally);
+        }
+
+        /** Counts a row that could not be imported; it is reported with the next progress. */
+        private void skip(int rowNum, String message) {
+            tally = new Tally(rowNum, tally.processed() + 1, tally.created(), tally.updated(), tally.failed() + 1);
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowErrorDto(rowNum + 1, message));
+            }
+        }
+
+        private BatchProgress progressSinceReport(Tally upTo, List<ImportRowErrorDto> newErrors) {
+            List<ImportRowErrorDto> unreported = new ArrayList<>(errors.subList(reportedErrors, errors.size()));
+            unreported.addAll(newErrors);
+            return new BatchProgress(
+                upTo.lastRow(),
+                upTo.processed() - reported.processed(),
+                upTo.created() - reported.created(),
+                upTo.updated() - reported.updated(),
+                upTo.failed() - reported.failed(),
+                List.copyOf(unreported)
+            );
+        }
+
+        private void markReported(Tally upTo) {
+            reported = upTo;
+            reportedErrors = errors.size();
+        }
+
+        MaterialImportResultDto result() {
+            return new MaterialImportResultDto(
+                tally.processed(),
+                tally.created(),
+                tally.updated(),
+                tally.failed(),
+                List.copyOf(errors),
+                tally.failed() > errors.size()
+            );
+        }
+    }
+
+    private static boolean isInfrastructureFailure(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException ||
+            ex instanceof DataAccessResourceFailureException ||
+            ex instanceof CannotCreateTransactionException;
+    }
+
+    /**
+     * Receives the progress of each batch inside the batch's transaction, so
+     * whatever the listener writes commits or rolls back with the rows.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void batchCommitted(BatchProgress progress);
+    }
+
+    /**
+     * Rows handled since the previous report. {@code lastRow} is the zero-based
+     * sheet row up to which everything is committed; {@code errors} holds the
+     * newly failed rows, subject to the per-import cap.
+     */
+    public record BatchProgress(
+        int lastRow,
+        int processedRows,
+        int created,
+        int updated,
+        int failed,
+        List<ImportRowErrorDto> errors
+    ) {}
+
+    private record ParsedRow(
+        int excelRow,
+        String name,
+        String partNo,
+        String lineType,
+        String unit,
+        String category,
+        String code
+    ) {
+        String firstOverlongField() {
+            if (name.length() > MAX_TEXT_LENGTH) {
+                return "Name";
+            }
+            if (partNo != null && partNo.length() > MAX_TEXT_LENGTH) {
+                return "Part No";
+            }
+            if (lineType != null && lineType.length() > MAX_TEXT_LENGTH) {
+                return "Line Type";
+            }
+            if (unit != null && unit.length() > MAX_TEXT_LENGTH) {
+                return "Unit";
+            }
+            if (category != null && category.length() > MAX_TEXT_LENGTH) {
+                return "Category";
+            }
+            if (code != null && code.length() > MAX_TEXT_LENGTH) {
+                return "Code";
+            }
+            return null;
+        }
+    }
+
+    /** A data row waiting for its batch; {@code row} is null when {@code problem} rejects it. */
+    private record PendingRow(int rowNum, ParsedRow row, String problem) {}
+
+    /** Running totals of an import up to zero-based sheet row {@code lastRow}. */
+    private record Tally(int lastRow, int processed, int created, int updated, int failed) {}
+
+    private record BatchOutcome(int created, int updated, Map<String, Long> newCodes) {}
+}
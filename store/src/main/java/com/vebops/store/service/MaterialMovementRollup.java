@@ -0,0 +1,276 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.MovementRollupRebuildDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.model.InwardLine;
+import com.vebops.store.model.InwardRecord;
+import com.vebops.store.model.OutwardLine;
+import com.vebops.store.model.OutwardRecord;
+import com.vebops.store.model.TransferLine;
+import com.vebops.store.model.TransferRecord;
+import com.vebops.store.repository.MaterialMovementQueries;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the per project, material and day movement rollup.
+ *
+ * The inventory write path passes each saved record (or the quantity changes
+ * of an edited one) and the deltas are upserted in one JDBC batch inside the
+ * caller's transaction, so the rollup commits or rolls back with the lines.
+ * The backfill rebuilds the rollup from the line tables in date-range chunks
+ * processed in parallel, each chunk replaced in its own short transaction;
+ * it runs at startup when the rollup is empty and on demand. Every applied
+ * write also reports its project materials to the stock alert engine.
+ */
+@Service
+public class MaterialMovementRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialMovementRollup.class);
+
+    private final MaterialMovementQueries movementQueries;
+    private final StockAlertEngine stockAlertEngine;
+    private final TransactionTemplate writeTransaction;
+    private final int chunkDays;
+    private final int parallelism;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public MaterialMovementRollup(
+        MaterialMovementQueries movementQueries,
+        StockAlertEngine stockAlertEngine,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.movement-rollup.chunk-days:31}") int chunkDays,
+        @Value("${app.movement-rollup.parallelism:4}") int parallelism
+    ) {
+        this.movementQueries = movementQueries;
+        this.stockAlertEngine = stockAlertEngine;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.chunkDays = Math.max(1, chunkDays);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /** Runs before other startup listeners that read the rollup. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void backfillIfEmpty() {
+        try {
+            if (movementQueries.isEmpty()) {
+                rebuild(null, null);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Initial movement rollup backfill failed", ex);
+        }
+    }
+
+    public void recordInward(InwardRecord record) {
+        if (record.getProject() == null) {
+            return;
+        }
+        Deltas deltas = new Deltas();
+        for (InwardLine line : record.getLines()) {
+            deltas.add(
+                record.getProject().getId(),
+                line.getMaterial().getId(),
+                record.getEntryDate(),
+                line.getOrderedQty(),
+                line.getReceivedQty(),
+                0d,
+                0d,
+                0d
+            );
+        }
+        deltas.apply();
+    }
+
+    public void recordOutward(OutwardRecord record) {
+        if (record.getProject() == null) {
+            return;
+        }
+        Deltas deltas = new Deltas();
+        for (OutwardLine line : record.getLines()) {
+            deltas.add(
+                record.getProject().getId(),
+                line.getMaterial().getId(),
+                issueDate(record),
+                0d,
+                0d,
+                line.getIssueQty(),
+                0d,
+                0d
+            );
+        }
+        deltas.apply();
+    }
+
+    public void recordTransfer(TransferRecord record) {
+        Deltas deltas = new Deltas();
+        LocalDate date = record.getTransferDate();
+        for (TransferLine line : record.getLines()) {
+            Long materialId = line.getMaterial().getId();
+            if (record.getToProject() != null) {
+                deltas.add(record.getToProject().getId(), materialId, date, 0d, 0d, 0d, line.getTransferQty(), 0d);
+            }
+            if (record.getFromProject() != null) {
+                deltas.add(record.getFromProject().getId(), materialId, date, 0d, 0d, 0d, 0d, line.getTransferQty());
+            }
+        }
+        deltas.apply();
+    }
+
+    /**
+     * Records changed quantities of an existing inward record, keyed by
+     * material id as {@code [orderedDelta, receivedDelta]}.
+     */
+    public void recordInwardChanges(InwardRecord record, Map<Long, double[]> quantityDeltas) {
+        if (record.getProject() == null) {
+            return;
+        }
+        Deltas deltas = new Deltas();
+        quantityDeltas.forEach((materialId, delta) ->
+            deltas.add(record.getProject().getId(), materialId, record.getEntryDate(), delta[0], delta[1], 0d, 0d, 0d)
+        );
+        deltas.apply();
+    }
+
+    /** Records changed issue quantities of an existing outward record, keyed by material id. */
+    public void recordIssueChanges(OutwardRecord record, Map<Long, Double> issuedDeltas) {
+        if (record.getProject() == null) {
+            return;
+        }
+        Deltas deltas = new Deltas();
+        issuedDeltas.forEach((materialId, delta) ->
+            deltas.add(record.getProject().getId(), materialId, issueDate(record), 0d, 0d, delta, 0d, 0d)
+        );
+        deltas.apply();
+    }
+
+    /**
+     * Rebuilds the rollup for {@code [from, to]}; either bound defaults to the
+     * earliest or latest movement on record.
+     */
+    public MovementRollupRebuildDto rebuild(LocalDate from, LocalDate to) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new BadRequestException("A movement rollup rebuild is already running");
+        }
+        Instant startedAt = Instant.now();
+        ExecutorService executor = null;
+        try {
+            if (from == null || to == null) {
+                LocalDate[] bounds = movementQueries.movementDateBounds();
+                if (bounds == null) {
+                    String now = Instant.now().toString();
+                    return new MovementRollupRebuildDto(startedAt.toString(), now, null, null, 0, 0);
+                }
+                from = from != null ? from : bounds[0];
+                to = to != null ? to : bounds[1];
+            }
+            if (from.isAfter(to)) {
+                throw new BadRequestException("The start date must not be after the end date");
+            }
+            List<LocalDate[]> chunks = new ArrayList<>();
+            for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(chunkDays)) {
+                LocalDate end = start.plusDays(chunkDays - 1L);
+                chunks.add(new LocalDate[] { start, end.isAfter(to) ? to : end });
+            }
+            executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+            List<Future<Integer>> futures = new ArrayList<>(chunks.size());
+            for (LocalDate[] chunk : chunks) {
+                futures.add(
+                    executor.submit(() -> writeTransaction.execute(status -> movementQueries.rebuild(chunk[0], chunk[1])))
+                );
+            }
+            long rows = 0;
+            for (Future<Integer> future : futures) {
+                Integer written = future.get();
+                rows += written != null ? written : 0;
+            }
+            log.info("Movement rollup rebuilt from {} to {} in {} chunks: {} rows", from, to, chunks.size(), rows);
+            return new MovementRollupRebuildDto(
+                startedAt.toString(),
+                Instant.now().toString(),
+                from.toString(),
+                to.toString(),
+                chunks.size(),
+                rows
+            );
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Movement rollup rebuild was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Movement rollup rebuild failed", ex.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    private static LocalDate issueDate(OutwardRecord record) {
+        return record.getDate() != null ? record.getDate() : record.getEntryDate();
+    }
+
+    /** Deltas of one write, summed per project, material and day before upserting. */
+    private final class Deltas {
+
+        private final Map<List<Object>, double[]> byKey = new LinkedHashMap<>();
+
+        void add(
+            Long projectId,
+            Long materialId,
+            LocalDate date,
+            double ordered,
+            double received,
+            double issued,
+            double transferredIn,
+            double transferredOut
+        ) {
+            if (projectId == null || materialId == null || date == null) {
+                return;
+            }
+            double[] totals = byKey.computeIfAbsent(List.of(projectId, materialId, date), key -> new double[5]);
+            totals[0] += ordered;
+            totals[1] += received;
+            totals[2] += issued;
+            totals[3] += transferredIn;
+            totals[4] += transferredOut;
+        }
+
+        void apply() {
+            List<Object[]> rows = new ArrayList<>(byKey.size());
+            Map<Long, Set<Long>> changed = new LinkedHashMap<>();
+            byKey.forEach((key, totals) -> {
+                if (totals[0] != 0d || totals[1] != 0d || totals[2] != 0d || totals[3] != 0d || totals[4] != 0d) {
+                    Date date = Date.valueOf((LocalDate) key.get(2));
+                    rows.add(
+                        new Object[] { key.get(0), key.get(1), date, totals[0], totals[1], totals[2], totals[3], totals[4] }
+                    );
+                    changed.computeIfAbsent((Long) key.get(0), id -> new LinkedHashSet<>()).add((Long) key.get(1));
+                }
+            });
+            movementQueries.upsert(rows);
+            changed.forEach(stockAlertEngine::balancesChanged);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.MaterialDriftDto;
+import com.vebops.store.dto.MaterialReconciliationReportDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.InwardLineRepository;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.OutwardLineRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recomputes the denormalised material counters (ordered, received, utilised
+ * and balance) from the inward and outward lines and reports any drift.
+ *
+ * Materials are split into id chunks that are processed in parallel. Each
+ * chunk reads its grouped sums and the stored counters inside one short
+ * read-only transaction so both sides come from the same snapshot, and
+ * optional corrections are written in a separate short transaction per chunk.
+ * No table is locked for the duration of the run.
+ */
+@Service
+public class MaterialReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialReconciliationService.class);
+    private static final double TOLERANCE = 1e-6;
+
+    private final MaterialRepository materialRepository;
+    private final InwardLineRepository inwardLineRepository;
+    private final OutwardLineRepository outwardLineRepository;
+    private final AnalyticsSnapshotService analyticsSnapshotService;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int chunkSize;
+    private final int parallelism;
+    private final boolean scheduledCorrection;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicReference<MaterialReconciliationReportDto> lastReport = new AtomicReference<>();
+
+    public MaterialReconciliationService(
+        MaterialRepository materialRepository,
+        InwardLineRepository inwardLineRepository,
+        OutwardLineRepository outwardLineRepository,
+        AnalyticsSnapshotService analyticsSnapshotService,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.reconciliation.chunk-size:500}") int chunkSize,
+        @Value("${app.reconciliation.parallelism:4}") int parallelism,
+        @Value("${app.reconciliation.auto-correct:false}") boolean scheduledCorrection
+    ) {
+        this.materialRepository = materialRepository;
+        this.inwardLineRepository = inwardLineRepository;
+        this.outwardLineRepository = outwardLineRepository;
+        this.analyticsSnapshotService = analyticsSnapshotService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.scheduledCorrection = scheduledCorrection;
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 2 * * *}")
+    public void scheduledReconcile() {
+        if (running.get()) {
+            log.info("Skipping scheduled material reconciliation; a run is already in progress");
+            return;
+        }
+        try {
+            reconcile(scheduledCorrection);
+        } catch (RuntimeException ex) {
+            log.error("Scheduled material reconciliation failed", ex);
+        }
+    }
+
+    public MaterialReconciliationReportDto reconcile(boolean correct) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("A material reconciliation is already running");
+        }
+        Instant startedAt = Instant.now();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Long> materialIds = materialRepository.findAllIds();
+            List<List<Long>> chunks = partition(materialIds, chunkSize);
+            List<Future<List<MaterialDriftDto>>> futures = new ArrayList<>(chunks.size());
+            AtomicInteger corrected = new AtomicInteger();
+            for (List<Long> chunk : chunks) {
+                futures.add(executor.submit(() -> reconcileChunk(chunk, correct, corrected)));
+            }
+            List<MaterialDriftDto> drifts = new ArrayList<>();
+            for (Future<List<MaterialDriftDto>> future : futures) {
+                drifts.addAll(future.get());
+            }
+            drifts.sort(Comparator.comparing(MaterialDriftDto::code, Comparator.nullsLast(String::compareToIgnoreCase)));
+            MaterialReconciliationReportDto report = new MaterialReconciliationReportDto(
+                startedAt.toString(),
+                Instant.now().toString(),
+                materialIds.size(),
+                chunks.size(),
+                drifts.size(),
+                corrected.get(),
+                correct,
+                List.copyOf(drifts)
+            );
+            lastReport.set(report);
+            log.info(
+                "Material reconciliation scanned {} materials in {} chunks: {} drifted, {} corrected",
+                materialIds.size(),
+                chunks.size(),
+                drifts.size(),
+                corrected.get()
+            );
+            return report;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Material reconciliation was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Material reconciliation failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    public Optional<MaterialReconciliationReportDto> lastReport() {
+        return Optional.ofNullable(lastReport.get());
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private List<MaterialDriftDto> reconcileChunk(List<Long> materialIds, boolean correct, AtomicInteger corrected) {
+        List<MaterialDriftDto> drifts = readTransaction.execute(status -> detectDrift(materialIds));
+        if (drifts == null || drifts.isEmpty() || !correct) {
+            return drifts == null ? List.of() : drifts;
+        }
+        writeTransaction.executeWithoutResult(status -> {
+            int updatedInChunk = 0;
+            for (MaterialDriftDto drift : drifts) {
+                updatedInChunk += materialRepository.applyAggregateDeltas(
+                    Long.valueOf(drift.materialId()),
+                    drift.actualOrderedQty() - drift.storedOrderedQty(),
+                    drift.actualReceivedQty() - drift.storedReceivedQty(),
+                    drift.actualUtilizedQty() - drift.storedUtilizedQty()
+                );
+            }
+            if (updatedInChunk > 0) {
+                analyticsSnapshotService.invalidate();
+            }
+            corrected.addAndGet(updatedInChunk);
+        });
+        return drifts;
+    }
+
+    private List<MaterialDriftDto> detectDrift(List<Long> materialIds) {
+        Map<Long, double[]> inwardTotals = new HashMap<>();
+        for (Object[] row : inwardLineRepository.sumQuantitiesByMaterialIds(materialIds)) {
+            inwardTotals.put((Long) row[0], new double[] { toDouble(row[1]), toDouble(row[2]) });
+        }
+        Map<Long, Double> issuedTotals = new HashMap<>();
+        for (Object[] row : outwardLineRepository.sumIssuedQtyByMaterialIds(materialIds)) {
+            issuedTotals.put((Long) row[0], toDouble(row[1]));
+        }
+        List<MaterialDriftDto> drifts = new ArrayList<>();
+        for (Material material : materialRepository.findAllById(materialIds)) {
+            double[] inward = inwardTotals.getOrDefault(material.getId(), new double[] { 0d, 0d });
+            double ordered = inward[0];
+            double received = inward[1];
+            double utilized = issuedTotals.getOrDefault(material.getId(), 0d);
+            double balance = Math.max(0d, received - utilized);
+            if (
+                differs(material.getOrderedQty(), ordered) ||
+                differs(material.getReceivedQty(), received) ||
+                differs(material.getUtilizedQty(), utilized) ||
+                differs(material.getBalanceQty(), balance)
+            ) {
+                drifts.add(
+                    new MaterialDriftDto(
+                        String.valueOf(material.getId()),
+                        material.getCode(),
+                        material.getName(),
+                        material.getOrderedQty(),
+                        ordered,
+                        material.getReceivedQty(),
+                        received,
+                        material.getUtilizedQty(),
+                        utilized,
+                        material.getBalanceQty(),
+                        balance
+                    )
+                );
+            }
+        }
+        return drifts;
+    }
+
+    private static List<List<Long>> partition(List<Long> ids, int size) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += size) {
+            chunks.add(ids.subList(start, Math.min(ids.size(), start + size)));
+        }
+        return chunks;
+    }
+
+    private static boolean differs(double stored, double actual) {
+        return Math.abs(stored - actual) > TOLERANCE;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0d;
+    }
+}
@@ -0,0 +1,569 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.MaterialSuggestionDto;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.util.TransactionCallbacks;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Memory-resident index of the material catalogue for the material picker.
+ *
+ * Each material is indexed twice: its code, name, part number and category
+ * are split into words kept in a sorted map for prefix lookups, and every
+ * three-character window of those fields goes into a trigram posting list
+ * for substring and typo-tolerant matching. Suggestions are scored in memory
+ * and only the top {@code limit} are kept, so autocomplete never touches the
+ * database.
+ *
+ * Writers keep the index current through {@link #indexAfterCommit} and
+ * {@link #removeAfterCommit}; a periodic full rebuild picks up anything
+ * changed outside those paths.
+ */
+@Component
+public class MaterialSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MaterialSearchIndex.class);
+    /** Prefix lookups stop collecting candidates beyond this many ids. */
+    private static final int MAX_PREFIX_CANDIDATES = 1000;
+    /** Fuzzy matches must share at least this fraction of the query's trigrams. */
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.5;
+
+    private final MaterialRepository materialRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock.
+    private Map<Long, Entry> entries = new HashMap<>();
+    private TreeMap<String, Set<Long>> words = new TreeMap<>();
+    private Map<Long, Set<Long>> trigrams = new HashMap<>();
+    private Map<Long, Entry> changesDuringRebuild;
+    private boolean ready;
+
+    public MaterialSearchIndex(MaterialRepository materialRepository) {
+        this.materialRepository = materialRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reloads the whole catalogue. Changes indexed while the catalogue is being
+     * read are replayed on top of the fresh snapshot so they are not lost.
+     */
+    @Scheduled(
+        initialDelayString = "${app.material-search.rebuild-ms:1800000}",
+        fixedDelayString = "${app.material-search.rebuild-ms:1800000}"
+    )
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Snapshot snapshot = new Snapshot();
+        try {
+            for (Object[] row : materialRepository.findSearchFields()) {
+                snapshot.add(
+                    new Entry(
+                        (Long) row[0],
+                        (String) row[1],
+                        (String) row[2],
+                        (String) row[3],
+                        (String) row[4],
+                        (String) row[5]
+                    )
+                );
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Material search index rebuild failed; keeping the current index", ex);
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            entries = snapshot.entries;
+            words = snapshot.words;
+            trigrams = snapshot.trigrams;
+            changesDuringRebuild.forEach((id, entry) -> {
+                unindex(id);
+                if (entry != Entry.REMOVED) {
+                    index(entry);
+                }
+            });
+            changesDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Material search index rebuilt with {} materials", snapshot.entries.size());
+    }
+
+    /**
+     * Indexes the given materials once the current transaction commits. The
+     * searchable fields are captured now, so the entities may be detached or
+     * cleared afterwards.
+     */
+    public void indexAfterCommit(Collection<Material> materials) {
+        List<Entry> captured = materials.stream().filter(m -> m.getId() != null).map(Entry::of).toList();
+        if (captured.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> apply(captured, List.of()));
+    }
+
+    public void indexAfterCommit(Material material) {
+        indexAfterCommit(List.of(material));
+    }
+
+    public void removeAfterCommit(Long materialId) {
+        if (materialId != null) {
+            TransactionCallbacks.afterCommit(() -> apply(List.of(), List.of(materialId)));
+        }
+    }
+
+    /**
+     * Ranked autocomplete suggestions. Exact and prefix matches on the code
+     * rank highest, then prefix and substring matches on name and part number;
+     * materials that only resemble the query (shared trigrams) come last.
+     */
+    public List<MaterialSuggestionDto> suggest(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized == null || limit <= 0) {
+            return List.of();
+        }
+        List<String> queryWords = splitWords(normalized);
+        Set<Long> queryTrigrams = trigramsOf(normalized);
+        lock.readLock().lock();
+        try {
+            String lead = queryWords.stream().max(Comparator.comparingInt(String::length)).orElse(normalized);
+            Set<Long> candidates = new HashSet<>();
+            collect:
+            for (Set<Long> ids : words.subMap(lead, true, lead + Character.MAX_VALUE, false).values()) {
+                for (Long id : ids) {
+                    candidates.add(id);
+                    if (candidates.size() >= MAX_PREFIX_CANDIDATES) {
+                        break collect;
+                    }
+                }
+            }
+            if (candidates.size() < limit) {
+                // Too few prefix hits: widen to substring and near matches.
+                candidates.addAll(trigramCandidates(queryTrigrams));
+            }
+            PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+            for (Long id : candidates) {
+                Entry entry = entries.get(id);
+                if (entry == null) {
+                    continue;
+                }
+                double score = score(entry, normalized, queryWords, queryTrigrams);
+                if (score <= 0) {
+                    continue;
+                }
+                top.add(new Scored(entry, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Scored> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.comparingDouble(Scored::score).reversed().thenComparing(s -> s.entry().code()));
+            return ranked.stream().map(s -> s.entry().toSuggestion()).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of materials whose code, name or part number contains the query,
+     * case-insensitively: the same set a {@code like %query%} scan returns.
+     * Empty when the index cannot answer exactly (not loaded yet, or the
+     * query is shorter than a trigram) or more than {@code cap} materials
+     * match; callers then fall back to the database.
+     */
+    public Optional<Set<Long>> substringMatches(String query, int cap) {
+        String normalized = normalize(query);
+        if (normalized == null || normalized.length() < 3) {
+            return Optional.empty();
+        }
+        Set<Long> queryTrigrams = trigramsOf(normalized);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            List<Set<Long>> postings = new ArrayList<>();
+            for (Long trigram : queryTrigrams) {
+                Set<Long> ids = trigrams.get(trigram);
+                if (ids == null) {
+                    return Optional.of(Set.of());
+                }
+                postings.add(ids);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            Set<Long> matches = new LinkedHashSet<>();
+            for (Long id : postings.get(0)) {
+                if (!containsAll(postings, id)) {
+                    continue;
+                }
+                Entry entry = entries.get(id);
+                if (entry != null && entry.substringMatch(normalized)) {
+                    matches.add(id);
+                    if (matches.size() > cap) {
+                        return Optional.empty();
+                    }
+                }
+            }
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every material matching the query the way {@link #substringMatches} does,
+     * without a cap and for queries of any length; queries shorter than a
+     * trigram scan the entries. Empty only while the index is not loaded.
+     */
+    public Optional<Set<Long>> allSubstringMatches(String query) {
+        String normalized = normalize(query);
+        if (normalized == null) {
+            return Optional.empty();
+        }
+        if (normalized.length() >= 3) {
+            return substringMatches(normalized, Integer.MAX_VALUE);
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            Set<Long> matches = new HashSet<>();
+            for (Entry entry : entries.values()) {
+                if (entry.substringMatch(normalized)) {
+                    matches.add(entry.id());
+                }
+            }
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(List<Entry> upserts, List<Long> removals) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : removals) {
+                unindex(id);
+                if (changesDuringRebuild != null) {
+                    changesDuringRebuild.put(id, Entry.REMOVED);
+                }
+            }
+            for (Entry entry : upserts) {
+                unindex(entry.id());
+                index(entry);
+                if (changesDuringRebuild != null) {
+                    changesDuringRebuild.put(entry.id(), entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Entry entry) {
+        entries.put(entry.id(), entry);
+        for (String word : entry.words()) {
+            words.computeIfAbsent(word, key -> new HashSet<>()).add(entry.id());
+        }
+        for (Long trigram : entry.trigrams()) {
+            trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    private void unindex(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String word : previous.words()) {
+            removePosting(words, word, id);
+        }
+        for (Long trigram : previous.trigrams()) {
+            removePosting(trigrams, trigram, id);
+        }
+    }
+
+    private static <K> void removePosting(Map<K, Set<Long>> postings, K key, Long id) {
+        Set<Long> ids = postings.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    /**
+     * Ids sharing enough trigrams with the query to pass the similarity
+     * threshold. A material sharing {@code required} of {@code n} trigrams must
+     * appear in at least one of the {@code n - required + 1} shortest posting
+     * lists, so only those are scanned.
+     */
+    private Set<Long> trigramCandidates(Set<Long> queryTrigrams) {
+        if (queryTrigrams.isEmpty()) {
+            return Set.of();
+        }
+        List<Set<Long>> postings = new ArrayList<>();
+        for (Long trigram : queryTrigrams) {
+            postings.add(trigrams.getOrDefault(trigram, Set.of()));
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        int required = (int) Math.ceil(queryTrigrams.size() * MIN_TRIGRAM_SIMILARITY);
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i < queryTrigrams.size() - required + 1; i++) {
+            result.addAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private static boolean containsAll(List<Set<Long>> postings, Long id) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double score(Entry entry, String query, List<String> queryWords, Set<Long> queryTrigrams) {
+        double score = 0;
+        if (entry.code().equals(query)) {
+            score += 1000;
+        } else if (entry.code().startsWith(query)) {
+            score += 500;
+        } else if (entry.code().contains(query)) {
+            score += 200;
+        }
+        if (entry.name().startsWith(query)) {
+            score += 300;
+        } else if (entry.name().contains(query)) {
+            score += 150;
+        }
+        if (entry.partNo().startsWith(query)) {
+            score += 250;
+        } else if (entry.partNo().contains(query)) {
+            score += 120;
+        }
+        int matchedWords = 0;
+        for (String word : queryWords) {
+            if (entry.hasWordWithPrefix(word)) {
+                matchedWords++;
+                score += 40;
+            } else if (entry.substringMatch(word) || entry.category().contains(word)) {
+                matchedWords++;
+                score += 15;
+            }
+        }
+        double similarity = similarity(entry, queryTrigrams);
+        boolean allWordsMatched = matchedWords == queryWords.size();
+        if (!allWordsMatched && similarity < MIN_TRIGRAM_SIMILARITY) {
+            return 0;
+        }
+        score += similarity * 100;
+        // Shorter names are usually the more general item; use as a tie-breaker.
+        return score - entry.name().length() * 0.01;
+    }
+
+    private static double similarity(Entry entry, Set<Long> queryTrigrams) {
+        if (queryTrigrams.isEmpty()) {
+            return 0d;
+        }
+        int shared = 0;
+        for (Long trigram : queryTrigrams) {
+            if (entry.trigrams().contains(trigram)) {
+                shared++;
+            }
+        }
+        return shared / (double) queryTrigrams.size();
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static List<String> splitWords(String normalized) {
+        List<String> result = new ArrayList<>();
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result.isEmpty() ? List.of(normalized) : result;
+    }
+
+    /** Packs each run of three characters into one long (16 bits per char). */
+    private static Set<Long> trigramsOf(String normalized) {
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            result.add(
+                ((long) normalized.charAt(i) << 32) | ((long) normalized.charAt(i + 1) << 16) | normalized.charAt(i + 2)
+            );
+        }
+        return result;
+    }
+
+    private record Scored(Entry entry, double score) {}
+
+    /** Fresh structures filled outside the lock during a rebuild. */
+    private static final class Snapshot {
+
+        final Map<Long, Entry> entries = new HashMap<>();
+        final TreeMap<String, Set<Long>> words = new TreeMap<>();
+        final Map<Long, Set<Long>> trigrams = new HashMap<>();
+
+        void add(Entry entry) {
+            entries.put(entry.id(), entry);
+            for (String word : entry.words()) {
+                words.computeIfAbsent(word, key -> new HashSet<>()).add(entry.id());
+            }
+            for (Long trigram : entry.trigrams()) {
+                trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(entry.id());
+            }
+        }
+    }
+
+    /**
+     * Searchable fields of one material. {@code code}, {@code name},
+     * {@code partNo} and {@code category} are lower-cased (never null); the
+     * display values are kept for suggestions.
+     */
+    private record Entry(
+        Long id,
+        String code,
+        String name,
+        String partNo,
+        String category,
+        String displayCode,
+        String displayName,
+        String displayPartNo,
+        String displayCategory,
+        String unit,
+        Set<String> words,
+        Set<Long> trigrams
+    ) {
+        static final Entry REMOVED = new Entry(null, "", "", "", "", null, null, null, null, null, Set.of(), Set.of());
+
+        Entry(Long id, String code, String name, String partNo, String category, String unit) {
+            this(
+                id,
+                lower(code),
+                lower(name),
+                lower(partNo),
+                lower(category),
+                code,
+                name,
+                partNo,
+                category,
+                unit,
+                wordsOf(code, name, partNo, category),
+                trigramsOf(code, name, partNo, category)
+            );
+        }
+
+        static Entry of(Material material) {
+            return new Entry(
+                material.getId(),
+                material.getCode(),
+                material.getName(),
+                material.getPartNo(),
+                material.getCategory(),
+                material.getUnit()
+            );
+        }
+
+        boolean substringMatch(String query) {
+            return code.contains(query) || name.contains(query) || partNo.contains(query);
+        }
+
+        boolean hasWordWithPrefix(String prefix) {
+            for (String word : words) {
+                if (word.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        MaterialSuggestionDto toSuggestion() {
+            return new MaterialSuggestionDto(
+                String.valueOf(id),
+                displayCode,
+                displayName,
+                displayPartNo,
+                displayCategory,
+                unit
+            );
+        }
+
+        private static String lower(String value) {
+            return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+        }
+
+        private static Set<String> wordsOf(String... fields) {
+            Set<String> result = new HashSet<>();
+            for (String field : fields) {
+                String value = lower(field);
+                if (!value.isEmpty()) {
+                    result.add(value);
+                    result.addAll(splitWords(value));
+                }
+            }
+            return Set.copyOf(result);
+        }
+
+        private static Set<Long> trigramsOf(String... fields) {
+            Set<Long> result = new HashSet<>();
+            for (String field : fields) {
+                result.addAll(MaterialSearchIndex.trigramsOf(lower(field)));
+            }
+            return Set.copyOf(result);
+        }
+    }
+}
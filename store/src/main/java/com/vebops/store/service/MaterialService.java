@@ -1,27 +1,26 @@
 package com.vebops.store.service;
 
+import com.vebops.store.dto.FacetCountDto;
 import com.vebops.store.dto.MaterialDto;
 import com.vebops.store.dto.MaterialRequest;
+import com.vebops.store.dto.MaterialSuggestionDto;
 import com.vebops.store.dto.PaginatedResponse;
 import com.vebops.store.exception.BadRequestException;
 import com.vebops.store.exception.NotFoundException;
 import com.vebops.store.model.Material;
 import com.vebops.store.repository.BomLineRepository;
 import com.vebops.store.repository.MaterialRepository;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
 import jakarta.persistence.criteria.Predicate;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,20 +28,36 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.springframework.web.multipart.MultipartFile;
-import java.io.ByteArrayOutputStream;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 
 @Service
 public class MaterialService {
 
+    private static final Logger log = LoggerFactory.getLogger(MaterialService.class);
+    private static final int MAX_INDEXED_SEARCH_MATCHES = 2000;
+    private static final int MAX_CODE_ATTEMPTS = 3;
+
     private final MaterialRepository materialRepository;
     private final BomLineRepository bomLineRepository;
+    private final MaterialSearchIndex materialSearchIndex;
+    private final MaterialFacetCache materialFacetCache;
+    private final MaterialCodeAllocator materialCodeAllocator;
+    private final AnalyticsSnapshotService analyticsSnapshotService;
 
-    public MaterialService(MaterialRepository materialRepository, BomLineRepository bomLineRepository) {
+    public MaterialService(
+        MaterialRepository materialRepository,
+        BomLineRepository bomLineRepository,
+        MaterialSearchIndex materialSearchIndex,
+        MaterialFacetCache materialFacetCache,
+        MaterialCodeAllocator materialCodeAllocator,
+        AnalyticsSnapshotService analyticsSnapshotService
+    ) {
         this.materialRepository = materialRepository;
         this.bomLineRepository = bomLineRepository;
+        this.materialSearchIndex = materialSearchIndex;
+        this.materialFacetCache = materialFacetCache;
+        this.materialCodeAllocator = materialCodeAllocator;
+        this.analyticsSnapshotService = analyticsSnapshotService;
     }
 
     public List<MaterialDto> list() {
@@ -62,54 +77,75 @@ public class MaterialService {
         int safePage = normalizePage(page);
         int safeSize = normalizeSize(size);
         Specification<Material> spec = Specification.where(null);
+        LongPredicate facetScope = null;
+        boolean facetsAvailable = true;
         if (StringUtils.hasText(search)) {
-            String query = "%" + search.trim().toLowerCase() + "%";
-            spec = spec.and((root, q, cb) -> {
-                Predicate codePredicate = cb.like(cb.lower(root.get("code")), query);
-                Predicate namePredicate = cb.like(cb.lower(root.get("name")), query);
-                Predicate partPredicate = cb.like(cb.lower(root.get("partNo")), query);
-                return cb.or(codePredicate, namePredicate, partPredicate);
-            });
-        }
-        if (categories != null && !categories.isEmpty()) {
-            List<String> normalized = categories.stream().filter(StringUtils::hasText).map(String::trim).toList();
-            if (!normalized.isEmpty()) {
-                spec = spec.and((root, q, cb) -> root.get("category").in(normalized));
+            // The search index answers substring queries exactly; fall back to
+            // LIKE for very short queries or very broad matches.
+            Optional<Set<Long>> indexed = materialSearchIndex.substringMatches(search, MAX_INDEXED_SEARCH_MATCHES);
+            if (indexed.isPresent()) {
+                Set<Long> matchingIds = indexed.get();
+                spec = spec.and((root, q, cb) -> matchingIds.isEmpty() ? cb.disjunction() : root.get("id").in(matchingIds));
+            } else {
+                String query = "%" + search.trim().toLowerCase() + "%";
+                spec = spec.and((root, q, cb) -> {
+                    Predicate codePredicate = cb.like(cb.lower(root.get("code")), query);
+                    Predicate namePredicate = cb.like(cb.lower(root.get("name")), query);
+                    Predicate partPredicate = cb.like(cb.lower(root.get("partNo")), query);
+                    return cb.or(codePredicate, namePredicate, partPredicate);
+                });
             }
-        }
-        if (units != null && !units.isEmpty()) {
-            List<String> normalized = units.stream().filter(StringUtils::hasText).map(String::trim).toList();
-            if (!normalized.isEmpty()) {
-                spec = spec.and((root, q, cb) -> root.get("unit").in(normalized));
+            Set<Long> searchIds = indexed.isPresent() ? indexed.get() : materialSearchIndex.allSubstringMatches(search).orElse(null);
+            if (searchIds != null) {
+                facetScope = searchIds::contains;
+            } else {
+                facetsAvailable = false;
             }
         }
-        if (lineTypes != null && !lineTypes.isEmpty()) {
-            List<String> normalized = lineTypes.stream().filter(StringUtils::hasText).map(String::trim).toList();
-            if (!normalized.isEmpty()) {
-                spec = spec.and((root, q, cb) -> root.get("lineType").in(normalized));
-            }
+        Set<String> categoryFilter = normalizeSelection(categories);
+        if (!categoryFilter.isEmpty()) {
+            spec = spec.and((root, q, cb) -> root.get("category").in(categoryFilter));
+        }
+        Set<String> unitFilter = normalizeSelection(units);
+        if (!unitFilter.isEmpty()) {
+            spec = spec.and((root, q, cb) -> root.get("unit").in(unitFilter));
+        }
+        Set<String> lineTypeFilter = normalizeSelection(lineTypes);
+        if (!lineTypeFilter.isEmpty()) {
+            spec = spec.and((root, q, cb) -> root.get("lineType").in(lineTypeFilter));
         }
         if (projectId != null && StringUtils.hasText(allocation)) {
             Set<Long> materialIds = bomLineRepository.materialIdsForProject(projectId);
             if ("UNALLOCATED".equalsIgnoreCase(allocation)) {
                 if (!materialIds.isEmpty()) {
                     spec = spec.and((root, q, cb) -> cb.not(root.get("id").in(materialIds)));
+                    facetScope = and(facetScope, id -> !materialIds.contains(id));
                 }
             } else if ("ALLOCATED".equalsIgnoreCase(allocation) && !materialIds.isEmpty()) {
                 spec = spec.and((root, q, cb) -> root.get("id").in(materialIds));
+                facetScope = and(facetScope, materialIds::contains);
             }
         }
         Pageable pageable = PageRequest.of(safePage - 1, safeSize, Sort.by("code").ascending());
         Page<Material> result = materialRepository.findAll(spec, pageable);
         List<MaterialDto> items = result.stream().map(this::toDto).toList();
-        Map<String, List<String>> filters = Map.of(
-            "categories",
-            normalizeFilter(materialRepository.distinctCategories()),
-            "units",
-            normalizeFilter(materialRepository.distinctUnits()),
-            "lineTypes",
-            normalizeFilter(materialRepository.distinctLineTypes())
-        );
+        // Filter options and counts come from the facet cache; the DISTINCT
+        // queries are only needed until it has loaded after startup.
+        Map<String, List<String>> filters = materialFacetCache
+            .values()
+            .orElseGet(() ->
+                Map.of(
+                    "categories",
+                    normalizeFilter(materialRepository.distinctCategories()),
+                    "units",
+                    normalizeFilter(materialRepository.distinctUnits()),
+                    "lineTypes",
+                    normalizeFilter(materialRepository.distinctLineTypes())
+                )
+            );
+        Map<String, List<FacetCountDto>> facets = facetsAvailable
+            ? materialFacetCache.counts(facetScope, categoryFilter, unitFilter, lineTypeFilter).orElse(Map.of())
+            : Map.of();
         return new PaginatedResponse<>(
             items,
             result.getTotalElements(),
@@ -118,7 +154,8 @@ public class MaterialService {
             result.getNumber(),
             result.hasNext(),
             result.hasPrevious(),
-            filters
+            filters,
+            facets
         );
     }
 
@@ -129,11 +166,11 @@ public class MaterialService {
             .ifPresent(existing -> {
                 throw new BadRequestException("Material code already exists");
             });
-        Material material = new Material();
-        material.setCode(generateUniqueCode());
-        apply(material, request);
-        material.syncBalance();
-        return toDto(materialRepository.save(material));
+        Material saved = saveWithGeneratedCode(request);
+        materialSearchIndex.indexAfterCommit(saved);
+        materialFacetCache.recordAfterCommit(saved);
+        analyticsSnapshotService.invalidate();
+        return toDto(saved);
     }
 
     public MaterialDto update(Long id, MaterialRequest request) {
@@ -141,68 +178,43 @@ public class MaterialService {
         Material material = materialRepository.findById(id).orElseThrow(() -> new NotFoundException("Material not found"));
         apply(material, request);
         material.syncBalance();
-        return toDto(materialRepository.save(material));
+        Material saved = materialRepository.save(material);
+        materialSearchIndex.indexAfterCommit(saved);
+        materialFacetCache.recordAfterCommit(saved);
+        analyticsSnapshotService.invalidate();
+        return toDto(saved);
+    }
+
+    public List<MaterialSuggestionDto> suggest(String query, int limit) {
+        return materialSearchIndex.suggest(query, Math.max(1, Math.min(limit, 50)));
     }
 
     public void delete(Long id) {
         materialRepository.deleteById(id);
+        materialSearchIndex.removeAfterCommit(id);
+        materialFacetCache.removeAfterCommit(id);
+        analyticsSnapshotService.invalidate();
     }
 
-    public List<MaterialDto> importMaterials(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new BadRequestException("An Excel file is required");
-        }
-        try (InputStream inputStream = file.getInputStream(); Workbook workbook = WorkbookFactory.create(inputStream)) {
-            if (workbook.getNumberOfSheets() == 0) {
-                throw new BadRequestException("The uploaded file does not contain any sheets");
-            }
-            Sheet sheet = workbook.getSheetAt(0);
-            if (sheet == null) {
-                throw new BadRequestException("The uploaded sheet is empty");
-            }
-            DataFormatter formatter = new DataFormatter();
-            List<MaterialDto> imported = new ArrayList<>();
-            for (Row row : sheet) {
-                if (row == null || row.getRowNum() == 0) {
-                    continue; // skip header
-                }
-                String name = normalize(formatter.formatCellValue(row.getCell(0)));
-                if (!StringUtils.hasText(name)) {
-                    continue;
+    /**
+     * Saves a new material under the next generated code. Another instance may
+     * still hold a block that overlaps an explicitly imported code, so a code
+     * that turns out to be taken is skipped a few times before giving up.
+     */
+    private Material saveWithGeneratedCode(MaterialRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            Material material = new Material();
+            material.setCode(materialCodeAllocator.nextCode());
+            apply(material, request);
+            material.syncBalance();
+            try {
+                return materialRepository.save(material);
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt >= MAX_CODE_ATTEMPTS || materialRepository.findByCodeIgnoreCase(material.getCode()).isEmpty()) {
+                    throw ex;
                 }
-                String partNo = normalize(formatter.formatCellValue(row.getCell(1)));
-                String lineType = normalize(formatter.formatCellValue(row.getCell(2)));
-                String unit = normalize(formatter.formatCellValue(row.getCell(3)));
-                String category = normalize(formatter.formatCellValue(row.getCell(4)));
-                String code = normalize(formatter.formatCellValue(row.getCell(5)));
-                Material material;
-
-                if (StringUtils.hasText(code)) {
-                    // Update existing or create new with the given code
-                    material = materialRepository.findByCodeIgnoreCase(code).orElseGet(Material::new);
-                } else {
-                    // Completely new material – generate a code
-                    material = new Material();
-                    material.setCode(generateUniqueCode());
-                }
-                material.setName(name);
-                material.setPartNo(partNo);
-                material.setLineType(lineType);
-                material.setUnit(unit);
-                material.setCategory(category);
-                material.syncBalance();
-
-                Material saved = materialRepository.save(material);
-                imported.add(toDto(saved));
+                log.warn("Generated material code {} is already taken; trying the next one", material.getCode());
             }
-            if (imported.isEmpty()) {
-                throw new BadRequestException("No valid materials were found in the file");
-            }
-            return imported;
-        } catch (IOException ex) {
-            throw new BadRequestException("Unable to read the uploaded file");
-        } catch (Exception ex) {
-            throw new BadRequestException("Failed to import materials: " + ex.getMessage());
         }
     }
 
@@ -220,10 +232,6 @@ public class MaterialService {
         }
     }
 
-    private String normalize(String value) {
-        return value == null ? null : value.trim();
-    }
-
     private MaterialDto toDto(Material material) {
         return new MaterialDto(
             String.valueOf(material.getId()),
@@ -241,6 +249,17 @@ public class MaterialService {
         );
     }
 
+    private Set<String> normalizeSelection(List<String> values) {
+        if (values == null) {
+            return Set.of();
+        }
+        return values.stream().filter(StringUtils::hasText).map(String::trim).collect(Collectors.toSet());
+    }
+
+    private static LongPredicate and(LongPredicate first, LongPredicate second) {
+        return first == null ? second : first.and(second);
+    }
+
     private List<String> normalizeFilter(List<String> values) {
         if (values == null) {
             return List.of();
@@ -258,56 +277,4 @@ public class MaterialService {
         }
         return Math.min(size, 100);
     }
-
-    private String generateUniqueCode() {
-        String code;
-        do {
-            code = "MAT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (materialRepository.findByCodeIgnoreCase(code).isPresent());
-        return code;
-    }
-
-        public byte[] exportMaterials() {
-        // Reuse existing list method to keep sorting and DTO mapping consistent
-        List<MaterialDto> materials = list();
-
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Materials");
-
-            int rowIndex = 0;
-
-            // Header row – aligned with your import format
-            Row header = sheet.createRow(rowIndex++);
-            header.createCell(0).setCellValue("Name");
-            header.createCell(1).setCellValue("Part No");
-            header.createCell(2).setCellValue("Line Type");
-            header.createCell(3).setCellValue("Unit");
-            header.createCell(4).setCellValue("Category");
-            header.createCell(5).setCellValue("Code");
-
-            // Data rows
-            for (MaterialDto material : materials) {
-                Row row = sheet.createRow(rowIndex++);
-                row.createCell(0).setCellValue(material.name() != null ? material.name() : "");
-                row.createCell(1).setCellValue(material.partNo() != null ? material.partNo() : "");
-                row.createCell(2).setCellValue(material.lineType() != null ? material.lineType() : "");
-                row.createCell(3).setCellValue(material.unit() != null ? material.unit() : "");
-                row.createCell(4).setCellValue(material.category() != null ? material.category() : "");
-                row.createCell(5).setCellValue(material.code() != null ? material.code() : "");
-            }
-
-            // Auto-size columns for nicer file
-            for (int i = 0; i <= 5; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (IOException ex) {
-            throw new BadRequestException("Failed to generate materials Excel file");
-        }
-    }
-
-
 }
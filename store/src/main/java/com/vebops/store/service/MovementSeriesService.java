@@ -0,0 +1,157 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.MovementSeriesDto;
+import com.vebops.store.dto.MovementSeriesPointDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.exception.ForbiddenException;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.MaterialMovementQueries;
+import com.vebops.store.util.ProjectScope;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * Movement time series served from the daily rollup. The database sums one
+ * row per day in range; days are then folded into ISO weeks (starting
+ * Monday) or calendar months and empty periods are filled with zeros.
+ */
+@Service
+public class MovementSeriesService {
+
+    private static final long MAX_RANGE_DAYS = 3660;
+
+    private final MaterialMovementQueries movementQueries;
+    private final AccessScopeService accessScopeService;
+
+    public MovementSeriesService(MaterialMovementQueries movementQueries, AccessScopeService accessScopeService) {
+        this.movementQueries = movementQueries;
+        this.accessScopeService = accessScopeService;
+    }
+
+    public MovementSeriesDto series(
+        UserAccount user,
+        String granularity,
+        String from,
+        String to,
+        String projectId,
+        String materialId
+    ) {
+        Granularity unit = Granularity.parse(granularity);
+        LocalDate end = StringUtils.hasText(to) ? parseDate(to) : LocalDate.now();
+        LocalDate start = StringUtils.hasText(from) ? parseDate(from) : unit.defaultStart(end);
+        if (start.isAfter(end)) {
+            throw new BadRequestException("The start date must not be after the end date");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException("The date range may not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        Long material = StringUtils.hasText(materialId) ? parseId(materialId) : null;
+
+        Collection<Long> projectIds;
+        if (StringUtils.hasText(projectId)) {
+            Long project = parseId(projectId);
+            if (!accessScopeService.hasAccess(user, project)) {
+                throw new ForbiddenException("You do not have access to this project");
+            }
+            projectIds = List.of(project);
+        } else {
+            ProjectScope scope = accessScopeService.resolveScope(user);
+            projectIds = scope.isAll() ? null : scope.toSet();
+        }
+
+        Map<LocalDate, double[]> buckets = new TreeMap<>();
+        for (LocalDate period = unit.start(start); !period.isAfter(end); period = unit.next(period)) {
+            buckets.put(period, new double[5]);
+        }
+        if (projectIds == null || !projectIds.isEmpty()) {
+            for (Object[] row : movementQueries.dailyTotals(start, end, projectIds, material)) {
+                double[] totals = buckets.get(unit.start((LocalDate) row[0]));
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += (double) row[i + 1];
+                }
+            }
+        }
+        List<MovementSeriesPointDto> points = new ArrayList<>(buckets.size());
+        buckets.forEach((period, totals) ->
+            points.add(
+                new MovementSeriesPointDto(period.toString(), totals[0], totals[1], totals[2], totals[3], totals[4])
+            )
+        );
+        return new MovementSeriesDto(
+            unit.name().toLowerCase(Locale.ROOT),
+            start.toString(),
+            end.toString(),
+            StringUtils.hasText(projectId) ? projectId.trim() : null,
+            material != null ? String.valueOf(material) : null,
+            points
+        );
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException ex) {
+            throw new BadRequestException("Invalid date format. Please use YYYY-MM-DD.");
+        }
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Identifier must be a number");
+        }
+    }
+
+    private enum Granularity {
+        DAY,
+        WEEK,
+        MONTH;
+
+        static Granularity parse(String value) {
+            if (!StringUtils.hasText(value)) {
+                return DAY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Granularity must be day, week or month");
+            }
+        }
+
+        LocalDate start(LocalDate date) {
+            return switch (this) {
+                case DAY -> date;
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate periodStart) {
+            return switch (this) {
+                case DAY -> periodStart.plusDays(1);
+                case WEEK -> periodStart.plusWeeks(1);
+                case MONTH -> periodStart.plusMonths(1);
+            };
+        }
+
+        LocalDate defaultStart(LocalDate end) {
+            return switch (this) {
+                case DAY -> end.minusDays(29);
+                case WEEK -> start(end).minusWeeks(11);
+                case MONTH -> start(end).minusMonths(11);
+            };
+        }
+    }
+}
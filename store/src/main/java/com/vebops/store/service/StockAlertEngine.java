@@ -0,0 +1,542 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.PaginatedResponse;
+import com.vebops.store.dto.StockAlertDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.exception.ForbiddenException;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.StockAlert;
+import com.vebops.store.model.StockAlertRule;
+import com.vebops.store.model.StockAlertStatus;
+import com.vebops.store.model.StockAlertType;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.MaterialMovementQueries;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.StockAlertRepository;
+import com.vebops.store.util.ProjectScope;
+import jakarta.persistence.criteria.Predicate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Low-stock and over-allocation alerts.
+ *
+ * Writers report the project materials whose balance or allocation they
+ * changed; the set is collected per transaction and evaluated once after it
+ * commits, in a new transaction per project, so the cost follows the number
+ * of changed materials and a rolled-back write raises nothing. Rule changes
+ * re-evaluate the projects the rule can apply to. Each material is checked
+ * against the project totals from the daily movement rollup, its BOM
+ * allocation and the thresholds of the most specific matching rule. A
+ * material no rule covers is only checked against the configured defaults,
+ * which are off unless set. New alerts are mailed in digests on a schedule.
+ */
+@Service
+public class StockAlertEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAlertEngine.class);
+    private static final double EPSILON = 1e-9;
+    private static final int REEVALUATION_CHUNK = 500;
+
+    private final StockAlertRepository alertRepository;
+    private final StockAlertRuleService ruleService;
+    private final MaterialMovementQueries movementQueries;
+    private final MaterialRepository materialRepository;
+    private final ProjectRepository projectRepository;
+    private final BomAllocationCache bomAllocationCache;
+    private final AccessScopeService accessScopeService;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final TransactionTemplate evaluationTransaction;
+    private final Double defaultLowStockQty;
+    private final Double defaultOverAllocationPct;
+    private final List<String> recipients;
+    private final String mailFrom;
+
+    public StockAlertEngine(
+        StockAlertRepository alertRepository,
+        StockAlertRuleService ruleService,
+        MaterialMovementQueries movementQueries,
+        MaterialRepository materialRepository,
+        ProjectRepository projectRepository,
+        BomAllocationCache bomAllocationCache,
+        AccessScopeService accessScopeService,
+        ObjectProvider<JavaMailSender> mailSender,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.alerts.default-low-stock-qty:-1}") double defaultLowStockQty,
+        @Value("${app.alerts.default-over-allocation-pct:-1}") double defaultOverAllocationPct,
+        @Value("${app.alerts.recipients:}") String recipients,
+        @Value("${app.alerts.mail-from:${app.support.email:}}") String mailFrom
+    ) {
+        this.alertRepository = alertRepository;
+        this.ruleService = ruleService;
+        this.movementQueries = movementQueries;
+        this.materialRepository = materialRepository;
+        this.projectRepository = projectRepository;
+        this.bomAllocationCache = bomAllocationCache;
+        this.accessScopeService = accessScopeService;
+        this.mailSender = mailSender;
+        this.evaluationTransaction = new TransactionTemplate(transactionManager);
+        this.evaluationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // A negative default switches the check off for materials without a rule.
+        this.defaultLowStockQty = defaultLowStockQty < 0 ? null : defaultLowStockQty;
+        this.defaultOverAllocationPct = defaultOverAllocationPct < 0 ? null : defaultOverAllocationPct;
+        this.recipients = Arrays.stream(recipients.split(",")).map(String::trim).filter(StringUtils::hasText).toList();
+        this.mailFrom = mailFrom;
+    }
+
+    /**
+     * Queues the project's materials for evaluation once the current
+     * transaction commits, or evaluates them now outside a transaction.
+     */
+    public void balancesChanged(Long projectId, Collection<Long> materialIds) {
+        if (projectId == null || materialIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<Long>> pending = pendingForTransaction();
+        if (pending != null) {
+            pending.computeIfAbsent(projectId, id -> new LinkedHashSet<>()).addAll(materialIds);
+        } else {
+            evaluate(Map.of(projectId, new LinkedHashSet<>(materialIds)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Set<Long>> pendingForTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<Long, Set<Long>> pending = (Map<Long, Set<Long>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Long, Set<Long>> created = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evaluate(created);
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(StockAlertEngine.this);
+                    }
+                }
+            );
+            pending = created;
+        }
+        return pending;
+    }
+
+    /**
+     * Re-checks the materials a changed rule can apply to: every material
+     * with an allocation, a movement or an open alert in the project, or in
+     * all projects when {@code projectId} is null, narrowed to one material
+     * when {@code materialId} is set.
+     */
+    public void reevaluate(Long projectId, Long materialId) {
+        List<Long> projectIds = projectId != null ? List.of(projectId) : projectRepository.findAllIds();
+        for (Long id : projectIds) {
+            Set<Long> materialIds = new LinkedHashSet<>(bomAllocationCache.allocations(id).keySet());
+            movementQueries.projectTotals(id).forEach(row -> materialIds.add((Long) row[0]));
+            alertRepository
+                .findByProjectIdAndStatus(id, StockAlertStatus.OPEN)
+                .forEach(alert -> materialIds.add(alert.getMaterialId()));
+            if (materialId != null) {
+                materialIds.retainAll(Set.of(materialId));
+            }
+            List<Long> ordered = new ArrayList<>(materialIds);
+            for (int from = 0; from < ordered.size(); from += REEVALUATION_CHUNK) {
+                List<Long> chunk = ordered.subList(from, Math.min(ordered.size(), from + REEVALUATION_CHUNK));
+                evaluate(Map.of(id, new LinkedHashSet<>(chunk)));
+            }
+        }
+    }
+
+    /**
+     * Evaluates the given materials, one transaction per project. The
+     * project row is locked first, so two commits touching the same material
+     * cannot both open an alert for it while other projects go ahead.
+     */
+    private void evaluate(Map<Long, Set<Long>> materialsByProject) {
+        materialsByProject.forEach((projectId, materialIds) -> {
+            try {
+                evaluationTransaction.executeWithoutResult(status -> {
+                    if (projectRepository.findForUpdate(projectId).isPresent()) {
+                        evaluateProject(projectId, materialIds);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                log.warn("Stock alert evaluation failed for project {} materials {}", projectId, materialIds, ex);
+            }
+        });
+    }
+
+    private void evaluateProject(Long projectId, Set<Long> materialIds) {
+        Map<Long, double[]> totals = new HashMap<>();
+        for (Object[] row : movementQueries.materialTotals(projectId, materialIds)) {
+            totals.put((Long) row[0], new double[] { (double) row[1], (double) row[2], (double) row[3] });
+        }
+        Map<Long, Double> allocations = bomAllocationCache.allocations(projectId);
+        Map<Long, Material> materials = new HashMap<>();
+        materialRepository.findAllById(materialIds).forEach(material -> materials.put(material.getId(), material));
+        Map<String, StockAlert> open = new HashMap<>();
+        for (StockAlert alert : alertRepository.findByProjectIdAndMaterialIdInAndStatus(projectId, materialIds, StockAlertStatus.OPEN)) {
+            open.put(alertKey(alert.getMaterialId(), alert.getType()), alert);
+        }
+
+        Instant now = Instant.now();
+        List<StockAlert> changed = new ArrayList<>();
+        for (Long materialId : materialIds) {
+            Material material = materials.get(materialId);
+            if (material == null) {
+                continue;
+            }
+            double[] t = totals.getOrDefault(materialId, new double[3]);
+            double ordered = t[0];
+            double received = t[1];
+            double issued = t[2];
+            double balance = Math.max(0d, received - issued);
+            double allocated = allocations.getOrDefault(materialId, 0d);
+            double remaining = Math.max(0d, allocated - issued);
+
+            StockAlertRule lowRule = ruleService.resolve(projectId, materialId, material.getCategory(), StockAlertRule::getLowStockQty);
+            Double lowStockQty = lowRule != null ? lowRule.getLowStockQty() : defaultLowStockQty;
+            boolean low = lowStockQty != null && balance <= lowStockQty + EPSILON && remaining > balance + EPSILON;
+            apply(
+                open.get(alertKey(materialId, StockAlertType.LOW_STOCK)),
+                low,
+                projectId,
+                material,
+                StockAlertType.LOW_STOCK,
+                lowRule,
+                lowStockQty,
+                balance,
+                allocated,
+                issued,
+                low ? lowStockMessage(material, balance, remaining) : null,
+                now,
+                changed
+            );
+
+            StockAlertRule overRule = ruleService.resolve(
+                projectId,
+                materialId,
+                material.getCategory(),
+                StockAlertRule::getOverAllocationPct
+            );
+            Double overPct = overRule != null ? overRule.getOverAllocationPct() : defaultOverAllocationPct;
+            double peak = Math.max(ordered, Math.max(received, issued));
+            double limit = overPct != null ? allocated * (1 + overPct / 100d) : 0d;
+            boolean over = overPct != null && peak > limit + EPSILON;
+            apply(
+                open.get(alertKey(materialId, StockAlertType.OVER_ALLOCATION)),
+                over,
+                projectId,
+                material,
+                StockAlertType.OVER_ALLOCATION,
+                overRule,
+                limit,
+                balance,
+                allocated,
+                issued,
+                over ? overAllocationMessage(material, peak, allocated) : null,
+                now,
+                changed
+            );
+        }
+        if (!changed.isEmpty()) {
+            alertRepository.saveAll(changed);
+        }
+    }
+
+    private static void apply(
+        StockAlert existing,
+        boolean triggered,
+        Long projectId,
+        Material material,
+        StockAlertType type,
+        StockAlertRule rule,
+        Double threshold,
+        double balance,
+        double allocated,
+        double issued,
+        String message,
+        Instant now,
+        List<StockAlert> changed
+    ) {
+        if (!triggered) {
+            if (existing != null) {
+                existing.setStatus(StockAlertStatus.RESOLVED);
+                existing.setResolvedAt(now);
+                existing.setUpdatedAt(now);
+                changed.add(existing);
+            }
+            return;
+        }
+        StockAlert alert = existing;
+        if (alert == null) {
+            alert = new StockAlert();
+            alert.setProjectId(projectId);
+            alert.setMaterialId(material.getId());
+            alert.setType(type);
+            alert.setTriggeredAt(now);
+        }
+        alert.setRuleId(rule != null ? rule.getId() : null);
+        alert.setThresholdQty(threshold != null ? threshold : 0d);
+        alert.setBalanceQty(balance);
+        alert.setAllocatedQty(allocated);
+        alert.setIssuedQty(issued);
+        alert.setMessage(message != null && message.length() > 500 ? message.substring(0, 500) : message);
+        alert.setUpdatedAt(now);
+        changed.add(alert);
+    }
+
+    public PaginatedResponse<StockAlertDto> listAlerts(
+        UserAccount user,
+        String status,
+        String type,
+        String projectId,
+        int page,
+        int size
+    ) {
+        int safePage = page < 1 ? 1 : page;
+        int safeSize = size < 1 ? 20 : Math.min(size, 200);
+        StockAlertStatus statusFilter = parseEnum(StockAlertStatus.class, status, "Status must be OPEN or RESOLVED");
+        StockAlertType typeFilter = parseEnum(StockAlertType.class, type, "Type must be LOW_STOCK or OVER_ALLOCATION");
+        Long projectFilter = null;
+        if (StringUtils.hasText(projectId)) {
+            try {
+                projectFilter = Long.parseLong(projectId.trim());
+            } catch (NumberFormatException ex) {
+                throw new BadRequestException("Project id is invalid");
+            }
+            if (!accessScopeService.hasAccess(user, projectFilter)) {
+                throw new ForbiddenException("You do not have access to this project");
+            }
+        }
+        ProjectScope scope = projectFilter == null ? accessScopeService.resolveScope(user) : ProjectScope.ALL;
+        Long projectIdFilter = projectFilter;
+        Specification<StockAlert> spec = (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (statusFilter != null) {
+                predicates.add(cb.equal(root.get("status"), statusFilter));
+            }
+            if (typeFilter != null) {
+                predicates.add(cb.equal(root.get("type"), typeFilter));
+            }
+            if (projectIdFilter != null) {
+                predicates.add(cb.equal(root.get("projectId"), projectIdFilter));
+            }
+            predicates.add(scope.toPredicate(cb, root.get("projectId")));
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+        Page<StockAlert> alerts = alertRepository.findAll(
+            spec,
+            PageRequest.of(safePage - 1, safeSize, Sort.by(Sort.Direction.DESC, "updatedAt", "id"))
+        );
+
+        Set<Long> projectIds = new HashSet<>();
+        Set<Long> materialIds = new HashSet<>();
+        alerts.forEach(alert -> {
+            projectIds.add(alert.getProjectId());
+            materialIds.add(alert.getMaterialId());
+        });
+        Map<Long, Project> projects = new HashMap<>();
+        projectRepository.findAllById(projectIds).forEach(project -> projects.put(project.getId(), project));
+        Map<Long, Material> materials = new HashMap<>();
+        materialRepository.findAllById(materialIds).forEach(material -> materials.put(material.getId(), material));
+        List<StockAlertDto> items = alerts
+            .getContent()
+            .stream()
+            .map(alert -> toDto(alert, projects.get(alert.getProjectId()), materials.get(alert.getMaterialId())))
+            .toList();
+        return new PaginatedResponse<>(
+            items,
+            alerts.getTotalElements(),
+            Math.max(1, alerts.getTotalPages()),
+            alerts.getSize(),
+            alerts.getNumber(),
+            alerts.hasNext(),
+            alerts.hasPrevious(),
+            Map.of()
+        );
+    }
+
+    /**
+     * Mails open alerts that have not been sent yet as one digest. Skipped
+     * when no mail server or recipients are configured. The alerts are
+     * stamped and committed before the mail goes out, so the SMTP call holds
+     * no locks; if sending fails the stamps are cleared again.
+     */
+    @Scheduled(
+        initialDelayString = "${app.alerts.digest-ms:900000}",
+        fixedDelayString = "${app.alerts.digest-ms:900000}"
+    )
+    public void sendDigest() {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (sender == null || recipients.isEmpty()) {
+            return;
+        }
+        Instant stamp = Instant.now();
+        Digest digest;
+        try {
+            digest = evaluationTransaction.execute(status -> claimDigest(stamp));
+        } catch (RuntimeException ex) {
+            log.warn("Preparing the stock alert digest failed; alerts stay queued", ex);
+            return;
+        }
+        if (digest == null) {
+            return;
+        }
+        try {
+            sender.send(digest.message());
+            log.info("Sent stock alert digest with {} alerts to {} recipients", digest.alertIds().size(), recipients.size());
+        } catch (RuntimeException ex) {
+            log.warn("Sending the stock alert digest failed; alerts stay queued", ex);
+            try {
+                evaluationTransaction.executeWithoutResult(status -> releaseDigest(digest.alertIds()));
+            } catch (RuntimeException releaseFailure) {
+                log.error("Could not re-queue {} stock alerts after a failed digest", digest.alertIds().size(), releaseFailure);
+            }
+        }
+    }
+
+    /** Stamps the next batch of unsent alerts and builds their digest, or returns null. */
+    private Digest claimDigest(Instant stamp) {
+        List<StockAlert> alerts = alertRepository.findTop500ByStatusAndNotifiedAtIsNullOrderByIdAsc(StockAlertStatus.OPEN);
+        if (alerts.isEmpty()) {
+            return null;
+        }
+        Set<Long> projectIds = new HashSet<>();
+        alerts.forEach(alert -> projectIds.add(alert.getProjectId()));
+        Map<Long, Project> projects = new HashMap<>();
+        projectRepository.findAllById(projectIds).forEach(project -> projects.put(project.getId(), project));
+
+        Map<String, List<StockAlert>> byProject = new TreeMap<>();
+        for (StockAlert alert : alerts) {
+            Project project = projects.get(alert.getProjectId());
+            String label = project != null ? project.getCode() + " - " + project.getName() : "Project " + alert.getProjectId();
+            byProject.computeIfAbsent(label, key -> new ArrayList<>()).add(alert);
+        }
+        StringBuilder body = new StringBuilder();
+        byProject.forEach((label, projectAlerts) -> {
+            body.append(label).append('\n');
+            projectAlerts.forEach(alert -> body.append("  - ").append(alert.getMessage()).append('\n'));
+            body.append('\n');
+        });
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        if (StringUtils.hasText(mailFrom)) {
+            message.setFrom(mailFrom);
+        }
+        message.setTo(recipients.toArray(new String[0]));
+        message.setSubject("Stock alerts: " + alerts.size() + " new");
+        message.setText(body.toString());
+
+        alerts.forEach(alert -> alert.setNotifiedAt(stamp));
+        alertRepository.saveAll(alerts);
+        return new Digest(message, alerts.stream().map(StockAlert::getId).toList());
+    }
+
+    /** Clears the stamps of a digest that could not be sent. */
+    private void releaseDigest(List<Long> alertIds) {
+        List<StockAlert> alerts = alertRepository.findAllById(alertIds);
+        alerts.forEach(alert -> alert.setNotifiedAt(null));
+        alertRepository.saveAll(alerts);
+    }
+
+    private static String lowStockMessage(Material material, double balance, double remaining) {
+        return String.format(
+            Locale.ROOT,
+            "%s %s: balance %s %s, %s still to issue",
+            material.getCode(),
+            material.getName(),
+            format(balance),
+            material.getUnit() != null ? material.getUnit() : "",
+            format(remaining)
+        );
+    }
+
+    private static String overAllocationMessage(Material material, double peak, double allocated) {
+        return String.format(
+            Locale.ROOT,
+            "%s %s: %s on record against an allocation of %s",
+            material.getCode(),
+            material.getName(),
+            format(peak),
+            format(allocated)
+        );
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String alertKey(Long materialId, StockAlertType type) {
+        return materialId + ":" + type;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String error) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(error);
+        }
+    }
+
+    private static StockAlertDto toDto(StockAlert alert, Project project, Material material) {
+        return new StockAlertDto(
+            String.valueOf(alert.getId()),
+            String.valueOf(alert.getProjectId()),
+            project != null ? project.getCode() : null,
+            String.valueOf(alert.getMaterialId()),
+            material != null ? material.getCode() : null,
+            material != null ? material.getName() : null,
+            alert.getType().name(),
+            alert.getStatus().name(),
+            alert.getBalanceQty(),
+            alert.getAllocatedQty(),
+            alert.getIssuedQty(),
+            alert.getThresholdQty(),
+            alert.getMessage(),
+            alert.getTriggeredAt() != null ? alert.getTriggeredAt().toString() : null,
+            alert.getResolvedAt() != null ? alert.getResolvedAt().toString() : null
+        );
+    }
+
+    private record Digest(SimpleMailMessage message, List<Long> alertIds) {}
+}
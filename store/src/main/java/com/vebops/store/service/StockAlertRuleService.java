@@ -0,0 +1,256 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.StockAlertRuleDto;
+import com.vebops.store.dto.StockAlertRuleRequest;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.exception.NotFoundException;
+import com.vebops.store.model.StockAlertRule;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.StockAlertRuleRepository;
+import com.vebops.store.util.TransactionCallbacks;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+/**
+ * Alert rules and their in-memory index. Rules are keyed by scope, so
+ * resolving the thresholds for one project material is a handful of map
+ * lookups; the index is reloaded after every committed rule change and the
+ * projects the old and new rule can apply to are re-evaluated, so open
+ * alerts follow the new thresholds.
+ */
+@Service
+public class StockAlertRuleService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAlertRuleService.class);
+
+    private final StockAlertRuleRepository ruleRepository;
+    private final ProjectRepository projectRepository;
+    private final MaterialRepository materialRepository;
+    // The engine resolves thresholds through this service, so it is looked up lazily.
+    private final ObjectProvider<StockAlertEngine> alertEngine;
+
+    private volatile Map<ScopeKey, StockAlertRule> index;
+
+    public StockAlertRuleService(
+        StockAlertRuleRepository ruleRepository,
+        ProjectRepository projectRepository,
+        MaterialRepository materialRepository,
+        ObjectProvider<StockAlertEngine> alertEngine
+    ) {
+        this.ruleRepository = ruleRepository;
+        this.projectRepository = projectRepository;
+        this.materialRepository = materialRepository;
+        this.alertEngine = alertEngine;
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockAlertRuleDto> listRules() {
+        return ruleRepository.findAll(Sort.by("id")).stream().map(StockAlertRuleService::toDto).toList();
+    }
+
+    @Transactional
+    public StockAlertRuleDto createRule(StockAlertRuleRequest request) {
+        StockAlertRule rule = new StockAlertRule();
+        apply(rule, request);
+        StockAlertRuleDto saved = toDto(ruleRepository.save(rule));
+        afterRuleChange(List.of(Target.of(rule)));
+        return saved;
+    }
+
+    @Transactional
+    public StockAlertRuleDto updateRule(Long id, StockAlertRuleRequest request) {
+        StockAlertRule rule = ruleRepository
+            .findById(id)
+            .orElseThrow(() -> new NotFoundException("Alert rule not found"));
+        Target before = Target.of(rule);
+        apply(rule, request);
+        StockAlertRuleDto saved = toDto(ruleRepository.save(rule));
+        afterRuleChange(List.of(before, Target.of(rule)));
+        return saved;
+    }
+
+    @Transactional
+    public void deleteRule(Long id) {
+        StockAlertRule rule = ruleRepository
+            .findById(id)
+            .orElseThrow(() -> new NotFoundException("Alert rule not found"));
+        ruleRepository.delete(rule);
+        afterRuleChange(List.of(Target.of(rule)));
+    }
+
+    /**
+     * The most specific enabled rule for the material that sets the
+     * threshold read by {@code threshold}, or {@code null}. Precedence:
+     * project and material, material, project and category, category,
+     * project, then a global rule.
+     */
+    public StockAlertRule resolve(
+        Long projectId,
+        Long materialId,
+        String category,
+        Function<StockAlertRule, Double> threshold
+    ) {
+        Map<ScopeKey, StockAlertRule> rules = rules();
+        if (rules.isEmpty()) {
+            return null;
+        }
+        String categoryKey = categoryKey(category);
+        ScopeKey[] candidates = {
+            new ScopeKey(projectId, materialId, null),
+            new ScopeKey(null, materialId, null),
+            new ScopeKey(projectId, null, categoryKey),
+            new ScopeKey(null, null, categoryKey),
+            new ScopeKey(projectId, null, null),
+            new ScopeKey(null, null, null),
+        };
+        for (ScopeKey key : candidates) {
+            StockAlertRule rule = rules.get(key);
+            if (rule != null && threshold.apply(rule) != null) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /** Reloads the rule index from the database. */
+    public void reload() {
+        Map<ScopeKey, StockAlertRule> loaded = new HashMap<>();
+        for (StockAlertRule rule : ruleRepository.findAll()) {
+            if (rule.isEnabled()) {
+                loaded.put(ScopeKey.of(rule), rule);
+            }
+        }
+        index = Map.copyOf(loaded);
+    }
+
+    /** Once the change commits, reloads the index and re-evaluates what the rules covered. */
+    private void afterRuleChange(List<Target> targets) {
+        TransactionCallbacks.afterCommit(() -> {
+            reload();
+            StockAlertEngine engine = alertEngine.getIfAvailable();
+            if (engine == null) {
+                return;
+            }
+            // A target covering every project and material makes the others redundant.
+            Set<Target> distinct = targets.contains(Target.ALL) ? Set.of(Target.ALL) : new LinkedHashSet<>(targets);
+            for (Target target : distinct) {
+                try {
+                    engine.reevaluate(target.projectId(), target.materialId());
+                } catch (RuntimeException ex) {
+                    log.warn("Re-evaluating stock alerts for {} after a rule change failed", target, ex);
+                }
+            }
+        });
+    }
+
+    private Map<ScopeKey, StockAlertRule> rules() {
+        Map<ScopeKey, StockAlertRule> current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    reload();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    private void apply(StockAlertRule rule, StockAlertRuleRequest request) {
+        if (request == null) {
+            throw new BadRequestException("Rule details are required");
+        }
+        Long projectId = parseOptionalId(request.projectId());
+        Long materialId = parseOptionalId(request.materialId());
+        String category = StringUtils.hasText(request.category()) ? request.category().trim() : null;
+        if (materialId != null && category != null) {
+            throw new BadRequestException("A rule applies to a material or to a category, not both");
+        }
+        if (request.lowStockQty() == null && request.overAllocationPct() == null) {
+            throw new BadRequestException("Set a low-stock quantity, an over-allocation percentage or both");
+        }
+        if (isNegative(request.lowStockQty()) || isNegative(request.overAllocationPct())) {
+            throw new BadRequestException("Thresholds must be zero or greater");
+        }
+        if (projectId != null && !projectRepository.existsById(projectId)) {
+            throw new NotFoundException("Project not found");
+        }
+        if (materialId != null && !materialRepository.existsById(materialId)) {
+            throw new NotFoundException("Material not found");
+        }
+        ScopeKey key = new ScopeKey(projectId, materialId, categoryKey(category));
+        boolean duplicate = ruleRepository
+            .findAll()
+            .stream()
+            .anyMatch(other -> !other.getId().equals(rule.getId()) && ScopeKey.of(other).equals(key));
+        if (duplicate) {
+            throw new BadRequestException("A rule for this scope already exists");
+        }
+        rule.setProjectId(projectId);
+        rule.setMaterialId(materialId);
+        rule.setCategory(category);
+        rule.setLowStockQty(request.lowStockQty());
+        rule.setOverAllocationPct(request.overAllocationPct());
+        rule.setEnabled(request.enabled() == null || request.enabled());
+    }
+
+    private static boolean isNegative(Double value) {
+        return value != null && (value < 0 || value.isNaN());
+    }
+
+    private static Long parseOptionalId(String value) {
+        if (!StringUtils.hasText(value)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Identifier must be a number");
+        }
+    }
+
+    private static String categoryKey(String category) {
+        return StringUtils.hasText(category) ? category.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static StockAlertRuleDto toDto(StockAlertRule rule) {
+        return new StockAlertRuleDto(
+            String.valueOf(rule.getId()),
+            rule.getProjectId() != null ? String.valueOf(rule.getProjectId()) : null,
+            rule.getMaterialId() != null ? String.valueOf(rule.getMaterialId()) : null,
+            rule.getCategory(),
+            rule.getLowStockQty(),
+            rule.getOverAllocationPct(),
+            rule.isEnabled(),
+            rule.getUpdatedAt() != null ? rule.getUpdatedAt().toString() : null
+        );
+    }
+
+    /** Project and material a rule can affect; {@code null} means all. */
+    private record Target(Long projectId, Long materialId) {
+        static final Target ALL = new Target(null, null);
+
+        static Target of(StockAlertRule rule) {
+            return new Target(rule.getProjectId(), rule.getMaterialId());
+        }
+    }
+
+    private record ScopeKey(Long projectId, Long materialId, String category) {
+        static ScopeKey of(StockAlertRule rule) {
+            return new ScopeKey(rule.getProjectId(), rule.getMaterialId(), categoryKey(rule.getCategory()));
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.vebops.store.service;
+
+import com.vebops.store.dto.MaterialValuationDto;
+import com.vebops.store.dto.StockAgeingBucketDto;
+import com.vebops.store.dto.StockValuationDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.exception.ForbiddenException;
+import com.vebops.store.exception.NotFoundException;
+import com.vebops.store.model.InwardLine;
+import com.vebops.store.model.InwardRecord;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.OutwardLine;
+import com.vebops.store.model.OutwardRecord;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.TransferLine;
+import com.vebops.store.model.TransferRecord;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.StockLayerQueries;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * FIFO stock valuation and ageing per project.
+ *
+ * Receipts add cost layers keyed by receipt date and unit price; issues take
+ * quantity from the oldest layers first and transfers move the taken slices
+ * to the destination project with their original date and cost, so stock
+ * keeps its age across sites. Each write touches only the layers of the
+ * materials it moves, and reports read the current layers rather than
+ * replaying history. Receipts without a unit price are layered at zero cost.
+ */
+@Service
+public class StockValuationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockValuationService.class);
+    private static final double EPSILON = 1e-9;
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private final StockLayerQueries layerQueries;
+    private final ProjectRepository projectRepository;
+    private final MaterialRepository materialRepository;
+    private final AccessScopeService accessScopeService;
+    private final TransactionTemplate writeTransaction;
+    private final int[] ageingDays;
+
+    public StockValuationService(
+        StockLayerQueries layerQueries,
+        ProjectRepository projectRepository,
+        MaterialRepository materialRepository,
+        AccessScopeService accessScopeService,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.valuation.ageing-days:30,60,90,180}") String ageingDays
+    ) {
+        this.layerQueries = layerQueries;
+        this.projectRepository = projectRepository;
+        this.materialRepository = materialRepository;
+        this.accessScopeService = accessScopeService;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.ageingDays = Arrays
+            .stream(ageingDays.split(","))
+            .map(String::trim)
+            .filter(StringUtils::hasText)
+            .mapToInt(Integer::parseInt)
+            .filter(days -> days > 0)
+            .sorted()
+            .distinct()
+            .toArray();
+    }
+
+    /**
+     * Builds the layers from history once the movement rollup is available:
+     * each project material's balance is assigned to its newest receipts,
+     * which is what FIFO consumption leaves behind.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void seedIfEmpty() {
+        try {
+            if (layerQueries.isEmpty()) {
+                Integer rows = writeTransaction.execute(status -> seed());
+                log.info("Seeded {} stock layers from receipt history", rows);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Seeding stock layers failed", ex);
+        }
+    }
+
+    private int seed() {
+        Map<List<Long>, double[]> balances = new HashMap<>();
+        layerQueries.forEachBalance(rs ->
+            balances.put(List.of(rs.getLong(1), rs.getLong(2)), new double[] { rs.getDouble(3) })
+        );
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        int[] written = { 0 };
+        layerQueries.forEachReceiptNewestFirst(rs -> {
+            double[] left = balances.get(List.of(rs.getLong(1), rs.getLong(2)));
+            if (left == null || left[0] <= EPSILON) {
+                return;
+            }
+            double qty = Math.min(left[0], rs.getDouble(5));
+            left[0] -= qty;
+            batch.add(layerRow(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate(), cost(rs.getDouble(4)), qty));
+            if (batch.size() == SEED_BATCH_SIZE) {
+                layerQueries.add(batch);
+                written[0] += batch.size();
+                batch.clear();
+            }
+        });
+        layerQueries.add(batch);
+        return written[0] + batch.size();
+    }
+
+    /** Adds a newly registered inward's receipts. */
+    @Transactional
+    public void recordInward(InwardRecord record) {
+        if (record.getProject() == null) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        Long projectId = record.getProject().getId();
+        for (InwardLine line : record.getLines()) {
+            if (line.getMaterial() != null && line.getReceivedQty() > 0d) {
+                Long materialId = line.getMaterial().getId();
+                BigDecimal unitCost = cost(line.getUnitPrice());
+                rows.add(layerRow(projectId, materialId, record.getEntryDate(), unitCost, line.getReceivedQty()));
+            }
+        }
+        layerQueries.add(rows);
+    }
+
+    /**
+     * Applies changed quantities of an edited inward, keyed by material id as
+     * {@code [orderedDelta, receivedDelta]}. Reductions come out of the
+     * receipt's own layer first, then the newest layers.
+     */
+    @Transactional
+    public void recordInwardChanges(InwardRecord record, Map<Long, double[]> quantityDeltas) {
+        if (record.getProject() == null) {
+            return;
+        }
+        Long projectId = record.getProject().getId();
+        LocalDate date = record.getEntryDate();
+        quantityDeltas.forEach((materialId, delta) -> {
+            BigDecimal unitCost = cost(receiptPrice(record, materialId));
+            if (delta[1] > EPSILON) {
+                layerQueries.add(List.<Object[]>of(layerRow(projectId, materialId, date, unitCost, delta[1])));
+            } else if (delta[1] < -EPSILON) {
+                removeReceipt(projectId, materialId, date, unitCost, -delta[1]);
+            }
+        });
+    }
+
+    /** Takes a newly registered outward's issues from the oldest layers. */
+    @Transactional
+    public void recordIssues(OutwardRecord record) {
+        if (record.getProject() == null) {
+            return;
+        }
+        Map<Long, Double> byMaterial = new LinkedHashMap<>();
+        for (OutwardLine line : record.getLines()) {
+            if (line.getMaterial() != null && line.getIssueQty() > 0d) {
+                byMaterial.merge(line.getMaterial().getId(), line.getIssueQty(), Double::sum);
+            }
+        }
+        byMaterial.forEach((materialId, qty) -> consume(record.getProject().getId(), materialId, qty));
+    }
+
+    /**
+     * Applies changed issue quantities of an edited outward, keyed by
+     * material id. Returned quantity goes back to the oldest layer, since
+     * that is where FIFO took it from. Edits to a transfer's outward are
+     * ignored, as registering it took nothing from the layers either.
+     */
+    @Transactional
+    public void recordIssueChanges(OutwardRecord record, Map<Long, Double> issuedDeltas) {
+        if (record.getProject() == null || record.isTransferOut()) {
+            return;
+        }
+        Long projectId = record.getProject().getId();
+        issuedDeltas.forEach((materialId, delta) -> {
+            if (delta > EPSILON) {
+                consume(projectId, materialId, delta);
+            } else if (delta < -EPSILON) {
+                returnIssue(projectId, materialId, issueDate(record), -delta);
+            }
+        });
+    }
+
+    /** Moves transferred quantities to the destination with their receipt dates and costs. */
+    @Transactional
+    public void recordTransfer(TransferRecord record) {
+        if (record.getFromProject() == null || record.getToProject() == null) {
+            return;
+        }
+        Long fromProjectId = record.getFromProject().getId();
+        Long toProjectId = record.getToProject().getId();
+        if (fromProjectId.equals(toProjectId)) {
+            return;
+        }
+        Map<Long, Double> byMaterial = new LinkedHashMap<>();
+        for (TransferLine line : record.getLines()) {
+            if (line.getMaterial() != null && line.getTransferQty() > 0d) {
+                byMaterial.merge(line.getMaterial().getId(), line.getTransferQty(), Double::sum);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>();
+        byMaterial.forEach((materialId, qty) -> {
+            double moved = 0d;
+            for (Slice slice : take(fromProjectId, materialId, qty)) {
+                rows.add(layerRow(toProjectId, materialId, slice.date(), slice.unitCost(), slice.qty()));
+                moved += slice.qty();
+            }
+            // Stock the source had no layers for arrives as a fresh, unpriced receipt.
+            if (qty - moved > EPSILON) {
+                rows.add(layerRow(toProjectId, materialId, record.getTransferDate(), cost(null), qty - moved));
+            }
+        });
+        layerQueries.add(rows);
+    }
+
+    /** Stock on hand in the project valued at FIFO cost and aged by receipt date. */
+    @Transactional(readOnly = true)
+    public StockValuationDto valuation(UserAccount user, String projectId) {
+        if (!StringUtils.hasText(projectId)) {
+            throw new BadRequestException("Project id is required");
+        }
+        Long id;
+        try {
+            id = Long.parseLong(projectId.trim());
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Project id is invalid");
+        }
+        Project project = projectRepository.findById(id).orElseThrow(() -> new NotFoundException("Project not found"));
+        if (!accessScopeService.hasAccess(user, id)) {
+            throw new ForbiddenException("You do not have access to this project");
+        }
+
+        LocalDate today = LocalDate.now();
+        int bucketCount = ageingDays.length + 1;
+        double[] bucketQty = new double[bucketCount];
+        double[] bucketValue = new double[bucketCount];
+        Map<Long, Valuation> byMaterial = new HashMap<>();
+        for (Object[] row : layerQueries.projectLayers(id)) {
+            Long materialId = (Long) row[0];
+            LocalDate received = (LocalDate) row[1];
+            double qty = (double) row[2];
+            double value = (double) row[3];
+            long age = Math.max(0, ChronoUnit.DAYS.between(received, today));
+            int bucket = bucketOf(age);
+            bucketQty[bucket] += qty;
+            bucketValue[bucket] += value;
+            Valuation valuation = byMaterial.computeIfAbsent(materialId, key -> new Valuation(bucketCount));
+            valuation.qty += qty;
+            valuation.value += value;
+            valuation.bucketQty[bucket] += qty;
+            if (valuation.oldest == null || received.isBefore(valuation.oldest)) {
+                valuation.oldest = received;
+            }
+        }
+
+        Map<Long, Material> materials = new HashMap<>();
+        materialRepository
+            .findAllById(byMaterial.keySet())
+            .forEach(material -> materials.put(material.getId(), material));
+        List<MaterialValuationDto> materialDtos = new ArrayList<>(byMaterial.size());
+        double totalQty = 0d;
+        double totalValue = 0d;
+        for (Map.Entry<Long, Valuation> entry : byMaterial.entrySet()) {
+            Valuation v = entry.getValue();
+            Material material = materials.get(entry.getKey());
+            totalQty += v.qty;
+            totalValue += v.value;
+            materialDtos.add(
+                new MaterialValuationDto(
+                    String.valueOf(entry.getKey()),
+                    material != null ? material.getCode() : null,
+                    material != null ? material.getName() : null,
+                    material != null ? material.getUnit() : null,
+                    v.qty,
+                    v.value,
+                    v.qty > EPSILON ? v.value / v.qty : 0d,
+                    v.oldest.toString(),
+                    Math.max(0, ChronoUnit.DAYS.between(v.oldest, today)),
+                    Arrays.stream(v.bucketQty).boxed().toList()
+                )
+            );
+        }
+        materialDtos.sort(
+            Comparator
+                .comparingDouble(MaterialValuationDto::value)
+                .reversed()
+                .thenComparing(MaterialValuationDto::materialId)
+        );
+
+        List<StockAgeingBucketDto> buckets = new ArrayList<>(bucketCount);
+        int from = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Integer to = i < ageingDays.length ? ageingDays[i] : null;
+            String label = to != null ? from + "-" + to : from + "+";
+            buckets.add(new StockAgeingBucketDto(label, from, to, bucketQty[i], bucketValue[i]));
+            if (to != null) {
+                from = to + 1;
+            }
+        }
+        return new StockValuationDto(
+            String.valueOf(project.getId()),
+            project.getCode(),
+            today.toString(),
+            totalQty,
+            totalValue,
+            buckets,
+            materialDtos
+        );
+    }
+
+    /** Takes {@code qty} from the oldest layers and returns what was taken. */
+    private List<Slice> take(Long projectId, Long materialId, double qty) {
+        List<Slice> taken = new ArrayList<>();
+        double left = qty;
+        for (Object[] layer : layerQueries.lockLayers(projectId, materialId)) {
+            if (left <= EPSILON) {
+                break;
+            }
+            LocalDate date = (LocalDate) layer[0];
+            BigDecimal unitCost = (BigDecimal) layer[1];
+            double remaining = (double) layer[2];
+            double used = Math.min(left, remaining);
+            if (remaining - used <= EPSILON) {
+                layerQueries.delete(projectId, materialId, date, unitCost);
+            } else {
+                layerQueries.setRemaining(projectId, materialId, date, unitCost, remaining - used);
+            }
+            taken.add(new Slice(date, unitCost, used));
+            left -= used;
+        }
+        if (left > EPSILON) {
+            log.warn("No cost layers left for {} of material {} in project {}", left, materialId, projectId);
+        }
+        return taken;
+    }
+
+    /** Takes issued quantity and records whatever no layer could cover as a shortfall. */
+    private void consume(Long projectId, Long materialId, double qty) {
+        double taken = take(projectId, materialId, qty).stream().mapToDouble(Slice::qty).sum();
+        if (qty - taken > EPSILON) {
+            layerQueries.addShortfall(projectId, materialId, qty - taken);
+        }
+    }
+
+    private void removeReceipt(Long projectId, Long materialId, LocalDate date, BigDecimal unitCost, double qty) {
+        List<Object[]> layers = new ArrayList<>(layerQueries.lockLayers(projectId, materialId));
+        // The receipt's own layer first, then newest to oldest.
+        layers.sort(
+            Comparator
+                .comparing((Object[] layer) -> !isLayer(layer, date, unitCost))
+                .thenComparing((Object[] layer) -> (LocalDate) layer[0], Comparator.reverseOrder())
+        );
+        double left = qty;
+        for (Object[] layer : layers) {
+            if (left <= EPSILON) {
+                break;
+            }
+            LocalDate layerDate = (LocalDate) layer[0];
+            BigDecimal layerCost = (BigDecimal) layer[1];
+            double remaining = (double) layer[2];
+            double used = Math.min(left, remaining);
+            if (remaining - used <= EPSILON) {
+                layerQueries.delete(projectId, materialId, layerDate, layerCost);
+            } else {
+                layerQueries.setRemaining(projectId, materialId, layerDate, layerCost, remaining - used);
+            }
+            left -= used;
+        }
+    }
+
+    /**
+     * Puts returned issue quantity back. Quantity that was issued without a
+     * layer to take it from only pays down the shortfall.
+     */
+    private void returnIssue(Long projectId, Long materialId, LocalDate issueDate, double returned) {
+        double qty = returned - layerQueries.reduceShortfall(projectId, materialId, returned);
+        if (qty <= EPSILON) {
+            return;
+        }
+        List<Object[]> layers = layerQueries.lockLayers(projectId, materialId);
+        Object[] row;
+        if (!layers.isEmpty()) {
+            Object[] oldest = layers.get(0);
+            row = layerRow(projectId, materialId, (LocalDate) oldest[0], (BigDecimal) oldest[1], qty);
+        } else {
+            BigDecimal unitCost = cost(layerQueries.latestUnitPrice(projectId, materialId));
+            row = layerRow(projectId, materialId, issueDate, unitCost, qty);
+        }
+        layerQueries.add(List.<Object[]>of(row));
+    }
+
+    private int bucketOf(long ageDays) {
+        for (int i = 0; i < ageingDays.length; i++) {
+            if (ageDays <= ageingDays[i]) {
+                return i;
+            }
+        }
+        return ageingDays.length;
+    }
+
+    private static boolean isLayer(Object[] layer, LocalDate date, BigDecimal unitCost) {
+        return date.equals(layer[0]) && unitCost.compareTo((BigDecimal) layer[1]) == 0;
+    }
+
+    private static Object[] layerRow(Long projectId, Long materialId, LocalDate date, BigDecimal unitCost, double qty) {
+        return new Object[] { projectId, materialId, Date.valueOf(date), unitCost, qty };
+    }
+
+    private static Double receiptPrice(InwardRecord record, Long materialId) {
+        return record
+            .getLines()
+            .stream()
+            .filter(line -> line.getMaterial() != null && materialId.equals(line.getMaterial().getId()))
+            .map(InwardLine::getUnitPrice)
+            .filter(price -> price != null)
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static BigDecimal cost(Double unitPrice) {
+        double price = unitPrice != null && unitPrice > 0d ? unitPrice : 0d;
+        return BigDecimal.valueOf(price).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    private static LocalDate issueDate(OutwardRecord record) {
+        return record.getDate() != null ? record.getDate() : record.getEntryDate();
+    }
+
+    private record Slice(LocalDate date, BigDecimal unitCost, double qty) {}
+
+    private static final class Valuation {
+
+        private final double[] bucketQty;
+        private double qty;
+        private double value;
+        private LocalDate oldest;
+
+        private Valuation(int buckets) {
+            this.bucketQty = new double[buckets];
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.vebops.store.service;
 
+import com.vebops.store.security.TokenRevocationService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -9,6 +11,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
+import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -17,10 +20,14 @@ public class TokenService {
 
     private final Key signingKey;
     private final long ttlSeconds;
+    // Parsers are immutable and thread-safe; build once instead of per token.
+    private final JwtParser parser;
+    private final TokenRevocationService revocationService;
 
     public TokenService(
         @Value("${app.jwt.secret:inventory-secret-key}") String secret,
-        @Value("${app.jwt.ttl-seconds:86400}") long ttlSeconds
+        @Value("${app.jwt.ttl-seconds:86400}") long ttlSeconds,
+        TokenRevocationService revocationService
     ) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
@@ -31,12 +38,15 @@ public class TokenService {
             this.signingKey = Keys.hmacShaKeyFor(keyBytes);
         }
         this.ttlSeconds = ttlSeconds > 0 ? ttlSeconds : 86400;
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.revocationService = revocationService;
     }
 
     public String issueToken(Long userId) {
         Instant now = Instant.now();
         return Jwts
             .builder()
+            .setId(UUID.randomUUID().toString())
             .setSubject(String.valueOf(userId))
             .setIssuedAt(Date.from(now))
             .setExpiration(Date.from(now.plusSeconds(ttlSeconds)))
@@ -45,15 +55,33 @@ public class TokenService {
     }
 
     public Long resolveUserId(String token) {
+        Claims claims = parse(token);
+        if (claims == null || revocationService.isRevoked(token)) {
+            return null;
+        }
         try {
-            Claims claims = Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody();
             return Long.valueOf(claims.getSubject());
-        } catch (JwtException | IllegalArgumentException ex) {
+        } catch (NumberFormatException ex) {
             return null;
         }
     }
 
+    /**
+     * Revokes an internally issued token until its expiry. Tokens that do not
+     * parse are ignored since they would be rejected anyway.
+     */
     public void revoke(String token) {
-        // JWTs are stateless; nothing to do for logout hooks.
+        Claims claims = parse(token);
+        if (claims != null && claims.getExpiration() != null) {
+            revocationService.revoke(token, claims.getExpiration().toInstant());
+        }
+    }
+
+    private Claims parse(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException ex) {
+            return null;
+        }
     }
 }
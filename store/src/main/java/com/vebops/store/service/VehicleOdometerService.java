@@ -0,0 +1,141 @@
+package com.vebops.store.service;
+
+import com.vebops.store.model.DailyLog;
+import com.vebops.store.model.EntryStatus;
+import com.vebops.store.model.FuelEntry;
+import com.vebops.store.model.VehicleOdometerState;
+import com.vebops.store.repository.DailyLogRepository;
+import com.vebops.store.repository.FuelEntryRepository;
+import com.vebops.store.repository.VehicleOdometerStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps each vehicle's {@link VehicleOdometerState} in step with its daily
+ * logs and fuel entries. Callers lock the row before reading or changing the
+ * vehicle's records and report each change here within the same
+ * transaction; concurrent writes for one vehicle are serialised on the lock.
+ */
+@Service
+public class VehicleOdometerService {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleOdometerService.class);
+
+    private final VehicleOdometerStateRepository stateRepository;
+    private final DailyLogRepository dailyLogRepository;
+    private final FuelEntryRepository fuelEntryRepository;
+    private final TransactionTemplate seedTransaction;
+
+    public VehicleOdometerService(
+        VehicleOdometerStateRepository stateRepository,
+        DailyLogRepository dailyLogRepository,
+        FuelEntryRepository fuelEntryRepository,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.stateRepository = stateRepository;
+        this.dailyLogRepository = dailyLogRepository;
+        this.fuelEntryRepository = fuelEntryRepository;
+        this.seedTransaction = new TransactionTemplate(transactionManager);
+        this.seedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Locks the vehicle's state for the rest of the current transaction. A
+     * vehicle without a state row gets one built from its records first, in
+     * a separate transaction so the row exists before it is locked.
+     */
+    public VehicleOdometerState lock(Long vehicleId) {
+        // A plain read: a locking read of a missing row would block the insert below.
+        if (!stateRepository.existsById(vehicleId)) {
+            try {
+                seedTransaction.executeWithoutResult(status -> stateRepository.saveAndFlush(build(vehicleId)));
+                log.debug("Built odometer state for vehicle {}", vehicleId);
+            } catch (DataIntegrityViolationException ex) {
+                // Another request built it first; its row is there now.
+            }
+        }
+        return stateRepository
+            .findForUpdate(vehicleId)
+            .orElseThrow(() -> new IllegalStateException("Odometer state missing for vehicle " + vehicleId));
+    }
+
+    public void logOpened(VehicleOdometerState state, DailyLog dailyLog) {
+        if (state.getOpenLogId() == null) {
+            state.setOpenLogId(dailyLog.getId());
+        }
+    }
+
+    public void logClosed(VehicleOdometerState state, DailyLog dailyLog) {
+        state.logClosed(dailyLog.getDate(), dailyLog.getClosingKm());
+        if (dailyLog.getId().equals(state.getOpenLogId())) {
+            state.setOpenLogId(nextOpenLogId(state.getVehicleId()));
+        }
+    }
+
+    public void fuelEntryOpened(VehicleOdometerState state, FuelEntry entry) {
+        if (state.getOpenFuelEntryId() == null) {
+            state.setOpenFuelEntryId(entry.getId());
+        }
+    }
+
+    public void fuelEntryClosed(VehicleOdometerState state, FuelEntry entry) {
+        state.fuelEntryClosed(entry.getDate(), entry.getClosingKm());
+        if (entry.getId().equals(state.getOpenFuelEntryId())) {
+            state.setOpenFuelEntryId(nextOpenFuelEntryId(state.getVehicleId()));
+        }
+    }
+
+    /** Call after the entry has been deleted and flushed. */
+    public void fuelEntryDeleted(VehicleOdometerState state, FuelEntry entry) {
+        if (entry.getId().equals(state.getOpenFuelEntryId())) {
+            state.setOpenFuelEntryId(nextOpenFuelEntryId(state.getVehicleId()));
+        }
+        if (entry.getStatus() == EntryStatus.CLOSED) {
+            state.setLastFuelClosingKm(null);
+            state.setLastFuelClosingDate(null);
+            fuelEntryRepository
+                .findFirstByVehicleIdAndStatusAndClosingKmIsNotNullOrderByDateDescIdDesc(
+                    state.getVehicleId(),
+                    EntryStatus.CLOSED
+                )
+                .ifPresent(last -> state.fuelEntryClosed(last.getDate(), last.getClosingKm()));
+        }
+    }
+
+    /** Drops the state of a deleted vehicle. */
+    public void forget(Long vehicleId) {
+        stateRepository.deleteById(vehicleId);
+    }
+
+    private VehicleOdometerState build(Long vehicleId) {
+        VehicleOdometerState state = new VehicleOdometerState(vehicleId);
+        dailyLogRepository
+            .findFirstByVehicleIdAndStatusAndClosingKmIsNotNullOrderByDateDescIdDesc(vehicleId, EntryStatus.CLOSED)
+            .ifPresent(last -> state.logClosed(last.getDate(), last.getClosingKm()));
+        fuelEntryRepository
+            .findFirstByVehicleIdAndStatusAndClosingKmIsNotNullOrderByDateDescIdDesc(vehicleId, EntryStatus.CLOSED)
+            .ifPresent(last -> state.fuelEntryClosed(last.getDate(), last.getClosingKm()));
+        state.setOpenLogId(nextOpenLogId(vehicleId));
+        state.setOpenFuelEntryId(nextOpenFuelEntryId(vehicleId));
+        return state;
+    }
+
+    private Long nextOpenLogId(Long vehicleId) {
+        return dailyLogRepository
+            .findFirstByVehicleIdAndStatusOrderByIdAsc(vehicleId, EntryStatus.OPEN)
+            .map(DailyLog::getId)
+            .orElse(null);
+    }
+
+    private Long nextOpenFuelEntryId(Long vehicleId) {
+        return fuelEntryRepository
+            .findFirstByVehicleIdAndStatusOrderByIdAsc(vehicleId, EntryStatus.OPEN)
+            .map(FuelEntry::getId)
+            .orElse(null);
+    }
+}
@@ -18,14 +18,17 @@ public class VehicleService {
     private final VehicleRepository vehicleRepository;
     private final ProjectRepository projectRepository;
     private final VehicleStatusHistoryRepository statusHistoryRepository;
+    private final VehicleOdometerService vehicleOdometerService;
 
     public VehicleService(
             VehicleRepository vehicleRepository,
             ProjectRepository projectRepository,
-            VehicleStatusHistoryRepository statusHistoryRepository) {
+            VehicleStatusHistoryRepository statusHistoryRepository,
+            VehicleOdometerService vehicleOdometerService) {
         this.vehicleRepository = vehicleRepository;
         this.projectRepository = projectRepository;
         this.statusHistoryRepository = statusHistoryRepository;
+        this.vehicleOdometerService = vehicleOdometerService;
     }
 
     public List<VehicleDto> getAllVehicles() {
@@ -176,5 +179,6 @@ public class VehicleService {
         Vehicle vehicle = vehicleRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Vehicle not found with id: " + id));
         vehicleRepository.delete(vehicle);
+        vehicleOdometerService.forget(id);
     }
 }
@@ -5,7 +5,6 @@ import com.vebops.store.exception.UnauthorizedException;
 import com.vebops.store.model.Permission;
 import com.vebops.store.model.Role;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Set;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -67,17 +66,13 @@ public class AuthUtils {
             throw new ForbiddenException("Insufficient permissions");
         }
         HttpServletRequest request = getCurrentRequest();
-        @SuppressWarnings("unchecked")
-        Set<Permission> permissions = (Set<Permission>) request.getAttribute("userPermissions");
-        if (permissions == null) {
+        Long permissionMask = (Long) request.getAttribute("userPermissionMask");
+        if (permissionMask == null) {
             throw new UnauthorizedException("Authentication required");
         }
-        for (Permission permission : required) {
-            if (permissions.contains(permission)) {
-                return;
-            }
+        if ((permissionMask & Permission.maskOf(required)) == 0) {
+            throw new ForbiddenException("Insufficient permissions");
         }
-        throw new ForbiddenException("Insufficient permissions");
     }
 
     /**
@@ -0,0 +1,76 @@
+package com.vebops.store.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over byte keys that are already uniformly
+ * distributed (e.g. SHA-256 digests). Bit positions are derived by double
+ * hashing the first 16 bytes of the key, so no further hashing is done.
+ * Adds and lookups are lock-free; elements can never be removed, so callers
+ * rebuild the filter to drop entries.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+    }
+
+    /**
+     * Creates a filter sized for the expected number of insertions at the
+     * requested false-positive probability.
+     */
+    public static BloomFilter create(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void add(byte[] key) {
+        long h1 = hash1(key);
+        long h2 = hash2(key);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(byte[] key) {
+        long h1 = hash1(key);
+        long h2 = hash2(key);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash1(byte[] key) {
+        return key.length >= 8 ? ByteBuffer.wrap(key, 0, 8).getLong() : Arrays.hashCode(key);
+    }
+
+    private static long hash2(byte[] key) {
+        // Odd so successive probes cycle through distinct positions.
+        long h = key.length >= 16 ? ByteBuffer.wrap(key, 8, 8).getLong() : Long.rotateLeft(hash1(key), 31) * 0x9E3779B97F4A7C15L;
+        return h | 1L;
+    }
+}
@@ -0,0 +1,220 @@
+package com.vebops.store.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads the first sheet of a spreadsheet row by row.
+ *
+ * {@code .xlsx} files are parsed with the XSSF SAX event model straight from
+ * disk, so memory use does not grow with the number of rows. Legacy
+ * {@code .xls} files (at most 65k rows) fall back to the POI object model.
+ * Cells are delivered as the text Excel would display, with blank cells as
+ * empty strings; completely empty rows are skipped. {@link #readCsv} offers
+ * the same row callbacks for comma-separated text files.
+ */
+public final class ExcelSheetReader {
+
+    private ExcelSheetReader() {}
+
+    /** Receives one row at a time; {@code rowNum} is zero-based. */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(int rowNum, List<String> cells);
+    }
+
+    public static void read(Path file, int columnCount, RowHandler handler) throws IOException {
+        FileMagic magic;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            magic = FileMagic.valueOf(FileMagic.prepareToCheckMagic(in));
+        }
+        if (magic == FileMagic.OOXML) {
+            readXlsx(file, columnCount, handler);
+        } else if (magic == FileMagic.OLE2) {
+            readWithObjectModel(file, columnCount, handler);
+        } else {
+            throw new IllegalArgumentException("The uploaded file is not an Excel workbook");
+        }
+    }
+
+    /**
+     * Reads a UTF-8 comma-separated file with the same row numbering as a
+     * sheet. Fields may be double-quoted, with {@code ""} for a literal quote
+     * and line breaks allowed inside quotes.
+     */
+    public static void readCsv(Path file, int columnCount, RowHandler handler) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int rowNum = 0;
+            int ch = reader.read();
+            if (ch == '\uFEFF') {
+                ch = reader.read();
+            }
+            while (ch != -1) {
+                if (quoted) {
+                    if (ch == '"') {
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            ch = next;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) ch);
+                    }
+                } else if (ch == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n' || ch == '\r') {
+                    int next = reader.read();
+                    if (ch == '\r' && next == '\n') {
+                        next = reader.read();
+                    }
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    emitCsvRow(rowNum++, fields, columnCount, handler);
+                    fields.clear();
+                    ch = next;
+                    continue;
+                } else {
+                    field.append((char) ch);
+                }
+                ch = reader.read();
+            }
+            if (!fields.isEmpty() || !field.isEmpty()) {
+                fields.add(field.toString());
+                emitCsvRow(rowNum, fields, columnCount, handler);
+            }
+        }
+    }
+
+    private static void emitCsvRow(int rowNum, List<String> fields, int columnCount, RowHandler handler) {
+        String[] cells = new String[columnCount];
+        Arrays.fill(cells, "");
+        boolean empty = true;
+        for (int col = 0; col < columnCount && col < fields.size(); col++) {
+            cells[col] = fields.get(col).trim();
+            empty &= cells[col].isEmpty();
+        }
+        if (!empty) {
+            handler.row(rowNum, new ArrayList<>(Arrays.asList(cells)));
+        }
+    }
+
+    private static void readXlsx(Path file, int columnCount, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("The uploaded file does not contain any sheets");
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(
+                    new XSSFSheetXMLHandler(styles, null, strings, new RowCollector(columnCount, handler), new DataFormatter(), false)
+                );
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException("Unable to read the uploaded workbook: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static void readWithObjectModel(Path file, int columnCount, RowHandler handler) throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(file.toFile(), null, true)) {
+            if (workbook.getNumberOfSheets() == 0) {
+                throw new IllegalArgumentException("The uploaded file does not contain any sheets");
+            }
+            Sheet sheet = workbook.getSheetAt(0);
+            DataFormatter formatter = new DataFormatter();
+            for (Row row : sheet) {
+                String[] cells = new String[columnCount];
+                Arrays.fill(cells, "");
+                boolean empty = true;
+                for (int col = 0; col < columnCount; col++) {
+                    String value = formatter.formatCellValue(row.getCell(col));
+                    cells[col] = value == null ? "" : value;
+                    empty &= cells[col].isBlank();
+                }
+                if (!empty) {
+                    handler.row(row.getRowNum(), Arrays.asList(cells));
+                }
+            }
+        }
+    }
+
+    /** Bridges SAX cell callbacks to whole-row {@link RowHandler} calls. */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final int columnCount;
+        private final RowHandler handler;
+        private String[] cells;
+        private int nextColumn;
+        private boolean empty;
+
+        RowCollector(int columnCount, RowHandler handler) {
+            this.columnCount = columnCount;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new String[columnCount];
+            Arrays.fill(cells, "");
+            nextColumn = 0;
+            empty = true;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!empty) {
+                handler.row(rowNum, new ArrayList<>(Arrays.asList(cells)));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = col + 1;
+            if (col < columnCount && formattedValue != null) {
+                cells[col] = formattedValue;
+                empty &= formattedValue.isBlank();
+            }
+        }
+    }
+}
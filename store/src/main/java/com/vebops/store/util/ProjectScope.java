@@ -0,0 +1,280 @@
+package com.vebops.store.util;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * Immutable set of project ids a user is allowed to see.
+ *
+ * Ids are stored roaring-style: the high bits select a container and the low
+ * 16 bits live either in a sorted {@code char[]} (sparse containers) or in a
+ * 1024-word bitmap (dense containers), so membership checks are a binary
+ * search plus a bit test and never box. {@link #ALL} is a sentinel for
+ * admins and users with global access and never enumerates projects.
+ */
+public final class ProjectScope {
+
+    /** Containers holding more values than this switch to a bitmap. */
+    private static final int ARRAY_CONTAINER_LIMIT = 4096;
+    /** Runs at least this long are rendered as BETWEEN instead of IN. */
+    private static final int RANGE_PREDICATE_MIN_LENGTH = 4;
+
+    public static final ProjectScope ALL = new ProjectScope(true, new long[0], new Container[0], 0);
+    public static final ProjectScope NONE = new ProjectScope(false, new long[0], new Container[0], 0);
+
+    private final boolean all;
+    private final long[] keys;
+    private final Container[] containers;
+    private final int cardinality;
+
+    private ProjectScope(boolean all, long[] keys, Container[] containers, int cardinality) {
+        this.all = all;
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static ProjectScope of(Collection<Long> projectIds) {
+        if (projectIds == null || projectIds.isEmpty()) {
+            return NONE;
+        }
+        return fromSorted(
+            projectIds.stream().filter(Objects::nonNull).mapToLong(Long::longValue).filter(id -> id >= 0).sorted().distinct().toArray()
+        );
+    }
+
+    public static ProjectScope of(long... projectIds) {
+        return fromSorted(LongStream.of(projectIds).filter(id -> id >= 0).sorted().distinct().toArray());
+    }
+
+    private static ProjectScope fromSorted(long[] ids) {
+        if (ids.length == 0) {
+            return NONE;
+        }
+        List<Long> keyList = new ArrayList<>();
+        List<Container> containerList = new ArrayList<>();
+        int start = 0;
+        while (start < ids.length) {
+            long key = ids[start] >>> 16;
+            int end = start;
+            while (end < ids.length && (ids[end] >>> 16) == key) {
+                end++;
+            }
+            keyList.add(key);
+            containerList.add(Container.of(ids, start, end));
+            start = end;
+        }
+        return new ProjectScope(
+            false,
+            keyList.stream().mapToLong(Long::longValue).toArray(),
+            containerList.toArray(Container[]::new),
+            ids.length
+        );
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    public boolean isEmpty() {
+        return !all && cardinality == 0;
+    }
+
+    /**
+     * Number of project ids in the scope. Not defined for {@link #ALL}.
+     */
+    public int size() {
+        requireFinite();
+        return cardinality;
+    }
+
+    public boolean contains(Long projectId) {
+        return projectId != null && contains(projectId.longValue());
+    }
+
+    public boolean contains(long projectId) {
+        if (all) {
+            return true;
+        }
+        if (projectId < 0) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, projectId >>> 16);
+        return index >= 0 && containers[index].contains((char) (projectId & 0xFFFF));
+    }
+
+    public ProjectScope intersect(ProjectScope other) {
+        if (all) {
+            return other;
+        }
+        if (other == null || other.isEmpty() || isEmpty()) {
+            return NONE;
+        }
+        if (other.all) {
+            return this;
+        }
+        return fromSorted(stream().filter(other::contains).toArray());
+    }
+
+    /**
+     * Project ids in ascending order. Not defined for {@link #ALL}.
+     */
+    public LongStream stream() {
+        requireFinite();
+        LongStream.Builder builder = LongStream.builder();
+        forEach(builder::add);
+        return builder.build();
+    }
+
+    public Set<Long> toSet() {
+        requireFinite();
+        Set<Long> ids = new LinkedHashSet<>(Math.max(16, cardinality * 2));
+        forEach(ids::add);
+        return Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Collapses the scope into maximal runs of consecutive ids, which is how
+     * SQL predicates are generated. Not defined for {@link #ALL}.
+     */
+    public List<Range> ranges() {
+        requireFinite();
+        List<Range> ranges = new ArrayList<>();
+        long[] run = { -1L, -1L };
+        forEach(id -> {
+            if (run[0] >= 0 && id == run[1] + 1) {
+                run[1] = id;
+                return;
+            }
+            if (run[0] >= 0) {
+                ranges.add(new Range(run[0], run[1]));
+            }
+            run[0] = id;
+            run[1] = id;
+        });
+        if (run[0] >= 0) {
+            ranges.add(new Range(run[0], run[1]));
+        }
+        return ranges;
+    }
+
+    /**
+     * Builds a criteria predicate restricting {@code projectId} to this scope:
+     * always-true for {@link #ALL}, always-false when empty, otherwise BETWEEN
+     * clauses for long runs of ids and a single IN list for the rest.
+     */
+    public Predicate toPredicate(CriteriaBuilder cb, Expression<Long> projectId) {
+        if (all) {
+            return cb.conjunction();
+        }
+        if (isEmpty()) {
+            return cb.disjunction();
+        }
+        List<Predicate> parts = new ArrayList<>();
+        List<Long> singles = new ArrayList<>();
+        for (Range range : ranges()) {
+            if (range.length() >= RANGE_PREDICATE_MIN_LENGTH) {
+                parts.add(cb.between(projectId, range.from(), range.to()));
+            } else {
+                for (long id = range.from(); id <= range.to(); id++) {
+                    singles.add(id);
+                }
+            }
+        }
+        if (!singles.isEmpty()) {
+            parts.add(projectId.in(singles));
+        }
+        return parts.size() == 1 ? parts.get(0) : cb.or(parts.toArray(Predicate[]::new));
+    }
+
+    private void forEach(LongConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    private void requireFinite() {
+        if (all) {
+            throw new IllegalStateException("The ALL project scope cannot be enumerated");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return all ? "ProjectScope[ALL]" : "ProjectScope[" + cardinality + " projects]";
+    }
+
+    /** Inclusive run of consecutive project ids. */
+    public record Range(long from, long to) {
+        public long length() {
+            return to - from + 1;
+        }
+    }
+
+    private sealed interface Container permits ArrayContainer, BitmapContainer {
+        boolean contains(char low);
+
+        void forEach(long base, LongConsumer consumer);
+
+        static Container of(long[] ids, int start, int end) {
+            int count = end - start;
+            if (count <= ARRAY_CONTAINER_LIMIT) {
+                char[] values = new char[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = (char) (ids[start + i] & 0xFFFF);
+                }
+                return new ArrayContainer(values);
+            }
+            long[] words = new long[1024];
+            for (int i = start; i < end; i++) {
+                int low = (int) (ids[i] & 0xFFFF);
+                words[low >>> 6] |= 1L << low;
+            }
+            return new BitmapContainer(words);
+        }
+    }
+
+    private record ArrayContainer(char[] values) implements Container {
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, low) >= 0;
+        }
+
+        @Override
+        public void forEach(long base, LongConsumer consumer) {
+            for (char value : values) {
+                consumer.accept(base | value);
+            }
+        }
+    }
+
+    private record BitmapContainer(long[] words) implements Container {
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public void forEach(long base, LongConsumer consumer) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    consumer.accept(base | ((long) w << 6) | bit);
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.vebops.store.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PermissionTest {
+
+    @Test
+    void persistedBitsNeverMove() {
+        assertThat(Permission.ADMIN_ACCESS.mask()).isEqualTo(1L);
+        assertThat(Permission.MATERIAL_MANAGEMENT.mask()).isEqualTo(8L);
+        assertThat(Permission.VEHICLE_MANAGEMENT.mask()).isEqualTo(128L);
+    }
+
+    @Test
+    void everyPermissionOwnsADistinctBit() {
+        long seen = 0L;
+        for (Permission permission : Permission.values()) {
+            assertThat(Long.bitCount(permission.mask())).isEqualTo(1);
+            assertThat(seen & permission.mask()).isZero();
+            seen |= permission.mask();
+        }
+        assertThat(Permission.allMask()).isEqualTo(seen);
+    }
+
+    @Test
+    void maskRoundTripsThroughFromMask() {
+        EnumSet<Permission> granted = EnumSet.of(Permission.USER_MANAGEMENT, Permission.INVENTORY_OPERATIONS);
+
+        long mask = Permission.maskOf(granted);
+
+        assertThat(mask).isEqualTo(2L | 64L);
+        assertThat(Permission.fromMask(mask)).isEqualTo(granted);
+        assertThat(Permission.maskOf(Permission.USER_MANAGEMENT, Permission.INVENTORY_OPERATIONS)).isEqualTo(mask);
+    }
+
+    @Test
+    void nullsAndUnknownBitsAreIgnored() {
+        assertThat(Permission.maskOf((List<Permission>) null)).isZero();
+        assertThat(Permission.maskOf(Arrays.asList(Permission.ADMIN_ACCESS, null))).isEqualTo(1L);
+        assertThat(Permission.fromMask(1L << 40)).isEmpty();
+    }
+}
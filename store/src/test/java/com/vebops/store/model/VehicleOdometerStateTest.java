@@ -0,0 +1,47 @@
+package com.vebops.store.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class VehicleOdometerStateTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @Test
+    void closedLogsOnOrAfterTheLastDateReplaceIt() {
+        VehicleOdometerState state = new VehicleOdometerState(1L);
+
+        state.logClosed(DAY, 100d);
+        state.logClosed(DAY, 120d);
+        state.logClosed(DAY.plusDays(1), 150d);
+
+        assertThat(state.getLastLogClosingKm()).isEqualTo(150d);
+        assertThat(state.getLastLogClosingDate()).isEqualTo(DAY.plusDays(1));
+    }
+
+    @Test
+    void olderClosedLogsAreIgnored() {
+        VehicleOdometerState state = new VehicleOdometerState(1L);
+
+        state.logClosed(DAY, 100d);
+        state.logClosed(DAY.minusDays(1), 90d);
+        state.logClosed(DAY.plusDays(1), null);
+
+        assertThat(state.getLastLogClosingKm()).isEqualTo(100d);
+        assertThat(state.getLastLogClosingDate()).isEqualTo(DAY);
+    }
+
+    @Test
+    void fuelEntriesAreTrackedSeparatelyFromLogs() {
+        VehicleOdometerState state = new VehicleOdometerState(1L);
+
+        state.fuelEntryClosed(DAY, 200d);
+        state.fuelEntryClosed(DAY.minusDays(2), 180d);
+
+        assertThat(state.getLastFuelClosingKm()).isEqualTo(200d);
+        assertThat(state.getLastFuelClosingDate()).isEqualTo(DAY);
+        assertThat(state.getLastLogClosingKm()).isNull();
+    }
+}
@@ -0,0 +1,144 @@
+package com.vebops.store.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.AllocationMatrixCellDto;
+import com.vebops.store.dto.AllocationMatrixRowDto;
+import com.vebops.store.dto.BomLineDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+@ExtendWith(MockitoExtension.class)
+class BomLineQueryRepositoryImplTest {
+
+    private static final Object[] PIPE_LINE = { 7L, 10L, "MAT-000010", "Pipe", null, null, "m", "Pipes", 50, 40d, 30d, 35d, 0d };
+
+    /** Matrix cells as the database returns them: ordered by material, then project. */
+    private static final List<Object[]> CELLS = List.of(
+        new Object[] { 10L, "MAT-000010", "Pipe", "Pipes", "m", 1L, "P-1", "Plant", 50, 30d, 35d },
+        new Object[] { 10L, "MAT-000010", "Pipe", "Pipes", "m", 2L, "P-2", "Depot", 20, 20d, 5d },
+        new Object[] { 11L, "MAT-000011", "Valve", "Fittings", "pcs", 1L, "P-1", "Plant", 4, null, null }
+    );
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Query query;
+
+    @Captor
+    private ArgumentCaptor<String> sql;
+
+    @InjectMocks
+    private BomLineQueryRepositoryImpl repository;
+
+    @Test
+    void sortFieldsAreMappedToTheirColumnsWithTheLineIdAsTieBreak() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of((Object) PIPE_LINE));
+
+        Page<BomLineDto> page = repository.findLinesWithTotals(
+            1L,
+            null,
+            false,
+            PageRequest.of(0, 20, Sort.by(Sort.Order.desc("balanceQty"), Sort.Order.asc("code")))
+        );
+
+        verify(entityManager).createNativeQuery(sql.capture());
+        assertThat(sql.getValue()).endsWith(
+            "order by greatest(coalesce(inw.received_qty, 0) - coalesce(outw.issued_qty, 0), 0) desc, m.code asc, b.id asc"
+        );
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        BomLineDto line = page.getContent().get(0);
+        assertThat(line.id()).isEqualTo("7");
+        assertThat(line.projectId()).isEqualTo("1");
+        assertThat(line.allocatedQty()).isEqualTo(50d);
+        assertThat(line.balanceQty()).isZero();
+    }
+
+    @Test
+    void unknownSortFieldsAreRejectedBeforeAnyQueryRuns() {
+        PageRequest byPrice = PageRequest.of(0, 20, Sort.by("unitPrice"));
+
+        assertThatThrownBy(() -> repository.findLinesWithTotals(1L, null, false, byPrice))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("unitPrice");
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void aFullPageIsCountedSeparately() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of((Object) PIPE_LINE));
+        when(query.getSingleResult()).thenReturn(3L);
+
+        Page<BomLineDto> page = repository.findLinesWithTotals(1L, " Pipe ", true, PageRequest.of(0, 1));
+
+        verify(entityManager, times(2)).createNativeQuery(sql.capture());
+        assertThat(sql.getAllValues().get(1)).startsWith("select count(*) ").contains("> 0");
+        verify(query, times(2)).setParameter("term", "%pipe%");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void matrixCellsAreFoldedIntoOneRowPerMaterialWithTotals() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.<Object>copyOf(CELLS));
+
+        List<AllocationMatrixRowDto> rows = repository.findAllocationMatrix(List.of(10L, 11L), null);
+
+        assertThat(rows).extracting(AllocationMatrixRowDto::materialCode).containsExactly("MAT-000010", "MAT-000011");
+        AllocationMatrixRowDto pipe = rows.get(0);
+        assertThat(pipe.projects()).containsExactly(
+            new AllocationMatrixCellDto("1", "P-1", "Plant", 50d, 30d, 35d, 0d),
+            new AllocationMatrixCellDto("2", "P-2", "Depot", 20d, 20d, 5d, 15d)
+        );
+        // An over-issued project does not eat into another project's balance.
+        assertThat(pipe.allocatedQty()).isEqualTo(70d);
+        assertThat(pipe.issuedQty()).isEqualTo(40d);
+        assertThat(pipe.balanceQty()).isEqualTo(15d);
+        assertThat(rows.get(1).projects()).singleElement()
+            .satisfies(cell -> assertThat(cell.receivedQty()).isZero());
+        verify(query).setParameter("materialIds", List.of(10L, 11L));
+    }
+
+    @Test
+    void anEmptyMaterialPageRunsNoMatrixQuery() {
+        assertThat(repository.findAllocationMatrix(List.of(), "pipe")).isEmpty();
+
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamedMatrixYieldsRowsAsEachMaterialCompletes() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setHint(anyString(), any())).thenReturn(query);
+        when(query.getResultStream()).thenReturn((Stream) CELLS.stream());
+
+        try (Stream<AllocationMatrixRowDto> rows = repository.streamAllocationMatrix(null)) {
+            assertThat(rows)
+                .extracting(row -> row.materialCode() + " x" + row.projects().size())
+                .containsExactly("MAT-000010 x2", "MAT-000011 x1");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.ProjectActivityDto;
+import com.vebops.store.dto.ProjectActivityEntryDto;
+import com.vebops.store.model.Project;
+import com.vebops.store.repository.ProjectActivityQueries;
+import com.vebops.store.repository.ProjectRepository;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Sort;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AdminServiceTest {
+
+    private static final Date MARCH_5 = Date.valueOf(LocalDate.of(2024, 3, 5));
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private ProjectActivityQueries activityQueries;
+
+    @Mock
+    private Project plant;
+
+    @Mock
+    private Project depot;
+
+    @InjectMocks
+    private AdminService adminService;
+
+    @BeforeEach
+    void setUp() {
+        when(plant.getId()).thenReturn(1L);
+        when(plant.getCode()).thenReturn("P-1");
+        when(plant.getName()).thenReturn("Plant");
+        when(depot.getId()).thenReturn(2L);
+        when(depot.getCode()).thenReturn("P-2");
+        when(depot.getName()).thenReturn("Depot");
+        when(projectRepository.findAll(any(Sort.class))).thenReturn(List.of(plant, depot));
+    }
+
+    @Test
+    void groupedCountsLandOnTheirProjects() {
+        when(activityQueries.countInwardsByProject()).thenReturn(List.<Object[]>of(new Object[] { 1L, 4L }));
+        when(activityQueries.countOutwardsByProject())
+            .thenReturn(List.<Object[]>of(new Object[] { BigInteger.TWO, 7L }, new Object[] { 99L, 3L }));
+        when(activityQueries.countTransfersByProject())
+            .thenReturn(List.<Object[]>of(new Object[] { 1L, 1L }, new Object[] { 2L, 1L }));
+
+        List<ProjectActivityDto> overview = adminService.projectActivityOverview();
+
+        assertThat(overview).extracting(ProjectActivityDto::projectCode).containsExactly("P-1", "P-2");
+        assertThat(overview.get(0).inwardCount()).isEqualTo(4);
+        assertThat(overview.get(0).outwardCount()).isZero();
+        assertThat(overview.get(1).outwardCount()).isEqualTo(7);
+        assertThat(overview).allSatisfy(project -> assertThat(project.transferCount()).isEqualTo(1));
+    }
+
+    @Test
+    void latestRecordsBecomeEntriesInQueryOrder() {
+        when(activityQueries.latestInwards(5)).thenReturn(List.<Object[]>of(
+            new Object[] { 1L, 12L, "IN-12", MARCH_5, "Acme", true, 3L },
+            new Object[] { 1L, 9L, "IN-9", null, null, 0, 0L }
+        ));
+        when(activityQueries.latestOutwards(5))
+            .thenReturn(List.<Object[]>of(new Object[] { 2L, 20L, "OUT-20", MARCH_5, "Crew A", (byte) 1, 2L }));
+
+        List<ProjectActivityDto> overview = adminService.projectActivityOverview();
+
+        assertThat(overview.get(0).recentInwards()).containsExactly(
+            new ProjectActivityEntryDto("12", "IN-12", "2024-03-05", "Acme", "Validated", 3, "INWARD"),
+            new ProjectActivityEntryDto("9", "IN-9", null, null, "Pending", 0, "INWARD")
+        );
+        assertThat(overview.get(1).recentOutwards()).singleElement()
+            .satisfies(entry -> assertThat(entry.status()).isEqualTo("Validated"));
+    }
+
+    @Test
+    void aTransferIsDispatchedFromOneProjectAndReceivedByTheOther() {
+        when(activityQueries.latestTransfers(5)).thenReturn(List.<Object[]>of(
+            new Object[] { 1L, 30L, "FROM", "TR-30", MARCH_5, "Plant", "Depot", 2L },
+            new Object[] { 2L, 30L, "TO", "TR-30", MARCH_5, "Plant", "Depot", 2L }
+        ));
+
+        List<ProjectActivityDto> overview = adminService.projectActivityOverview();
+
+        assertThat(overview.get(0).recentTransfers()).containsExactly(
+            new ProjectActivityEntryDto("30", "TR-30", "2024-03-05", "Depot", "Dispatched", 2, "Plant → Depot")
+        );
+        assertThat(overview.get(1).recentTransfers()).containsExactly(
+            new ProjectActivityEntryDto("30", "TR-30", "2024-03-05", "Plant", "Received", 2, "Plant → Depot")
+        );
+    }
+}
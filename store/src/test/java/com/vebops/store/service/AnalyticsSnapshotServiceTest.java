@@ -0,0 +1,129 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.AnalyticsDto;
+import com.vebops.store.repository.InwardRecordRepository;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.OutwardLineRepository;
+import com.vebops.store.repository.OutwardRecordRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.UserRepository;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsSnapshotServiceTest {
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private InwardRecordRepository inwardRecordRepository;
+
+    @Mock
+    private OutwardRecordRepository outwardRecordRepository;
+
+    @Mock
+    private OutwardLineRepository outwardLineRepository;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(materialRepository.sumReceivedAndUtilized()).thenReturn(List.<Object[]>of(new Object[] { 120d, 45d }));
+        lenient().when(projectRepository.count()).thenReturn(3L, 4L, 5L);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void theSnapshotIsKeptUntilAWriteInvalidatesIt() {
+        AnalyticsSnapshotService service = service(0);
+
+        AnalyticsDto first = service.current();
+
+        assertThat(first.totalProjects()).isEqualTo(3);
+        assertThat(first.totalReceivedQty()).isEqualTo(120d);
+        assertThat(service.current()).isSameAs(first);
+        verify(projectRepository, times(1)).count();
+
+        service.invalidate();
+
+        assertThat(service.current().totalProjects()).isEqualTo(4);
+    }
+
+    @Test
+    void invalidationWaitsForTheWriteToCommit() {
+        AnalyticsSnapshotService service = service(0);
+        AnalyticsDto first = service.current();
+
+        TransactionSynchronizationManager.initSynchronization();
+        service.invalidate();
+        assertThat(service.current()).isSameAs(first);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(service.current().totalProjects()).isEqualTo(4);
+    }
+
+    @Test
+    void aBurstOfWritesWithinTheMinimumIntervalCostsNoRefresh() {
+        AnalyticsSnapshotService service = service(60_000);
+        AnalyticsDto first = service.current();
+
+        service.invalidate();
+        service.invalidate();
+
+        assertThat(service.current()).isSameAs(first);
+        verify(projectRepository, times(1)).count();
+    }
+
+    @Test
+    void aFailedScheduledRefreshIsRetriedByTheNextRequest() {
+        AnalyticsSnapshotService service = service(0);
+        AnalyticsDto first = service.current();
+        when(materialRepository.totalsByCategory())
+            .thenThrow(new IllegalStateException("database down"))
+            .thenReturn(List.of());
+
+        service.refresh();
+
+        assertThat(service.current()).isNotSameAs(first);
+        verify(materialRepository, times(3)).totalsByCategory();
+    }
+
+    private AnalyticsSnapshotService service(long minRefreshMillis) {
+        return new AnalyticsSnapshotService(
+            projectRepository,
+            materialRepository,
+            userRepository,
+            inwardRecordRepository,
+            outwardRecordRepository,
+            outwardLineRepository,
+            minRefreshMillis
+        );
+    }
+}
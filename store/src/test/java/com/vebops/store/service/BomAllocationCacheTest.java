@@ -0,0 +1,104 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.repository.BomLineRepository;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class BomAllocationCacheTest {
+
+    @Mock
+    private BomLineRepository repository;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadsEachProjectOnce() {
+        when(repository.findAllocationsByProjectId(1L)).thenReturn(rows(new Object[] { 10L, 4 }));
+        BomAllocationCache cache = new BomAllocationCache(repository, 10);
+
+        assertThat(cache.allocation(1L, 10L)).hasValue(4d);
+        assertThat(cache.allocation(1L, 11L)).isEmpty();
+        verify(repository, times(1)).findAllocationsByProjectId(1L);
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedProject() {
+        when(repository.findAllocationsByProjectId(1L)).thenReturn(rows());
+        when(repository.findAllocationsByProjectId(2L)).thenReturn(rows());
+        when(repository.findAllocationsByProjectId(3L)).thenReturn(rows());
+        BomAllocationCache cache = new BomAllocationCache(repository, 2);
+
+        cache.allocations(1L);
+        cache.allocations(2L);
+        cache.allocations(1L);
+        cache.allocations(3L);
+        cache.allocations(1L);
+        cache.allocations(2L);
+
+        verify(repository, times(1)).findAllocationsByProjectId(1L);
+        verify(repository, times(2)).findAllocationsByProjectId(2L);
+    }
+
+    @Test
+    void doesNotCacheWhileAWriteIsInFlight() {
+        when(repository.findAllocationsByProjectId(1L))
+            .thenReturn(rows(new Object[] { 10L, 4 }))
+            .thenReturn(rows(new Object[] { 10L, 6 }));
+        BomAllocationCache cache = new BomAllocationCache(repository, 10);
+        cache.allocations(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evict(1L);
+        assertThat(cache.allocation(1L, 10L)).hasValue(6d);
+        assertThat(cache.allocation(1L, 10L)).hasValue(6d);
+        verify(repository, times(3)).findAllocationsByProjectId(1L);
+
+        completeTransaction();
+        cache.allocations(1L);
+        cache.allocations(1L);
+        verify(repository, times(4)).findAllocationsByProjectId(1L);
+    }
+
+    @Test
+    void doesNotCacheALoadThatRacedAnEviction() {
+        BomAllocationCache cache = new BomAllocationCache(repository, 10);
+        when(repository.findAllocationsByProjectId(1L))
+            .thenAnswer(invocation -> {
+                cache.evict(1L);
+                return rows(new Object[] { 10L, 4 });
+            })
+            .thenReturn(rows(new Object[] { 10L, 6 }));
+
+        assertThat(cache.allocation(1L, 10L)).hasValue(4d);
+        assertThat(cache.allocation(1L, 10L)).hasValue(6d);
+        assertThat(cache.allocation(1L, 10L)).hasValue(6d);
+        verify(repository, times(2)).findAllocationsByProjectId(1L);
+    }
+
+    private static void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+}
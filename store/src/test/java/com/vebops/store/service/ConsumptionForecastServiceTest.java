@@ -0,0 +1,160 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.StockOutForecastDto;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.OutwardLine;
+import com.vebops.store.model.OutwardRecord;
+import com.vebops.store.model.Project;
+import com.vebops.store.repository.ConsumptionStatQueries;
+import com.vebops.store.repository.MaterialMovementQueries;
+import com.vebops.store.repository.MaterialRepository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class ConsumptionForecastServiceTest {
+
+    private static final double HALF_LIFE = 14;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private ConsumptionStatQueries statQueries;
+
+    @Mock
+    private MaterialMovementQueries movementQueries;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private BomAllocationCache allocationCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> issueRows;
+
+    private ConsumptionForecastService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ConsumptionForecastService(
+            statQueries,
+            movementQueries,
+            materialRepository,
+            allocationCache,
+            transactionManager,
+            HALF_LIFE,
+            7
+        );
+    }
+
+    @Test
+    void steadyIssuesGiveTheirDailyRate() {
+        givenStat(decayedTotal(2, 30), TODAY.minusDays(29), TODAY);
+        when(movementQueries.projectTotals(1L)).thenReturn(List.<Object[]>of(new Object[] { 10L, 101d, 60d }));
+        when(allocationCache.allocations(1L)).thenReturn(Map.of(10L, 150d));
+
+        List<StockOutForecastDto> forecasts = service.forecast(1L, 30, 10, false);
+
+        assertThat(forecasts).hasSize(1);
+        StockOutForecastDto forecast = forecasts.get(0);
+        assertThat(forecast.dailyRate()).isCloseTo(2d, within(1e-9));
+        assertThat(forecast.balanceQty()).isEqualTo(41d);
+        assertThat(forecast.remainingAllocationQty()).isEqualTo(90d);
+        assertThat(forecast.shortfallQty()).isEqualTo(49d);
+        assertThat(forecast.daysOfCover()).isCloseTo(20.5d, within(1e-6));
+        assertThat(forecast.stockOutDate()).isEqualTo(TODAY.plusDays(20).toString());
+        assertThat(forecast.atRisk()).isTrue();
+    }
+
+    @Test
+    void theRateDecaysWhileNothingIsIssued() {
+        givenStat(decayedTotal(2, 30), TODAY.minusDays(43), TODAY.minusDays(14));
+        when(allocationCache.allocations(1L)).thenReturn(Map.of());
+
+        List<StockOutForecastDto> forecasts = service.forecast(1L, 30, 10, true);
+
+        double steady = decayedTotal(2, 30) / decayedTotal(1, 44);
+        assertThat(forecasts.get(0).dailyRate()).isCloseTo(steady / 2, within(1e-9));
+        assertThat(forecasts.get(0).atRisk()).isFalse();
+    }
+
+    @Test
+    void materialsWithoutAShortfallAreOnlyListedOnRequest() {
+        givenStat(decayedTotal(1, 30), TODAY.minusDays(29), TODAY);
+        when(movementQueries.projectTotals(1L)).thenReturn(List.<Object[]>of(new Object[] { 10L, 100d, 10d }));
+        when(allocationCache.allocations(1L)).thenReturn(Map.of(10L, 50d));
+
+        assertThat(service.forecast(1L, 30, 10, false)).isEmpty();
+        assertThat(service.forecast(1L, 30, 10, true)).hasSize(1);
+    }
+
+    @Test
+    void issuesAreSummedPerMaterial(@Mock Project project, @Mock Material pipe) {
+        when(project.getId()).thenReturn(1L);
+        when(pipe.getId()).thenReturn(10L);
+
+        service.recordIssues(issueOf(project, pipe, 2, 3));
+
+        verify(statQueries).addIssues(issueRows.capture(), eq(HALF_LIFE));
+        assertThat(issueRows.getValue())
+            .singleElement()
+            .satisfies(row -> assertThat(row).containsExactly(1L, 10L, 5d, LocalDate.of(2024, 3, 5), 1));
+    }
+
+    @Test
+    void transferOutwardsAreNotConsumption(@Mock Project project, @Mock Material pipe) {
+        OutwardRecord transfer = issueOf(project, pipe, 4);
+        transfer.setTransferOut(true);
+
+        service.recordIssues(transfer);
+        service.recordIssueChanges(transfer, Map.of(10L, 2d));
+
+        verify(statQueries, never()).addIssues(anyList(), anyDouble());
+        verify(statQueries, never()).removeIssues(anyList(), anyDouble());
+    }
+
+    private void givenStat(double decayed, LocalDate first, LocalDate last) {
+        when(statQueries.findByProject(1L))
+            .thenReturn(List.<Object[]>of(new Object[] { 10L, decayed, first, last, 0d, 0L }));
+    }
+
+    /** What {@code qtyPerDay} issued every day for {@code days} days up to today decays to. */
+    private static double decayedTotal(double qtyPerDay, int days) {
+        double lambda = Math.log(2) / HALF_LIFE;
+        return qtyPerDay * (1 - Math.exp(-lambda * days)) / (1 - Math.exp(-lambda));
+    }
+
+    private static OutwardRecord issueOf(Project project, Material material, double... quantities) {
+        OutwardRecord record = new OutwardRecord();
+        record.setProject(project);
+        record.setEntryDate(LocalDate.of(2024, 3, 5));
+        for (double qty : quantities) {
+            OutwardLine line = new OutwardLine();
+            line.setMaterial(material);
+            line.setIssueQty(qty);
+            record.getLines().add(line);
+        }
+        return record;
+    }
+}
@@ -0,0 +1,101 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vebops.store.dto.ImportJobDto;
+import com.vebops.store.exception.BadRequestException;
+import com.vebops.store.model.ImportJob;
+import com.vebops.store.model.ImportJobStatus;
+import com.vebops.store.model.Role;
+import com.vebops.store.model.UserAccount;
+import com.vebops.store.repository.ImportJobRepository;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ImportJobServiceTest {
+
+    private static final long JOB_ID = 5L;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+
+    @Mock
+    private MaterialImportService materialImportService;
+
+    @Spy
+    private ImportJob failedJob;
+
+    private final UserAccount admin = new UserAccount();
+    private ImportJobService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        admin.setRole(Role.ADMIN);
+        lenient().when(failedJob.getId()).thenReturn(JOB_ID);
+        failedJob.setStatus(ImportJobStatus.FAILED);
+        failedJob.setStoredPath(Files.createFile(tempDir.resolve("job.upload")).toString());
+        when(importJobRepository.findById(JOB_ID)).thenReturn(Optional.of(failedJob));
+        service = new ImportJobService(importJobRepository, materialImportService, new ObjectMapper(), tempDir.toString(), 1, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void resumeThatLosesTheStatusRaceIsRejected() throws Exception {
+        when(importJobRepository.requeueFailed(eq(JOB_ID), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> service.resume(JOB_ID, admin)).isInstanceOf(BadRequestException.class);
+
+        verify(importJobRepository, never()).claimQueued(any(), any());
+        verify(materialImportService, never()).importFile(any(), anyInt(), any());
+    }
+
+    @Test
+    void workerSkipsAJobAnotherWorkerClaimed() throws Exception {
+        when(importJobRepository.requeueFailed(eq(JOB_ID), any())).thenReturn(1);
+        when(importJobRepository.claimQueued(eq(JOB_ID), any())).thenReturn(0);
+
+        ImportJobDto dto = service.resume(JOB_ID, admin);
+
+        assertThat(dto.id()).isEqualTo(String.valueOf(JOB_ID));
+        verify(importJobRepository, timeout(2000)).claimQueued(eq(JOB_ID), any());
+        verify(materialImportService, never()).importFile(any(), anyInt(), any());
+    }
+
+    @Test
+    void claimedJobResumesFromItsLastCommittedRow() throws Exception {
+        failedJob.setLastCommittedRow(1200);
+        when(importJobRepository.requeueFailed(eq(JOB_ID), any())).thenReturn(1);
+        when(importJobRepository.claimQueued(eq(JOB_ID), any())).thenReturn(1);
+
+        service.resume(JOB_ID, admin);
+
+        verify(materialImportService, timeout(2000)).importFile(any(), eq(1200), any());
+    }
+}
@@ -0,0 +1,117 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.model.CodeSequence;
+import com.vebops.store.repository.CodeSequenceRepository;
+import com.vebops.store.repository.MaterialRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class MaterialCodeAllocatorTest {
+
+    @Mock
+    private CodeSequenceRepository codeSequenceRepository;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MaterialCodeAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(codeSequenceRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        allocator = new MaterialCodeAllocator(codeSequenceRepository, materialRepository, transactionManager, 10);
+    }
+
+    @Test
+    void formatPadsToSixDigits() {
+        assertThat(MaterialCodeAllocator.format(7)).isEqualTo("MAT-000007");
+        assertThat(MaterialCodeAllocator.format(1_234_567)).isEqualTo("MAT-1234567");
+    }
+
+    @Test
+    void sequentialNumberOnlyAcceptsTheShortNumericForm() {
+        assertThat(MaterialCodeAllocator.sequentialNumber("MAT-000500")).isEqualTo(500);
+        assertThat(MaterialCodeAllocator.sequentialNumber("mat-0001234")).isEqualTo(1234);
+        assertThat(MaterialCodeAllocator.sequentialNumber("MAT-12345678")).isEqualTo(-1);
+        assertThat(MaterialCodeAllocator.sequentialNumber("MAT-00A123")).isEqualTo(-1);
+        assertThat(MaterialCodeAllocator.sequentialNumber("BOLT-000001")).isEqualTo(-1);
+        assertThat(MaterialCodeAllocator.sequentialNumber(null)).isEqualTo(-1);
+    }
+
+    @Test
+    void firstBlockStartsAfterTheHighestSequentialCode() {
+        when(codeSequenceRepository.findForUpdate(MaterialCodeAllocator.SEQUENCE_NAME)).thenReturn(Optional.empty());
+        // The hex-style legacy code with eight digits is ignored.
+        when(materialRepository.findPrefixedCodes()).thenReturn(List.of("MAT-000041", "MAT-12345678", "MAT-000007"));
+
+        assertThat(allocator.nextCode()).isEqualTo("MAT-000042");
+        assertThat(allocator.nextCode()).isEqualTo("MAT-000043");
+    }
+
+    @Test
+    void blocksAreReservedFromTheSequenceRow() {
+        CodeSequence sequence = new CodeSequence(MaterialCodeAllocator.SEQUENCE_NAME, 100);
+        when(codeSequenceRepository.findForUpdate(MaterialCodeAllocator.SEQUENCE_NAME)).thenReturn(Optional.of(sequence));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(allocator.nextCode()).isEqualTo(MaterialCodeAllocator.format(100 + i));
+        }
+        assertThat(sequence.getNextValue()).isEqualTo(110);
+
+        assertThat(allocator.nextCode()).isEqualTo("MAT-000110");
+        assertThat(sequence.getNextValue()).isEqualTo(120);
+    }
+
+    @Test
+    void advancePastSkipsImportedCodesInsideTheCurrentBlock() {
+        CodeSequence sequence = new CodeSequence(MaterialCodeAllocator.SEQUENCE_NAME, 100);
+        when(codeSequenceRepository.findForUpdate(MaterialCodeAllocator.SEQUENCE_NAME)).thenReturn(Optional.of(sequence));
+        allocator.nextCode(); // holds 100..109
+
+        allocator.advancePast(List.of("MAT-000104", "custom-code"));
+
+        assertThat(allocator.nextCode()).isEqualTo("MAT-000105");
+        assertThat(sequence.getNextValue()).isEqualTo(110);
+    }
+
+    @Test
+    void advancePastMovesTheSequenceRowBeyondTheBlock() {
+        CodeSequence sequence = new CodeSequence(MaterialCodeAllocator.SEQUENCE_NAME, 100);
+        when(codeSequenceRepository.findForUpdate(MaterialCodeAllocator.SEQUENCE_NAME)).thenReturn(Optional.of(sequence));
+        allocator.nextCode(); // holds 100..109, row at 110
+
+        allocator.advancePast(List.of("MAT-000500"));
+
+        assertThat(sequence.getNextValue()).isEqualTo(501);
+        assertThat(allocator.nextCode()).isEqualTo("MAT-000501");
+        assertThat(sequence.getNextValue()).isEqualTo(511);
+    }
+
+    @Test
+    void advancePastIgnoresCodesBelowTheNextNumber() {
+        CodeSequence sequence = new CodeSequence(MaterialCodeAllocator.SEQUENCE_NAME, 100);
+        when(codeSequenceRepository.findForUpdate(MaterialCodeAllocator.SEQUENCE_NAME)).thenReturn(Optional.of(sequence));
+        allocator.nextCode();
+
+        allocator.advancePast(List.of("MAT-000050"));
+
+        assertThat(allocator.nextCode()).isEqualTo("MAT-000101");
+    }
+}
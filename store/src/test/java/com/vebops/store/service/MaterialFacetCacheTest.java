@@ -0,0 +1,81 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.FacetCountDto;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MaterialFacetCacheTest {
+
+    private static final List<Object[]> STORED = List.of(
+        new Object[] { 1L, "Pipes", "m", "Supply" },
+        new Object[] { 2L, "Pipes", "pcs", "Supply" },
+        new Object[] { 3L, "Cables", "m", " " }
+    );
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    private MaterialFacetCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MaterialFacetCache(materialRepository);
+    }
+
+    @Test
+    void nothingIsServedBeforeTheFirstLoad() {
+        when(materialRepository.findFacetFields()).thenThrow(new IllegalStateException("database down"));
+
+        cache.rebuild();
+
+        assertThat(cache.values()).isEmpty();
+        assertThat(cache.counts(null, Set.of(), Set.of(), Set.of())).isEmpty();
+    }
+
+    @Test
+    void writesCommittedDuringARebuildAreReplayedOnTheFreshSnapshot(@Mock Material valve) {
+        when(valve.getId()).thenReturn(2L);
+        when(valve.getCategory()).thenReturn("Fittings");
+        when(valve.getUnit()).thenReturn("pcs");
+        when(valve.getLineType()).thenReturn("Supply");
+        // The rows were read before the valve was recategorised and the cable deleted.
+        when(materialRepository.findFacetFields()).thenAnswer(invocation -> {
+            cache.recordAfterCommit(valve);
+            cache.removeAfterCommit(3L);
+            return STORED;
+        });
+
+        cache.rebuild();
+
+        Map<String, List<FacetCountDto>> counts = cache.counts(null, Set.of(), Set.of(), Set.of()).orElseThrow();
+        assertThat(counts.get("categories")).containsExactly(new FacetCountDto("Fittings", 1), new FacetCountDto("Pipes", 1));
+        assertThat(counts.get("units")).containsExactly(new FacetCountDto("m", 1), new FacetCountDto("pcs", 1));
+        assertThat(counts.get("lineTypes")).containsExactly(new FacetCountDto("Supply", 2));
+    }
+
+    @Test
+    void eachFacetIsCountedUnderTheOtherSelectionsOnly() {
+        when(materialRepository.findFacetFields()).thenReturn(STORED);
+        cache.rebuild();
+
+        Map<String, List<FacetCountDto>> counts = cache.counts(id -> id != 2L, Set.of("Pipes"), Set.of(), Set.of())
+            .orElseThrow();
+
+        assertThat(counts.get("categories")).containsExactly(new FacetCountDto("Cables", 1), new FacetCountDto("Pipes", 1));
+        assertThat(counts.get("units")).containsExactly(new FacetCountDto("m", 1));
+        assertThat(counts.get("lineTypes")).containsExactly(new FacetCountDto("Supply", 1));
+        assertThat(cache.values().orElseThrow().get("lineTypes")).containsExactly("Supply");
+    }
+}
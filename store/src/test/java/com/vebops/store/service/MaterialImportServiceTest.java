@@ -0,0 +1,177 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.MaterialImportResultDto;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.MaterialRepository;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class MaterialImportServiceTest {
+
+    private static final String[] BOLT = { "Bolt", "", "", "pcs", "", "" };
+    private static final String[] NUT = { "Nut", "", "", "pcs", "", "" };
+    private static final String[] WASHER = { "Washer", "", "", "pcs", "", "" };
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private MaterialSearchIndex searchIndex;
+
+    @Mock
+    private MaterialFacetCache facetCache;
+
+    @Mock
+    private MaterialCodeAllocator materialCodeAllocator;
+
+    @Mock
+    private AnalyticsSnapshotService analyticsSnapshotService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<MaterialImportService.BatchProgress> reports = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(materialRepository.findIdsAndCodes()).thenReturn(List.of());
+        when(materialCodeAllocator.nextCode()).thenReturn("MAT-000001", "MAT-000002", "MAT-000003", "MAT-000004");
+    }
+
+    @Test
+    void progressIsReportedInsideEachBatchTransaction(@Mock MaterialImportService.ProgressListener listener)
+        throws IOException {
+        MaterialImportResultDto result = service(2).importFile(workbook(BOLT, NUT, WASHER), 0, listener);
+
+        assertThat(result.created()).isEqualTo(3);
+        InOrder order = inOrder(listener, transactionManager);
+        for (int batch = 0; batch < 2; batch++) {
+            order.verify(transactionManager).getTransaction(any());
+            order.verify(listener).batchCommitted(any());
+            order.verify(transactionManager).commit(any());
+        }
+    }
+
+    @Test
+    void reportsAddUpToTheResultAndEndAtTheLastRow() throws IOException {
+        Path file = workbook(
+            BOLT,
+            new String[] { "", "", "", "pcs", "", "" },
+            new String[] { "Nut", "", "", "pcs", "", "MAT-000900" }
+        );
+
+        MaterialImportResultDto result = service(2).importFile(file, 0, reports::add);
+
+        assertThat(result.processedRows()).isEqualTo(3);
+        assertThat(result.created()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.errors()).singleElement().satisfies(error -> assertThat(error.row()).isEqualTo(3));
+        assertThat(reports.stream().mapToInt(MaterialImportService.BatchProgress::processedRows).sum()).isEqualTo(3);
+        assertThat(reports.stream().mapToInt(MaterialImportService.BatchProgress::created).sum()).isEqualTo(2);
+        assertThat(reports.stream().mapToInt(MaterialImportService.BatchProgress::failed).sum()).isEqualTo(1);
+        assertThat(reports.get(reports.size() - 1).lastRow()).isEqualTo(3);
+        verify(materialCodeAllocator).advancePast(List.of("MAT-000900"));
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRowAndOnlyCommittedRowsAreReported() throws IOException {
+        Path file = workbook(BOLT, new String[] { "Broken", "", "", "pcs", "", "" });
+        when(materialRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            Iterable<Material> materials = invocation.getArgument(0);
+            for (Material material : materials) {
+                if ("Broken".equals(material.getName())) {
+                    throw new DataIntegrityViolationException("duplicate");
+                }
+            }
+            return List.of();
+        });
+
+        MaterialImportResultDto result = service(10).importFile(file, 0, reports::add);
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        // The committed row is reported with its batch; the failure trails after it.
+        assertThat(reports).hasSize(2);
+        assertThat(reports.get(0).lastRow()).isEqualTo(1);
+        assertThat(reports.get(0).created()).isEqualTo(1);
+        assertThat(reports.get(1).lastRow()).isEqualTo(2);
+        assertThat(reports.get(1).failed()).isEqualTo(1);
+    }
+
+    @Test
+    void resumeSkipsRowsUpToTheLastCommittedRow() throws IOException {
+        MaterialImportResultDto result = service(10).importFile(workbook(BOLT, NUT, WASHER), 2, reports::add);
+
+        assertThat(result.processedRows()).isEqualTo(1);
+        assertThat(reports).singleElement().satisfies(report -> assertThat(report.lastRow()).isEqualTo(3));
+    }
+
+    private MaterialImportService service(int batchSize) {
+        return new MaterialImportService(
+            materialRepository,
+            searchIndex,
+            facetCache,
+            materialCodeAllocator,
+            analyticsSnapshotService,
+            entityManager,
+            transactionManager,
+            batchSize
+        );
+    }
+
+    private Path workbook(String[]... rows) throws IOException {
+        Path file = Files.createTempFile(tempDir, "materials", ".xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            String[] header = { "Name", "Part No", "Line Type", "Unit", "Category", "Code" };
+            Row headerRow = sheet.createRow(0);
+            for (int col = 0; col < header.length; col++) {
+                headerRow.createCell(col).setCellValue(header[col]);
+            }
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r + 1);
+                for (int col = 0; col < rows[r].length; col++) {
+                    row.createCell(col).setCellValue(rows[r][col]);
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+}
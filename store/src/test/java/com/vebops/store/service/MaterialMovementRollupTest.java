@@ -0,0 +1,144 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.vebops.store.model.Material;
+import com.vebops.store.model.OutwardLine;
+import com.vebops.store.model.OutwardRecord;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.TransferLine;
+import com.vebops.store.model.TransferRecord;
+import com.vebops.store.repository.MaterialMovementQueries;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class MaterialMovementRollupTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @Mock
+    private MaterialMovementQueries queries;
+
+    @Mock
+    private StockAlertEngine alerts;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Project site;
+
+    @Mock
+    private Project yard;
+
+    @Mock
+    private Material pipe;
+
+    @Mock
+    private Material valve;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> upserted;
+
+    private MaterialMovementRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(site.getId()).thenReturn(1L);
+        lenient().when(yard.getId()).thenReturn(2L);
+        lenient().when(pipe.getId()).thenReturn(10L);
+        lenient().when(valve.getId()).thenReturn(11L);
+        rollup = new MaterialMovementRollup(queries, alerts, transactionManager, 31, 1);
+    }
+
+    @Test
+    void outwardLinesOfOneMaterialAreSummedIntoOneDay() {
+        OutwardRecord record = new OutwardRecord();
+        record.setProject(site);
+        record.setEntryDate(DAY);
+        addIssue(record, pipe, 2);
+        addIssue(record, pipe, 3);
+        addIssue(record, valve, 1);
+
+        rollup.recordOutward(record);
+
+        verify(queries).upsert(upserted.capture());
+        assertThat(upserted.getValue()).satisfiesExactly(
+            row -> assertThat(row).containsExactly(1L, 10L, Date.valueOf(DAY), 0d, 0d, 5d, 0d, 0d),
+            row -> assertThat(row).containsExactly(1L, 11L, Date.valueOf(DAY), 0d, 0d, 1d, 0d, 0d)
+        );
+        verify(alerts).balancesChanged(1L, Set.of(10L, 11L));
+    }
+
+    @Test
+    void transfersMoveQuantityBetweenProjects() {
+        TransferRecord record = new TransferRecord();
+        record.setFromProject(site);
+        record.setToProject(yard);
+        record.setTransferDate(DAY);
+        TransferLine line = new TransferLine();
+        line.setMaterial(pipe);
+        line.setTransferQty(4);
+        record.getLines().add(line);
+
+        rollup.recordTransfer(record);
+
+        verify(queries).upsert(upserted.capture());
+        assertThat(upserted.getValue()).satisfiesExactly(
+            row -> assertThat(row).containsExactly(2L, 10L, Date.valueOf(DAY), 0d, 0d, 0d, 4d, 0d),
+            row -> assertThat(row).containsExactly(1L, 10L, Date.valueOf(DAY), 0d, 0d, 0d, 0d, 4d)
+        );
+    }
+
+    @Test
+    void issueChangesSkipUnchangedMaterialsAndUseTheIssueDate() {
+        OutwardRecord record = new OutwardRecord();
+        record.setProject(site);
+        record.setDate(DAY);
+        record.setEntryDate(DAY.plusDays(2));
+        Map<Long, Double> deltas = new LinkedHashMap<>();
+        deltas.put(10L, -2d);
+        deltas.put(11L, 0d);
+
+        rollup.recordIssueChanges(record, deltas);
+
+        verify(queries).upsert(upserted.capture());
+        assertThat(upserted.getValue()).singleElement()
+            .satisfies(row -> assertThat(row).containsExactly(1L, 10L, Date.valueOf(DAY), 0d, 0d, -2d, 0d, 0d));
+        verify(alerts).balancesChanged(1L, Set.of(10L));
+    }
+
+    @Test
+    void recordsWithoutAProjectAreIgnored() {
+        OutwardRecord record = new OutwardRecord();
+        record.setEntryDate(DAY);
+        addIssue(record, pipe, 2);
+
+        rollup.recordOutward(record);
+
+        verifyNoInteractions(queries, alerts);
+    }
+
+    private static void addIssue(OutwardRecord record, Material material, double qty) {
+        OutwardLine line = new OutwardLine();
+        line.setMaterial(material);
+        line.setIssueQty(qty);
+        record.getLines().add(line);
+    }
+}
@@ -0,0 +1,91 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.MaterialDto;
+import com.vebops.store.dto.MaterialRequest;
+import com.vebops.store.model.Material;
+import com.vebops.store.repository.BomLineRepository;
+import com.vebops.store.repository.MaterialRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MaterialServiceTest {
+
+    private static final MaterialRequest BOLT = new MaterialRequest(null, "Bolt", null, null, "pcs", null);
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private BomLineRepository bomLineRepository;
+
+    @Mock
+    private MaterialSearchIndex searchIndex;
+
+    @Mock
+    private MaterialFacetCache facetCache;
+
+    @Mock
+    private MaterialCodeAllocator materialCodeAllocator;
+
+    @Mock
+    private AnalyticsSnapshotService analyticsSnapshotService;
+
+    @InjectMocks
+    private MaterialService service;
+
+    @BeforeEach
+    void setUp() {
+        when(materialCodeAllocator.nextCode()).thenReturn("MAT-000500", "MAT-000501", "MAT-000502");
+    }
+
+    @Test
+    void createSkipsAGeneratedCodeThatIsAlreadyTaken() {
+        when(materialRepository.save(any())).thenAnswer(invocation -> {
+            Material material = invocation.getArgument(0);
+            if ("MAT-000500".equals(material.getCode())) {
+                throw new DataIntegrityViolationException("Duplicate entry 'MAT-000500'");
+            }
+            return material;
+        });
+        when(materialRepository.findByCodeIgnoreCase("MAT-000500")).thenReturn(Optional.of(new Material()));
+
+        MaterialDto created = service.create(BOLT);
+
+        assertThat(created.code()).isEqualTo("MAT-000501");
+    }
+
+    @Test
+    void createRethrowsFailuresThatAreNotCodeCollisions() {
+        when(materialRepository.save(any())).thenThrow(new DataIntegrityViolationException("name too long"));
+
+        assertThatThrownBy(() -> service.create(BOLT)).isInstanceOf(DataIntegrityViolationException.class);
+        verify(materialRepository, times(1)).save(any());
+    }
+
+    @Test
+    void createGivesUpAfterRepeatedCollisions() {
+        when(materialRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(materialRepository.findByCodeIgnoreCase(startsWith("MAT-"))).thenReturn(Optional.of(new Material()));
+
+        assertThatThrownBy(() -> service.create(BOLT)).isInstanceOf(DataIntegrityViolationException.class);
+        verify(materialRepository, times(3)).save(any());
+    }
+}
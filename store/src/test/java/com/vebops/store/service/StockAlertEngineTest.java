@@ -0,0 +1,224 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.model.Material;
+import com.vebops.store.model.Project;
+import com.vebops.store.model.StockAlert;
+import com.vebops.store.model.StockAlertRule;
+import com.vebops.store.model.StockAlertStatus;
+import com.vebops.store.model.StockAlertType;
+import com.vebops.store.repository.MaterialMovementQueries;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.StockAlertRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StockAlertEngineTest {
+
+    @Mock
+    private StockAlertRepository alertRepository;
+
+    @Mock
+    private StockAlertRuleService ruleService;
+
+    @Mock
+    private MaterialMovementQueries movementQueries;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private BomAllocationCache bomAllocationCache;
+
+    @Mock
+    private AccessScopeService accessScopeService;
+
+    @Mock
+    private ObjectProvider<JavaMailSender> mailSender;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Material pipe;
+
+    @Mock
+    private Project project;
+
+    @Captor
+    private ArgumentCaptor<List<StockAlert>> saved;
+
+    private StockAlertEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(pipe.getId()).thenReturn(10L);
+        when(pipe.getCode()).thenReturn("MAT-000010");
+        when(pipe.getName()).thenReturn("Pipe");
+        when(pipe.getUnit()).thenReturn("m");
+        when(materialRepository.findAllById(anyCollection())).thenReturn(List.of(pipe));
+        when(projectRepository.findForUpdate(1L)).thenReturn(Optional.of(project));
+        // Allocated on the BOM, nothing received or issued yet.
+        when(bomAllocationCache.allocations(1L)).thenReturn(Map.of(10L, 50d));
+        engine = new StockAlertEngine(
+            alertRepository,
+            ruleService,
+            movementQueries,
+            materialRepository,
+            projectRepository,
+            bomAllocationCache,
+            accessScopeService,
+            mailSender,
+            transactionManager,
+            -1,
+            -1,
+            "",
+            ""
+        );
+    }
+
+    @Test
+    void freshAllocationWithoutARuleOpensNoAlert() {
+        engine.balancesChanged(1L, List.of(10L));
+
+        verify(alertRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void lowStockRuleOpensAnAlert() {
+        StockAlertRule rule = new StockAlertRule();
+        rule.setLowStockQty(0d);
+        givenRule(rule);
+
+        engine.balancesChanged(1L, List.of(10L));
+
+        verify(alertRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement().satisfies(alert -> {
+            assertThat(alert.getType()).isEqualTo(StockAlertType.LOW_STOCK);
+            assertThat(alert.getStatus()).isEqualTo(StockAlertStatus.OPEN);
+            assertThat(alert.getAllocatedQty()).isEqualTo(50d);
+            assertThat(alert.getMessage()).isEqualTo("MAT-000010 Pipe: balance 0 m, 50 still to issue");
+        });
+    }
+
+    @Test
+    void openAlertIsResolvedOnceStockArrives() {
+        StockAlertRule rule = new StockAlertRule();
+        rule.setLowStockQty(0d);
+        givenRule(rule);
+        StockAlert open = new StockAlert();
+        open.setProjectId(1L);
+        open.setMaterialId(10L);
+        open.setType(StockAlertType.LOW_STOCK);
+        when(alertRepository.findByProjectIdAndMaterialIdInAndStatus(eq(1L), anyCollection(), eq(StockAlertStatus.OPEN)))
+            .thenReturn(List.of(open));
+        when(movementQueries.materialTotals(eq(1L), anyCollection()))
+            .thenReturn(List.<Object[]>of(new Object[] { 10L, 60d, 60d, 0d }));
+
+        engine.balancesChanged(1L, List.of(10L));
+
+        verify(alertRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).containsExactly(open);
+        assertThat(open.getStatus()).isEqualTo(StockAlertStatus.RESOLVED);
+        assertThat(open.getResolvedAt()).isNotNull();
+    }
+
+    @Test
+    void evaluationLocksTheProjectAndSkipsDeletedOnes() {
+        StockAlertRule rule = new StockAlertRule();
+        rule.setLowStockQty(0d);
+        givenRule(rule);
+
+        engine.balancesChanged(2L, List.of(10L));
+
+        verify(projectRepository).findForUpdate(2L);
+        verify(movementQueries, never()).materialTotals(any(), anyCollection());
+        verify(alertRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void reevaluationResolvesAlertsARemovedRuleNoLongerCovers() {
+        StockAlert open = new StockAlert();
+        open.setProjectId(1L);
+        open.setMaterialId(10L);
+        open.setType(StockAlertType.LOW_STOCK);
+        when(bomAllocationCache.allocations(1L)).thenReturn(Map.of());
+        when(alertRepository.findByProjectIdAndStatus(1L, StockAlertStatus.OPEN)).thenReturn(List.of(open));
+        when(alertRepository.findByProjectIdAndMaterialIdInAndStatus(1L, Set.of(10L), StockAlertStatus.OPEN))
+            .thenReturn(List.of(open));
+
+        engine.reevaluate(1L, null);
+
+        verify(alertRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).containsExactly(open);
+        assertThat(open.getStatus()).isEqualTo(StockAlertStatus.RESOLVED);
+    }
+
+    @Test
+    void reevaluationOfAMaterialRuleOnlyChecksThatMaterial() {
+        when(projectRepository.findAllIds()).thenReturn(List.of(1L));
+        when(movementQueries.projectTotals(1L)).thenReturn(List.<Object[]>of(new Object[] { 11L, 5d, 0d }));
+
+        engine.reevaluate(null, 10L);
+
+        verify(movementQueries).materialTotals(1L, Set.of(10L));
+    }
+
+    @Test
+    void aFailingProjectDoesNotStopTheOthers() {
+        StockAlertRule rule = new StockAlertRule();
+        rule.setLowStockQty(0d);
+        givenRule(rule);
+        when(projectRepository.findForUpdate(3L)).thenReturn(Optional.of(project));
+        when(bomAllocationCache.allocations(3L)).thenReturn(Map.of(10L, 50d));
+        doThrow(new IllegalStateException("lock wait timeout")).when(movementQueries).materialTotals(eq(3L), anyCollection());
+        when(projectRepository.findAllIds()).thenReturn(List.of(3L, 1L));
+
+        engine.reevaluate(null, null);
+
+        verify(movementQueries).materialTotals(eq(3L), anyCollection());
+        verify(alertRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement().extracting(StockAlert::getProjectId).isEqualTo(1L);
+    }
+
+    /** Makes {@code rule} the match for every threshold it sets. */
+    @SuppressWarnings("unchecked")
+    private void givenRule(StockAlertRule rule) {
+        when(ruleService.resolve(eq(1L), eq(10L), any(), any()))
+            .thenAnswer(invocation -> {
+                Function<StockAlertRule, Double> threshold = invocation.getArgument(3);
+                return threshold.apply(rule) != null ? rule : null;
+            });
+    }
+}
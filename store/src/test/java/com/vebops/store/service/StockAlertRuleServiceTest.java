@@ -0,0 +1,76 @@
+package com.vebops.store.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.dto.StockAlertRuleRequest;
+import com.vebops.store.model.StockAlertRule;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.StockAlertRuleRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+@ExtendWith(MockitoExtension.class)
+class StockAlertRuleServiceTest {
+
+    @Mock
+    private StockAlertRuleRepository ruleRepository;
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private ObjectProvider<StockAlertEngine> engineProvider;
+
+    @Mock
+    private StockAlertEngine engine;
+
+    private StockAlertRuleService service;
+
+    @BeforeEach
+    void setUp() {
+        when(engineProvider.getIfAvailable()).thenReturn(engine);
+        service = new StockAlertRuleService(ruleRepository, projectRepository, materialRepository, engineProvider);
+    }
+
+    @Test
+    void movingARuleReevaluatesTheOldAndNewProjects() {
+        StockAlertRule rule = new StockAlertRule();
+        rule.setProjectId(1L);
+        rule.setLowStockQty(5d);
+        when(ruleRepository.findById(7L)).thenReturn(Optional.of(rule));
+        when(ruleRepository.findAll()).thenReturn(List.of());
+        when(ruleRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(projectRepository.existsById(2L)).thenReturn(true);
+
+        service.updateRule(7L, new StockAlertRuleRequest("2", null, null, 5d, null, true));
+
+        verify(engine).reevaluate(1L, null);
+        verify(engine).reevaluate(2L, null);
+        verifyNoMoreInteractions(engine);
+    }
+
+    @Test
+    void deletingAGlobalRuleReevaluatesEveryProject() {
+        StockAlertRule rule = new StockAlertRule();
+        rule.setLowStockQty(5d);
+        when(ruleRepository.findById(7L)).thenReturn(Optional.of(rule));
+
+        service.deleteRule(7L);
+
+        verify(ruleRepository).delete(rule);
+        verify(engine).reevaluate(null, null);
+    }
+}
@@ -0,0 +1,180 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.model.InwardLine;
+import com.vebops.store.model.InwardRecord;
+import com.vebops.store.model.Material;
+import com.vebops.store.model.OutwardLine;
+import com.vebops.store.model.OutwardRecord;
+import com.vebops.store.model.Project;
+import com.vebops.store.repository.MaterialRepository;
+import com.vebops.store.repository.ProjectRepository;
+import com.vebops.store.repository.StockLayerQueries;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StockValuationServiceTest {
+
+    private static final LocalDate JAN = LocalDate.of(2024, 1, 10);
+    private static final LocalDate FEB = LocalDate.of(2024, 2, 10);
+    private static final LocalDate MAR = LocalDate.of(2024, 3, 10);
+    private static final BigDecimal TEN = new BigDecimal("10.0000");
+    private static final BigDecimal TWELVE = new BigDecimal("12.0000");
+
+    @Mock
+    private StockLayerQueries layers;
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private MaterialRepository materialRepository;
+
+    @Mock
+    private AccessScopeService accessScopeService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Project project;
+
+    @Mock
+    private Material cable;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> added;
+
+    private StockValuationService service;
+    private OutwardRecord issue;
+
+    @BeforeEach
+    void setUp() {
+        when(project.getId()).thenReturn(1L);
+        when(cable.getId()).thenReturn(10L);
+        service = new StockValuationService(
+            layers,
+            projectRepository,
+            materialRepository,
+            accessScopeService,
+            transactionManager,
+            "30,60,90"
+        );
+        issue = new OutwardRecord();
+        issue.setProject(project);
+        issue.setDate(MAR);
+    }
+
+    @Test
+    void issuesTakeFromTheOldestLayersFirst() {
+        givenLayers(new Object[] { JAN, TEN, 3d }, new Object[] { FEB, TWELVE, 5d });
+        issueCable(2);
+        issueCable(2);
+
+        service.recordIssues(issue);
+
+        InOrder order = inOrder(layers);
+        order.verify(layers).delete(1L, 10L, JAN, TEN);
+        order.verify(layers).setRemaining(1L, 10L, FEB, TWELVE, 4d);
+        verify(layers, never()).addShortfall(eq(1L), eq(10L), anyDouble());
+    }
+
+    @Test
+    void issuesBeyondTheLayersAreRecordedAsShortfall() {
+        givenLayers(new Object[] { JAN, TEN, 3d });
+        issueCable(5);
+
+        service.recordIssues(issue);
+
+        verify(layers).delete(1L, 10L, JAN, TEN);
+        verify(layers).addShortfall(1L, 10L, 2d);
+    }
+
+    @Test
+    void returnedIssuesPayDownTheShortfallFirst() {
+        when(layers.reduceShortfall(1L, 10L, 5d)).thenReturn(2d);
+        givenLayers(new Object[] { JAN, TEN, 1d }, new Object[] { FEB, TWELVE, 1d });
+
+        service.recordIssueChanges(issue, Map.of(10L, -5d));
+
+        verify(layers).add(added.capture());
+        assertThat(added.getValue()).singleElement()
+            .satisfies(row -> assertThat(row).containsExactly(1L, 10L, Date.valueOf(JAN), TEN, 3d));
+    }
+
+    @Test
+    void returnsFullyCoveredByTheShortfallAddNoLayer() {
+        when(layers.reduceShortfall(1L, 10L, 2d)).thenReturn(2d);
+
+        service.recordIssueChanges(issue, Map.of(10L, -2d));
+
+        verify(layers, never()).lockLayers(1L, 10L);
+        verify(layers, never()).add(anyList());
+    }
+
+    @Test
+    void editsToATransferOutwardLeaveTheLayersAlone() {
+        issue.setTransferOut(true);
+
+        service.recordIssueChanges(issue, Map.of(10L, 2d, 11L, -1d));
+
+        verifyNoInteractions(layers);
+    }
+
+    @Test
+    void reducedReceiptsComeOutOfTheirOwnLayerThenTheNewest() {
+        givenLayers(new Object[] { JAN, TEN, 4d }, new Object[] { FEB, TEN, 2d }, new Object[] { MAR, TWELVE, 3d });
+        InwardRecord receipt = new InwardRecord();
+        receipt.setProject(project);
+        receipt.setEntryDate(JAN);
+        InwardLine line = new InwardLine();
+        line.setMaterial(cable);
+        line.setUnitPrice(10d);
+        receipt.getLines().add(line);
+
+        service.recordInwardChanges(receipt, Map.of(10L, new double[] { 0d, -8d }));
+
+        InOrder order = inOrder(layers);
+        order.verify(layers).delete(1L, 10L, JAN, TEN);
+        order.verify(layers).delete(1L, 10L, MAR, TWELVE);
+        order.verify(layers).setRemaining(1L, 10L, FEB, TEN, 1d);
+    }
+
+    /** Open layers of the cable, oldest first, as date, unit cost and remaining quantity. */
+    private void givenLayers(Object[]... open) {
+        when(layers.lockLayers(1L, 10L)).thenReturn(new ArrayList<>(List.of(open)));
+    }
+
+    private void issueCable(double qty) {
+        OutwardLine line = new OutwardLine();
+        line.setMaterial(cable);
+        line.setIssueQty(qty);
+        issue.getLines().add(line);
+    }
+}
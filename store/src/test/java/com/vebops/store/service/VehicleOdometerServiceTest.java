@@ -0,0 +1,155 @@
+package com.vebops.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vebops.store.model.DailyLog;
+import com.vebops.store.model.EntryStatus;
+import com.vebops.store.model.FuelEntry;
+import com.vebops.store.model.VehicleOdometerState;
+import com.vebops.store.repository.DailyLogRepository;
+import com.vebops.store.repository.FuelEntryRepository;
+import com.vebops.store.repository.VehicleOdometerStateRepository;
+import java.time.LocalDate;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class VehicleOdometerServiceTest {
+
+    private static final Long VEHICLE_ID = 7L;
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @Mock
+    private VehicleOdometerStateRepository stateRepository;
+
+    @Mock
+    private DailyLogRepository dailyLogRepository;
+
+    @Mock
+    private FuelEntryRepository fuelEntryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<VehicleOdometerState> seeded;
+
+    private VehicleOdometerService service;
+    private VehicleOdometerState state;
+
+    @BeforeEach
+    void setUp() {
+        service = new VehicleOdometerService(stateRepository, dailyLogRepository, fuelEntryRepository, transactionManager);
+        state = new VehicleOdometerState(VEHICLE_ID);
+    }
+
+    @Test
+    void lockSeedsAMissingStateFromTheVehicleRecords() {
+        DailyLog closed = new DailyLog();
+        closed.setDate(DAY);
+        closed.setClosingKm(150d);
+        DailyLog open = new DailyLog();
+        open.setId(4L);
+        when(stateRepository.existsById(VEHICLE_ID)).thenReturn(false);
+        when(stateRepository.findForUpdate(VEHICLE_ID)).thenReturn(Optional.of(state));
+        when(dailyLogRepository.findFirstByVehicleIdAndStatusAndClosingKmIsNotNullOrderByDateDescIdDesc(VEHICLE_ID, EntryStatus.CLOSED))
+            .thenReturn(Optional.of(closed));
+        when(dailyLogRepository.findFirstByVehicleIdAndStatusOrderByIdAsc(VEHICLE_ID, EntryStatus.OPEN))
+            .thenReturn(Optional.of(open));
+
+        assertThat(service.lock(VEHICLE_ID)).isSameAs(state);
+
+        verify(stateRepository).saveAndFlush(seeded.capture());
+        assertThat(seeded.getValue().getLastLogClosingKm()).isEqualTo(150d);
+        assertThat(seeded.getValue().getOpenLogId()).isEqualTo(4L);
+        assertThat(seeded.getValue().getOpenFuelEntryId()).isNull();
+    }
+
+    @Test
+    void lockDoesNotSeedAnExistingState() {
+        when(stateRepository.existsById(VEHICLE_ID)).thenReturn(true);
+        when(stateRepository.findForUpdate(VEHICLE_ID)).thenReturn(Optional.of(state));
+
+        service.lock(VEHICLE_ID);
+
+        verify(stateRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void closingTheOpenLogMovesToTheNextOpenOne() {
+        state.setOpenLogId(3L);
+        DailyLog next = new DailyLog();
+        next.setId(5L);
+        when(dailyLogRepository.findFirstByVehicleIdAndStatusOrderByIdAsc(VEHICLE_ID, EntryStatus.OPEN))
+            .thenReturn(Optional.of(next));
+
+        service.logClosed(state, closedLog(3L));
+
+        assertThat(state.getOpenLogId()).isEqualTo(5L);
+        assertThat(state.getLastLogClosingKm()).isEqualTo(150d);
+    }
+
+    @Test
+    void closingAnotherLogKeepsTheOpenOne() {
+        state.setOpenLogId(5L);
+
+        service.logClosed(state, closedLog(3L));
+
+        assertThat(state.getOpenLogId()).isEqualTo(5L);
+        verify(dailyLogRepository, never()).findFirstByVehicleIdAndStatusOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void deletingTheLatestClosedFuelEntryFallsBackToThePreviousOne() {
+        state.fuelEntryClosed(DAY, 300d);
+        FuelEntry previous = new FuelEntry();
+        previous.setDate(DAY.minusDays(3));
+        previous.setClosingKm(250d);
+        when(fuelEntryRepository.findFirstByVehicleIdAndStatusAndClosingKmIsNotNullOrderByDateDescIdDesc(VEHICLE_ID, EntryStatus.CLOSED))
+            .thenReturn(Optional.of(previous));
+
+        service.fuelEntryDeleted(state, closedFuelEntry());
+
+        assertThat(state.getLastFuelClosingKm()).isEqualTo(250d);
+        assertThat(state.getLastFuelClosingDate()).isEqualTo(DAY.minusDays(3));
+    }
+
+    @Test
+    void deletingTheOnlyClosedFuelEntryClearsTheReading() {
+        state.fuelEntryClosed(DAY, 300d);
+
+        service.fuelEntryDeleted(state, closedFuelEntry());
+
+        assertThat(state.getLastFuelClosingKm()).isNull();
+        assertThat(state.getLastFuelClosingDate()).isNull();
+    }
+
+    private DailyLog closedLog(Long id) {
+        DailyLog dailyLog = new DailyLog();
+        dailyLog.setId(id);
+        dailyLog.setDate(DAY);
+        dailyLog.setClosingKm(150d);
+        dailyLog.setStatus(EntryStatus.CLOSED);
+        return dailyLog;
+    }
+
+    private FuelEntry closedFuelEntry() {
+        FuelEntry entry = new FuelEntry();
+        entry.setId(2L);
+        entry.setDate(DAY);
+        entry.setClosingKm(300d);
+        entry.setStatus(EntryStatus.CLOSED);
+        return entry;
+    }
+}
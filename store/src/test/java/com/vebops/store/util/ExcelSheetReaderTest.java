@@ -0,0 +1,96 @@
+package com.vebops.store.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExcelSheetReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvHandlesQuotesEscapesAndLineBreaks() throws Exception {
+        Path file = write("\uFEFFcode,name,unit\r\n\"A,1\",\"Pipe \"\"2in\"\"\",\"m\nlong\"\r\n");
+
+        Map<Integer, List<String>> rows = readCsv(file, 3);
+
+        assertThat(rows).containsOnlyKeys(0, 1);
+        assertThat(rows.get(0)).containsExactly("code", "name", "unit");
+        assertThat(rows.get(1)).containsExactly("A,1", "Pipe \"2in\"", "m\nlong");
+    }
+
+    @Test
+    void csvSkipsEmptyRowsButKeepsTheirNumbers() throws Exception {
+        Path file = write("code,name\n\n , \nB,Bolt");
+
+        Map<Integer, List<String>> rows = readCsv(file, 2);
+
+        assertThat(rows).containsOnlyKeys(0, 3);
+        assertThat(rows.get(3)).containsExactly("B", "Bolt");
+    }
+
+    @Test
+    void csvRowsArePaddedAndTrimmedToTheColumnCount() throws Exception {
+        Path file = write("A\nB, Bolt ,nos,extra\n");
+
+        Map<Integer, List<String>> rows = readCsv(file, 3);
+
+        assertThat(rows.get(0)).containsExactly("A", "", "");
+        assertThat(rows.get(1)).containsExactly("B", "Bolt", "nos");
+    }
+
+    @Test
+    void readsTheFirstSheetOfAWorkbook() throws Exception {
+        Path file = dir.resolve("materials.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Materials");
+            sheet.createRow(0).createCell(0).setCellValue("code");
+            Row row = sheet.createRow(2);
+            row.createCell(0).setCellValue("C");
+            row.createCell(2).setCellValue(12);
+            workbook.createSheet("Ignored").createRow(0).createCell(0).setCellValue("x");
+            workbook.write(out);
+        }
+
+        Map<Integer, List<String>> rows = new TreeMap<>();
+        ExcelSheetReader.read(file, 3, (rowNum, cells) -> rows.put(rowNum, new ArrayList<>(cells)));
+
+        assertThat(rows).containsOnlyKeys(0, 2);
+        assertThat(rows.get(0)).containsExactly("code", "", "");
+        assertThat(rows.get(2)).containsExactly("C", "", "12");
+    }
+
+    @Test
+    void rejectsFilesThatAreNotWorkbooks() throws Exception {
+        Path file = write("code,name\nA,Pipe\n");
+
+        assertThatThrownBy(() -> ExcelSheetReader.read(file, 2, (rowNum, cells) -> {}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = dir.resolve("materials.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static Map<Integer, List<String>> readCsv(Path file, int columnCount) throws Exception {
+        Map<Integer, List<String>> rows = new TreeMap<>();
+        ExcelSheetReader.readCsv(file, columnCount, (rowNum, cells) -> rows.put(rowNum, new ArrayList<>(cells)));
+        return rows;
+    }
+}
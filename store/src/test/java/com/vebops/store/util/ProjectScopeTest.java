@@ -0,0 +1,72 @@
+package com.vebops.store.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class ProjectScopeTest {
+
+    @Test
+    void sparseScopeContainsExactlyItsIds() {
+        ProjectScope scope = ProjectScope.of(7L, 3L, 70_000L, 3L, -1L);
+
+        assertThat(scope.size()).isEqualTo(3);
+        assertThat(scope.stream().toArray()).containsExactly(3L, 7L, 70_000L);
+        assertThat(scope.contains(7L)).isTrue();
+        assertThat(scope.contains(70_000L)).isTrue();
+        assertThat(scope.contains(8L)).isFalse();
+        assertThat(scope.contains(-1L)).isFalse();
+        assertThat(scope.contains((Long) null)).isFalse();
+    }
+
+    @Test
+    void denseContainerKeepsEveryId() {
+        long[] ids = LongStream.range(0, 10_000).map(id -> id * 2).toArray();
+        ProjectScope scope = ProjectScope.of(ids);
+
+        assertThat(scope.size()).isEqualTo(ids.length);
+        assertThat(scope.contains(19_998L)).isTrue();
+        assertThat(scope.contains(19_999L)).isFalse();
+        assertThat(scope.stream().toArray()).isEqualTo(ids);
+    }
+
+    @Test
+    void emptyInputsGiveNone() {
+        assertThat(ProjectScope.of(List.of())).isSameAs(ProjectScope.NONE);
+        assertThat(ProjectScope.of(Arrays.asList((Long) null))).isSameAs(ProjectScope.NONE);
+        assertThat(ProjectScope.NONE.isEmpty()).isTrue();
+        assertThat(ProjectScope.NONE.contains(1L)).isFalse();
+    }
+
+    @Test
+    void allContainsEverythingButCannotBeEnumerated() {
+        assertThat(ProjectScope.ALL.contains(123_456_789L)).isTrue();
+        assertThat(ProjectScope.ALL.isEmpty()).isFalse();
+        assertThatThrownBy(ProjectScope.ALL::size).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(ProjectScope.ALL::stream).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void intersectHandlesAllAndNone() {
+        ProjectScope left = ProjectScope.of(1L, 2L, 3L, 100_000L);
+        ProjectScope right = ProjectScope.of(2L, 3L, 4L, 100_000L);
+
+        assertThat(left.intersect(right).stream().toArray()).containsExactly(2L, 3L, 100_000L);
+        assertThat(ProjectScope.ALL.intersect(right)).isSameAs(right);
+        assertThat(left.intersect(ProjectScope.ALL)).isSameAs(left);
+        assertThat(left.intersect(ProjectScope.NONE)).isSameAs(ProjectScope.NONE);
+        assertThat(left.intersect(ProjectScope.of(9L))).isSameAs(ProjectScope.NONE);
+    }
+
+    @Test
+    void rangesCollapseConsecutiveIds() {
+        ProjectScope scope = ProjectScope.of(1L, 2L, 3L, 4L, 9L, 11L, 12L);
+
+        assertThat(scope.ranges())
+            .containsExactly(new ProjectScope.Range(1, 4), new ProjectScope.Range(9, 9), new ProjectScope.Range(11, 12));
+    }
+}